@@ -3,12 +3,14 @@ package ru.practicum.accounts;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Entry point for the accounts service.
  */
 @SpringBootApplication
 @EnableDiscoveryClient
+@EnableScheduling
 public class AccountsServiceApplication {
 
     public static void main(String[] args) {
@@ -3,9 +3,12 @@ package ru.practicum.accounts.account.model;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
@@ -27,7 +30,11 @@ import org.hibernate.annotations.GenericGenerator;
 @NoArgsConstructor
 @EqualsAndHashCode(of = "id")
 @Entity
-@Table(name = "users", schema = "accounts")
+@Table(
+        name = "users",
+        schema = "accounts",
+        indexes = @Index(name = "idx_users_kc_status_next", columnList = "kc_status, kc_next_attempt_at")
+)
 public class AccountEntity {
 
     @Id
@@ -53,6 +60,22 @@ public class AccountEntity {
     @Column(nullable = false)
     private boolean active = true;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kc_status", length = 20)
+    private ProvisioningStatus provisioningStatus = ProvisioningStatus.PROVISIONED;
+
+    @Column(name = "kc_attempts", nullable = false)
+    private int provisioningAttempts;
+
+    @Column(name = "kc_next_attempt_at")
+    private OffsetDateTime provisioningNextAttemptAt;
+
+    /**
+     * Hashed password waiting to be sent to Keycloak; cleared once the user is provisioned.
+     */
+    @Column(name = "kc_credential", length = 512)
+    private String pendingCredential;
+
     @Column(name = "created_at", nullable = false)
     private OffsetDateTime createdAt;
 
@@ -79,6 +102,13 @@ public class AccountEntity {
         bankAccount.setUser(this);
     }
 
+    /**
+     * Rows created before asynchronous provisioning have no status and already exist in Keycloak.
+     */
+    public boolean isKeycloakProvisioned() {
+        return provisioningStatus == null || provisioningStatus == ProvisioningStatus.PROVISIONED;
+    }
+
     // backward compatibility helpers
     public BankAccountEntity getBankAccount() {
         return bankAccounts.isEmpty() ? null : bankAccounts.getFirst();
@@ -0,0 +1,28 @@
+package ru.practicum.accounts.account.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Marker of a transfer that has already been applied to balances.
+ * Written in the same transaction as the balance updates, so a resent transfer id is applied at most once.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "applied_transfers", schema = "accounts")
+public class AppliedTransferEntity {
+
+    @Id
+    @Column(name = "transfer_id")
+    private UUID transferId;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+}
@@ -17,6 +17,7 @@ import java.util.UUID;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Check;
 import org.hibernate.annotations.GenericGenerator;
 
 /**
@@ -27,6 +28,7 @@ import org.hibernate.annotations.GenericGenerator;
 @EqualsAndHashCode(of = "id")
 @Entity
 @Table(name = "bank_accounts", schema = "accounts")
+@Check(name = "chk_balance_nonneg", constraints = "balance >= 0")
 public class BankAccountEntity {
 
     @Id
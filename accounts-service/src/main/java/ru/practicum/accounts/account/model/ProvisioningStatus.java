@@ -0,0 +1,10 @@
+package ru.practicum.accounts.account.model;
+
+/**
+ * State of the Keycloak user behind a local account.
+ */
+public enum ProvisioningStatus {
+    PENDING,
+    PROVISIONED,
+    FAILED
+}
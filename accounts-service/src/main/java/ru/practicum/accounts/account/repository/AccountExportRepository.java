@@ -0,0 +1,17 @@
+package ru.practicum.accounts.account.repository;
+
+import java.util.function.Consumer;
+import ru.practicum.accounts.account.web.dto.AccountDto;
+
+/**
+ * Cursor-based iteration over the whole user directory.
+ */
+public interface AccountExportRepository {
+
+    /**
+     * Streams every user with its primary bank account, ordered by login, to {@code consumer}.
+     * Rows are fetched in bounded chunks; must be called inside a transaction so the driver
+     * can keep a server-side cursor open.
+     */
+    void forEachProfile(Consumer<AccountDto> consumer);
+}
@@ -0,0 +1,48 @@
+package ru.practicum.accounts.account.repository;
+
+import java.time.LocalDate;
+import java.util.function.Consumer;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.accounts.account.web.dto.AccountDto;
+
+class AccountExportRepositoryImpl implements AccountExportRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String exportSql;
+
+    AccountExportRepositoryImpl(DataSource dataSource,
+                                @Value("${spring.jpa.properties.hibernate.default_schema:accounts}") String schema,
+                                @Value("${app.export.fetch-size:500}") int fetchSize) {
+        // Dedicated template: the fetch size would otherwise apply to every query in the service.
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.exportSql = """
+                SELECT u.login, u.name, u.birthdate, b.account_number, b.currency, COALESCE(b.balance, 0) AS balance
+                FROM %1$s.users u
+                LEFT JOIN LATERAL (
+                    SELECT p.account_number, p.currency, p.balance
+                    FROM %1$s.bank_accounts p
+                    WHERE p.user_id = u.id
+                    ORDER BY p.created_at
+                    LIMIT 1
+                ) b ON true
+                ORDER BY u.login
+                """.formatted(schema);
+    }
+
+    @Override
+    public void forEachProfile(Consumer<AccountDto> consumer) {
+        jdbcTemplate.query(exportSql, rs -> {
+            consumer.accept(new AccountDto(
+                    rs.getString("login"),
+                    rs.getString("name"),
+                    rs.getObject("birthdate", LocalDate.class),
+                    rs.getString("account_number"),
+                    rs.getString("currency"),
+                    rs.getBigDecimal("balance")
+            ));
+        });
+    }
+}
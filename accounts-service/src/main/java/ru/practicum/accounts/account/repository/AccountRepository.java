@@ -1,21 +1,93 @@
 package ru.practicum.accounts.account.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.accounts.account.model.AccountEntity;
+import ru.practicum.accounts.account.model.ProvisioningStatus;
+import ru.practicum.accounts.account.web.dto.AccountDto;
 
 /**
  * Repository for user profiles.
  */
-public interface AccountRepository extends JpaRepository<AccountEntity, UUID> {
+public interface AccountRepository extends JpaRepository<AccountEntity, UUID>, AccountExportRepository {
 
     Optional<AccountEntity> findByLogin(String login);
 
+    /**
+     * Loads the user under a row lock; serializes deletion with the Keycloak provisioning worker.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<AccountEntity> findLockedByLogin(String login);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<AccountEntity> findLockedById(UUID id);
+
     boolean existsByLogin(String login);
 
     @Override
     List<AccountEntity> findAll();
+
+    /**
+     * Lists every user together with the primary (oldest) bank account in a single statement,
+     * without initializing the lazy bankAccounts collection per row.
+     */
+    @Query("""
+            select new ru.practicum.accounts.account.web.dto.AccountDto(
+                a.login, a.name, a.birthdate, b.accountNumber, b.currency, b.balance)
+            from AccountEntity a
+            left join a.bankAccounts b
+            where b.id is null
+               or b.createdAt = (select min(p.createdAt) from BankAccountEntity p where p.user = a)
+            order by a.login
+            """)
+    List<AccountDto> findAllProfiles();
+
+    /**
+     * Keyset page of the user directory ordered by login. {@code prefix} is an already escaped,
+     * lower-cased LIKE pattern matched against login and name; {@code afterLogin} is the last login
+     * of the previous page ("" for the first one).
+     */
+    @Query("""
+            select new ru.practicum.accounts.account.web.dto.AccountDto(
+                a.login, a.name, a.birthdate, b.accountNumber, b.currency, b.balance)
+            from AccountEntity a
+            left join a.bankAccounts b
+            where (b.id is null
+                   or b.createdAt = (select min(p.createdAt) from BankAccountEntity p where p.user = a))
+              and (a.login like :prefix escape '\\' or lower(a.name) like :prefix escape '\\')
+              and a.login > :afterLogin
+            order by a.login
+            """)
+    List<AccountDto> findDirectoryPage(@Param("prefix") String prefix,
+                                       @Param("afterLogin") String afterLogin,
+                                       Pageable pageable);
+
+    @Query("select distinct a from AccountEntity a left join fetch a.bankAccounts where a.login in :logins")
+    List<AccountEntity> findAllWithBankAccountsByLoginIn(@Param("logins") Collection<String> logins);
+
+    /**
+     * Locks the next users due for Keycloak provisioning; rows held by another instance are skipped (SKIP LOCKED).
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+            select a from AccountEntity a
+            where a.provisioningStatus = :status and a.provisioningNextAttemptAt <= :now
+            order by a.provisioningNextAttemptAt
+            """)
+    List<AccountEntity> lockDueForProvisioning(@Param("status") ProvisioningStatus status,
+                                               @Param("now") OffsetDateTime now,
+                                               Pageable pageable);
 }
@@ -0,0 +1,33 @@
+package ru.practicum.accounts.account.repository;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.UUID;
+import ru.practicum.accounts.account.web.dto.AccountDetailsDto;
+
+/**
+ * Single-statement balance updates that bypass the persistence context.
+ */
+public interface BankAccountBalanceRepository {
+
+    /**
+     * Atomically adds {@code delta} to the given bank account (or to the user's primary account
+     * when {@code bankAccountId} is null) unless the resulting balance would become negative.
+     *
+     * @return details of the updated account, or empty when no row matched
+     */
+    Optional<AccountDetailsDto> applyBalanceDelta(UUID bankAccountId, String login, BigDecimal delta);
+
+    /**
+     * Records {@code transferId} as applied. The row stays locked until the current transaction ends,
+     * so a concurrent duplicate waits for it and then sees the transfer as already applied.
+     *
+     * @return false when the transfer has been applied before
+     */
+    boolean markTransferApplied(UUID transferId);
+
+    /**
+     * Reads the current balance of a bank account without locking it.
+     */
+    Optional<AccountDetailsDto> findDetails(UUID bankAccountId);
+}
@@ -0,0 +1,83 @@
+package ru.practicum.accounts.account.repository;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import ru.practicum.accounts.account.web.dto.AccountDetailsDto;
+
+class BankAccountBalanceRepositoryImpl implements BankAccountBalanceRepository {
+
+    private static final RowMapper<AccountDetailsDto> DETAILS_MAPPER = (rs, rowNum) -> new AccountDetailsDto(
+            rs.getObject("user_id", UUID.class),
+            rs.getObject("bank_account_id", UUID.class),
+            rs.getString("login"),
+            rs.getString("account_number"),
+            rs.getString("currency"),
+            rs.getBigDecimal("balance")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String byIdSql;
+    private final String byLoginSql;
+    private final String markAppliedSql;
+    private final String detailsSql;
+
+    BankAccountBalanceRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                     @Value("${spring.jpa.properties.hibernate.default_schema:accounts}") String schema) {
+        this.jdbcTemplate = jdbcTemplate;
+        // The balance guard in WHERE mirrors chk_balance_nonneg, so a failed withdrawal
+        // simply matches no row instead of raising a constraint violation.
+        String update = """
+                UPDATE %1$s.bank_accounts b
+                SET balance = b.balance + ?,
+                    version = b.version + 1,
+                    updated_at = now()
+                FROM %1$s.users u
+                WHERE u.id = b.user_id
+                  AND b.balance + ? >= 0
+                  AND b.id = %2$s
+                RETURNING u.id AS user_id, b.id AS bank_account_id, u.login,
+                          b.account_number, b.currency, b.balance
+                """;
+        this.byIdSql = update.formatted(schema, "?");
+        this.byLoginSql = update.formatted(schema, """
+                (SELECT p.id FROM %1$s.bank_accounts p
+                 JOIN %1$s.users pu ON pu.id = p.user_id
+                 WHERE pu.login = ?
+                 ORDER BY p.created_at
+                 LIMIT 1)""".formatted(schema));
+        this.markAppliedSql = """
+                INSERT INTO %s.applied_transfers (transfer_id, created_at)
+                VALUES (?, now())
+                ON CONFLICT (transfer_id) DO NOTHING
+                """.formatted(schema);
+        this.detailsSql = """
+                SELECT u.id AS user_id, b.id AS bank_account_id, u.login,
+                       b.account_number, b.currency, b.balance
+                FROM %1$s.bank_accounts b
+                JOIN %1$s.users u ON u.id = b.user_id
+                WHERE b.id = ?
+                """.formatted(schema);
+    }
+
+    @Override
+    public Optional<AccountDetailsDto> applyBalanceDelta(UUID bankAccountId, String login, BigDecimal delta) {
+        var rows = bankAccountId != null
+                ? jdbcTemplate.query(byIdSql, DETAILS_MAPPER, delta, delta, bankAccountId)
+                : jdbcTemplate.query(byLoginSql, DETAILS_MAPPER, delta, delta, login);
+        return rows.stream().findFirst();
+    }
+
+    @Override
+    public boolean markTransferApplied(UUID transferId) {
+        return jdbcTemplate.update(markAppliedSql, transferId) == 1;
+    }
+
+    @Override
+    public Optional<AccountDetailsDto> findDetails(UUID bankAccountId) {
+        return jdbcTemplate.query(detailsSql, DETAILS_MAPPER, bankAccountId).stream().findFirst();
+    }
+}
@@ -13,7 +13,7 @@ import ru.practicum.accounts.account.model.BankAccountEntity;
 /**
  * Repository for bank accounts with locking helpers.
  */
-public interface BankAccountRepository extends JpaRepository<BankAccountEntity, UUID> {
+public interface BankAccountRepository extends JpaRepository<BankAccountEntity, UUID>, BankAccountBalanceRepository {
 
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     Optional<BankAccountEntity> findFirstByUser_LoginOrderByCreatedAtAsc(String login);
@@ -23,6 +23,8 @@ public interface BankAccountRepository extends JpaRepository<BankAccountEntity,
 
     List<BankAccountEntity> findAllByUser_Login(String login);
 
+    boolean existsByUser_Login(String login);
+
     /**
      * Kept for backward compatibility, delegates to top-by-login selection.
      */
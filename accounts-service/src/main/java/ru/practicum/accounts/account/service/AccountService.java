@@ -1,20 +1,26 @@
 package ru.practicum.accounts.account.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.accounts.account.model.AccountEntity;
 import ru.practicum.accounts.account.model.BankAccountEntity;
+import ru.practicum.accounts.account.model.ProvisioningStatus;
 import ru.practicum.accounts.account.repository.AccountRepository;
 import ru.practicum.accounts.account.repository.BankAccountRepository;
 import ru.practicum.accounts.account.web.dto.AccountDetailsDto;
 import ru.practicum.accounts.account.web.dto.AccountDto;
+import ru.practicum.accounts.account.web.dto.AccountPageDto;
+import ru.practicum.accounts.account.web.dto.AccountTransferRequest;
+import ru.practicum.accounts.account.web.dto.AccountTransferResultDto;
 import ru.practicum.accounts.account.web.dto.BalanceAdjustmentRequest;
 import ru.practicum.accounts.account.web.dto.BalanceOperationType;
 import ru.practicum.accounts.account.web.dto.ChangePasswordRequest;
 import ru.practicum.accounts.account.web.dto.RegisterAccountRequest;
 import ru.practicum.accounts.account.web.dto.UpdateAccountRequest;
 import ru.practicum.accounts.clients.KeycloakAdminClient;
+import ru.practicum.accounts.clients.KeycloakPasswordHash;
 import ru.practicum.accounts.clients.NotificationsClient;
 import ru.practicum.accounts.exception.AccountAlreadyExistsException;
 import ru.practicum.accounts.exception.AccountDeletionException;
@@ -23,8 +29,13 @@ import ru.practicum.accounts.exception.InsufficientFundsException;
 
 import java.math.BigDecimal;
 import java.security.SecureRandom;
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * Core business logic for working with accounts.
@@ -33,6 +44,8 @@ import java.util.Locale;
 @RequiredArgsConstructor
 public class AccountService {
 
+    private static final int MAX_DIRECTORY_PAGE = 100;
+
     private final AccountRepository repository;
     private final BankAccountRepository bankAccountRepository;
     private final AccountMapper mapper;
@@ -49,7 +62,36 @@ public class AccountService {
 
     @Transactional(readOnly = true)
     public List<AccountDto> getAll() {
-        return repository.findAll().stream().map(mapper::toDto).toList();
+        return repository.findAllProfiles().stream()
+                .map(this::withBalanceOrZero)
+                .toList();
+    }
+
+    /**
+     * Streams the whole directory row by row instead of materializing it; see {@link #getAll()}
+     * for the in-memory variant.
+     */
+    @Transactional(readOnly = true)
+    public void exportAll(Consumer<AccountDto> consumer) {
+        repository.forEachProfile(consumer);
+    }
+
+    /**
+     * Returns one keyset page of users whose login or name starts with {@code query}.
+     * The page is fetched with one extra row to find out whether another page exists.
+     */
+    @Transactional(readOnly = true)
+    public AccountPageDto searchDirectory(String query, String cursor, int limit) {
+        int pageSize = Math.clamp(limit, 1, MAX_DIRECTORY_PAGE);
+        var prefix = escapeLike(query == null ? "" : query.trim().toLowerCase(Locale.ROOT)) + "%";
+        var rows = repository.findDirectoryPage(prefix, cursor == null ? "" : cursor, PageRequest.of(0, pageSize + 1));
+
+        var items = rows.stream()
+                .limit(pageSize)
+                .map(this::withBalanceOrZero)
+                .toList();
+        var nextCursor = rows.size() > pageSize ? items.getLast().login() : null;
+        return new AccountPageDto(items, nextCursor);
     }
 
     @Transactional(readOnly = true)
@@ -59,6 +101,19 @@ public class AccountService {
         return mapper.toDetailsDto(entity);
     }
 
+    /**
+     * Resolves details for several users with one query; unknown logins are simply absent from the result.
+     */
+    @Transactional(readOnly = true)
+    public List<AccountDetailsDto> getAccountDetails(Collection<String> logins) {
+        if (logins.isEmpty()) {
+            return List.of();
+        }
+        return repository.findAllWithBankAccountsByLoginIn(Set.copyOf(logins)).stream()
+                .map(mapper::toDetailsDto)
+                .toList();
+    }
+
     @Transactional
     public List<String> updateProfile(String login, UpdateAccountRequest request) {
         var entity = repository.findByLogin(login)
@@ -72,20 +127,24 @@ public class AccountService {
         return List.of();
     }
 
+    /**
+     * Persists the user locally and returns without calling Keycloak. Only a hash of the password
+     * is stored; {@link KeycloakProvisioningWorker} creates the Keycloak user and sends the
+     * registration notification once that succeeds.
+     * <p>
+     * A login whose provisioning ended in {@link ProvisioningStatus#FAILED} never got a usable
+     * Keycloak user, so registering it again replaces the profile and password and puts it back
+     * in the queue. That is refused once money has arrived on the account.
+     */
     @Transactional
     public List<String> register(RegisterAccountRequest request) {
         if (repository.existsByLogin(request.login())) {
-            throw new AccountAlreadyExistsException("Login already registered");
+            return registerAgain(request);
         }
 
-        var kcId = keycloakAdminClient.createUser(request.login(), request.password(), request.name(), request.email());
-
         var account = new AccountEntity();
         account.setLogin(request.login().toLowerCase(Locale.ROOT));
-        account.setName(request.name());
-        account.setEmail(request.email());
-        account.setBirthdate(request.birthdate());
-        account.setKeycloakId(kcId);
+        applyRegistration(account, request);
 
         var bankAccount = new BankAccountEntity();
         bankAccount.setAccountNumber(generateAccountNumber());
@@ -94,10 +153,36 @@ public class AccountService {
         account.addBankAccount(bankAccount);
 
         repository.save(account);
-        notificationsClient.sendRegistrationCompleted(request.login());
         return List.of();
     }
 
+    private List<String> registerAgain(RegisterAccountRequest request) {
+        var account = repository.findLockedByLogin(request.login().toLowerCase(Locale.ROOT))
+                .filter(existing -> existing.getProvisioningStatus() == ProvisioningStatus.FAILED)
+                .orElseThrow(() -> new AccountAlreadyExistsException("Login already registered"));
+        var bank = primary(account);
+        if (bank != null && bank.getBalance() != null && bank.getBalance().signum() != 0) {
+            throw new AccountAlreadyExistsException("Login already registered");
+        }
+        applyRegistration(account, request);
+        repository.save(account);
+        return List.of();
+    }
+
+    private static void applyRegistration(AccountEntity account, RegisterAccountRequest request) {
+        account.setName(request.name());
+        account.setEmail(request.email());
+        account.setBirthdate(request.birthdate());
+        requeueProvisioning(account, request.password());
+    }
+
+    private static void requeueProvisioning(AccountEntity account, String password) {
+        account.setProvisioningStatus(ProvisioningStatus.PENDING);
+        account.setProvisioningAttempts(0);
+        account.setPendingCredential(KeycloakPasswordHash.of(password).encode());
+        account.setProvisioningNextAttemptAt(OffsetDateTime.now());
+    }
+
     @Transactional(readOnly = true)
     public List<ru.practicum.accounts.account.web.dto.BankAccountDto> listAccounts(String login) {
         return bankAccountRepository.findAllByUser_Login(login).stream()
@@ -105,19 +190,37 @@ public class AccountService {
                 .toList();
     }
 
+    /**
+     * The row is locked like in {@link #deleteAccount}, so the change is ordered against the
+     * provisioning worker: a pending user gets the new hash, which the worker compares with the one
+     * it sent before marking the user provisioned. A user whose provisioning failed is queued again.
+     */
     @Transactional
     public List<String> changePassword(String login, ChangePasswordRequest request) {
-        repository.findByLogin(login)
+        var entity = repository.findLockedByLogin(login)
                 .orElseThrow(() -> new AccountNotFoundException("User '%s' not found".formatted(login)));
 
-        keycloakAdminClient.resetPassword(login, request.password());
+        if (entity.isKeycloakProvisioned()) {
+            keycloakAdminClient.resetPassword(login, entity.getKeycloakId(), request.password());
+        } else if (entity.getProvisioningStatus() == ProvisioningStatus.FAILED) {
+            requeueProvisioning(entity, request.password());
+            repository.save(entity);
+        } else {
+            entity.setPendingCredential(KeycloakPasswordHash.of(request.password()).encode());
+            repository.save(entity);
+        }
         notificationsClient.sendPasswordChanged(login);
         return List.of();
     }
 
+    /**
+     * The row lock makes the provisioning check below see the worker's latest outcome: either the
+     * user is already provisioned and removed from Keycloak here, or the worker finds the row gone
+     * when recording its result and removes the Keycloak user itself.
+     */
     @Transactional
     public List<String> deleteAccount(String login) {
-        var entity = repository.findByLogin(login)
+        var entity = repository.findLockedByLogin(login)
                 .orElseThrow(() -> new AccountNotFoundException("User '%s' not found".formatted(login)));
 
         var bank = primary(entity);
@@ -126,33 +229,89 @@ public class AccountService {
             throw new AccountDeletionException("Account contains funds and cannot be removed");
         }
 
-        keycloakAdminClient.deleteUser(login);
+        // A pending user may already exist in Keycloak if its password changed during provisioning
+        if (entity.isKeycloakProvisioned() || entity.getKeycloakId() != null) {
+            keycloakAdminClient.deleteUser(login, entity.getKeycloakId());
+        }
         repository.delete(entity);
         notificationsClient.sendAccountDeleted(login);
         return List.of();
     }
 
-    @Transactional
+    /**
+     * Applies a deposit or withdrawal with a single conditional UPDATE ... RETURNING statement.
+     * No row is read or locked beforehand, so the row lock is held only for the statement itself;
+     * the extra lookup below runs only on the failure path to pick the right error.
+     */
     public AccountDetailsDto adjustBalance(String login, BalanceAdjustmentRequest request) {
-        var bank = request.bankAccountId() != null
-                ? bankAccountRepository.findById(request.bankAccountId())
-                : bankAccountRepository.findByUserLoginForUpdate(login);
-        var bankEntity = bank
-                .orElseThrow(() -> new AccountNotFoundException("User '%s' not found".formatted(login)));
-        var entity = bankEntity.getUser();
+        var delta = request.type() == BalanceOperationType.DEPOSIT
+                ? request.amount()
+                : request.amount().negate();
+        return bankAccountRepository.applyBalanceDelta(request.bankAccountId(), login, delta)
+                .orElseThrow(() -> {
+                    boolean exists = request.bankAccountId() != null
+                            ? bankAccountRepository.existsById(request.bankAccountId())
+                            : bankAccountRepository.existsByUser_Login(login);
+                    if (!exists) {
+                        return new AccountNotFoundException("User '%s' not found".formatted(login));
+                    }
+                    return new InsufficientFundsException("Insufficient funds on source account");
+                });
+    }
 
+    /**
+     * Debits and credits both accounts in one local transaction.
+     * Rows are always updated in ascending id order, so two opposite transfers between the same
+     * pair of accounts lock them in the same order and cannot deadlock; a failed leg rolls back both.
+     * A transfer id that has already been applied only returns the current balances.
+     */
+    @Transactional
+    public AccountTransferResultDto transfer(AccountTransferRequest request) {
+        var fromId = request.fromBankAccountId();
+        var toId = request.toBankAccountId();
         var amount = request.amount();
-        if (request.type() == BalanceOperationType.DEPOSIT) {
-            bankEntity.setBalance(bankEntity.getBalance().add(amount));
-        } else {
-            if (bankEntity.getBalance().compareTo(amount) < 0) {
-                throw new InsufficientFundsException("Insufficient funds on source account");
-            }
-            bankEntity.setBalance(bankEntity.getBalance().subtract(amount));
+
+        if (request.transferId() != null && !bankAccountRepository.markTransferApplied(request.transferId())) {
+            return new AccountTransferResultDto(
+                    bankAccountRepository.findDetails(fromId).orElseThrow(() -> bankAccountNotFound(fromId)),
+                    bankAccountRepository.findDetails(toId).orElseThrow(() -> bankAccountNotFound(toId)));
         }
 
-        bankAccountRepository.save(bankEntity);
-        return mapper.toDetailsDto(entity);
+        if (fromId.compareTo(toId) <= 0) {
+            var from = debit(fromId, amount);
+            var to = credit(toId, amount);
+            return new AccountTransferResultDto(from, to);
+        }
+        var to = credit(toId, amount);
+        var from = debit(fromId, amount);
+        return new AccountTransferResultDto(from, to);
+    }
+
+    private AccountDetailsDto debit(UUID bankAccountId, BigDecimal amount) {
+        return bankAccountRepository.applyBalanceDelta(bankAccountId, null, amount.negate())
+                .orElseThrow(() -> bankAccountRepository.existsById(bankAccountId)
+                        ? new InsufficientFundsException("Insufficient funds on source account")
+                        : bankAccountNotFound(bankAccountId));
+    }
+
+    private AccountDetailsDto credit(UUID bankAccountId, BigDecimal amount) {
+        return bankAccountRepository.applyBalanceDelta(bankAccountId, null, amount)
+                .orElseThrow(() -> bankAccountNotFound(bankAccountId));
+    }
+
+    private AccountNotFoundException bankAccountNotFound(UUID bankAccountId) {
+        return new AccountNotFoundException("Bank account '%s' not found".formatted(bankAccountId));
+    }
+
+    private AccountDto withBalanceOrZero(AccountDto dto) {
+        if (dto.balance() != null) {
+            return dto;
+        }
+        return new AccountDto(dto.login(), dto.name(), dto.birthdate(), dto.accountNumber(), dto.currency(), BigDecimal.ZERO);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
 
     private String generateAccountNumber() {
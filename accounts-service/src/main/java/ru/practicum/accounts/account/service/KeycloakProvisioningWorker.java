@@ -0,0 +1,173 @@
+package ru.practicum.accounts.account.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.accounts.account.model.AccountEntity;
+import ru.practicum.accounts.account.model.ProvisioningStatus;
+import ru.practicum.accounts.account.repository.AccountRepository;
+import ru.practicum.accounts.clients.KeycloakAdminClient;
+import ru.practicum.accounts.clients.KeycloakPasswordHash;
+import ru.practicum.accounts.clients.NotificationsClient;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Creates Keycloak users for registrations that were only persisted locally.
+ * Failed attempts are retried with exponential backoff until max-attempts is reached,
+ * after which the user is left in {@link ProvisioningStatus#FAILED}; registering again or changing
+ * the password puts the user back in the queue (see {@link AccountService}).
+ * <p>
+ * Due users are claimed in a short transaction (SKIP LOCKED) that pushes their next attempt out by
+ * {@link #LEASE}, so no other instance picks them up while Keycloak is being called. Keycloak and
+ * notifications are called outside any transaction; the outcome is recorded in a second short
+ * transaction that re-reads the row under a lock. If the account was deleted in the meantime,
+ * the freshly created Keycloak user is removed again instead of being left orphaned. If the password
+ * was changed in the meantime, the row stays pending with the Keycloak id recorded, and the next
+ * round sets the new hash on the existing user instead of creating it.
+ */
+@Component
+@Slf4j
+public class KeycloakProvisioningWorker {
+
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(5);
+
+    /**
+     * Long enough to cover a Keycloak token refresh plus the create call with their timeouts.
+     */
+    static final Duration LEASE = Duration.ofMinutes(2);
+
+    private final AccountRepository repository;
+    private final KeycloakAdminClient keycloakAdminClient;
+    private final NotificationsClient notificationsClient;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+
+    public KeycloakProvisioningWorker(AccountRepository repository,
+                                      KeycloakAdminClient keycloakAdminClient,
+                                      NotificationsClient notificationsClient,
+                                      TransactionTemplate transactionTemplate,
+                                      @Value("${keycloak.provisioning.batch-size:10}") int batchSize,
+                                      @Value("${keycloak.provisioning.max-attempts:10}") int maxAttempts) {
+        this.repository = repository;
+        this.keycloakAdminClient = keycloakAdminClient;
+        this.notificationsClient = notificationsClient;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Scheduled(fixedDelayString = "${keycloak.provisioning.poll-interval-ms:1000}")
+    public int provisionPending() {
+        var now = OffsetDateTime.now();
+        List<PendingUser> batch = transactionTemplate.execute(tx -> claim(now));
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+        int provisioned = 0;
+        for (PendingUser user : batch) {
+            if (provision(user)) {
+                provisioned++;
+            }
+        }
+        return provisioned;
+    }
+
+    private List<PendingUser> claim(OffsetDateTime now) {
+        List<AccountEntity> batch = repository.lockDueForProvisioning(
+                ProvisioningStatus.PENDING, now, PageRequest.of(0, batchSize));
+        return batch.stream()
+                .map(account -> {
+                    account.setProvisioningNextAttemptAt(now.plus(LEASE));
+                    return new PendingUser(account.getId(), account.getLogin(), account.getPendingCredential(),
+                            account.getName(), account.getEmail(), account.getKeycloakId());
+                })
+                .toList();
+    }
+
+    private boolean provision(PendingUser user) {
+        String keycloakId;
+        try {
+            var password = KeycloakPasswordHash.decode(user.credential());
+            if (user.keycloakId() == null) {
+                keycloakId = keycloakAdminClient.createUser(user.login(), password, user.name(), user.email());
+            } else {
+                keycloakAdminClient.resetPassword(user.login(), user.keycloakId(), password);
+                keycloakId = user.keycloakId();
+            }
+        } catch (RuntimeException ex) {
+            transactionTemplate.executeWithoutResult(tx -> markAttemptFailed(user, ex));
+            return false;
+        }
+        Outcome outcome = transactionTemplate.execute(tx -> markProvisioned(user, keycloakId));
+        if (outcome == Outcome.DELETED) {
+            removeOrphan(user, keycloakId);
+            return false;
+        }
+        if (outcome == Outcome.PASSWORD_CHANGED) {
+            log.info("Password of '{}' changed while it was being provisioned, sending the new one", user.login());
+            return false;
+        }
+        notificationsClient.sendRegistrationCompleted(user.login());
+        return true;
+    }
+
+    private Outcome markProvisioned(PendingUser user, String keycloakId) {
+        return repository.findLockedById(user.id())
+                .map(account -> {
+                    account.setKeycloakId(keycloakId);
+                    if (!Objects.equals(account.getPendingCredential(), user.credential())) {
+                        account.setProvisioningNextAttemptAt(OffsetDateTime.now());
+                        return Outcome.PASSWORD_CHANGED;
+                    }
+                    account.setProvisioningStatus(ProvisioningStatus.PROVISIONED);
+                    account.setPendingCredential(null);
+                    account.setProvisioningNextAttemptAt(null);
+                    return Outcome.PROVISIONED;
+                })
+                .orElse(Outcome.DELETED);
+    }
+
+    private void removeOrphan(PendingUser user, String keycloakId) {
+        log.warn("Account '{}' was deleted while being provisioned, removing its Keycloak user", user.login());
+        try {
+            keycloakAdminClient.deleteUser(user.login(), keycloakId);
+        } catch (RuntimeException ex) {
+            log.error("Failed to remove orphaned Keycloak user '{}' ({}): {}", user.login(), keycloakId, ex.getMessage());
+        }
+    }
+
+    private void markAttemptFailed(PendingUser user, RuntimeException ex) {
+        repository.findLockedById(user.id()).ifPresent(account -> {
+            int attempts = account.getProvisioningAttempts() + 1;
+            account.setProvisioningAttempts(attempts);
+            if (attempts >= maxAttempts) {
+                log.error("Giving up provisioning '{}' in Keycloak after {} attempts: {}",
+                        account.getLogin(), attempts, ex.getMessage());
+                account.setProvisioningStatus(ProvisioningStatus.FAILED);
+                account.setProvisioningNextAttemptAt(null);
+                return;
+            }
+            log.warn("Keycloak provisioning of '{}' failed (attempt {}): {}", account.getLogin(), attempts, ex.getMessage());
+            account.setProvisioningNextAttemptAt(OffsetDateTime.now().plus(backoff(attempts)));
+        });
+    }
+
+    static Duration backoff(int attempts) {
+        var delay = Duration.ofSeconds(1L << Math.min(attempts, 20));
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+
+    private record PendingUser(UUID id, String login, String credential, String name, String email,
+                               String keycloakId) { }
+
+    private enum Outcome { PROVISIONED, PASSWORD_CHANGED, DELETED }
+}
@@ -1,8 +1,13 @@
 package ru.practicum.accounts.account.web;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,9 +16,12 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.accounts.account.service.AccountService;
 import ru.practicum.accounts.account.web.dto.AccountDto;
+import ru.practicum.accounts.account.web.dto.AccountPageDto;
 import ru.practicum.accounts.account.web.dto.ChangePasswordRequest;
 import ru.practicum.accounts.account.web.dto.RegisterAccountRequest;
 import ru.practicum.accounts.account.web.dto.UpdateAccountRequest;
@@ -27,13 +35,47 @@ import ru.practicum.accounts.account.web.dto.UpdateAccountRequest;
 @RequiredArgsConstructor
 public class AccountController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final AccountService accountService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/users")
     public List<AccountDto> listUsers() {
         return accountService.getAll();
     }
 
+    /**
+     * Export mode of the user list: one JSON object per line, written while rows are read
+     * from the database, so memory use does not depend on the number of users.
+     */
+    @GetMapping(value = "/users", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                accountService.exportAll(user -> {
+                    try {
+                        generator.writeObject(user);
+                        generator.writeRaw('\n');
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    /**
+     * Keyset-paginated directory with prefix search on login and name.
+     */
+    @GetMapping("/directory")
+    public AccountPageDto searchUsers(@RequestParam(value = "q", required = false) String query,
+                                      @RequestParam(value = "cursor", required = false) String cursor,
+                                      @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return accountService.searchDirectory(query, cursor, limit);
+    }
+
     @GetMapping("/users/{login}")
     public AccountDto userProfile(@PathVariable String login) {
         return accountService.getProfile(login);
@@ -8,9 +8,12 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import ru.practicum.accounts.account.service.AccountService;
 import ru.practicum.accounts.account.web.dto.AccountDetailsDto;
+import ru.practicum.accounts.account.web.dto.AccountTransferRequest;
+import ru.practicum.accounts.account.web.dto.AccountTransferResultDto;
 import ru.practicum.accounts.account.web.dto.BalanceAdjustmentRequest;
 import ru.practicum.accounts.account.web.dto.BankAccountDto;
 
@@ -18,26 +21,36 @@ import ru.practicum.accounts.account.web.dto.BankAccountDto;
  * Internal REST endpoints for cross-service calls.
  */
 @RestController
-@RequestMapping("/api/accounts/internal/users")
+@RequestMapping("/api/accounts/internal")
 @RequiredArgsConstructor
 public class AccountInternalController {
 
     private final AccountService accountService;
 
-    @GetMapping("/{login}")
+    @GetMapping("/users")
+    public List<AccountDetailsDto> getDetails(@RequestParam("login") List<String> logins) {
+        return accountService.getAccountDetails(logins);
+    }
+
+    @GetMapping("/users/{login}")
     public AccountDetailsDto getDetails(@PathVariable String login) {
         return accountService.getAccountDetails(login);
     }
 
-    @GetMapping("/{login}/accounts")
+    @GetMapping("/users/{login}/accounts")
     public List<BankAccountDto> getAccounts(@PathVariable String login) {
         return accountService.listAccounts(login);
     }
 
-    @PostMapping("/{login}/balance")
+    @PostMapping("/users/{login}/balance")
     public AccountDetailsDto adjustBalance(@PathVariable String login,
                                            @RequestBody @Valid BalanceAdjustmentRequest request) {
         return accountService.adjustBalance(login, request);
     }
+
+    @PostMapping("/transfers")
+    public AccountTransferResultDto transfer(@RequestBody @Valid AccountTransferRequest request) {
+        return accountService.transfer(request);
+    }
 }
 
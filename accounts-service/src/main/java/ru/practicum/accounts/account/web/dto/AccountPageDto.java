@@ -0,0 +1,12 @@
+package ru.practicum.accounts.account.web.dto;
+
+import java.util.List;
+
+/**
+ * One page of the user directory; {@code nextCursor} is null on the last page.
+ */
+public record AccountPageDto(
+        List<AccountDto> items,
+        String nextCursor
+) {
+}
@@ -0,0 +1,26 @@
+package ru.practicum.accounts.account.web.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Command to move funds between two bank accounts in one transaction.
+ * When {@code transferId} is set the command may be resent safely: it is applied at most once.
+ */
+public record AccountTransferRequest(
+        @NotNull(message = "fromBankAccountId is required")
+        UUID fromBankAccountId,
+        @NotNull(message = "toBankAccountId is required")
+        UUID toBankAccountId,
+        @NotNull(message = "amount is required")
+        @DecimalMin(value = "0.01", inclusive = true, message = "amount must be positive")
+        BigDecimal amount,
+        UUID transferId
+) {
+
+    public AccountTransferRequest(UUID fromBankAccountId, UUID toBankAccountId, BigDecimal amount) {
+        this(fromBankAccountId, toBankAccountId, amount, null);
+    }
+}
@@ -0,0 +1,10 @@
+package ru.practicum.accounts.account.web.dto;
+
+/**
+ * Balances of both legs after a completed transfer.
+ */
+public record AccountTransferResultDto(
+        AccountDetailsDto from,
+        AccountDetailsDto to
+) {
+}
@@ -1,6 +1,9 @@
 package ru.practicum.accounts.clients;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
@@ -8,13 +11,20 @@ import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestClientResponseException;
+import ru.practicum.http.PooledHttpClientFactory;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * HTTP client that works with Keycloak Admin API.
@@ -23,22 +33,47 @@ import java.util.Map;
 @Slf4j
 public class KeycloakAdminClient {
 
+    private static final ObjectMapper JSON = new ObjectMapper();
+
     private final RestClient restClient;
     private final String realm;
     private final String adminUsername;
     private final String adminPassword;
+    private final KeycloakAdminTokenCache tokenCache;
+    private final Map<String, String> userIds;
 
     public KeycloakAdminClient(@Value("${keycloak.base-url:http://keycloak:8080}") String baseUrl,
                                @Value("${keycloak.realm:bank}") String realm,
                                @Value("${keycloak.admin.username:admin}") String adminUsername,
-                               @Value("${keycloak.admin.password:admin123}") String adminPassword) {
-        this.restClient = RestClient.builder().baseUrl(baseUrl).build();
+                               @Value("${keycloak.admin.password:admin123}") String adminPassword,
+                               @Value("${keycloak.admin.token-refresh-skew:10s}") Duration tokenRefreshSkew,
+                               @Value("${keycloak.admin.user-id-cache-size:1000}") int userIdCacheSize,
+                               PooledHttpClientFactory httpClients,
+                               MeterRegistry meterRegistry) {
+        this.restClient = RestClient.builder()
+                .requestFactory(httpClients.requestFactory("keycloak"))
+                .baseUrl(baseUrl)
+                .build();
         this.realm = realm;
         this.adminUsername = adminUsername;
         this.adminPassword = adminPassword;
+        this.tokenCache = new KeycloakAdminTokenCache(
+                this::requestAdminToken, tokenRefreshSkew, meterRegistry, Clock.systemUTC());
+        this.userIds = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > userIdCacheSize;
+            }
+        });
     }
 
-    public String createUser(String username, String password, String name, String email) {
+    /**
+     * Creates the user with an already hashed password and returns its Keycloak id.
+     * A 409 is treated as a repeat of an earlier attempt whose response was lost: logins are unique
+     * locally and only this service provisions users, so the existing user is adopted and given
+     * this attempt's password.
+     */
+    public String createUser(String username, KeycloakPasswordHash password, String name, String email) {
         String token = adminToken();
         try {
             Map<String, Object> payload = buildCreateUserPayload(username, password, name, email);
@@ -50,54 +85,114 @@ public class KeycloakAdminClient {
                     .retrieve()
                     .toBodilessEntity();
 
+            String userId;
             if (response.getHeaders().getLocation() != null) {
                 String path = response.getHeaders().getLocation().getPath();
-                return path.substring(path.lastIndexOf('/') + 1);
+                userId = path.substring(path.lastIndexOf('/') + 1);
+            } else {
+                userId = findUserId(username, token);
             }
-            return findUserId(username, token);
+            userIds.put(username, userId);
+            return userId;
         } catch (RestClientResponseException ex) {
             if (ex.getStatusCode().value() == 409) {
-                throw new IllegalStateException("Keycloak user already exists");
+                log.warn("Keycloak user '{}' already exists, adopting it", username);
+                String userId = findUserId(username, token);
+                try {
+                    putCredential(userId, password, token);
+                } catch (RestClientException putEx) {
+                    throw new IllegalStateException("Unable to set password of adopted Keycloak user", putEx);
+                }
+                userIds.put(username, userId);
+                return userId;
             }
             throw new IllegalStateException("Keycloak call failed: " + ex.getMessage(), ex);
         }
     }
 
-    public void resetPassword(String username, String newPassword) {
+    /**
+     * Resets the password of a Keycloak user. {@code keycloakId} is the id stored at registration;
+     * when it is absent the id is taken from the login cache or, failing that, searched for.
+     */
+    public void resetPassword(String username, String keycloakId, String newPassword) {
         String token = adminToken();
-        String userId = findUserId(username, token);
-        try {
-            restClient.put()
-                    .uri("/admin/realms/{realm}/users/{id}/reset-password", realm, userId)
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
-                    .body(Map.of(
-                            "type", "password",
-                            "value", newPassword,
-                            "temporary", false
-                    ))
-                    .retrieve()
-                    .toBodilessEntity();
-        } catch (RestClientException ex) {
-            throw new IllegalStateException("Unable to reset password in Keycloak", ex);
-        }
+        withUserId(username, keycloakId, token, "Unable to reset password in Keycloak", userId -> restClient.put()
+                .uri("/admin/realms/{realm}/users/{id}/reset-password", realm, userId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .body(Map.of(
+                        "type", "password",
+                        "value", newPassword,
+                        "temporary", false
+                ))
+                .retrieve()
+                .toBodilessEntity());
+    }
+
+    /**
+     * Replaces the password of a Keycloak user with an already hashed one, for users whose password
+     * changed while they were being provisioned.
+     */
+    public void resetPassword(String username, String keycloakId, KeycloakPasswordHash password) {
+        String token = adminToken();
+        withUserId(username, keycloakId, token, "Unable to reset password in Keycloak",
+                userId -> putCredential(userId, password, token));
+    }
+
+    private void putCredential(String userId, KeycloakPasswordHash password, String token) {
+        restClient.put()
+                .uri("/admin/realms/{realm}/users/{id}", realm, userId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .body(Map.of("credentials", List.of(credential(password))))
+                .retrieve()
+                .toBodilessEntity();
     }
 
-    public void deleteUser(String username) {
+    public void deleteUser(String username, String keycloakId) {
         String token = adminToken();
-        String userId = findUserId(username, token);
+        withUserId(username, keycloakId, token, "Unable to delete user in Keycloak", userId -> restClient.delete()
+                .uri("/admin/realms/{realm}/users/{id}", realm, userId)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .retrieve()
+                .toBodilessEntity());
+        userIds.remove(username);
+    }
+
+    /**
+     * Runs {@code call} against the best known id and searches Keycloak only if no id is known
+     * or the known one turns out to be stale (404).
+     */
+    private void withUserId(String username, String knownId, String token, String failureMessage,
+                            Consumer<String> call) {
+        String userId = knownId != null ? knownId : userIds.get(username);
+        if (userId == null) {
+            userId = findUserId(username, token);
+        }
         try {
-            restClient.delete()
-                    .uri("/admin/realms/{realm}/users/{id}", realm, userId)
-                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
-                    .retrieve()
-                    .toBodilessEntity();
+            try {
+                call.accept(userId);
+            } catch (HttpClientErrorException.NotFound ex) {
+                String found = findUserId(username, token);
+                if (found.equals(userId)) {
+                    throw ex;
+                }
+                log.info("Keycloak id of '{}' is stale, retrying with the current one", username);
+                userId = found;
+                call.accept(userId);
+            }
+            userIds.put(username, userId);
         } catch (RestClientException ex) {
-            throw new IllegalStateException("Unable to delete user in Keycloak", ex);
+            userIds.remove(username);
+            throw new IllegalStateException(failureMessage, ex);
         }
     }
 
     private String adminToken() {
+        return tokenCache.get();
+    }
+
+    private KeycloakAdminTokenCache.Grant requestAdminToken() {
         MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
         form.add("grant_type", "password");
         form.add("client_id", "admin-cli");
@@ -114,7 +209,9 @@ public class KeycloakAdminClient {
         if (tokenResponse == null || tokenResponse.accessToken == null) {
             throw new IllegalStateException("Keycloak admin token is missing");
         }
-        return tokenResponse.accessToken;
+        return new KeycloakAdminTokenCache.Grant(
+                tokenResponse.accessToken,
+                tokenResponse.expiresIn == null ? null : Duration.ofSeconds(tokenResponse.expiresIn));
     }
 
     private String findUserId(String username, String token) {
@@ -143,7 +240,8 @@ public class KeycloakAdminClient {
         }
     }
 
-    private Map<String, Object> buildCreateUserPayload(String username, String password, String name, String email) {
+    private Map<String, Object> buildCreateUserPayload(String username, KeycloakPasswordHash password,
+                                                       String name, String email) {
         var payload = new HashMap<String, Object>();
         payload.put("username", username);
         payload.put("enabled", true);
@@ -151,15 +249,30 @@ public class KeycloakAdminClient {
         if (email != null && !email.isBlank()) {
             payload.put("email", email);
         }
-        payload.put("credentials", List.of(Map.of(
-                "type", "password",
-                "value", password,
-                "temporary", false
-        )));
+        payload.put("credentials", List.of(credential(password)));
         return payload;
     }
 
-    private record TokenResponse(@JsonProperty("access_token") String accessToken) {
+    private static Map<String, Object> credential(KeycloakPasswordHash password) {
+        try {
+            return Map.of(
+                    "type", "password",
+                    "temporary", false,
+                    "credentialData", JSON.writeValueAsString(Map.of(
+                            "algorithm", password.algorithm(),
+                            "hashIterations", password.iterations(),
+                            "additionalParameters", Map.of())),
+                    "secretData", JSON.writeValueAsString(Map.of(
+                            "value", password.value(),
+                            "salt", password.salt(),
+                            "additionalParameters", Map.of())));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unable to serialize Keycloak credential", ex);
+        }
+    }
+
+    private record TokenResponse(@JsonProperty("access_token") String accessToken,
+                                 @JsonProperty("expires_in") Long expiresIn) {
     }
 }
 
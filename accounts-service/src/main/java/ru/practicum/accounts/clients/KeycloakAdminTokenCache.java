@@ -0,0 +1,127 @@
+package ru.practicum.accounts.clients;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Caches the Keycloak admin access token until shortly before it expires.
+ * Once the refresh point is reached, exactly one caller fetches a new token while the others keep
+ * using the still valid one; only after hard expiry do callers wait, and then they all share the
+ * single in-flight request.
+ */
+@Slf4j
+class KeycloakAdminTokenCache {
+
+    private static final Duration DEFAULT_LIFETIME = Duration.ofSeconds(60);
+
+    private final Supplier<Grant> fetcher;
+    private final Duration refreshSkew;
+    private final Clock clock;
+    private final AtomicReference<CachedToken> current = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<CachedToken>> inFlight = new AtomicReference<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter refreshed;
+    private final Counter refreshFailures;
+
+    KeycloakAdminTokenCache(Supplier<Grant> fetcher, Duration refreshSkew, MeterRegistry meterRegistry, Clock clock) {
+        this.fetcher = fetcher;
+        this.refreshSkew = refreshSkew;
+        this.clock = clock;
+        this.hits = Counter.builder("keycloak.admin.token.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("keycloak.admin.token.requests").tag("result", "miss").register(meterRegistry);
+        this.refreshed = Counter.builder("keycloak.admin.token.refreshes").tag("outcome", "success").register(meterRegistry);
+        this.refreshFailures = Counter.builder("keycloak.admin.token.refreshes").tag("outcome", "failure").register(meterRegistry);
+    }
+
+    String get() {
+        CachedToken token = current.get();
+        Instant now = clock.instant();
+        if (token != null && now.isBefore(token.refreshAt())) {
+            hits.increment();
+            return token.value();
+        }
+        boolean usable = token != null && now.isBefore(token.expiresAt());
+
+        var mine = new CompletableFuture<CachedToken>();
+        var running = inFlight.compareAndExchange(null, mine);
+        if (running == null) {
+            return refresh(token, usable, mine);
+        }
+        if (usable) {
+            hits.increment();
+            return token.value();
+        }
+        misses.increment();
+        return await(running).value();
+    }
+
+    private String refresh(CachedToken seen, boolean usable, CompletableFuture<CachedToken> mine) {
+        try {
+            // Another caller may have finished a refresh between our read and winning the race.
+            CachedToken latest = current.get();
+            if (latest != seen && latest != null && clock.instant().isBefore(latest.refreshAt())) {
+                hits.increment();
+                mine.complete(latest);
+                return latest.value();
+            }
+            misses.increment();
+            CachedToken fresh = fetch();
+            current.set(fresh);
+            mine.complete(fresh);
+            return fresh.value();
+        } catch (RuntimeException ex) {
+            mine.completeExceptionally(ex);
+            if (usable) {
+                log.warn("Keycloak admin token refresh failed, using current token until it expires: {}", ex.getMessage());
+                return seen.value();
+            }
+            throw ex;
+        } finally {
+            inFlight.set(null);
+        }
+    }
+
+    private CachedToken fetch() {
+        Grant grant;
+        try {
+            grant = fetcher.get();
+        } catch (RuntimeException ex) {
+            refreshFailures.increment();
+            throw ex;
+        }
+        refreshed.increment();
+        Instant now = clock.instant();
+        Duration lifetime = grant.expiresIn() == null || grant.expiresIn().isNegative() || grant.expiresIn().isZero()
+                ? DEFAULT_LIFETIME
+                : grant.expiresIn();
+        // Never spend more than half of a short-lived token's lifetime in the refresh window.
+        Duration skew = refreshSkew.compareTo(lifetime.dividedBy(2)) > 0 ? lifetime.dividedBy(2) : refreshSkew;
+        return new CachedToken(grant.accessToken(), now.plus(lifetime).minus(skew), now.plus(lifetime));
+    }
+
+    private static CachedToken await(CompletableFuture<CachedToken> running) {
+        try {
+            return running.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw ex;
+        }
+    }
+
+    record Grant(String accessToken, Duration expiresIn) {
+    }
+
+    private record CachedToken(String value, Instant refreshAt, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,53 @@
+package ru.practicum.accounts.clients;
+
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Password hashed the way Keycloak's {@code pbkdf2-sha256} provider stores it, so a user can be
+ * provisioned later without keeping the plain password anywhere.
+ */
+public record KeycloakPasswordHash(String algorithm, int iterations, String salt, String value) {
+
+    static final String ALGORITHM = "pbkdf2-sha256";
+    static final int ITERATIONS = 27_500;
+    private static final int KEY_BITS = 512;
+    private static final int SALT_BYTES = 16;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    public static KeycloakPasswordHash of(String rawPassword) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        return of(rawPassword, salt, ITERATIONS);
+    }
+
+    static KeycloakPasswordHash of(String rawPassword, byte[] salt, int iterations) {
+        try {
+            var spec = new PBEKeySpec(rawPassword.toCharArray(), salt, iterations, KEY_BITS);
+            byte[] key = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+            spec.clearPassword();
+            var encoder = Base64.getEncoder();
+            return new KeycloakPasswordHash(ALGORITHM, iterations, encoder.encodeToString(salt), encoder.encodeToString(key));
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("PBKDF2 is not available", ex);
+        }
+    }
+
+    /**
+     * Compact form stored in the accounts table until the user is provisioned.
+     */
+    public String encode() {
+        return String.join("$", algorithm, Integer.toString(iterations), salt, value);
+    }
+
+    public static KeycloakPasswordHash decode(String encoded) {
+        String[] parts = encoded.split("\\$");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Malformed password hash");
+        }
+        return new KeycloakPasswordHash(parts[0], Integer.parseInt(parts[1]), parts[2], parts[3]);
+    }
+}
@@ -3,10 +3,10 @@ package ru.practicum.accounts.clients;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
+import ru.practicum.http.PooledHttpClientFactory;
 
 import java.time.Duration;
 import java.util.Map;
@@ -22,12 +22,11 @@ public class NotificationsClient {
     private final boolean enabled;
 
     public NotificationsClient(@Value("${notifications.base-url:http://notifications-service:8084}") String baseUrl,
-                               @Value("${notifications.enabled:true}") boolean enabled) {
-        var factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(Duration.ofMillis(500));
-        factory.setReadTimeout(Duration.ofMillis(1000));
+                               @Value("${notifications.enabled:true}") boolean enabled,
+                               PooledHttpClientFactory httpClients) {
         this.restClient = RestClient.builder()
-                .requestFactory(factory)
+                .requestFactory(httpClients.requestFactory(
+                        "notifications", Duration.ofMillis(500), Duration.ofMillis(1000)))
                 .baseUrl(baseUrl)
                 .build();
         this.enabled = enabled;
@@ -0,0 +1,137 @@
+package ru.practicum.accounts.account.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.practicum.accounts.clients.KeycloakAdminClient;
+import ru.practicum.accounts.clients.NotificationsClient;
+
+/**
+ * Measures {@link AccountService#getAll()} while the user table grows up to
+ * {@code benchmark.accounts.users} rows (100k by default) and checks that the number of
+ * JDBC statements per call stays the same regardless of the row count.
+ * {@link AccountService#exportAll} is measured the same way, reporting the heap retained after
+ * a full pass, which should not grow with the user count.
+ * Run with {@code mvn -pl accounts-service verify -Dit.test=AccountListingBenchmarkIT}.
+ */
+@Testcontainers
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class AccountListingBenchmarkIT {
+
+    private static final int TOTAL_USERS = Integer.getInteger("benchmark.accounts.users", 100_000);
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES =
+            new PostgreSQLContainer<>("postgres:16-alpine")
+                    .withDatabaseName("bank")
+                    .withUsername("bank")
+                    .withPassword("bank");
+
+    @DynamicPropertySource
+    static void configureDatasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    AccountService accountService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    KeycloakAdminClient keycloakAdminClient;
+
+    @MockBean
+    NotificationsClient notificationsClient;
+
+    @Test
+    void statementCountDoesNotGrowWithUsers() {
+        clearUsers();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<Long> statementCounts = new ArrayList<>();
+        int seeded = 0;
+        for (int size = 1_000; size <= TOTAL_USERS; size *= 10) {
+            seedUsers(seeded, size);
+            seeded = size;
+            accountService.getAll(); // warm-up
+
+            statistics.clear();
+            long started = System.nanoTime();
+            var users = accountService.getAll();
+            double elapsedMs = (System.nanoTime() - started) / 1e6;
+
+            long statements = statistics.getPrepareStatementCount();
+            statementCounts.add(statements);
+            System.out.printf("accounts listing: %d users in %.1f ms, %d statement(s)%n",
+                    users.size(), elapsedMs, statements);
+            assertThat(users).hasSize(size);
+            assertThat(users).allSatisfy(user -> assertThat(user.accountNumber()).isNotNull());
+        }
+        assertThat(statementCounts).containsOnly(1L);
+    }
+
+    @Test
+    void exportKeepsHeapFlat() {
+        clearUsers();
+        int seeded = 0;
+        for (int size = 1_000; size <= TOTAL_USERS; size *= 10) {
+            seedUsers(seeded, size);
+            seeded = size;
+
+            Runtime runtime = Runtime.getRuntime();
+            System.gc();
+            long before = runtime.totalMemory() - runtime.freeMemory();
+            long[] exported = new long[1];
+            long started = System.nanoTime();
+            accountService.exportAll(user -> exported[0]++);
+            double elapsedMs = (System.nanoTime() - started) / 1e6;
+            System.gc();
+            long after = runtime.totalMemory() - runtime.freeMemory();
+
+            System.out.printf("accounts export: %d users in %.1f ms, retained heap delta %d KiB%n",
+                    exported[0], elapsedMs, (after - before) / 1024);
+            assertThat(exported[0]).isEqualTo(size);
+        }
+    }
+
+    private void clearUsers() {
+        jdbcTemplate.update("DELETE FROM accounts.bank_accounts");
+        jdbcTemplate.update("DELETE FROM accounts.users");
+    }
+
+    private void seedUsers(int from, int to) {
+        jdbcTemplate.update("""
+                INSERT INTO accounts.users (id, login, name, birthdate, active, created_at, updated_at)
+                SELECT gen_random_uuid(), 'user' || n, 'User ' || n, DATE '1990-01-01', true, now(), now()
+                FROM generate_series(?, ?) AS n
+                """, from, to - 1);
+        jdbcTemplate.update("""
+                INSERT INTO accounts.bank_accounts (id, user_id, account_number, currency, balance, status, version,
+                                                    created_at, updated_at)
+                SELECT gen_random_uuid(), u.id, lpad(substr(u.login, 5), 20, '0'), 'RUB', 100, 'ACTIVE', 0, now(), now()
+                FROM accounts.users u
+                WHERE NOT EXISTS (SELECT 1 FROM accounts.bank_accounts b WHERE b.user_id = u.id)
+                """);
+    }
+}
@@ -3,22 +3,34 @@ package ru.practicum.accounts.account.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mapstruct.factory.Mappers;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.data.domain.PageRequest;
 import ru.practicum.accounts.account.model.AccountEntity;
 import ru.practicum.accounts.account.model.BankAccountEntity;
+import ru.practicum.accounts.account.model.ProvisioningStatus;
 import ru.practicum.accounts.account.repository.AccountRepository;
 import ru.practicum.accounts.account.repository.BankAccountRepository;
+import ru.practicum.accounts.account.web.dto.AccountDetailsDto;
+import ru.practicum.accounts.account.web.dto.AccountDto;
+import ru.practicum.accounts.account.web.dto.AccountTransferRequest;
 import ru.practicum.accounts.account.web.dto.BalanceAdjustmentRequest;
 import ru.practicum.accounts.account.web.dto.BalanceOperationType;
 import ru.practicum.accounts.account.web.dto.ChangePasswordRequest;
@@ -28,6 +40,7 @@ import ru.practicum.accounts.clients.KeycloakAdminClient;
 import ru.practicum.accounts.clients.NotificationsClient;
 import ru.practicum.accounts.exception.AccountAlreadyExistsException;
 import ru.practicum.accounts.exception.AccountDeletionException;
+import ru.practicum.accounts.exception.AccountNotFoundException;
 import ru.practicum.accounts.exception.InsufficientFundsException;
 
 class AccountServiceTest {
@@ -48,27 +61,74 @@ class AccountServiceTest {
     }
 
     @Test
-    void registerCreatesAccountAndCallsKeycloak() {
+    void registerPersistsPendingAccountWithoutCallingKeycloak() {
         RegisterAccountRequest request = new RegisterAccountRequest("alice", "pwd123", "Alice", null, LocalDate.of(1990, 1, 1));
         when(repository.existsByLogin("alice")).thenReturn(false);
-        when(keycloakAdminClient.createUser(any(), any(), any(), any())).thenReturn("kc-id");
         when(repository.save(any(AccountEntity.class))).thenAnswer(inv -> inv.getArgument(0));
 
         var response = service.register(request);
 
         assertThat(response).isEmpty();
-        verify(keycloakAdminClient).createUser("alice", "pwd123", "Alice", null);
-        verify(notificationsClient).sendRegistrationCompleted("alice");
+        verifyNoInteractions(keycloakAdminClient, notificationsClient);
         ArgumentCaptor<AccountEntity> captor = ArgumentCaptor.forClass(AccountEntity.class);
         verify(repository).save(captor.capture());
-        assertThat(captor.getValue().getLogin()).isEqualTo("alice");
-        assertThat(captor.getValue().getBankAccount()).isNotNull();
+        AccountEntity saved = captor.getValue();
+        assertThat(saved.getLogin()).isEqualTo("alice");
+        assertThat(saved.getBankAccount()).isNotNull();
+        assertThat(saved.getProvisioningStatus()).isEqualTo(ProvisioningStatus.PENDING);
+        assertThat(saved.getProvisioningNextAttemptAt()).isNotNull();
+        assertThat(saved.getPendingCredential()).startsWith("pbkdf2-sha256$").doesNotContain("pwd123");
+    }
+
+    @Test
+    void registerAgainRequeuesFailedProvisioning() {
+        RegisterAccountRequest request = new RegisterAccountRequest("alice", "pwd123", "Alice New", null, LocalDate.of(1990, 1, 1));
+        AccountEntity entity = failedAccount(BigDecimal.ZERO);
+        when(repository.existsByLogin("alice")).thenReturn(true);
+        when(repository.findLockedByLogin("alice")).thenReturn(Optional.of(entity));
+
+        var response = service.register(request);
+
+        assertThat(response).isEmpty();
+        assertThat(entity.getName()).isEqualTo("Alice New");
+        assertThat(entity.getProvisioningStatus()).isEqualTo(ProvisioningStatus.PENDING);
+        assertThat(entity.getProvisioningAttempts()).isZero();
+        assertThat(entity.getProvisioningNextAttemptAt()).isNotNull();
+        assertThat(entity.getPendingCredential()).isNotEqualTo("pbkdf2-sha256$1$c2FsdA==$b2xk");
+        verify(repository).save(entity);
+    }
+
+    @Test
+    void registerAgainIsRefusedOnceFailedAccountHoldsMoney() {
+        RegisterAccountRequest request = new RegisterAccountRequest("alice", "pwd123", "Alice", null, LocalDate.of(1990, 1, 1));
+        when(repository.existsByLogin("alice")).thenReturn(true);
+        when(repository.findLockedByLogin("alice")).thenReturn(Optional.of(failedAccount(BigDecimal.TEN)));
+
+        assertThatThrownBy(() -> service.register(request))
+                .isInstanceOf(AccountAlreadyExistsException.class);
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void changePasswordRequeuesFailedProvisioning() {
+        AccountEntity entity = failedAccount(BigDecimal.ZERO);
+        when(repository.findLockedByLogin("alice")).thenReturn(Optional.of(entity));
+
+        service.changePassword("alice", new ChangePasswordRequest("newpass123"));
+
+        verifyNoInteractions(keycloakAdminClient);
+        assertThat(entity.getProvisioningStatus()).isEqualTo(ProvisioningStatus.PENDING);
+        assertThat(entity.getProvisioningAttempts()).isZero();
+        assertThat(entity.getPendingCredential()).isNotEqualTo("pbkdf2-sha256$1$c2FsdA==$b2xk");
     }
 
     @Test
     void registerFailsWhenLoginExists() {
         RegisterAccountRequest request = new RegisterAccountRequest("alice", "pwd123", "Alice", null, LocalDate.of(1990, 1, 1));
         when(repository.existsByLogin("alice")).thenReturn(true);
+        AccountEntity entity = baseAccount();
+        entity.setKeycloakId("kc-alice");
+        when(repository.findLockedByLogin("alice")).thenReturn(Optional.of(entity));
 
         assertThatThrownBy(() -> service.register(request))
                 .isInstanceOf(AccountAlreadyExistsException.class);
@@ -79,12 +139,28 @@ class AccountServiceTest {
     @Test
     void changePasswordDelegatesToKeycloak() {
         AccountEntity entity = baseAccount();
-        when(repository.findByLogin("alice")).thenReturn(Optional.of(entity));
+        entity.setKeycloakId("kc-alice");
+        when(repository.findLockedByLogin("alice")).thenReturn(Optional.of(entity));
 
         var response = service.changePassword("alice", new ChangePasswordRequest("newpass123"));
 
         assertThat(response).isEmpty();
-        verify(keycloakAdminClient).resetPassword("alice", "newpass123");
+        verify(keycloakAdminClient).resetPassword("alice", "kc-alice", "newpass123");
+        verify(notificationsClient).sendPasswordChanged("alice");
+    }
+
+    @Test
+    void changePasswordReplacesPendingCredentialBeforeProvisioning() {
+        AccountEntity entity = baseAccount();
+        entity.setProvisioningStatus(ProvisioningStatus.PENDING);
+        entity.setPendingCredential("pbkdf2-sha256$1$c2FsdA==$b2xk");
+        when(repository.findLockedByLogin("alice")).thenReturn(Optional.of(entity));
+
+        service.changePassword("alice", new ChangePasswordRequest("newpass123"));
+
+        verifyNoInteractions(keycloakAdminClient);
+        assertThat(entity.getPendingCredential()).startsWith("pbkdf2-sha256$").isNotEqualTo("pbkdf2-sha256$1$c2FsdA==$b2xk");
+        verify(repository).save(entity);
         verify(notificationsClient).sendPasswordChanged("alice");
     }
 
@@ -106,7 +182,7 @@ class AccountServiceTest {
         AccountEntity entity = baseAccount();
         BankAccountEntity bank = bank(BigDecimal.TEN);
         entity.setBankAccount(bank);
-        when(repository.findByLogin("alice")).thenReturn(Optional.of(entity));
+        when(repository.findLockedByLogin("alice")).thenReturn(Optional.of(entity));
 
         assertThatThrownBy(() -> service.deleteAccount("alice"))
                 .isInstanceOf(AccountDeletionException.class);
@@ -118,18 +194,32 @@ class AccountServiceTest {
     @Test
     void deleteAccountRemovesEntityWhenBalanceZero() {
         AccountEntity entity = baseAccount();
+        entity.setKeycloakId("kc-alice");
         BankAccountEntity bank = bank(BigDecimal.ZERO);
         entity.setBankAccount(bank);
-        when(repository.findByLogin("alice")).thenReturn(Optional.of(entity));
+        when(repository.findLockedByLogin("alice")).thenReturn(Optional.of(entity));
 
         var result = service.deleteAccount("alice");
 
         assertThat(result).isEmpty();
-        verify(keycloakAdminClient).deleteUser("alice");
+        verify(keycloakAdminClient).deleteUser("alice", "kc-alice");
         verify(repository).delete(entity);
         verify(notificationsClient).sendAccountDeleted("alice");
     }
 
+    @Test
+    void deleteAccountLeavesKeycloakToWorkerWhileProvisioningPending() {
+        AccountEntity entity = baseAccount();
+        entity.setProvisioningStatus(ProvisioningStatus.PENDING);
+        entity.setBankAccount(bank(BigDecimal.ZERO));
+        when(repository.findLockedByLogin("alice")).thenReturn(Optional.of(entity));
+
+        service.deleteAccount("alice");
+
+        verifyNoInteractions(keycloakAdminClient);
+        verify(repository).delete(entity);
+    }
+
     @Test
     void getAccountDetailsReturnsBankInfo() {
         AccountEntity entity = baseAccount();
@@ -144,33 +234,172 @@ class AccountServiceTest {
         assertThat(details.currency()).isEqualTo("RUB");
     }
 
+    @Test
+    void getAllUsesProjectionAndDefaultsMissingBalance() {
+        when(repository.findAllProfiles()).thenReturn(List.of(
+                new AccountDto("alice", "Alice", LocalDate.of(1990, 1, 1), "4080", "RUB", BigDecimal.TEN),
+                new AccountDto("bob", "Bob", LocalDate.of(1991, 1, 1), null, null, null)));
+
+        var users = service.getAll();
+
+        assertThat(users).extracting(AccountDto::balance)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(BigDecimal.TEN, BigDecimal.ZERO);
+        verify(repository, never()).findAll();
+    }
+
+    @Test
+    void searchDirectoryReturnsCursorWhenMoreRowsExist() {
+        when(repository.findDirectoryPage(eq("al\\_%"), eq(""), any())).thenReturn(List.of(
+                new AccountDto("al_a", "A", LocalDate.of(1990, 1, 1), "1", "RUB", BigDecimal.ONE),
+                new AccountDto("al_b", "B", LocalDate.of(1990, 1, 1), "2", "RUB", BigDecimal.ONE),
+                new AccountDto("al_c", "C", LocalDate.of(1990, 1, 1), "3", "RUB", BigDecimal.ONE)));
+
+        var page = service.searchDirectory(" AL_ ", null, 2);
+
+        assertThat(page.items()).extracting(AccountDto::login).containsExactly("al_a", "al_b");
+        assertThat(page.nextCursor()).isEqualTo("al_b");
+        verify(repository).findDirectoryPage("al\\_%", "", PageRequest.of(0, 3));
+    }
+
+    @Test
+    void searchDirectoryClampsLimitAndEndsOnLastPage() {
+        when(repository.findDirectoryPage(eq("%"), eq("bob"), any())).thenReturn(List.of(
+                new AccountDto("carol", "Carol", LocalDate.of(1990, 1, 1), "1", "RUB", null)));
+
+        var page = service.searchDirectory(null, "bob", 10_000);
+
+        assertThat(page.items()).singleElement()
+                .satisfies(item -> assertThat(item.balance()).isEqualByComparingTo("0"));
+        assertThat(page.nextCursor()).isNull();
+        verify(repository).findDirectoryPage("%", "bob", PageRequest.of(0, 101));
+    }
+
+    @Test
+    void getAccountDetailsResolvesSeveralLoginsWithOneQuery() {
+        AccountEntity alice = baseAccount();
+        alice.addBankAccount(bank(BigDecimal.valueOf(150)));
+        when(repository.findAllWithBankAccountsByLoginIn(any())).thenReturn(List.of(alice));
+
+        var details = service.getAccountDetails(List.of("alice", "alice", "ghost"));
+
+        assertThat(details).singleElement()
+                .satisfies(d -> assertThat(d.balance()).isEqualByComparingTo("150"));
+        verify(repository).findAllWithBankAccountsByLoginIn(Set.of("alice", "ghost"));
+        verify(repository, never()).findByLogin(any());
+    }
+
     @Test
     void adjustBalanceDepositsMoney() {
-        AccountEntity entity = baseAccount();
-        BankAccountEntity bank = bank(BigDecimal.valueOf(100));
-        bank.setUser(entity);
-        when(bankAccountRepository.findByUserLoginForUpdate("alice")).thenReturn(Optional.of(bank));
+        var updated = new AccountDetailsDto(UUID.randomUUID(), UUID.randomUUID(), "alice",
+                "12345678901234567890", "RUB", BigDecimal.valueOf(150));
+        when(bankAccountRepository.applyBalanceDelta(null, "alice", BigDecimal.valueOf(50)))
+                .thenReturn(Optional.of(updated));
 
         var details = service.adjustBalance("alice",
                 new BalanceAdjustmentRequest(BigDecimal.valueOf(50), BalanceOperationType.DEPOSIT, null));
 
         assertThat(details.balance()).isEqualByComparingTo("150");
-        verify(bankAccountRepository).save(bank);
+        verify(bankAccountRepository, never()).save(any());
+    }
+
+    @Test
+    void adjustBalanceWithdrawsWithNegativeDelta() {
+        UUID bankAccountId = UUID.randomUUID();
+        var updated = new AccountDetailsDto(UUID.randomUUID(), bankAccountId, "alice",
+                "12345678901234567890", "RUB", BigDecimal.valueOf(70));
+        when(bankAccountRepository.applyBalanceDelta(bankAccountId, "alice", BigDecimal.valueOf(-30)))
+                .thenReturn(Optional.of(updated));
+
+        var details = service.adjustBalance("alice",
+                new BalanceAdjustmentRequest(BigDecimal.valueOf(30), BalanceOperationType.WITHDRAW, bankAccountId));
+
+        assertThat(details.bankAccountId()).isEqualTo(bankAccountId);
+        assertThat(details.balance()).isEqualByComparingTo("70");
     }
 
     @Test
     void adjustBalanceFailsOnInsufficientFunds() {
-        AccountEntity entity = baseAccount();
-        BankAccountEntity bank = bank(BigDecimal.valueOf(30));
-        bank.setUser(entity);
-        when(bankAccountRepository.findByUserLoginForUpdate("alice")).thenReturn(Optional.of(bank));
+        when(bankAccountRepository.applyBalanceDelta(null, "alice", BigDecimal.valueOf(-50)))
+                .thenReturn(Optional.empty());
+        when(bankAccountRepository.existsByUser_Login("alice")).thenReturn(true);
 
         assertThatThrownBy(() -> service.adjustBalance("alice",
                 new BalanceAdjustmentRequest(BigDecimal.valueOf(50), BalanceOperationType.WITHDRAW, null)))
                 .isInstanceOf(InsufficientFundsException.class)
                 .hasMessageContaining("Insufficient funds on source account");
+    }
 
-        verify(bankAccountRepository, never()).save(any());
+    @Test
+    void adjustBalanceFailsWhenAccountMissing() {
+        when(bankAccountRepository.applyBalanceDelta(null, "ghost", BigDecimal.valueOf(10)))
+                .thenReturn(Optional.empty());
+        when(bankAccountRepository.existsByUser_Login("ghost")).thenReturn(false);
+
+        assertThatThrownBy(() -> service.adjustBalance("ghost",
+                new BalanceAdjustmentRequest(BigDecimal.valueOf(10), BalanceOperationType.DEPOSIT, null)))
+                .isInstanceOf(AccountNotFoundException.class);
+    }
+
+    @Test
+    void transferUpdatesLowerAccountIdFirst() {
+        UUID low = new UUID(0, 1);
+        UUID high = new UUID(0, 2);
+        when(bankAccountRepository.applyBalanceDelta(any(), any(), any())).thenAnswer(inv -> Optional.of(
+                new AccountDetailsDto(UUID.randomUUID(), inv.getArgument(0), "user",
+                        "12345678901234567890", "RUB", BigDecimal.TEN)));
+
+        var result = service.transfer(new AccountTransferRequest(high, low, BigDecimal.valueOf(5)));
+
+        assertThat(result.from().bankAccountId()).isEqualTo(high);
+        assertThat(result.to().bankAccountId()).isEqualTo(low);
+        InOrder order = inOrder(bankAccountRepository);
+        order.verify(bankAccountRepository).applyBalanceDelta(low, null, BigDecimal.valueOf(5));
+        order.verify(bankAccountRepository).applyBalanceDelta(high, null, BigDecimal.valueOf(-5));
+    }
+
+    @Test
+    void transferFailsWhenSourceHasInsufficientFunds() {
+        UUID from = new UUID(0, 1);
+        UUID to = new UUID(0, 2);
+        when(bankAccountRepository.applyBalanceDelta(from, null, BigDecimal.valueOf(-50))).thenReturn(Optional.empty());
+        when(bankAccountRepository.existsById(from)).thenReturn(true);
+
+        assertThatThrownBy(() -> service.transfer(new AccountTransferRequest(from, to, BigDecimal.valueOf(50))))
+                .isInstanceOf(InsufficientFundsException.class);
+
+        verify(bankAccountRepository, never()).applyBalanceDelta(to, null, BigDecimal.valueOf(50));
+    }
+
+    @Test
+    void transferWithAlreadyAppliedIdReturnsCurrentBalances() {
+        UUID from = new UUID(0, 1);
+        UUID to = new UUID(0, 2);
+        UUID transferId = UUID.randomUUID();
+        when(bankAccountRepository.markTransferApplied(transferId)).thenReturn(false);
+        when(bankAccountRepository.findDetails(any())).thenAnswer(inv -> Optional.of(
+                new AccountDetailsDto(UUID.randomUUID(), inv.getArgument(0), "user",
+                        "12345678901234567890", "RUB", BigDecimal.TEN)));
+
+        var result = service.transfer(new AccountTransferRequest(from, to, BigDecimal.valueOf(5), transferId));
+
+        assertThat(result.from().bankAccountId()).isEqualTo(from);
+        assertThat(result.to().bankAccountId()).isEqualTo(to);
+        verify(bankAccountRepository, never()).applyBalanceDelta(any(), any(), any());
+    }
+
+    @Test
+    void transferWithNewIdIsAppliedOnce() {
+        UUID transferId = UUID.randomUUID();
+        when(bankAccountRepository.markTransferApplied(transferId)).thenReturn(true);
+        when(bankAccountRepository.applyBalanceDelta(any(), any(), any())).thenAnswer(inv -> Optional.of(
+                new AccountDetailsDto(UUID.randomUUID(), inv.getArgument(0), "user",
+                        "12345678901234567890", "RUB", BigDecimal.TEN)));
+
+        service.transfer(new AccountTransferRequest(new UUID(0, 1), new UUID(0, 2), BigDecimal.ONE, transferId));
+
+        verify(bankAccountRepository).markTransferApplied(transferId);
+        verify(bankAccountRepository, times(2)).applyBalanceDelta(any(), any(), any());
     }
 
     private AccountEntity baseAccount() {
@@ -181,6 +410,15 @@ class AccountServiceTest {
         return entity;
     }
 
+    private AccountEntity failedAccount(BigDecimal balance) {
+        AccountEntity entity = baseAccount();
+        entity.setProvisioningStatus(ProvisioningStatus.FAILED);
+        entity.setProvisioningAttempts(10);
+        entity.setPendingCredential("pbkdf2-sha256$1$c2FsdA==$b2xk");
+        entity.addBankAccount(bank(balance));
+        return entity;
+    }
+
     private BankAccountEntity bank(BigDecimal balance) {
         BankAccountEntity bank = new BankAccountEntity();
         bank.setBalance(balance);
@@ -0,0 +1,167 @@
+package ru.practicum.accounts.account.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.accounts.account.model.AccountEntity;
+import ru.practicum.accounts.account.model.ProvisioningStatus;
+import ru.practicum.accounts.account.repository.AccountRepository;
+import ru.practicum.accounts.clients.KeycloakAdminClient;
+import ru.practicum.accounts.clients.KeycloakPasswordHash;
+import ru.practicum.accounts.clients.NotificationsClient;
+
+class KeycloakProvisioningWorkerTest {
+
+    private AccountRepository repository;
+    private KeycloakAdminClient keycloakAdminClient;
+    private NotificationsClient notificationsClient;
+    private KeycloakProvisioningWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(AccountRepository.class);
+        keycloakAdminClient = mock(KeycloakAdminClient.class);
+        notificationsClient = mock(NotificationsClient.class);
+        var transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        worker = new KeycloakProvisioningWorker(repository, keycloakAdminClient, notificationsClient,
+                new TransactionTemplate(transactionManager), 10, 3);
+    }
+
+    @Test
+    void provisionsPendingUserAndClearsCredential() {
+        AccountEntity account = due(pending("alice"));
+        when(keycloakAdminClient.createUser(eq("alice"), any(KeycloakPasswordHash.class), eq("Alice"), any()))
+                .thenReturn("kc-alice");
+
+        int provisioned = worker.provisionPending();
+
+        assertThat(provisioned).isEqualTo(1);
+        assertThat(account.getKeycloakId()).isEqualTo("kc-alice");
+        assertThat(account.getProvisioningStatus()).isEqualTo(ProvisioningStatus.PROVISIONED);
+        assertThat(account.getPendingCredential()).isNull();
+        verify(notificationsClient).sendRegistrationCompleted("alice");
+    }
+
+    @Test
+    void leasesClaimedUsersWhileKeycloakIsCalled() {
+        AccountEntity account = due(pending("alice"));
+        OffsetDateTime before = OffsetDateTime.now();
+        when(keycloakAdminClient.createUser(any(), any(), any(), any())).thenAnswer(inv -> {
+            assertThat(account.getProvisioningNextAttemptAt())
+                    .isAfterOrEqualTo(before.plus(KeycloakProvisioningWorker.LEASE));
+            return "kc-alice";
+        });
+
+        assertThat(worker.provisionPending()).isEqualTo(1);
+    }
+
+    @Test
+    void removesKeycloakUserWhenAccountWasDeletedDuringProvisioning() {
+        AccountEntity account = due(pending("alice"));
+        when(repository.findLockedById(account.getId())).thenReturn(Optional.empty());
+        when(keycloakAdminClient.createUser(any(), any(), any(), any())).thenReturn("kc-alice");
+
+        int provisioned = worker.provisionPending();
+
+        assertThat(provisioned).isZero();
+        verify(keycloakAdminClient).deleteUser("alice", "kc-alice");
+        verify(notificationsClient, never()).sendRegistrationCompleted(any());
+    }
+
+    @Test
+    void keepsUserPendingWhenPasswordChangesDuringProvisioning() {
+        AccountEntity account = due(pending("alice"));
+        String changed = KeycloakPasswordHash.of("changed").encode();
+        when(keycloakAdminClient.createUser(any(), any(), any(), any())).thenAnswer(inv -> {
+            account.setPendingCredential(changed);
+            return "kc-alice";
+        });
+
+        assertThat(worker.provisionPending()).isZero();
+
+        assertThat(account.getProvisioningStatus()).isEqualTo(ProvisioningStatus.PENDING);
+        assertThat(account.getKeycloakId()).isEqualTo("kc-alice");
+        assertThat(account.getPendingCredential()).isEqualTo(changed);
+        verify(notificationsClient, never()).sendRegistrationCompleted(any());
+
+        assertThat(worker.provisionPending()).isEqualTo(1);
+
+        verify(keycloakAdminClient).resetPassword("alice", "kc-alice", KeycloakPasswordHash.decode(changed));
+        verify(keycloakAdminClient, times(1)).createUser(any(), any(), any(), any());
+        assertThat(account.getProvisioningStatus()).isEqualTo(ProvisioningStatus.PROVISIONED);
+        assertThat(account.getPendingCredential()).isNull();
+        verify(notificationsClient).sendRegistrationCompleted("alice");
+    }
+
+    @Test
+    void schedulesRetryWithBackoffWhenKeycloakFails() {
+        AccountEntity account = due(pending("alice"));
+        when(keycloakAdminClient.createUser(any(), any(), any(), any())).thenThrow(new IllegalStateException("down"));
+
+        OffsetDateTime before = OffsetDateTime.now();
+        int provisioned = worker.provisionPending();
+
+        assertThat(provisioned).isZero();
+        assertThat(account.getProvisioningStatus()).isEqualTo(ProvisioningStatus.PENDING);
+        assertThat(account.getProvisioningAttempts()).isEqualTo(1);
+        assertThat(account.getProvisioningNextAttemptAt()).isAfter(before.plusSeconds(1))
+                .isBefore(before.plus(KeycloakProvisioningWorker.LEASE));
+        assertThat(account.getPendingCredential()).isNotNull();
+        verify(notificationsClient, never()).sendRegistrationCompleted(any());
+    }
+
+    @Test
+    void marksFailedAfterMaxAttempts() {
+        AccountEntity account = due(pending("alice"));
+        account.setProvisioningAttempts(2);
+        when(keycloakAdminClient.createUser(any(), any(), any(), any())).thenThrow(new IllegalStateException("down"));
+
+        worker.provisionPending();
+
+        assertThat(account.getProvisioningStatus()).isEqualTo(ProvisioningStatus.FAILED);
+        assertThat(account.getProvisioningAttempts()).isEqualTo(3);
+    }
+
+    @Test
+    void backoffDoublesUpToCap() {
+        assertThat(KeycloakProvisioningWorker.backoff(1)).isEqualTo(Duration.ofSeconds(2));
+        assertThat(KeycloakProvisioningWorker.backoff(4)).isEqualTo(Duration.ofSeconds(16));
+        assertThat(KeycloakProvisioningWorker.backoff(30)).isEqualTo(Duration.ofMinutes(5));
+    }
+
+    private AccountEntity due(AccountEntity account) {
+        when(repository.lockDueForProvisioning(eq(ProvisioningStatus.PENDING), any(), any())).thenReturn(List.of(account));
+        when(repository.findLockedById(account.getId())).thenReturn(Optional.of(account));
+        return account;
+    }
+
+    private static AccountEntity pending(String login) {
+        AccountEntity account = new AccountEntity();
+        account.setId(UUID.randomUUID());
+        account.setLogin(login);
+        account.setName("Alice");
+        account.setBirthdate(LocalDate.of(1990, 1, 1));
+        account.setProvisioningStatus(ProvisioningStatus.PENDING);
+        account.setPendingCredential(KeycloakPasswordHash.of("pwd123").encode());
+        account.setProvisioningNextAttemptAt(OffsetDateTime.now());
+        return account;
+    }
+}
@@ -3,6 +3,7 @@ package ru.practicum.accounts.account.web;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,6 +17,7 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
@@ -26,13 +28,20 @@ import ru.practicum.accounts.clients.KeycloakAdminClient;
 import ru.practicum.accounts.clients.NotificationsClient;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @Testcontainers
@@ -103,7 +112,7 @@ class AccountControllerIT {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$[0]").value(containsString("Account contains funds and cannot be removed")));
 
-        verify(keycloakAdminClient, never()).deleteUser("rich-user");
+        verify(keycloakAdminClient, never()).deleteUser(eq("rich-user"), any());
     }
 
     @Test
@@ -116,10 +125,48 @@ class AccountControllerIT {
                 .andExpect(jsonPath("$", hasSize(0)));
 
         assertThat(accountRepository.findByLogin("empty-user")).isEmpty();
-        verify(keycloakAdminClient).deleteUser("empty-user");
+        verify(keycloakAdminClient).deleteUser(eq("empty-user"), any());
         verify(notificationsClient).sendAccountDeleted("empty-user");
     }
 
+    @Test
+    void directoryPagesThroughPrefixMatchesByLogin() throws Exception {
+        persistAccount("anna", BigDecimal.ONE);
+        persistAccount("andrew", BigDecimal.ONE);
+        persistAccount("anton", BigDecimal.ONE);
+        persistAccount("boris", BigDecimal.ONE);
+
+        mockMvc.perform(get("/api/accounts/directory").param("q", "An").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].login", contains("andrew", "anna")))
+                .andExpect(jsonPath("$.nextCursor").value("anna"));
+
+        mockMvc.perform(get("/api/accounts/directory").param("q", "An").param("limit", "2").param("cursor", "anna"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].login", contains("anton")))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void exportStreamsOneJsonObjectPerLine() throws Exception {
+        persistAccount("zoe", BigDecimal.TEN);
+        persistAccount("adam", BigDecimal.ONE);
+
+        MvcResult started = mockMvc.perform(get("/api/accounts/users").accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> lines = body.lines().toList();
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readTree(lines.get(0)).get("login").asText()).isEqualTo("adam");
+        assertThat(objectMapper.readTree(lines.get(1)).get("balance").decimalValue()).isEqualByComparingTo("10");
+    }
+
     private void persistAccount(String login, BigDecimal balance) {
         AccountEntity entity = new AccountEntity();
         entity.setLogin(login);
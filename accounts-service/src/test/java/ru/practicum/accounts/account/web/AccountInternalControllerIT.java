@@ -1,5 +1,6 @@
 package ru.practicum.accounts.account.web;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -11,6 +12,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -76,6 +78,18 @@ class AccountInternalControllerIT {
                 .andExpect(jsonPath("$.balance", is(250.0)));
     }
 
+    @Test
+    void getDetailsBatchReturnsKnownLogins() throws Exception {
+        persistAccount("alice", new BigDecimal("100.00"));
+        persistAccount("bob", new BigDecimal("250.00"));
+
+        mockMvc.perform(get("/api/accounts/internal/users")
+                        .param("login", "alice", "bob", "ghost"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(2)))
+                .andExpect(jsonPath("$[?(@.login == 'bob')].balance", contains(250.0)));
+    }
+
     @Test
     void adjustBalanceDepositsFunds() throws Exception {
         persistAccount("alice", new BigDecimal("100.00"));
@@ -90,6 +104,79 @@ class AccountInternalControllerIT {
                 .andExpect(jsonPath("$.balance", is(175.0)));
     }
 
+    @Test
+    void adjustBalanceRejectsOverdraftAndKeepsBalance() throws Exception {
+        persistAccount("carol", new BigDecimal("40.00"));
+
+        mockMvc.perform(post("/api/accounts/internal/users/{login}/balance", "carol")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "amount", 50,
+                                "type", "WITHDRAW"
+                        ))))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/accounts/internal/users/{login}", "carol"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance", is(40.0)));
+    }
+
+    @Test
+    void transferMovesFundsBetweenAccounts() throws Exception {
+        AccountEntity alice = persistAccount("alice", new BigDecimal("100.00"));
+        AccountEntity bob = persistAccount("bob", new BigDecimal("10.00"));
+
+        mockMvc.perform(post("/api/accounts/internal/transfers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "fromBankAccountId", alice.getBankAccount().getId(),
+                                "toBankAccountId", bob.getBankAccount().getId(),
+                                "amount", 60
+                        ))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.from.balance", is(40.0)))
+                .andExpect(jsonPath("$.to.balance", is(70.0)));
+    }
+
+    @Test
+    void transferRollsBackWhenSourceHasInsufficientFunds() throws Exception {
+        AccountEntity alice = persistAccount("alice", new BigDecimal("20.00"));
+        AccountEntity bob = persistAccount("bob", new BigDecimal("10.00"));
+
+        mockMvc.perform(post("/api/accounts/internal/transfers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "fromBankAccountId", alice.getBankAccount().getId(),
+                                "toBankAccountId", bob.getBankAccount().getId(),
+                                "amount", 60
+                        ))))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/accounts/internal/users/{login}", "bob"))
+                .andExpect(jsonPath("$.balance", is(10.0)));
+    }
+
+    @Test
+    void transferWithSameIdIsAppliedOnce() throws Exception {
+        AccountEntity alice = persistAccount("alice", new BigDecimal("100.00"));
+        AccountEntity bob = persistAccount("bob", new BigDecimal("10.00"));
+        String body = objectMapper.writeValueAsString(Map.of(
+                "fromBankAccountId", alice.getBankAccount().getId(),
+                "toBankAccountId", bob.getBankAccount().getId(),
+                "amount", 60,
+                "transferId", UUID.randomUUID()
+        ));
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/accounts/internal/transfers")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.from.balance", is(40.0)))
+                    .andExpect(jsonPath("$.to.balance", is(70.0)));
+        }
+    }
+
     private AccountEntity persistAccount(String login, BigDecimal balance) {
         AccountEntity user = new AccountEntity();
         user.setLogin(login);
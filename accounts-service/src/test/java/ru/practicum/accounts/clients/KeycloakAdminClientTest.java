@@ -0,0 +1,124 @@
+package ru.practicum.accounts.clients;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.http.PooledHttpClientFactory;
+import ru.practicum.http.PooledHttpClientProperties;
+
+class KeycloakAdminClientTest {
+
+    private HttpServer server;
+    private PooledHttpClientFactory httpClients;
+    private KeycloakAdminClient client;
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private volatile String currentId = "kc-1";
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+        httpClients = new PooledHttpClientFactory(new PooledHttpClientProperties(), new SimpleMeterRegistry());
+        client = new KeycloakAdminClient("http://localhost:" + server.getAddress().getPort(), "bank",
+                "admin", "admin", Duration.ofSeconds(10), 100, httpClients, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void stopServer() {
+        httpClients.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    void usesStoredIdWithoutSearching() {
+        client.resetPassword("alice", "kc-1", "secret");
+
+        assertThat(requests).containsExactly(
+                "POST /realms/master/protocol/openid-connect/token",
+                "PUT /admin/realms/bank/users/kc-1/reset-password");
+    }
+
+    @Test
+    void searchesOnceAndCachesWhenIdIsUnknown() {
+        client.resetPassword("alice", null, "secret");
+        client.resetPassword("alice", null, "secret2");
+
+        assertThat(requests).filteredOn(r -> r.startsWith("GET")).hasSize(1);
+        assertThat(requests).filteredOn(r -> r.startsWith("POST")).hasSize(1);
+        assertThat(requests).filteredOn(r -> r.equals("PUT /admin/realms/bank/users/kc-1/reset-password")).hasSize(2);
+    }
+
+    @Test
+    void retriesWithFreshIdWhenStoredOneIsStale() {
+        currentId = "kc-2";
+
+        client.deleteUser("alice", "kc-1");
+
+        assertThat(requests).containsExactly(
+                "POST /realms/master/protocol/openid-connect/token",
+                "DELETE /admin/realms/bank/users/kc-1",
+                "GET /admin/realms/bank/users",
+                "DELETE /admin/realms/bank/users/kc-2");
+    }
+
+    @Test
+    void adoptsExistingUserOnConflict() {
+        String id = client.createUser("alice", KeycloakPasswordHash.of("secret"), "Alice", null);
+        client.resetPassword("alice", null, "secret2");
+
+        assertThat(id).isEqualTo("kc-1");
+        assertThat(requests).containsExactly(
+                "POST /realms/master/protocol/openid-connect/token",
+                "POST /admin/realms/bank/users",
+                "GET /admin/realms/bank/users",
+                "PUT /admin/realms/bank/users/kc-1",
+                "PUT /admin/realms/bank/users/kc-1/reset-password");
+    }
+
+    @Test
+    void resetsPasswordToHashWithUserUpdate() {
+        client.resetPassword("alice", "kc-1", KeycloakPasswordHash.of("secret"));
+
+        assertThat(requests).containsExactly(
+                "POST /realms/master/protocol/openid-connect/token",
+                "PUT /admin/realms/bank/users/kc-1");
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        requests.add(method + " " + path);
+        if (path.equals("/realms/master/protocol/openid-connect/token")) {
+            respond(exchange, 200, "{\"access_token\":\"admin-token\",\"expires_in\":60}");
+        } else if (method.equals("POST") && path.equals("/admin/realms/bank/users")) {
+            respond(exchange, 409, "{\"errorMessage\":\"User exists with same username\"}");
+        } else if (method.equals("GET") && path.equals("/admin/realms/bank/users")) {
+            respond(exchange, 200, "[{\"id\":\"" + currentId + "\",\"username\":\"alice\"}]");
+        } else if (path.startsWith("/admin/realms/bank/users/" + currentId)) {
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        } else {
+            respond(exchange, 404, "{\"error\":\"User not found\"}");
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
@@ -0,0 +1,153 @@
+package ru.practicum.accounts.clients;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class KeycloakAdminTokenCacheTest {
+
+    private MutableClock clock;
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicInteger fetches;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        meterRegistry = new SimpleMeterRegistry();
+        fetches = new AtomicInteger();
+    }
+
+    @Test
+    void reusesTokenUntilRefreshPoint() {
+        var cache = cache(() -> grant(Duration.ofSeconds(60)), Duration.ofSeconds(10));
+
+        assertThat(cache.get()).isEqualTo("token-1");
+        clock.advance(Duration.ofSeconds(49));
+        assertThat(cache.get()).isEqualTo("token-1");
+        clock.advance(Duration.ofSeconds(2));
+        assertThat(cache.get()).isEqualTo("token-2");
+
+        assertThat(fetches).hasValue(2);
+        assertThat(meterRegistry.counter("keycloak.admin.token.requests", "result", "hit").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("keycloak.admin.token.requests", "result", "miss").count()).isEqualTo(2);
+        assertThat(meterRegistry.counter("keycloak.admin.token.refreshes", "outcome", "success").count()).isEqualTo(2);
+    }
+
+    @Test
+    void capsSkewAtHalfOfShortLifetime() {
+        var cache = cache(() -> grant(Duration.ofSeconds(20)), Duration.ofSeconds(30));
+
+        cache.get();
+        clock.advance(Duration.ofSeconds(9));
+        cache.get();
+        clock.advance(Duration.ofSeconds(2));
+        cache.get();
+
+        assertThat(fetches).hasValue(2);
+    }
+
+    @Test
+    void keepsValidTokenWhenProactiveRefreshFails() {
+        var failing = new AtomicInteger();
+        var cache = cache(() -> {
+            if (fetches.get() > 0) {
+                failing.incrementAndGet();
+                throw new IllegalStateException("keycloak down");
+            }
+            return grant(Duration.ofSeconds(60));
+        }, Duration.ofSeconds(10));
+
+        assertThat(cache.get()).isEqualTo("token-1");
+        clock.advance(Duration.ofSeconds(55));
+        assertThat(cache.get()).isEqualTo("token-1");
+        clock.advance(Duration.ofSeconds(10));
+        assertThatThrownBy(cache::get).hasMessage("keycloak down");
+
+        assertThat(failing).hasValue(2);
+        assertThat(meterRegistry.counter("keycloak.admin.token.refreshes", "outcome", "failure").count()).isEqualTo(2);
+    }
+
+    @Test
+    void coalescesConcurrentRefreshes() throws Exception {
+        var release = new CountDownLatch(1);
+        var cache = cache(() -> {
+            await(release);
+            return grant(Duration.ofSeconds(60));
+        }, Duration.ofSeconds(10));
+
+        int callers = 16;
+        try (var executor = Executors.newFixedThreadPool(callers)) {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(cache::get));
+            }
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("token-1");
+            }
+        }
+
+        assertThat(fetches).hasValue(1);
+    }
+
+    private KeycloakAdminTokenCache cache(Supplier<KeycloakAdminTokenCache.Grant> fetcher, Duration skew) {
+        return new KeycloakAdminTokenCache(fetcher, skew, meterRegistry, clock);
+    }
+
+    private KeycloakAdminTokenCache.Grant grant(Duration lifetime) {
+        return new KeycloakAdminTokenCache.Grant("token-" + fetches.incrementAndGet(), lifetime);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private volatile Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package ru.practicum.accounts.clients;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HexFormat;
+import org.junit.jupiter.api.Test;
+
+class KeycloakPasswordHashTest {
+
+    @Test
+    void matchesRfc7914TestVector() {
+        var hash = KeycloakPasswordHash.of("passwd", "salt".getBytes(StandardCharsets.US_ASCII), 1);
+
+        assertThat(HexFormat.of().formatHex(Base64.getDecoder().decode(hash.value()))).isEqualTo(
+                "55ac046e56e3089fec1691c22544b605f94185216dde0465e68b9d57c20dacbc"
+                        + "49ca9cccf179b645991664b39d77ef317c71b845b1e30bd509112041d3a19783");
+    }
+
+    @Test
+    void encodeRoundTripsAndUsesFreshSalt() {
+        var first = KeycloakPasswordHash.of("secret");
+        var second = KeycloakPasswordHash.of("secret");
+
+        assertThat(KeycloakPasswordHash.decode(first.encode())).isEqualTo(first);
+        assertThat(first.algorithm()).isEqualTo("pbkdf2-sha256");
+        assertThat(first.iterations()).isEqualTo(KeycloakPasswordHash.ITERATIONS);
+        assertThat(first.salt()).isNotEqualTo(second.salt());
+        assertThat(first.value()).isNotEqualTo(second.value());
+    }
+}
@@ -0,0 +1,64 @@
+package ru.practicum.accounts.account.service;
+
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.accounts.account.model.AccountEntity;
+import ru.practicum.accounts.account.model.BankAccountEntity;
+import ru.practicum.accounts.account.web.dto.AccountDetailsDto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Маппинг пользователя в детали счёта; основной счёт ищется среди {@code bankAccounts} счетов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountMapperBenchmark {
+
+    @Param({"1", "3"})
+    int bankAccounts;
+
+    private AccountMapper mapper;
+    private AccountEntity entity;
+
+    @Setup
+    public void setUp() {
+        mapper = Mappers.getMapper(AccountMapper.class);
+        entity = new AccountEntity();
+        entity.setId(UUID.randomUUID());
+        entity.setLogin("alice");
+        entity.setName("Alice");
+        entity.setBirthdate(LocalDate.of(1990, 1, 1));
+        entity.setKeycloakId("kc-alice");
+        for (int i = 0; i < bankAccounts; i++) {
+            var bank = new BankAccountEntity();
+            bank.setId(UUID.randomUUID());
+            bank.setAccountNumber("408000000000000000%02d".formatted(i));
+            bank.setCurrency("RUB");
+            bank.setBalance(BigDecimal.valueOf(1500 + i));
+            entity.addBankAccount(bank);
+        }
+    }
+
+    @Benchmark
+    public AccountDetailsDto toDetailsDto() {
+        return mapper.toDetailsDto(entity);
+    }
+}
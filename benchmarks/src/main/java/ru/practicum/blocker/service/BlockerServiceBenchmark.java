@@ -0,0 +1,86 @@
+package ru.practicum.blocker.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.blocker.config.BlockerProperties;
+import ru.practicum.blocker.service.rules.MaxAmountRule;
+import ru.practicum.blocker.service.rules.RandomBlockRule;
+import ru.practicum.blocker.service.rules.SenderWindowRule;
+import ru.practicum.blocker.web.dto.BlockCheckRequest;
+import ru.practicum.blocker.web.dto.BlockCheckResponse;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Проверка перевода всеми правилами одним потоком и при конкуренции потоков за их общее состояние.
+ * Отправители выбираются из пула, лимиты заданы так, чтобы перевод проходил все правила
+ * и доходил до учёта в счётчиках.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockerServiceBenchmark {
+
+    private static final int SENDERS = 1024;
+
+    private final BlockCheckRequest[] requests = new BlockCheckRequest[SENDERS];
+    private BlockerService service;
+
+    @Setup
+    public void setUp() {
+        var properties = new BlockerProperties();
+        properties.setBlockProbability(0);
+        properties.setMaxAmount(Map.of("RUB", new BigDecimal("1000000")));
+        properties.setSenderWindows(List.of(
+                window(Duration.ofMinutes(1)), window(Duration.ofHours(1)), window(Duration.ofDays(1))));
+        service = new BlockerService(List.of(
+                new MaxAmountRule(properties),
+                new SenderWindowRule(properties),
+                new RandomBlockRule(properties)
+        ), new SimpleMeterRegistry());
+        for (int i = 0; i < SENDERS; i++) {
+            requests[i] = new BlockCheckRequest("user-" + i, "bob", "RUB", new BigDecimal("250.00"));
+        }
+    }
+
+    @Benchmark
+    public BlockCheckResponse check() {
+        return service.check(nextRequest());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public BlockCheckResponse checkContended() {
+        return service.check(nextRequest());
+    }
+
+    private static BlockerProperties.SenderWindow window(Duration length) {
+        var window = new BlockerProperties.SenderWindow();
+        window.setWindow(length);
+        window.setMaxTransfers(Integer.MAX_VALUE);
+        window.setMaxAmount(Map.of("RUB", new BigDecimal("1000000000000")));
+        return window;
+    }
+
+    private BlockCheckRequest nextRequest() {
+        return requests[ThreadLocalRandom.current().nextInt(SENDERS)];
+    }
+}
@@ -0,0 +1,87 @@
+package ru.practicum.exchange.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.exchange.model.ExchangeRateEntity;
+import ru.practicum.exchange.repository.ExchangeRateRepository;
+import ru.practicum.exchange.web.dto.ConvertResponse;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Конвертация по снимку курсов в памяти: из базовой валюты, в базовую и кросс-курс.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExchangeServiceBenchmark {
+
+    private final BigDecimal amount = new BigDecimal("1234.56");
+    private ExchangeService service;
+
+    @Setup
+    public void setUp() {
+        var rates = List.of(rate("USD", "90.10", "91.30"), rate("CNY", "12.40", "12.65"));
+        var cache = new ExchangeRateCache(repository(rates), new SimpleMeterRegistry(), Duration.ofDays(1));
+        service = new ExchangeService(repository(rates), cache);
+        service.baseCurrency = "RUB";
+        cache.getAll();
+    }
+
+    @Benchmark
+    public ConvertResponse fromBase() {
+        return service.convert("RUB", "USD", amount);
+    }
+
+    @Benchmark
+    public ConvertResponse toBase() {
+        return service.convert("USD", "RUB", amount);
+    }
+
+    @Benchmark
+    public ConvertResponse cross() {
+        return service.convert("USD", "CNY", amount);
+    }
+
+    private static ExchangeRateEntity rate(String currency, String buy, String sell) {
+        var entity = new ExchangeRateEntity();
+        entity.setBaseCurrency("RUB");
+        entity.setCurrency(currency);
+        entity.setBuyRate(new BigDecimal(buy));
+        entity.setSellRate(new BigDecimal(sell));
+        entity.setUpdatedAt(Instant.now());
+        return entity;
+    }
+
+    /**
+     * Репозиторий нужен только для первой загрузки снимка, поэтому достаточно findAll().
+     */
+    private static ExchangeRateRepository repository(List<ExchangeRateEntity> rates) {
+        return (ExchangeRateRepository) Proxy.newProxyInstance(
+                ExchangeRateRepository.class.getClassLoader(),
+                new Class<?>[]{ExchangeRateRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findAll") && method.getParameterCount() == 0) {
+                        return rates;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
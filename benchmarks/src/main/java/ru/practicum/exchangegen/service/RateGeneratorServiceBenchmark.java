@@ -0,0 +1,51 @@
+package ru.practicum.exchangegen.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.exchangegen.config.ExchangeGeneratorProperties;
+import ru.practicum.exchangegen.model.RatePayload;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Генерация пачки курсов для {@code targetCurrencies} валют.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateGeneratorServiceBenchmark {
+
+    private static final List<String> CURRENCIES = List.of(
+            "USD", "CNY", "EUR", "GBP", "JPY", "CHF", "KZT", "TRY",
+            "AED", "INR", "BYN", "AMD", "GEL", "UZS", "HKD", "SGD");
+
+    @Param({"2", "16"})
+    int targetCurrencies;
+
+    private RateGeneratorService service;
+
+    @Setup
+    public void setUp() {
+        var properties = new ExchangeGeneratorProperties();
+        properties.setTargetCurrencies(CURRENCIES.subList(0, targetCurrencies));
+        service = new RateGeneratorService(properties);
+    }
+
+    @Benchmark
+    public List<RatePayload> generateRates() {
+        return service.generateRates();
+    }
+}
@@ -0,0 +1,36 @@
+package ru.practicum.notifications.mapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.notifications.model.NotificationMessage;
+import ru.practicum.notifications.web.dto.NotificationEventRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразование входящего события в уведомление: UUID, время создания и builder.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotificationMapperBenchmark {
+
+    private final NotificationMapper mapper = new NotificationMapper();
+    private final NotificationEventRequest request =
+            new NotificationEventRequest("TRANSFER_COMPLETED", "alice", "Перевод 250.00 RUB выполнен");
+
+    @Benchmark
+    public NotificationMessage toMessage() {
+        return mapper.toMessage(request);
+    }
+}
@@ -0,0 +1,39 @@
+package ru.practicum.transfer.mapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.transfer.model.TransferEntity;
+import ru.practicum.transfer.service.dto.TransferPlan;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Построение сущности перевода из плана перед сохранением.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransferMapperBenchmark {
+
+    private final TransferMapper mapper = new TransferMapperImpl();
+    private final TransferPlan plan = new TransferPlan(
+            UUID.randomUUID(), UUID.randomUUID(), "alice", "bob", new BigDecimal("250.00"), "RUB",
+            UUID.randomUUID().toString());
+
+    @Benchmark
+    public TransferEntity toEntity() {
+        return mapper.toEntity(plan);
+    }
+}
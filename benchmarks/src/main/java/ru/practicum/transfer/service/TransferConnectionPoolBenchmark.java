@@ -0,0 +1,267 @@
+package ru.practicum.transfer.service;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.http.PooledHttpClientFactory;
+import ru.practicum.idempotency.IdempotencyCache;
+import ru.practicum.http.PooledHttpClientProperties;
+import ru.practicum.outbox.NotificationOutboxEntity;
+import ru.practicum.outbox.NotificationOutboxRepository;
+import ru.practicum.transfer.clients.AccountsClient;
+import ru.practicum.transfer.clients.BlockerClient;
+import ru.practicum.transfer.clients.dto.AccountDetails;
+import ru.practicum.transfer.clients.dto.AccountTransferCommand;
+import ru.practicum.transfer.clients.dto.AccountTransferResult;
+import ru.practicum.transfer.clients.dto.BlockCheckRequest;
+import ru.practicum.transfer.clients.dto.BlockCheckResponse;
+import ru.practicum.transfer.mapper.TransferMapperImpl;
+import ru.practicum.transfer.model.TransferEntity;
+import ru.practicum.transfer.repository.TransferRepository;
+import ru.practicum.transfer.web.dto.TransferRequest;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность переводов при маленьком пуле соединений (Hikari над in-memory H2).
+ * Удалённые вызовы (blocker, accounts) имитируются задержкой {@code remoteLatencyMs}.
+ * <ul>
+ *     <li>{@code single} — весь перевод в одной транзакции, как было при {@code @Transactional} на
+ *     {@code process}: соединение занято и во время удалённых вызовов;</li>
+ *     <li>{@code short} — текущий {@link TransferService}: соединение берётся только на запись PENDING
+ *     и на запись итога.</li>
+ * </ul>
+ * Дополнительно выводятся {@code connectionWaitMs} (суммарное ожидание соединения из пула
+ * за итерацию) и {@code transfers}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class TransferConnectionPoolBenchmark {
+
+    @Param({"single", "short"})
+    public String boundary;
+
+    @Param("4")
+    public int poolSize;
+
+    @Param("5")
+    public long remoteLatencyMs;
+
+    private HikariDataSource pool;
+    private TransactionTemplate outerTransaction;
+    private TransferService service;
+    private PooledHttpClientFactory httpClients;
+
+    @Setup
+    public void setUp() {
+        var config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:transfer-bench;DB_CLOSE_DELAY=-1");
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(poolSize);
+        config.setConnectionTimeout(Duration.ofSeconds(30).toMillis());
+        pool = new HikariDataSource(config);
+        var dataSource = new WaitTimingDataSource(pool);
+        var jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE IF NOT EXISTS transactions (id UUID PRIMARY KEY, status VARCHAR(20))");
+        jdbc.execute("CREATE TABLE IF NOT EXISTS notification_outbox (id UUID PRIMARY KEY, message VARCHAR(255))");
+
+        var transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        outerTransaction = transactionTemplate;
+        httpClients = new PooledHttpClientFactory(new PooledHttpClientProperties(), new SimpleMeterRegistry());
+        var accountsClient = new RemoteAccounts(httpClients, remoteLatencyMs);
+        var validator = new TransferValidator(accountsClient, new RemoteBlocker(httpClients, remoteLatencyMs));
+        var transferRepository = transferRepository(jdbc);
+        service = new TransferService(
+                transferRepository,
+                accountsClient,
+                new TransferCompletion(transferRepository, new NotificationOutbox(outboxRepository(jdbc), true),
+                        transactionTemplate),
+                validator,
+                new TransferMapperImpl(),
+                new IdempotencyCache(new SimpleMeterRegistry(), Duration.ofMinutes(1), 1),
+                transactionTemplate);
+    }
+
+    @TearDown
+    public void tearDown() {
+        httpClients.destroy();
+        pool.close();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public List<String> transfer(PoolCounters counters) {
+        var request = new TransferRequest("alice", "bob", new BigDecimal("10.00"));
+        List<String> result = "single".equals(boundary)
+                ? outerTransaction.execute(status -> service.process(request))
+                : service.process(request);
+        counters.transfers++;
+        counters.connectionWaitMs += WaitTimingDataSource.takeWaitNanos() / 1_000_000.0;
+        return result;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PoolCounters {
+        public double connectionWaitMs;
+        public long transfers;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            connectionWaitMs = 0;
+            transfers = 0;
+        }
+    }
+
+    /**
+     * Считает время ожидания соединения из пула для текущего потока.
+     */
+    static final class WaitTimingDataSource extends DelegatingDataSource {
+
+        private static final ThreadLocal<long[]> WAIT_NANOS = ThreadLocal.withInitial(() -> new long[1]);
+
+        WaitTimingDataSource(HikariDataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            long started = System.nanoTime();
+            try {
+                return super.getConnection();
+            } finally {
+                WAIT_NANOS.get()[0] += System.nanoTime() - started;
+            }
+        }
+
+        static long takeWaitNanos() {
+            long[] wait = WAIT_NANOS.get();
+            long value = wait[0];
+            wait[0] = 0;
+            return value;
+        }
+    }
+
+    private static final class RemoteBlocker extends BlockerClient {
+        private final long latencyMs;
+
+        RemoteBlocker(PooledHttpClientFactory httpClients, long latencyMs) {
+            super("http://localhost", httpClients);
+            this.latencyMs = latencyMs;
+        }
+
+        @Override
+        public BlockCheckResponse check(BlockCheckRequest request) {
+            sleep(latencyMs);
+            return new BlockCheckResponse(true, null);
+        }
+    }
+
+    private static final class RemoteAccounts extends AccountsClient {
+        private final long latencyMs;
+        private final Map<String, AccountDetails> accounts = Map.of(
+                "alice", account("alice"),
+                "bob", account("bob"));
+
+        RemoteAccounts(PooledHttpClientFactory httpClients, long latencyMs) {
+            super("http://localhost", 500, 2000, httpClients);
+            this.latencyMs = latencyMs;
+        }
+
+        @Override
+        public Map<String, AccountDetails> getAccountDetails(Collection<String> logins) {
+            sleep(latencyMs);
+            return accounts;
+        }
+
+        @Override
+        public AccountTransferResult transfer(AccountTransferCommand command) {
+            sleep(latencyMs);
+            return new AccountTransferResult(accounts.get("alice"), accounts.get("bob"));
+        }
+
+        private static AccountDetails account(String login) {
+            return new AccountDetails(UUID.randomUUID(), UUID.randomUUID(), login, "ACC-" + login, "RUB",
+                    new BigDecimal("1000000000"));
+        }
+    }
+
+    private static TransferRepository transferRepository(JdbcTemplate jdbc) {
+        return (TransferRepository) Proxy.newProxyInstance(
+                TransferRepository.class.getClassLoader(),
+                new Class<?>[]{TransferRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "saveAndFlush" -> {
+                        var entity = (TransferEntity) args[0];
+                        entity.setId(UUID.randomUUID());
+                        jdbc.update("INSERT INTO transactions (id, status) VALUES (?, ?)",
+                                entity.getId(), entity.getStatus().name());
+                        yield entity;
+                    }
+                    case "save" -> {
+                        var entity = (TransferEntity) args[0];
+                        jdbc.update("UPDATE transactions SET status = ? WHERE id = ?",
+                                entity.getStatus().name(), entity.getId());
+                        yield entity;
+                    }
+                    case "findByIdempotencyKey" -> Optional.empty();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static NotificationOutboxRepository outboxRepository(JdbcTemplate jdbc) {
+        return (NotificationOutboxRepository) Proxy.newProxyInstance(
+                NotificationOutboxRepository.class.getClassLoader(),
+                new Class<?>[]{NotificationOutboxRepository.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("save")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    var entity = (NotificationOutboxEntity) args[0];
+                    jdbc.update("INSERT INTO notification_outbox (id, message) VALUES (?, ?)",
+                            UUID.randomUUID(), entity.getMessage());
+                    return entity;
+                });
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
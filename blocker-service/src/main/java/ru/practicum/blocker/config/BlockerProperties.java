@@ -4,9 +4,61 @@ import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Настройки правил проверки переводов. Лимиты задаются по валютам;
+ * для валюты без лимита соответствующее правило перевод не блокирует.
+ */
 @Getter
 @Setter
 @ConfigurationProperties(prefix = "app.blocker")
 public class BlockerProperties {
+
+    /**
+     * Доля переводов, блокируемых случайно (имитация ручной проверки), от 0 до 1.
+     */
     private double blockProbability = 0.3;
+
+    /**
+     * Максимальная сумма одного перевода.
+     */
+    private Map<String, BigDecimal> maxAmount = new HashMap<>();
+
+    /**
+     * Скользящие окна активности отправителя и лимиты в них.
+     */
+    private List<SenderWindow> senderWindows = new ArrayList<>();
+
+    /**
+     * Число корзин в каждом окне; окно сдвигается с шагом {@code window / buckets}.
+     */
+    private int senderWindowBuckets = 12;
+
+    /**
+     * Предел числа отслеживаемых ключей (отправитель и отправитель+валюта).
+     */
+    private int senderWindowMaxEntries = 100_000;
+
+    @Getter
+    @Setter
+    public static class SenderWindow {
+
+        private Duration window;
+
+        /**
+         * Максимальное число переводов отправителя за окно; 0 — без ограничения.
+         */
+        private int maxTransfers;
+
+        /**
+         * Максимальная сумма переводов отправителя за окно по валютам.
+         */
+        private Map<String, BigDecimal> maxAmount = new HashMap<>();
+    }
 }
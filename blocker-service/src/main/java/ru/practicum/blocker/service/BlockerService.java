@@ -1,30 +1,79 @@
 package ru.practicum.blocker.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Service;
+import ru.practicum.blocker.service.rules.FraudRule;
 import ru.practicum.blocker.web.dto.BlockCheckRequest;
 import ru.practicum.blocker.web.dto.BlockCheckResponse;
 
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 
+/**
+ * Прогоняет перевод через правила {@link FraudRule} по порядку; первое сработавшее правило
+ * блокирует перевод. Прошедший все проверки перевод правила с состоянием резервируют в своих лимитах
+ * ({@link FraudRule#reserve}); если резерв одного правила не удался, резервы предыдущих снимаются.
+ * Общих блокировок нет: состояние правил хранится в шардированных структурах, счётчики
+ * метрик ({@code blocker.checks}) у каждого правила свои.
+ */
 @Service
 public class BlockerService {
 
-    private final AtomicInteger counter;
+    private final FraudRule[] rules;
+    private final Counter[] blockedBy;
+    private final Counter allowed;
 
-    public BlockerService() {
-        this(new AtomicInteger(0));
-    }
-
-    // Package-private for tests
-    BlockerService(AtomicInteger counter) {
-        this.counter = counter;
+    public BlockerService(List<FraudRule> rules, MeterRegistry meterRegistry) {
+        this.rules = rules.toArray(FraudRule[]::new);
+        this.blockedBy = new Counter[this.rules.length];
+        for (int i = 0; i < this.rules.length; i++) {
+            blockedBy[i] = Counter.builder("blocker.checks")
+                    .tag("outcome", "blocked")
+                    .tag("rule", this.rules[i].name())
+                    .register(meterRegistry);
+        }
+        this.allowed = Counter.builder("blocker.checks")
+                .tag("outcome", "allowed")
+                .tag("rule", "none")
+                .register(meterRegistry);
     }
 
     public BlockCheckResponse check(BlockCheckRequest request) {
-        int current = counter.incrementAndGet();
-        if (current % 3 == 0) {
-            return BlockCheckResponse.block("Ваш перевод заблокирован");
+        for (int i = 0; i < rules.length; i++) {
+            Optional<String> reason = rules[i].check(request);
+            if (reason.isPresent()) {
+                return blocked(i, reason.get());
+            }
         }
+        for (int i = 0; i < rules.length; i++) {
+            Optional<String> reason = rules[i].reserve(request);
+            if (reason.isPresent()) {
+                for (int reserved = 0; reserved < i; reserved++) {
+                    rules[reserved].release(request);
+                }
+                return blocked(i, reason.get());
+            }
+        }
+        allowed.increment();
         return BlockCheckResponse.allow();
     }
+
+    private BlockCheckResponse blocked(int rule, String reason) {
+        blockedBy[rule].increment();
+        return BlockCheckResponse.block(reason);
+    }
+
+    /**
+     * Проверяет переводы по очереди, как если бы они пришли отдельными запросами:
+     * разрешённый перевод учитывается правилами до проверки следующего.
+     */
+    public List<BlockCheckResponse> checkAll(List<BlockCheckRequest> requests) {
+        List<BlockCheckResponse> responses = new ArrayList<>(requests.size());
+        for (BlockCheckRequest request : requests) {
+            responses.add(check(request));
+        }
+        return responses;
+    }
 }
@@ -0,0 +1,39 @@
+package ru.practicum.blocker.service.rules;
+
+import ru.practicum.blocker.web.dto.BlockCheckRequest;
+
+import java.util.Optional;
+
+/**
+ * Правило проверки перевода. Правила — бины Spring и применяются в порядке {@code @Order};
+ * новое правило достаточно объявить компонентом.
+ * Реализации вызываются параллельно из многих потоков и не должны брать блокировки.
+ */
+public interface FraudRule {
+
+    /**
+     * Имя для метрик.
+     */
+    String name();
+
+    /**
+     * Причина блокировки или пусто, если правило перевод пропускает. Состояние не меняет.
+     */
+    Optional<String> check(BlockCheckRequest request);
+
+    /**
+     * Вызывается, когда перевод прошёл {@link #check} всех правил. Правило с состоянием учитывает
+     * перевод и только потом сверяет лимит, а если лимит превышен, снимает учёт и возвращает причину:
+     * одновременные проверки видят друг друга и вместе лимит не превышают.
+     */
+    default Optional<String> reserve(BlockCheckRequest request) {
+        return Optional.empty();
+    }
+
+    /**
+     * Снимает учёт, сделанный {@link #reserve}, если перевод заблокировал {@code reserve}
+     * одного из следующих правил. Вызывается сразу после него.
+     */
+    default void release(BlockCheckRequest request) {
+    }
+}
@@ -0,0 +1,41 @@
+package ru.practicum.blocker.service.rules;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import ru.practicum.blocker.config.BlockerProperties;
+import ru.practicum.blocker.web.dto.BlockCheckRequest;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Блокирует перевод, сумма которого больше лимита для его валюты.
+ */
+@Component
+@Order(100)
+public class MaxAmountRule implements FraudRule {
+
+    private final Map<String, BigDecimal> limits;
+
+    public MaxAmountRule(BlockerProperties properties) {
+        this.limits = properties.getMaxAmount().entrySet().stream()
+                .collect(Collectors.toUnmodifiableMap(e -> e.getKey().toUpperCase(Locale.ROOT), Map.Entry::getValue));
+    }
+
+    @Override
+    public String name() {
+        return "max-amount";
+    }
+
+    @Override
+    public Optional<String> check(BlockCheckRequest request) {
+        BigDecimal limit = limits.get(request.currency().toUpperCase(Locale.ROOT));
+        if (limit != null && request.amount().compareTo(limit) > 0) {
+            return Optional.of("Сумма перевода превышает лимит %s %s".formatted(limit.toPlainString(), request.currency()));
+        }
+        return Optional.empty();
+    }
+}
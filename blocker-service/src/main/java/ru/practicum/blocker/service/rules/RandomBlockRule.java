@@ -0,0 +1,48 @@
+package ru.practicum.blocker.service.rules;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import ru.practicum.blocker.config.BlockerProperties;
+import ru.practicum.blocker.web.dto.BlockCheckRequest;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Блокирует долю переводов {@code block-probability} случайным образом (имитация ручной проверки).
+ * {@link ThreadLocalRandom} у каждого потока свой, общего состояния между проверками нет.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class RandomBlockRule implements FraudRule {
+
+    private final double probability;
+    private final DoubleSupplier random;
+
+    @Autowired
+    public RandomBlockRule(BlockerProperties properties) {
+        this(properties.getBlockProbability(), () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    // Package-private for tests
+    RandomBlockRule(double probability, DoubleSupplier random) {
+        this.probability = probability;
+        this.random = random;
+    }
+
+    @Override
+    public String name() {
+        return "random";
+    }
+
+    @Override
+    public Optional<String> check(BlockCheckRequest request) {
+        if (probability > 0 && random.getAsDouble() < probability) {
+            return Optional.of("Ваш перевод заблокирован");
+        }
+        return Optional.empty();
+    }
+}
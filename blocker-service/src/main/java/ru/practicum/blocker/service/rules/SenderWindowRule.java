@@ -0,0 +1,135 @@
+package ru.practicum.blocker.service.rules;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import ru.practicum.blocker.config.BlockerProperties;
+import ru.practicum.blocker.config.BlockerProperties.SenderWindow;
+import ru.practicum.blocker.web.dto.BlockCheckRequest;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Лимиты на активность отправителя в скользящих окнах ({@code app.blocker.sender-windows}):
+ * число переводов в любых валютах и сумма переводов в одной валюте.
+ * История хранится в памяти, запрос к БД на каждую проверку не нужен. Перевод сначала учитывается,
+ * потом сверяется с лимитами и при превышении снимается, поэтому одновременные переводы лимит
+ * не превышают; под нагрузкой из нескольких одновременных переводов, которые вместе не влезают в лимит,
+ * могут быть отклонены все.
+ * Суммы учитываются в копейках/центах; сумма с долями копейки не усекается, а отклоняется
+ * (запрос с ней не проходит валидацию, лимит с ней — запуск сервиса).
+ */
+@Component
+@Order(200)
+public class SenderWindowRule implements FraudRule {
+
+    private final int[] maxTransfers;
+    private final List<Map<String, Long>> maxAmountMinor;
+    private final SlidingWindowCounter activity;
+    private final Clock clock;
+
+    @Autowired
+    public SenderWindowRule(BlockerProperties properties) {
+        this(properties, Clock.systemUTC());
+    }
+
+    // Package-private for tests
+    SenderWindowRule(BlockerProperties properties, Clock clock) {
+        this.clock = clock;
+        List<SenderWindow> windows = properties.getSenderWindows();
+        this.maxTransfers = windows.stream().mapToInt(SenderWindow::getMaxTransfers).toArray();
+        this.maxAmountMinor = windows.stream()
+                .map(window -> window.getMaxAmount().entrySet().stream()
+                        .collect(Collectors.toUnmodifiableMap(
+                                e -> e.getKey().toUpperCase(Locale.ROOT), e -> toMinor(e.getValue()))))
+                .toList();
+        this.activity = windows.isEmpty() ? null : new SlidingWindowCounter(
+                windows.stream().map(SenderWindow::getWindow).toList(),
+                properties.getSenderWindowBuckets(),
+                properties.getSenderWindowMaxEntries(),
+                clock);
+    }
+
+    @Override
+    public String name() {
+        return "sender-window";
+    }
+
+    /**
+     * Быстрый отказ без записи; окончательно лимиты сверяет {@link #reserve}.
+     */
+    @Override
+    public Optional<String> check(BlockCheckRequest request) {
+        if (activity == null) {
+            return Optional.empty();
+        }
+        return exceeded(request, 1, toMinor(request.amount()));
+    }
+
+    @Override
+    public Optional<String> reserve(BlockCheckRequest request) {
+        if (activity == null) {
+            return Optional.empty();
+        }
+        long amount = toMinor(request.amount());
+        String sender = request.fromLogin();
+        String senderInCurrency = key(sender, request.currency().toUpperCase(Locale.ROOT));
+        long senderAt = activity.add(sender, amount);
+        long senderInCurrencyAt = activity.add(senderInCurrency, amount);
+        Optional<String> reason = exceeded(request, 0, 0);
+        if (reason.isPresent()) {
+            activity.remove(sender, amount, senderAt);
+            activity.remove(senderInCurrency, amount, senderInCurrencyAt);
+        }
+        return reason;
+    }
+
+    /**
+     * Вызывается сразу после {@link #reserve}, поэтому учёт снимается по текущему моменту; если между ними
+     * сменилась корзина, снятие попадает в соседнюю корзину того же окна.
+     */
+    @Override
+    public void release(BlockCheckRequest request) {
+        if (activity == null) {
+            return;
+        }
+        long amount = toMinor(request.amount());
+        long now = clock.millis();
+        activity.remove(request.fromLogin(), amount, now);
+        activity.remove(key(request.fromLogin(), request.currency().toUpperCase(Locale.ROOT)), amount, now);
+    }
+
+    /**
+     * Превышен ли какой-нибудь лимит, если к учтённому добавить ещё {@code count} переводов на {@code amount}.
+     */
+    private Optional<String> exceeded(BlockCheckRequest request, int count, long amount) {
+        String currency = request.currency().toUpperCase(Locale.ROOT);
+        String sender = request.fromLogin();
+        String senderInCurrency = key(sender, currency);
+        for (int window = 0; window < maxTransfers.length; window++) {
+            if (maxTransfers[window] > 0 && activity.count(sender, window) + count > maxTransfers[window]) {
+                return Optional.of("Слишком много переводов за короткое время");
+            }
+            Long limit = maxAmountMinor.get(window).get(currency);
+            if (limit != null && activity.sum(senderInCurrency, window) + amount > limit) {
+                return Optional.of("Превышен лимит переводов в %s".formatted(currency));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static String key(String login, String currency) {
+        return login + ':' + currency;
+    }
+
+    static long toMinor(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.UNNECESSARY).movePointRight(2).longValueExact();
+    }
+}
@@ -0,0 +1,171 @@
+package ru.practicum.blocker.service.rules;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Число и сумма событий по ключу в нескольких скользящих окнах (например, 1 мин, 1 ч, 24 ч).
+ * <p>
+ * Каждое окно — кольцо из {@code buckets} корзин одинаковой длины; корзина помнит номер своего
+ * интервала, поэтому устаревшие корзины не чистятся по таймеру, а перезаписываются при следующем
+ * попадании в них и не учитываются при чтении. Окно скользит с шагом в одну корзину: учитываются
+ * текущая корзина и {@code buckets - 1} предыдущих.
+ * <p>
+ * Все корзины всех окон ключа лежат в одном {@link AtomicLongArray}, запись идёт через CAS без
+ * блокировок. Прибавление, совпавшее с переходом корзины на новый интервал, может потеряться —
+ * для лимитов это допустимо. Память ограничена: записи, к которым не обращались дольше самого
+ * длинного окна, удаляются попутно (не чаще раза за корзину этого окна), а новый ключ сверх
+ * {@code maxEntries} вытесняет запись, к которой дольше всех не обращались (её ищет проход по всем
+ * записям, поэтому {@code maxEntries} стоит держать выше числа отправителей за самое длинное окно).
+ */
+class SlidingWindowCounter {
+
+    private static final int CELLS = 3;
+    private static final int EPOCH = 0;
+    private static final int COUNT = 1;
+    private static final int SUM = 2;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Clock clock;
+    private final long[] bucketMillis;
+    private final int buckets;
+    private final int maxEntries;
+    private final long idleMillis;
+    private final long sweepIntervalMillis;
+    private final AtomicLong nextSweepAt = new AtomicLong();
+
+    SlidingWindowCounter(List<Duration> windows, int buckets, int maxEntries, Clock clock) {
+        if (windows.isEmpty() || buckets < 1) {
+            throw new IllegalArgumentException("At least one window and one bucket are required");
+        }
+        this.clock = clock;
+        this.buckets = buckets;
+        this.maxEntries = maxEntries;
+        this.bucketMillis = new long[windows.size()];
+        long longest = 0;
+        for (int i = 0; i < bucketMillis.length; i++) {
+            long windowMillis = windows.get(i).toMillis();
+            bucketMillis[i] = Math.max(1, windowMillis / buckets);
+            longest = Math.max(longest, bucketMillis[i] * buckets);
+        }
+        this.idleMillis = longest;
+        this.sweepIntervalMillis = longest / buckets;
+    }
+
+    /**
+     * Учитывает событие с весом {@code amount} во всех окнах ключа.
+     *
+     * @return момент учёта, по которому {@link #remove} найдёт те же корзины
+     */
+    long add(String key, long amount) {
+        long now = clock.millis();
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            sweep(now);
+            while (entries.size() >= maxEntries && evictLeastRecentlySeen()) {
+                // освобождаем место под новый ключ
+            }
+            entry = entries.computeIfAbsent(key, k -> new Entry(bucketMillis.length * buckets * CELLS));
+        }
+        entry.lastSeen = now;
+        for (int window = 0; window < bucketMillis.length; window++) {
+            long epoch = now / bucketMillis[window];
+            int base = (window * buckets + (int) (epoch % buckets)) * CELLS;
+            long seen = entry.cells.get(base + EPOCH);
+            if (seen < epoch && entry.cells.compareAndSet(base + EPOCH, seen, epoch)) {
+                entry.cells.set(base + COUNT, 0);
+                entry.cells.set(base + SUM, 0);
+            }
+            entry.cells.incrementAndGet(base + COUNT);
+            entry.cells.addAndGet(base + SUM, amount);
+        }
+        sweep(now);
+        return now;
+    }
+
+    /**
+     * Снимает событие, учтённое {@link #add} в момент {@code at}. Корзины, успевшие перейти
+     * на новый интервал, уже не содержат события и не меняются.
+     */
+    void remove(String key, long amount, long at) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return;
+        }
+        for (int window = 0; window < bucketMillis.length; window++) {
+            long epoch = at / bucketMillis[window];
+            int base = (window * buckets + (int) (epoch % buckets)) * CELLS;
+            if (entry.cells.get(base + EPOCH) == epoch) {
+                entry.cells.decrementAndGet(base + COUNT);
+                entry.cells.addAndGet(base + SUM, -amount);
+            }
+        }
+    }
+
+    /**
+     * Число событий ключа в окне с индексом {@code window} (в порядке, заданном в конструкторе).
+     */
+    long count(String key, int window) {
+        return read(key, window, COUNT);
+    }
+
+    /**
+     * Сумма весов событий ключа в окне с индексом {@code window}.
+     */
+    long sum(String key, int window) {
+        return read(key, window, SUM);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private long read(String key, int window, int cell) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return 0;
+        }
+        long epoch = clock.millis() / bucketMillis[window];
+        long total = 0;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            int base = (window * buckets + bucket) * CELLS;
+            long bucketEpoch = entry.cells.get(base + EPOCH);
+            if (bucketEpoch > epoch - buckets && bucketEpoch <= epoch) {
+                total += entry.cells.get(base + cell);
+            }
+        }
+        return total;
+    }
+
+    private void sweep(long now) {
+        long due = nextSweepAt.get();
+        if (now >= due && nextSweepAt.compareAndSet(due, now + sweepIntervalMillis)) {
+            long idleSince = now - idleMillis;
+            entries.values().removeIf(entry -> entry.lastSeen < idleSince);
+        }
+    }
+
+    private boolean evictLeastRecentlySeen() {
+        Map.Entry<String, Entry> oldest = null;
+        for (Map.Entry<String, Entry> candidate : entries.entrySet()) {
+            if (oldest == null || candidate.getValue().lastSeen < oldest.getValue().lastSeen) {
+                oldest = candidate;
+            }
+        }
+        return oldest != null && entries.remove(oldest.getKey(), oldest.getValue());
+    }
+
+    private static final class Entry {
+        private final AtomicLongArray cells;
+        private volatile long lastSeen;
+
+        private Entry(int size) {
+            this.cells = new AtomicLongArray(size);
+        }
+    }
+}
@@ -8,9 +8,12 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import ru.practicum.blocker.service.BlockerService;
+import ru.practicum.blocker.web.dto.BlockCheckBatchRequest;
 import ru.practicum.blocker.web.dto.BlockCheckRequest;
 import ru.practicum.blocker.web.dto.BlockCheckResponse;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/blocker")
 @RequiredArgsConstructor
@@ -22,4 +25,9 @@ public class BlockerController {
     public ResponseEntity<BlockCheckResponse> check(@RequestBody @Valid BlockCheckRequest request) {
         return ResponseEntity.ok(blockerService.check(request));
     }
+
+    @PostMapping("/checks")
+    public ResponseEntity<List<BlockCheckResponse>> checkAll(@RequestBody @Valid BlockCheckBatchRequest request) {
+        return ResponseEntity.ok(blockerService.checkAll(request.checks()));
+    }
 }
@@ -0,0 +1,14 @@
+package ru.practicum.blocker.web.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Пачка проверок; ответ содержит решения в том же порядке.
+ */
+public record BlockCheckBatchRequest(
+        @NotEmpty @Size(max = 1000) List<@Valid BlockCheckRequest> checks
+) { }
@@ -1,14 +1,25 @@
 package ru.practicum.blocker.web.dto;
 
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 
 import java.math.BigDecimal;
 
 public record BlockCheckRequest(
         @NotBlank String fromLogin,
         @NotBlank String toLogin,
-        @NotBlank String currency,
+        @NotBlank @Pattern(regexp = "[A-Z]{3}", message = "currency must be an ISO 4217 code") String currency,
         @NotNull @DecimalMin(value = "0.01") BigDecimal amount
-) { }
+) {
+
+    /**
+     * Лимиты считаются в копейках/центах; нули после запятой (как у NUMERIC(19,4)) допустимы.
+     */
+    @AssertTrue(message = "amount must not have fractions of a minor unit")
+    boolean isAmountInMinorUnits() {
+        return amount == null || amount.stripTrailingZeros().scale() <= 2;
+    }
+}
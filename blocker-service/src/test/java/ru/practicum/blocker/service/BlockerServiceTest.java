@@ -1,34 +1,126 @@
 package ru.practicum.blocker.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
+import ru.practicum.blocker.service.rules.FraudRule;
 import ru.practicum.blocker.web.dto.BlockCheckRequest;
+import ru.practicum.blocker.web.dto.BlockCheckResponse;
 
 import java.math.BigDecimal;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 class BlockerServiceTest {
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @Test
-    void blocksWhenChanceBelowThreshold() {
-        var service = new BlockerService(new AtomicInteger(1)); // 2nd call -> counter 2, 3rd -> block
+    void blocksWithReasonOfFirstFiringRule() {
+        var service = new BlockerService(List.of(
+                new StubRule("first", null),
+                new StubRule("second", "Слишком много переводов"),
+                new StubRule("third", "Не должно сработать")
+        ), meterRegistry);
 
         var resp = service.check(new BlockCheckRequest("from", "to", "RUB", BigDecimal.TEN));
-        var resp2 = service.check(new BlockCheckRequest("from", "to", "RUB", BigDecimal.TEN)); // counter=3 -> block
 
-        assertThat(resp.allowed()).isTrue();
-        assertThat(resp2.allowed()).isFalse();
-        assertThat(resp2.reason()).isEqualTo("Ваш перевод заблокирован");
+        assertThat(resp.allowed()).isFalse();
+        assertThat(resp.reason()).isEqualTo("Слишком много переводов");
+        assertThat(meterRegistry.get("blocker.checks").tag("rule", "second").counter().count()).isEqualTo(1);
     }
 
     @Test
-    void allowsWhenChanceAboveThreshold() {
-        var service = new BlockerService(new AtomicInteger(3)); // next is 4 (allowed)
+    void allowedTransferIsRecordedByEveryRule() {
+        var first = new StubRule("first", null);
+        var second = new StubRule("second", null);
+        var service = new BlockerService(List.of(first, second), meterRegistry);
 
         var resp = service.check(new BlockCheckRequest("from", "to", "USD", BigDecimal.ONE));
 
         assertThat(resp.allowed()).isTrue();
         assertThat(resp.reason()).isNull();
+        assertThat(first.allowed).hasSize(1);
+        assertThat(second.allowed).hasSize(1);
+        assertThat(meterRegistry.get("blocker.checks").tag("outcome", "allowed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void blockedTransferIsNotRecorded() {
+        var first = new StubRule("first", null);
+        var service = new BlockerService(List.of(first, new StubRule("second", "Заблокирован")), meterRegistry);
+
+        service.check(new BlockCheckRequest("from", "to", "RUB", BigDecimal.TEN));
+
+        assertThat(first.allowed).isEmpty();
+    }
+
+    @Test
+    void failedReservationReleasesEarlierRules() {
+        var first = new StubRule("first", null);
+        var service = new BlockerService(List.of(first, new StubRule("window", null) {
+            @Override
+            public Optional<String> reserve(BlockCheckRequest request) {
+                return Optional.of("Лимит");
+            }
+        }), meterRegistry);
+
+        var resp = service.check(new BlockCheckRequest("from", "to", "RUB", BigDecimal.TEN));
+
+        assertThat(resp.allowed()).isFalse();
+        assertThat(resp.reason()).isEqualTo("Лимит");
+        assertThat(first.allowed).isEmpty();
+        assertThat(meterRegistry.get("blocker.checks").tag("rule", "window").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void batchIsCheckedInOrderAndKeepsRuleState() {
+        var first = new StubRule("first", null);
+        var service = new BlockerService(List.of(first, new StubRule("limit", null) {
+            @Override
+            public Optional<String> check(BlockCheckRequest request) {
+                return first.allowed.size() >= 2 ? Optional.of("Лимит") : Optional.empty();
+            }
+        }), meterRegistry);
+        var request = new BlockCheckRequest("from", "to", "RUB", BigDecimal.ONE);
+
+        var responses = service.checkAll(List.of(request, request, request));
+
+        assertThat(responses).extracting(BlockCheckResponse::allowed).containsExactly(true, true, false);
+        assertThat(responses.get(2).reason()).isEqualTo("Лимит");
+    }
+
+    private static class StubRule implements FraudRule {
+        private final String name;
+        private final String reason;
+        private final List<BlockCheckRequest> allowed = new ArrayList<>();
+
+        private StubRule(String name, String reason) {
+            this.name = name;
+            this.reason = reason;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public Optional<String> check(BlockCheckRequest request) {
+            return Optional.ofNullable(reason);
+        }
+
+        @Override
+        public Optional<String> reserve(BlockCheckRequest request) {
+            allowed.add(request);
+            return Optional.empty();
+        }
+
+        @Override
+        public void release(BlockCheckRequest request) {
+            allowed.remove(request);
+        }
     }
 }
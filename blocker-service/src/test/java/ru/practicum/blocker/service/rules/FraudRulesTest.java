@@ -0,0 +1,324 @@
+package ru.practicum.blocker.service.rules;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import ru.practicum.blocker.config.BlockerProperties;
+import ru.practicum.blocker.web.dto.BlockCheckRequest;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FraudRulesTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-05-01T10:00:00Z"));
+
+    @Test
+    void maxAmountRuleBlocksOnlyAboveCurrencyLimit() {
+        var properties = new BlockerProperties();
+        properties.setMaxAmount(Map.of("RUB", new BigDecimal("1000")));
+        var rule = new MaxAmountRule(properties);
+
+        assertThat(rule.check(request("alice", "rub", "1000"))).isEmpty();
+        assertThat(rule.check(request("alice", "RUB", "1000.01"))).hasValueSatisfying(
+                reason -> assertThat(reason).startsWith("Сумма перевода превышает лимит"));
+        assertThat(rule.check(request("alice", "USD", "1000000"))).isEmpty();
+    }
+
+    @Test
+    void senderWindowRuleLimitsTransferCountAcrossCurrencies() {
+        var rule = new SenderWindowRule(properties(window(Duration.ofMinutes(1), 2, Map.of())), clock);
+
+        record(rule, request("alice", "RUB", "1"));
+        record(rule, request("alice", "USD", "1"));
+
+        assertThat(rule.check(request("alice", "CNY", "1"))).hasValue("Слишком много переводов за короткое время");
+        assertThat(rule.check(request("bob", "RUB", "1"))).isEmpty();
+    }
+
+    @Test
+    void senderWindowRuleSumsAmountsPerCurrency() {
+        var rule = new SenderWindowRule(properties(
+                window(Duration.ofHours(24), 0, Map.of("RUB", new BigDecimal("100.00")))), clock);
+
+        record(rule, request("alice", "RUB", "60.50"));
+
+        assertThat(rule.check(request("alice", "RUB", "39.50"))).isEmpty();
+        assertThat(rule.check(request("alice", "RUB", "39.51"))).hasValue("Превышен лимит переводов в RUB");
+        assertThat(rule.check(request("alice", "USD", "1000"))).isEmpty();
+    }
+
+    @Test
+    void senderWindowRuleCountsExactMinorUnits() {
+        assertThat(SenderWindowRule.toMinor(new BigDecimal("60.5000"))).isEqualTo(6050);
+        assertThat(SenderWindowRule.toMinor(new BigDecimal("1E+2"))).isEqualTo(10000);
+        assertThatThrownBy(() -> SenderWindowRule.toMinor(new BigDecimal("0.015"))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> SenderWindowRule.toMinor(new BigDecimal("1E+17"))).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void requestWithFractionOfMinorUnitIsInvalid() {
+        try (var factory = Validation.buildDefaultValidatorFactory()) {
+            var validator = factory.getValidator();
+
+            assertThat(validator.validate(request("alice", "RUB", "10.0000"))).isEmpty();
+            assertThat(validator.validate(request("alice", "RUB", "0.015")))
+                    .extracting(ConstraintViolation::getMessage)
+                    .containsExactly("amount must not have fractions of a minor unit");
+        }
+    }
+
+    @Test
+    void senderWindowRuleChecksEveryWindow() {
+        var rule = new SenderWindowRule(properties(
+                window(Duration.ofMinutes(1), 2, Map.of()),
+                window(Duration.ofHours(1), 3, Map.of())), clock);
+
+        record(rule, request("alice", "RUB", "1"));
+        record(rule, request("alice", "RUB", "1"));
+        clock.advance(Duration.ofMinutes(2));
+        record(rule, request("alice", "RUB", "1"));
+
+        assertThat(rule.check(request("alice", "RUB", "1"))).isPresent();
+    }
+
+    @Test
+    void windowSlidesBucketByBucket() {
+        var counter = new SlidingWindowCounter(List.of(Duration.ofMinutes(1)), 6, 100, clock);
+
+        counter.add("alice", 100);
+        clock.advance(Duration.ofSeconds(30));
+        counter.add("alice", 50);
+        assertThat(counter.count("alice", 0)).isEqualTo(2);
+        assertThat(counter.sum("alice", 0)).isEqualTo(150);
+
+        clock.advance(Duration.ofSeconds(30));
+        assertThat(counter.count("alice", 0)).isEqualTo(1);
+        assertThat(counter.sum("alice", 0)).isEqualTo(50);
+
+        clock.advance(Duration.ofSeconds(30));
+        assertThat(counter.count("alice", 0)).isZero();
+    }
+
+    @Test
+    void windowsOfDifferentLengthAreCountedIndependently() {
+        var counter = new SlidingWindowCounter(List.of(Duration.ofMinutes(1), Duration.ofHours(1)), 12, 100, clock);
+
+        counter.add("alice", 1);
+        clock.advance(Duration.ofMinutes(5));
+        counter.add("alice", 1);
+
+        assertThat(counter.count("alice", 0)).isEqualTo(1);
+        assertThat(counter.count("alice", 1)).isEqualTo(2);
+    }
+
+    @Test
+    void randomBlockRuleHonoursProbability() {
+        assertThat(new RandomBlockRule(0.3, () -> 0.29).check(request("alice", "RUB", "1"))).contains("Ваш перевод заблокирован");
+        assertThat(new RandomBlockRule(0.3, () -> 0.3).check(request("alice", "RUB", "1"))).isEmpty();
+        assertThat(new RandomBlockRule(0, () -> 0.0).check(request("alice", "RUB", "1"))).isEmpty();
+    }
+
+    @Test
+    void counterKeepsExactSumUnderConcurrentUpdates() throws Exception {
+        var counter = new SlidingWindowCounter(List.of(Duration.ofHours(1)), 12, 100, clock);
+        int threads = 16;
+        int perThread = 10_000;
+        var start = new CountDownLatch(1);
+
+        try (var executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        counter.add("alice", 2);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (var future : futures) {
+                future.get();
+            }
+        }
+
+        assertThat(counter.count("alice", 0)).isEqualTo((long) threads * perThread);
+        assertThat(counter.sum("alice", 0)).isEqualTo(2L * threads * perThread);
+    }
+
+    @Test
+    void counterEvictsIdleEntries() {
+        var counter = new SlidingWindowCounter(List.of(Duration.ofMinutes(1), Duration.ofHours(1)), 12, 100, clock);
+        counter.add("alice", 1);
+        counter.add("bob", 1);
+
+        clock.advance(Duration.ofMinutes(30));
+        counter.add("bob", 1);
+        clock.advance(Duration.ofMinutes(31));
+        counter.add("carol", 1);
+
+        assertThat(counter.size()).isEqualTo(2);
+        assertThat(counter.count("alice", 1)).isZero();
+        assertThat(counter.count("bob", 1)).isEqualTo(1);
+    }
+
+    @Test
+    void counterEvictsLeastRecentlySeenKeyWhenFull() {
+        var counter = new SlidingWindowCounter(List.of(Duration.ofMinutes(1)), 12, 2, clock);
+        counter.add("alice", 1);
+        clock.advance(Duration.ofSeconds(1));
+        counter.add("bob", 1);
+        clock.advance(Duration.ofSeconds(1));
+        counter.add("alice", 1);
+
+        counter.add("carol", 1);
+
+        assertThat(counter.size()).isEqualTo(2);
+        assertThat(counter.count("carol", 0)).isEqualTo(1);
+        assertThat(counter.count("alice", 0)).isEqualTo(2);
+        assertThat(counter.count("bob", 0)).isZero();
+    }
+
+    @Test
+    void counterRemovesEventFromBucketsItWasAddedTo() {
+        var counter = new SlidingWindowCounter(List.of(Duration.ofMinutes(1)), 6, 100, clock);
+        long at = counter.add("alice", 100);
+        counter.add("alice", 50);
+
+        counter.remove("alice", 100, at);
+        assertThat(counter.count("alice", 0)).isEqualTo(1);
+        assertThat(counter.sum("alice", 0)).isEqualTo(50);
+
+        long old = counter.add("alice", 30);
+        clock.advance(Duration.ofMinutes(1));
+        counter.add("alice", 10);
+        counter.remove("alice", 30, old);
+        assertThat(counter.sum("alice", 0)).isEqualTo(10);
+    }
+
+    @Test
+    void senderWindowRuleRollsBackReservationOverLimit() {
+        var rule = new SenderWindowRule(properties(
+                window(Duration.ofHours(24), 0, Map.of("RUB", new BigDecimal("100.00")))), clock);
+
+        record(rule, request("alice", "RUB", "60.00"));
+
+        assertThat(rule.reserve(request("alice", "RUB", "50.00"))).hasValue("Превышен лимит переводов в RUB");
+        assertThat(rule.reserve(request("alice", "RUB", "40.00"))).isEmpty();
+        assertThat(rule.check(request("alice", "RUB", "0.01"))).hasValue("Превышен лимит переводов в RUB");
+    }
+
+    @Test
+    void senderWindowRuleReleasesReservation() {
+        var rule = new SenderWindowRule(properties(window(Duration.ofMinutes(1), 1, Map.of())), clock);
+
+        record(rule, request("alice", "RUB", "1"));
+        rule.release(request("alice", "RUB", "1"));
+
+        assertThat(rule.check(request("alice", "RUB", "1"))).isEmpty();
+    }
+
+    @Test
+    void concurrentReservationsDoNotOvershootLimits() throws Exception {
+        int maxTransfers = 50;
+        var rule = new SenderWindowRule(properties(window(Duration.ofMinutes(1), maxTransfers,
+                Map.of("RUB", new BigDecimal("30.00")))), clock);
+        int threads = 16;
+        int perThread = 200;
+        var start = new CountDownLatch(1);
+        var allowed = new AtomicInteger();
+        var allowedInRub = new AtomicInteger();
+
+        try (var executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        boolean rub = i % 2 == 0;
+                        var request = request("alice", rub ? "RUB" : "USD", "1.00");
+                        if (rule.check(request).isEmpty() && rule.reserve(request).isEmpty()) {
+                            allowed.incrementAndGet();
+                            if (rub) {
+                                allowedInRub.incrementAndGet();
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (var future : futures) {
+                future.get();
+            }
+        }
+
+        assertThat(allowed.get()).isPositive().isLessThanOrEqualTo(maxTransfers);
+        assertThat(allowedInRub.get()).isLessThanOrEqualTo(30);
+    }
+
+    private static void record(FraudRule rule, BlockCheckRequest request) {
+        assertThat(rule.check(request)).isEmpty();
+        assertThat(rule.reserve(request)).isEmpty();
+    }
+
+    private static BlockerProperties properties(BlockerProperties.SenderWindow... windows) {
+        var properties = new BlockerProperties();
+        properties.setSenderWindows(List.of(windows));
+        return properties;
+    }
+
+    private static BlockerProperties.SenderWindow window(Duration length, int maxTransfers, Map<String, BigDecimal> maxAmount) {
+        var window = new BlockerProperties.SenderWindow();
+        window.setWindow(length);
+        window.setMaxTransfers(maxTransfers);
+        window.setMaxAmount(maxAmount);
+        return window;
+    }
+
+    private static BlockCheckRequest request(String from, String currency, String amount) {
+        return new BlockCheckRequest(from, "bob", currency, new BigDecimal(amount));
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -2,11 +2,13 @@ package ru.practicum.cash;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Точка входа cash-service.
  */
 @SpringBootApplication
+@EnableScheduling
 public class CashServiceApplication {
 
     public static void main(String[] args) {
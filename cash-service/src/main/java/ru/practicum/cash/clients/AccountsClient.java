@@ -5,13 +5,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
 import ru.practicum.cash.clients.dto.AccountDetails;
 import ru.practicum.cash.clients.dto.BalanceAdjustmentCommand;
+import ru.practicum.http.PooledHttpClientFactory;
 
 import java.time.Duration;
 import java.util.List;
@@ -28,12 +28,11 @@ public class AccountsClient {
 
     public AccountsClient(@Value("${accounts.base-url:http://accounts-service:8082}") String baseUrl,
                           @Value("${accounts.connect-timeout:500}") long connectTimeoutMs,
-                          @Value("${accounts.read-timeout:2000}") long readTimeoutMs) {
-        var factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(Duration.ofMillis(connectTimeoutMs));
-        factory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+                          @Value("${accounts.read-timeout:2000}") long readTimeoutMs,
+                          PooledHttpClientFactory httpClients) {
         this.restClient = RestClient.builder()
-                .requestFactory(factory)
+                .requestFactory(httpClients.requestFactory(
+                        "accounts", Duration.ofMillis(connectTimeoutMs), Duration.ofMillis(readTimeoutMs)))
                 .baseUrl(baseUrl)
                 .build();
     }
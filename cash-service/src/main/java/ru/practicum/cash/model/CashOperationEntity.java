@@ -51,7 +51,7 @@ public class CashOperationEntity {
     @Column(nullable = false, length = 20)
     private OperationStatus status = OperationStatus.PENDING;
 
-    @Column(name = "idempotency_key", nullable = false, unique = true, length = 100)
+    @Column(name = "idempotency_key", nullable = false, unique = true, length = 128)
     private String idempotencyKey;
 
     @Column(name = "created_at", nullable = false)
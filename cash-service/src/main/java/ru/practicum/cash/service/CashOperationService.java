@@ -2,10 +2,11 @@ package ru.practicum.cash.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.idempotency.IdempotencyCache;
 import ru.practicum.cash.clients.AccountsClient;
-import ru.practicum.cash.clients.NotificationsClient;
 import ru.practicum.cash.clients.dto.AccountDetails;
 import ru.practicum.cash.clients.dto.BalanceAdjustmentCommand;
 import ru.practicum.cash.model.CashOperationEntity;
@@ -21,18 +22,87 @@ import java.util.UUID;
 
 /**
  * Бизнес-логика операций внесения и снятия средств.
+ * Операция с ключом идемпотентности выполняется один раз: повтор отвечается из {@link IdempotencyCache},
+ * а если там ответа нет — по строке операции с тем же ключом, без повторного вызова accounts.
+ * Повтор должен совпадать с первым запросом по действию и сумме, иначе он отклоняется.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class CashOperationService {
 
+    static final int MAX_IDEMPOTENCY_KEY_LENGTH = 64;
+    static final String IN_PROGRESS_MESSAGE = "Операция с этим ключом ещё выполняется";
+    static final String KEY_REUSED_MESSAGE = "Idempotency-Key уже использован для другой операции";
+
     private final CashOperationRepository repository;
     private final AccountsClient accountsClient;
-    private final NotificationsClient notificationsClient;
+    private final NotificationOutbox notificationOutbox;
+    private final IdempotencyCache idempotencyCache;
+    private final TransactionTemplate transactionTemplate;
 
-    @Transactional
     public List<String> process(CashOperationRequest request) {
+        return process(request, null);
+    }
+
+    /**
+     * @param idempotencyKey значение заголовка {@code Idempotency-Key}; без него каждый запрос — новая операция
+     */
+    public List<String> process(CashOperationRequest request, String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return transactionTemplate.execute(status -> execute(request, UUID.randomUUID().toString()));
+        }
+        if (idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            return List.of("Idempotency-Key не должен быть длиннее %d символов".formatted(MAX_IDEMPOTENCY_KEY_LENGTH));
+        }
+        // Ключ уникален в таблице, поэтому ключи разных пользователей не должны пересекаться
+        String key = request.login() + ':' + idempotencyKey;
+        String fingerprint = fingerprint(request.action().toOperationType(), request.value());
+        List<String> result;
+        try {
+            result = idempotencyCache.execute(key, fingerprint, () -> repository.findByIdempotencyKey(key)
+                    .map(entity -> replay(entity, fingerprint))
+                    .orElseGet(() -> executeOnce(request, key, fingerprint)));
+        } catch (IdempotencyCache.KeyReusedException ex) {
+            log.warn("Rejected cash operation of '{}': {}", request.login(), ex.getMessage());
+            return List.of(KEY_REUSED_MESSAGE);
+        }
+        if (result.contains(IN_PROGRESS_MESSAGE)) {
+            // Итог операции ещё не известен: следующий повтор прочитает его из строки операции
+            idempotencyCache.evict(key);
+        }
+        return result;
+    }
+
+    private List<String> executeOnce(CashOperationRequest request, String key, String fingerprint) {
+        try {
+            return transactionTemplate.execute(status -> execute(request, key));
+        } catch (DataIntegrityViolationException ex) {
+            // Тот же ключ одновременно пришёл на другой экземпляр сервиса и был сохранён раньше
+            return repository.findByIdempotencyKey(key).map(entity -> replay(entity, fingerprint)).orElseThrow(() -> ex);
+        }
+    }
+
+    private List<String> replay(CashOperationEntity entity, String fingerprint) {
+        if (!fingerprint.equals(fingerprint(entity.getOperationType(), entity.getAmount()))) {
+            throw new IdempotencyCache.KeyReusedException(entity.getIdempotencyKey());
+        }
+        return switch (entity.getStatus()) {
+            case DONE -> List.of();
+            case FAILED -> List.of("Операция не выполнена");
+            case PENDING -> List.of(IN_PROGRESS_MESSAGE);
+        };
+    }
+
+    /**
+     * Параметры запроса, по которым повтор сверяется с первым запросом. Валюты в запросе нет —
+     * она берётся со счёта пользователя.
+     */
+    private String fingerprint(OperationType type, BigDecimal amount) {
+        return type + "|" + normalizeAmount(amount).toPlainString();
+    }
+
+    private List<String> execute(CashOperationRequest request, String idempotencyKey) {
         CashOperationEntity entity = null;
         try {
             AccountDetails account = accountsClient.getAccountDetails(request.login());
@@ -50,15 +120,17 @@ public class CashOperationService {
                 return List.of("Недостаточно средств на счёте");
             }
 
-            entity = new CashOperationEntity();
-            entity.setAccountId(account.bankAccountId());
-            entity.setOperationType(type);
-            entity.setAmount(amount);
+            var pending = new CashOperationEntity();
+            pending.setAccountId(account.bankAccountId());
+            pending.setOperationType(type);
+            pending.setAmount(amount);
             String currency = account.currency() == null ? "RUB" : account.currency();
-            entity.setCurrency(currency);
-            entity.setIdempotencyKey(UUID.randomUUID().toString());
-            entity.setStatus(OperationStatus.PENDING);
-            repository.save(entity);
+            pending.setCurrency(currency);
+            pending.setIdempotencyKey(idempotencyKey);
+            pending.setStatus(OperationStatus.PENDING);
+            // Сразу в БД: повтор с тем же ключом упрётся в уникальный индекс до изменения баланса
+            repository.saveAndFlush(pending);
+            entity = pending;
 
             AccountDetails updatedAccount = accountsClient.adjustBalance(
                     request.login(),
@@ -69,7 +141,7 @@ public class CashOperationService {
             repository.save(entity);
 
             String notificationCurrency = updatedAccount.currency() == null ? currency : updatedAccount.currency();
-            notificationsClient.sendCashEvent(request.login(), type, amount, notificationCurrency);
+            notificationOutbox.enqueueCashEvent(request.login(), type, amount, notificationCurrency);
             return List.of();
         } catch (AccountsClient.AccountsClientException ex) {
             log.warn("Accounts client error: {}", ex.getMessage());
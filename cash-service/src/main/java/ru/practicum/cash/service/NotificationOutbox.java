@@ -0,0 +1,45 @@
+package ru.practicum.cash.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.cash.model.OperationType;
+import ru.practicum.outbox.NotificationOutboxEntity;
+import ru.practicum.outbox.NotificationOutboxRepository;
+
+import java.math.BigDecimal;
+
+/**
+ * Записывает уведомления в outbox в текущей транзакции; отправляет их {@link ru.practicum.outbox.NotificationOutboxDispatcher}.
+ */
+@Component
+public class NotificationOutbox {
+
+    private final NotificationOutboxRepository repository;
+    private final boolean enabled;
+
+    public NotificationOutbox(NotificationOutboxRepository repository,
+                              @Value("${notifications.enabled:true}") boolean enabled) {
+        this.repository = repository;
+        this.enabled = enabled;
+    }
+
+    public void enqueueCashEvent(String login, OperationType type, BigDecimal amount, String currency) {
+        String message = switch (type) {
+            case DEPOSIT -> "На ваш счёт зачислено %s %s".formatted(amount, currency);
+            case WITHDRAW -> "Со счёта списано %s %s".formatted(amount, currency);
+        };
+        String eventType = type == OperationType.DEPOSIT ? "CASH_DEPOSIT" : "CASH_WITHDRAW";
+        enqueue(eventType, login, message);
+    }
+
+    private void enqueue(String eventType, String recipient, String message) {
+        if (!enabled) {
+            return;
+        }
+        var entity = new NotificationOutboxEntity();
+        entity.setEventType(eventType);
+        entity.setRecipient(recipient);
+        entity.setMessage(message);
+        repository.save(entity);
+    }
+}
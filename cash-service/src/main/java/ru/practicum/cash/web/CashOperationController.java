@@ -5,6 +5,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import ru.practicum.cash.service.CashOperationService;
@@ -20,11 +21,14 @@ import java.util.List;
 @RequiredArgsConstructor
 public class CashOperationController {
 
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final CashOperationService cashOperationService;
 
     @PostMapping("/operations")
-    public ResponseEntity<List<String>> operate(@RequestBody @Valid CashOperationRequest request) {
-        var errors = cashOperationService.process(request);
+    public ResponseEntity<List<String>> operate(@RequestBody @Valid CashOperationRequest request,
+                                                @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        var errors = cashOperationService.process(request, idempotencyKey);
         return ResponseEntity.ok(errors);
     }
 }
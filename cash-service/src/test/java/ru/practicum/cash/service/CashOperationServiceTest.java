@@ -1,10 +1,13 @@
 package ru.practicum.cash.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.idempotency.IdempotencyCache;
 import ru.practicum.cash.clients.AccountsClient;
-import ru.practicum.cash.clients.NotificationsClient;
 import ru.practicum.cash.clients.dto.AccountDetails;
 import ru.practicum.cash.clients.dto.BalanceAdjustmentCommand;
 import ru.practicum.cash.model.CashOperationEntity;
@@ -15,7 +18,9 @@ import ru.practicum.cash.web.dto.CashAction;
 import ru.practicum.cash.web.dto.CashOperationRequest;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -27,15 +32,18 @@ class CashOperationServiceTest {
 
     private CashOperationRepository repository;
     private AccountsClient accountsClient;
-    private NotificationsClient notificationsClient;
+    private NotificationOutbox notificationOutbox;
     private CashOperationService service;
 
     @BeforeEach
     void setUp() {
         repository = mock(CashOperationRepository.class);
         accountsClient = mock(AccountsClient.class);
-        notificationsClient = mock(NotificationsClient.class);
-        service = new CashOperationService(repository, accountsClient, notificationsClient);
+        notificationOutbox = mock(NotificationOutbox.class);
+        var idempotencyCache = new IdempotencyCache(new SimpleMeterRegistry(), Duration.ofMinutes(10), 100);
+        var transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        service = new CashOperationService(repository, accountsClient, notificationOutbox, idempotencyCache, transactionTemplate);
+        when(repository.findByIdempotencyKey(any())).thenReturn(Optional.empty());
     }
 
     @Test
@@ -59,7 +67,7 @@ class CashOperationServiceTest {
         verify(accountsClient).adjustBalance(eq("alice"), captor.capture());
         assertThat(captor.getValue().amount()).isEqualByComparingTo("50.00");
         assertThat(captor.getValue().type()).isEqualTo(OperationType.DEPOSIT);
-        verify(notificationsClient).sendCashEvent("alice", OperationType.DEPOSIT, new BigDecimal("50.00"), "RUB");
+        verify(notificationOutbox).enqueueCashEvent("alice", OperationType.DEPOSIT, new BigDecimal("50.00"), "RUB");
     }
 
     @Test
@@ -93,10 +101,11 @@ class CashOperationServiceTest {
         assertThat(commandCaptor.getValue().type()).isEqualTo(OperationType.WITHDRAW);
         assertThat(commandCaptor.getValue().amount()).isEqualByComparingTo("50.00");
         ArgumentCaptor<CashOperationEntity> saveCaptor = ArgumentCaptor.forClass(CashOperationEntity.class);
-        verify(repository, atLeast(2)).save(saveCaptor.capture());
+        verify(repository).saveAndFlush(any(CashOperationEntity.class));
+        verify(repository, atLeastOnce()).save(saveCaptor.capture());
         var lastSaved = saveCaptor.getAllValues().get(saveCaptor.getAllValues().size() - 1);
         assertThat(lastSaved.getStatus()).isEqualTo(OperationStatus.DONE);
-        verify(notificationsClient).sendCashEvent("alice", OperationType.WITHDRAW, new BigDecimal("50.00"), "RUB");
+        verify(notificationOutbox).enqueueCashEvent("alice", OperationType.WITHDRAW, new BigDecimal("50.00"), "RUB");
     }
 
     @Test
@@ -115,7 +124,7 @@ class CashOperationServiceTest {
 
         assertThat(result).contains("Недостаточно средств на счёте");
         verify(accountsClient, never()).adjustBalance(any(), any());
-        verify(repository, never()).save(any());
+        verify(repository, never()).saveAndFlush(any());
     }
 
     @Test
@@ -137,7 +146,8 @@ class CashOperationServiceTest {
 
         assertThat(result).contains("boom");
         ArgumentCaptor<CashOperationEntity> captor = ArgumentCaptor.forClass(CashOperationEntity.class);
-        verify(repository, atLeast(2)).save(captor.capture());
+        verify(repository).saveAndFlush(any(CashOperationEntity.class));
+        verify(repository, atLeastOnce()).save(captor.capture());
         List<CashOperationEntity> saved = captor.getAllValues();
         assertThat(saved.get(saved.size() - 1).getStatus()).isEqualTo(OperationStatus.FAILED);
     }
@@ -149,7 +159,72 @@ class CashOperationServiceTest {
         var result = service.process(new CashOperationRequest("missing", CashAction.PUT, BigDecimal.ONE));
 
         assertThat(result).hasSize(1);
-        verify(repository, never()).save(any());
-        verifyNoInteractions(notificationsClient);
+        verify(repository, never()).saveAndFlush(any());
+        verifyNoInteractions(notificationOutbox);
+    }
+
+    @Test
+    void replayWithSameKeyDoesNotAdjustBalanceTwice() {
+        AccountDetails details = new AccountDetails(
+                UUID.randomUUID(),
+                UUID.randomUUID(),
+                "alice",
+                "4080",
+                "RUB",
+                BigDecimal.valueOf(100)
+        );
+        when(accountsClient.getAccountDetails("alice")).thenReturn(details);
+        when(accountsClient.adjustBalance(eq("alice"), any(BalanceAdjustmentCommand.class))).thenReturn(details);
+        var request = new CashOperationRequest("alice", CashAction.PUT, BigDecimal.valueOf(50));
+
+        var first = service.process(request, "key-1");
+        var replay = service.process(request, "key-1");
+
+        assertThat(first).isEmpty();
+        assertThat(replay).isEqualTo(first);
+        verify(accountsClient, times(1)).adjustBalance(any(), any());
+        ArgumentCaptor<CashOperationEntity> captor = ArgumentCaptor.forClass(CashOperationEntity.class);
+        verify(repository).saveAndFlush(captor.capture());
+        assertThat(captor.getValue().getIdempotencyKey()).isEqualTo("alice:key-1");
+    }
+
+    @Test
+    void replayIsAnsweredFromStoredOperation() {
+        stored(OperationType.DEPOSIT, "10.0000", OperationStatus.PENDING);
+
+        var result = service.process(new CashOperationRequest("alice", CashAction.PUT, BigDecimal.TEN), "key-1");
+
+        assertThat(result).containsExactly(CashOperationService.IN_PROGRESS_MESSAGE);
+        verifyNoInteractions(accountsClient, notificationOutbox);
+    }
+
+    @Test
+    void pendingReplayIsNotKeptInMemory() {
+        stored(OperationType.DEPOSIT, "10.0000", OperationStatus.PENDING);
+        var request = new CashOperationRequest("alice", CashAction.PUT, BigDecimal.TEN);
+        service.process(request, "key-1");
+
+        stored(OperationType.DEPOSIT, "10.0000", OperationStatus.DONE);
+
+        assertThat(service.process(request, "key-1")).isEmpty();
+    }
+
+    @Test
+    void rejectsSameKeyForDifferentOperation() {
+        stored(OperationType.DEPOSIT, "10.0000", OperationStatus.DONE);
+
+        var result = service.process(new CashOperationRequest("alice", CashAction.GET, BigDecimal.TEN), "key-1");
+
+        assertThat(result).containsExactly(CashOperationService.KEY_REUSED_MESSAGE);
+        verifyNoInteractions(accountsClient, notificationOutbox);
+    }
+
+    private void stored(OperationType type, String amount, OperationStatus status) {
+        var stored = new CashOperationEntity();
+        stored.setIdempotencyKey("alice:key-1");
+        stored.setOperationType(type);
+        stored.setAmount(new BigDecimal(amount));
+        stored.setStatus(status);
+        when(repository.findByIdempotencyKey("alice:key-1")).thenReturn(Optional.of(stored));
     }
 }
@@ -16,6 +16,7 @@ import java.util.List;
 import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
@@ -36,7 +37,7 @@ class CashOperationControllerTest {
 
     @Test
     void returnsServiceResponse() throws Exception {
-        when(cashOperationService.process(any())).thenReturn(List.of());
+        when(cashOperationService.process(any(), eq("key-1"))).thenReturn(List.of());
 
         var payload = Map.of(
                 "login", "alice",
@@ -45,6 +46,7 @@ class CashOperationControllerTest {
         );
 
         mockMvc.perform(post("/api/cash/operations")
+                        .header("Idempotency-Key", "key-1")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsBytes(payload)))
                 .andExpect(status().isOk())
@@ -7,6 +7,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
 import ru.practicum.exchangegen.model.RatePayload;
+import ru.practicum.http.PooledHttpClientFactory;
 
 import java.util.List;
 
@@ -19,8 +20,10 @@ public class ExchangeClient {
 
     private final RestClient restClient;
 
-    public ExchangeClient(@Value("${app.exchange-base-url:http://exchange-service:8086}") String exchangeBaseUrl) {
+    public ExchangeClient(@Value("${app.exchange-base-url:http://exchange-service:8086}") String exchangeBaseUrl,
+                          PooledHttpClientFactory httpClients) {
         this.restClient = RestClient.builder()
+                .requestFactory(httpClients.requestFactory("exchange"))
                 .baseUrl(exchangeBaseUrl)
                 .build();
     }
@@ -8,7 +8,13 @@ import java.math.BigDecimal;
 import java.time.Instant;
 
 @Entity
-@Table(name = "exchange_rates")
+@Table(
+        name = "exchange_rates",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uq_exchange_rates_pair",
+                columnNames = {"base_currency", "currency"}
+        )
+)
 @Getter
 @Setter
 public class ExchangeRateEntity {
@@ -0,0 +1,13 @@
+package ru.practicum.exchange.repository;
+
+import ru.practicum.exchange.model.ExchangeRateEntity;
+
+import java.util.Collection;
+
+public interface ExchangeRateBatchRepository {
+
+    /**
+     * Inserts or updates all rates in a single JDBC batch, relying on the unique (base_currency, currency) index.
+     */
+    void upsertAll(Collection<ExchangeRateEntity> rates);
+}
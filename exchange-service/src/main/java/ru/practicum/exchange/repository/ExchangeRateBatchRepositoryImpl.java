@@ -0,0 +1,44 @@
+package ru.practicum.exchange.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.exchange.model.ExchangeRateEntity;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+
+class ExchangeRateBatchRepositoryImpl implements ExchangeRateBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String upsertSql;
+
+    ExchangeRateBatchRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                    @Value("${spring.jpa.properties.hibernate.default_schema:exchange}") String schema) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.upsertSql = """
+                INSERT INTO %s.exchange_rates (base_currency, currency, buy_rate, sell_rate, updated_at)
+                VALUES (?, ?, ?, ?, ?)
+                ON CONFLICT (base_currency, currency) DO UPDATE
+                SET buy_rate = EXCLUDED.buy_rate,
+                    sell_rate = EXCLUDED.sell_rate,
+                    updated_at = EXCLUDED.updated_at
+                WHERE exchange_rates.updated_at <= EXCLUDED.updated_at
+                """.formatted(schema);
+    }
+
+    @Override
+    public void upsertAll(Collection<ExchangeRateEntity> rates) {
+        if (rates.isEmpty()) {
+            return;
+        }
+        List<ExchangeRateEntity> batch = List.copyOf(rates);
+        jdbcTemplate.batchUpdate(upsertSql, batch, batch.size(), (ps, rate) -> {
+            ps.setString(1, rate.getBaseCurrency());
+            ps.setString(2, rate.getCurrency());
+            ps.setBigDecimal(3, rate.getBuyRate());
+            ps.setBigDecimal(4, rate.getSellRate());
+            ps.setTimestamp(5, Timestamp.from(rate.getUpdatedAt()));
+        });
+    }
+}
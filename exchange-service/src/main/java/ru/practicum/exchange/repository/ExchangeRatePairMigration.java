@@ -0,0 +1,76 @@
+package ru.practicum.exchange.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Makes sure {@code exchange_rates} holds at most one row per currency pair and carries the
+ * {@code uq_exchange_rates_pair} unique index the batch upsert relies on.
+ * <p>
+ * {@code ddl-auto: update} silently skips the constraint when the table already contains
+ * duplicates, so when the index is missing the migration first removes them (keeping the most
+ * recent rate) and then creates it. Once the index exists, startup only checks for it.
+ */
+@Slf4j
+@Component
+class ExchangeRatePairMigration {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String schema;
+    private final String deleteDuplicatesSql;
+    private final String createIndexSql;
+
+    /**
+     * The {@link EntityManagerFactory} parameter only orders the migration after Hibernate has
+     * created or updated the table.
+     */
+    ExchangeRatePairMigration(JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              EntityManagerFactory entityManagerFactory,
+                              @Value("${spring.jpa.properties.hibernate.default_schema:exchange}") String schema) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.schema = schema;
+        this.deleteDuplicatesSql = """
+                DELETE FROM %1$s.exchange_rates stale
+                USING %1$s.exchange_rates fresh
+                WHERE stale.base_currency = fresh.base_currency
+                  AND stale.currency = fresh.currency
+                  AND (stale.updated_at < fresh.updated_at
+                       OR (stale.updated_at = fresh.updated_at AND stale.id < fresh.id))
+                """.formatted(schema);
+        this.createIndexSql = """
+                CREATE UNIQUE INDEX IF NOT EXISTS uq_exchange_rates_pair
+                ON %s.exchange_rates (base_currency, currency)
+                """.formatted(schema);
+    }
+
+    @PostConstruct
+    void migrate() {
+        if (indexExists()) {
+            return;
+        }
+        Integer removed = transactionTemplate.execute(status -> {
+            int deleted = jdbcTemplate.update(deleteDuplicatesSql);
+            jdbcTemplate.execute(createIndexSql);
+            return deleted;
+        });
+        if (removed != null && removed > 0) {
+            log.warn("Removed {} duplicate exchange rate rows before enforcing uq_exchange_rates_pair", removed);
+        }
+    }
+
+    private boolean indexExists() {
+        Integer found = jdbcTemplate.queryForObject("""
+                SELECT count(*) FROM pg_indexes
+                WHERE schemaname = ? AND tablename = 'exchange_rates' AND indexname = 'uq_exchange_rates_pair'
+                """, Integer.class, schema);
+        return found != null && found > 0;
+    }
+}
@@ -5,7 +5,7 @@ import ru.practicum.exchange.model.ExchangeRateEntity;
 
 import java.util.Optional;
 
-public interface ExchangeRateRepository extends JpaRepository<ExchangeRateEntity, Long> {
+public interface ExchangeRateRepository extends JpaRepository<ExchangeRateEntity, Long>, ExchangeRateBatchRepository {
 
     Optional<ExchangeRateEntity> findByBaseCurrencyIgnoreCaseAndCurrencyIgnoreCase(String baseCurrency, String currency);
 }
@@ -0,0 +1,164 @@
+package ru.practicum.exchange.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.exchange.repository.ExchangeRateRepository;
+import ru.practicum.exchange.web.dto.RateResponse;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Immutable in-memory snapshot of exchange rates.
+ * Reads never hit the database; the snapshot is replaced atomically when a new
+ * batch of rates is committed, and reloaded only on first use or once it gets older than max-age.
+ * Both paths merge per currency pair and keep the rate with the later {@code updatedAt}, so a reload
+ * that read the table before a publish committed cannot roll the snapshot back.
+ * <p>
+ * {@code exchange.rates.lookups} counts pair lookups by outcome (found/unknown);
+ * actual database reads are counted by {@code exchange.rates.cache.loads}.
+ */
+@Component
+@Slf4j
+public class ExchangeRateCache {
+
+    private final ExchangeRateRepository repository;
+    private final Duration maxAge;
+    private final Clock clock;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final Counter found;
+    private final Counter unknown;
+    private final Counter loads;
+
+    @Autowired
+    public ExchangeRateCache(ExchangeRateRepository repository,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.rates-cache.max-age:60s}") Duration maxAge) {
+        this(repository, meterRegistry, maxAge, Clock.systemUTC());
+    }
+
+    // Package-private for tests
+    ExchangeRateCache(ExchangeRateRepository repository, MeterRegistry meterRegistry, Duration maxAge, Clock clock) {
+        this.repository = repository;
+        this.maxAge = maxAge;
+        this.clock = clock;
+        this.found = Counter.builder("exchange.rates.lookups").tag("result", "found").register(meterRegistry);
+        this.unknown = Counter.builder("exchange.rates.lookups").tag("result", "unknown").register(meterRegistry);
+        this.loads = Counter.builder("exchange.rates.cache.loads").register(meterRegistry);
+        Gauge.builder("exchange.rates.snapshot.age", this, ExchangeRateCache::ageSeconds)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    public List<RateResponse> getAll() {
+        return current().all();
+    }
+
+    public Optional<RateResponse> find(String baseCurrency, String currency) {
+        RateResponse rate = current().rates().get(key(baseCurrency, currency));
+        if (rate == null) {
+            unknown.increment();
+            return Optional.empty();
+        }
+        found.increment();
+        return Optional.of(rate);
+    }
+
+    /**
+     * Merges freshly committed rates into a copy of the current snapshot and swaps it in.
+     */
+    public void publish(Collection<RateResponse> updated) {
+        if (snapshot.get() == null) {
+            reload();
+            return;
+        }
+        snapshot.updateAndGet(previous -> {
+            Map<String, RateResponse> rates = new LinkedHashMap<>(previous.rates());
+            updated.forEach(rate -> rates.merge(key(rate.baseCurrency(), rate.currency()), rate, ExchangeRateCache::newer));
+            return new Snapshot(rates, clock.instant());
+        });
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot.get();
+        if (current == null || isStale(current)) {
+            return reload();
+        }
+        return current;
+    }
+
+    private synchronized Snapshot reload() {
+        Snapshot current = snapshot.get();
+        if (current != null && !isStale(current)) {
+            return current;
+        }
+        Map<String, RateResponse> rates = new LinkedHashMap<>();
+        repository.findAll().forEach(entity -> rates.put(
+                key(entity.getBaseCurrency(), entity.getCurrency()),
+                new RateResponse(
+                        entity.getBaseCurrency(),
+                        entity.getCurrency(),
+                        entity.getBuyRate(),
+                        entity.getSellRate(),
+                        entity.getUpdatedAt()
+                )));
+        Instant loadedAt = clock.instant();
+        // A publish may have swapped in newer rates while the table was being read
+        Snapshot loaded = snapshot.updateAndGet(previous -> {
+            Map<String, RateResponse> merged = new LinkedHashMap<>(rates);
+            if (previous != null) {
+                previous.rates().forEach((key, rate) -> merged.merge(key, rate, ExchangeRateCache::newer));
+            }
+            return new Snapshot(merged, loadedAt);
+        });
+        loads.increment();
+        log.debug("Loaded {} exchange rates into snapshot", rates.size());
+        return loaded;
+    }
+
+    private boolean isStale(Snapshot current) {
+        return current.createdAt().plus(maxAge).isBefore(clock.instant());
+    }
+
+    private double ageSeconds() {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            return Double.NaN;
+        }
+        return Duration.between(current.createdAt(), clock.instant()).toMillis() / 1000.0;
+    }
+
+    private static RateResponse newer(RateResponse current, RateResponse candidate) {
+        if (current.updatedAt() == null) {
+            return candidate;
+        }
+        if (candidate.updatedAt() == null) {
+            return current;
+        }
+        return candidate.updatedAt().isBefore(current.updatedAt()) ? current : candidate;
+    }
+
+    private static String key(String baseCurrency, String currency) {
+        return baseCurrency.toUpperCase(Locale.ROOT) + "/" + currency.toUpperCase(Locale.ROOT);
+    }
+
+    private record Snapshot(Map<String, RateResponse> rates, List<RateResponse> all, Instant createdAt) {
+
+        Snapshot(Map<String, RateResponse> rates, Instant createdAt) {
+            this(Map.copyOf(rates), List.copyOf(rates.values()), createdAt);
+        }
+    }
+}
@@ -4,6 +4,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import ru.practicum.exchange.model.ExchangeRateEntity;
 import ru.practicum.exchange.repository.ExchangeRateRepository;
 import ru.practicum.exchange.web.dto.ConvertResponse;
@@ -13,23 +15,23 @@ import ru.practicum.exchange.web.dto.RateResponse;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class ExchangeService {
 
     private final ExchangeRateRepository repository;
+    private final ExchangeRateCache cache;
 
     @Value("${app.base-currency:RUB}")
     String baseCurrency;
 
-    @Transactional(readOnly = true)
     public List<RateResponse> getAll() {
-        return repository.findAll().stream()
-                .map(this::toResponse)
-                .toList();
+        return cache.getAll();
     }
 
     @Transactional
@@ -38,13 +40,19 @@ public class ExchangeService {
             return List.of();
         }
         Instant now = Instant.now();
-        return requests.stream()
-                .map(req -> upsert(req, now))
+        Map<String, ExchangeRateEntity> byPair = new LinkedHashMap<>();
+        requests.forEach(req -> {
+            var entity = toEntity(req, now);
+            byPair.put(entity.getBaseCurrency() + "/" + entity.getCurrency(), entity);
+        });
+        repository.upsertAll(byPair.values());
+        List<RateResponse> saved = byPair.values().stream()
                 .map(this::toResponse)
                 .toList();
+        publishAfterCommit(saved);
+        return saved;
     }
 
-    @Transactional(readOnly = true)
     public ConvertResponse convert(String from, String to, BigDecimal amount) {
         if (from.equalsIgnoreCase(to)) {
             return new ConvertResponse(from.toUpperCase(), to.toUpperCase(), amount, amount, BigDecimal.ONE);
@@ -72,23 +80,33 @@ public class ExchangeService {
         if (currency.equalsIgnoreCase(baseCurrency)) {
             return BigDecimal.ONE;
         }
-        var rate = repository.findByBaseCurrencyIgnoreCaseAndCurrencyIgnoreCase(baseCurrency, currency)
+        var rate = cache.find(baseCurrency, currency)
                 .orElseThrow(() -> new IllegalArgumentException("Rate not found for currency " + currency));
-        return rate.getBuyRate().add(rate.getSellRate())
+        return rate.buyRate().add(rate.sellRate())
                 .divide(BigDecimal.valueOf(2), 6, RoundingMode.HALF_UP);
     }
 
-    private ExchangeRateEntity upsert(RateRequest req, Instant updatedAtDefault) {
-        String base = req.baseCurrency().toUpperCase(Locale.ROOT);
-        String currency = req.currency().toUpperCase(Locale.ROOT);
-        var entity = repository.findByBaseCurrencyIgnoreCaseAndCurrencyIgnoreCase(base, currency)
-                .orElseGet(ExchangeRateEntity::new);
-        entity.setBaseCurrency(base);
-        entity.setCurrency(currency);
+    private void publishAfterCommit(List<RateResponse> saved) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.publish(saved);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.publish(saved);
+            }
+        });
+    }
+
+    private ExchangeRateEntity toEntity(RateRequest req, Instant updatedAtDefault) {
+        var entity = new ExchangeRateEntity();
+        entity.setBaseCurrency(req.baseCurrency().toUpperCase(Locale.ROOT));
+        entity.setCurrency(req.currency().toUpperCase(Locale.ROOT));
         entity.setBuyRate(req.buyRate());
         entity.setSellRate(req.sellRate());
         entity.setUpdatedAt(req.generatedAt() == null ? updatedAtDefault : req.generatedAt());
-        return repository.save(entity);
+        return entity;
     }
 
     private RateResponse toResponse(ExchangeRateEntity entity) {
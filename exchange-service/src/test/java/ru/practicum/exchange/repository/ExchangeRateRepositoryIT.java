@@ -0,0 +1,128 @@
+package ru.practicum.exchange.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.practicum.exchange.model.ExchangeRateEntity;
+
+@Testcontainers
+@SpringBootTest
+@ActiveProfiles("test")
+class ExchangeRateRepositoryIT {
+
+    private static final Instant OLD = Instant.parse("2024-01-01T10:00:00Z");
+    private static final Instant NEW = Instant.parse("2024-01-01T10:05:00Z");
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES =
+            new PostgreSQLContainer<>("postgres:16-alpine")
+                    .withDatabaseName("bank")
+                    .withUsername("bank")
+                    .withPassword("bank");
+
+    @DynamicPropertySource
+    static void configureDatasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    ExchangeRateRepository repository;
+
+    @Autowired
+    ExchangeRatePairMigration migration;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void clean() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void migrationRemovesDuplicatesAndRestoresUniquePair() {
+        jdbcTemplate.execute("ALTER TABLE exchange.exchange_rates DROP CONSTRAINT IF EXISTS uq_exchange_rates_pair");
+        jdbcTemplate.execute("DROP INDEX IF EXISTS exchange.uq_exchange_rates_pair");
+        insertRaw("RUB", "USD", "90.0000", OLD);
+        insertRaw("RUB", "USD", "91.0000", NEW);
+        insertRaw("RUB", "USD", "92.0000", NEW);
+        insertRaw("RUB", "CNY", "12.0000", OLD);
+
+        migration.migrate();
+        migration.migrate();
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT buy_rate FROM exchange.exchange_rates WHERE base_currency = 'RUB' AND currency = 'USD'",
+                BigDecimal.class)).isEqualByComparingTo("92");
+        assertThat(repository.count()).isEqualTo(2);
+
+        repository.upsertAll(List.of(rate("RUB", "USD", "93.0000", Instant.parse("2024-01-01T10:10:00Z"))));
+
+        assertThat(repository.count()).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT buy_rate FROM exchange.exchange_rates WHERE base_currency = 'RUB' AND currency = 'USD'",
+                BigDecimal.class)).isEqualByComparingTo("93");
+    }
+
+    @Test
+    void upsertInsertsNewPairsAndUpdatesExistingOnes() {
+        repository.upsertAll(List.of(
+                rate("RUB", "USD", "90.0000", OLD),
+                rate("RUB", "CNY", "12.0000", OLD)));
+        repository.upsertAll(List.of(rate("RUB", "USD", "91.5000", NEW)));
+
+        List<ExchangeRateEntity> rates = repository.findAll();
+
+        assertThat(rates).hasSize(2);
+        ExchangeRateEntity usd = rates.stream()
+                .filter(r -> r.getCurrency().equals("USD"))
+                .findFirst()
+                .orElseThrow();
+        assertThat(usd.getBuyRate()).isEqualByComparingTo("91.5");
+        assertThat(usd.getUpdatedAt()).isEqualTo(NEW);
+    }
+
+    @Test
+    void upsertKeepsNewerRateWhenOlderOneArrivesLate() {
+        repository.upsertAll(List.of(rate("RUB", "USD", "91.5000", NEW)));
+        repository.upsertAll(List.of(rate("RUB", "USD", "90.0000", OLD)));
+
+        ExchangeRateEntity usd = repository.findAll().getFirst();
+        assertThat(usd.getBuyRate()).isEqualByComparingTo("91.5");
+        assertThat(usd.getUpdatedAt()).isEqualTo(NEW);
+    }
+
+    private void insertRaw(String base, String currency, String buy, Instant updatedAt) {
+        jdbcTemplate.update("""
+                        INSERT INTO exchange.exchange_rates (base_currency, currency, buy_rate, sell_rate, updated_at)
+                        VALUES (?, ?, ?, ?, ?)
+                        """,
+                base, currency, new BigDecimal(buy), new BigDecimal(buy), Timestamp.from(updatedAt));
+    }
+
+    private static ExchangeRateEntity rate(String base, String currency, String buy, Instant updatedAt) {
+        ExchangeRateEntity entity = new ExchangeRateEntity();
+        entity.setBaseCurrency(base);
+        entity.setCurrency(currency);
+        entity.setBuyRate(new BigDecimal(buy));
+        entity.setSellRate(new BigDecimal(buy));
+        entity.setUpdatedAt(updatedAt);
+        return entity;
+    }
+}
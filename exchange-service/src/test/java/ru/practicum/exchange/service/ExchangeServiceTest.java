@@ -1,46 +1,79 @@
 package ru.practicum.exchange.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import ru.practicum.exchange.model.ExchangeRateEntity;
 import ru.practicum.exchange.repository.ExchangeRateRepository;
 import ru.practicum.exchange.web.dto.RateRequest;
+import ru.practicum.exchange.web.dto.RateResponse;
 
 import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class ExchangeServiceTest {
 
     private ExchangeRateRepository repository;
+    private SimpleMeterRegistry meterRegistry;
     private ExchangeService service;
 
     @BeforeEach
     void setUp() {
         repository = Mockito.mock(ExchangeRateRepository.class);
-        service = new ExchangeService(repository);
+        meterRegistry = new SimpleMeterRegistry();
+        var clock = Clock.fixed(Instant.parse("2025-01-01T00:00:00Z"), ZoneOffset.UTC);
+        var cache = new ExchangeRateCache(repository, meterRegistry, Duration.ofMinutes(1), clock);
+        service = new ExchangeService(repository, cache);
         service.baseCurrency = "RUB";
     }
 
     @Test
     void saveRates_upsertsAndReturnsResponses() {
         var req = new RateRequest("RUB", "USD", BigDecimal.valueOf(90), BigDecimal.valueOf(91), Instant.now());
-        when(repository.findByBaseCurrencyIgnoreCaseAndCurrencyIgnoreCase("RUB", "USD"))
-                .thenReturn(Optional.empty());
-        when(repository.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
         var result = service.saveRates(List.of(req));
 
         assertThat(result).hasSize(1);
         assertThat(result.get(0).currency()).isEqualTo("USD");
         assertThat(result.get(0).baseCurrency()).isEqualTo("RUB");
+        verify(repository).upsertAll(anyCollection());
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void saveRates_sendsSingleBatchWithLastValuePerPair() {
+        var first = new RateRequest("rub", "usd", BigDecimal.valueOf(90), BigDecimal.valueOf(91), Instant.now());
+        var eur = new RateRequest("RUB", "EUR", BigDecimal.valueOf(99), BigDecimal.valueOf(100), Instant.now());
+        var second = new RateRequest("RUB", "USD", BigDecimal.valueOf(92), BigDecimal.valueOf(93), Instant.now());
+
+        var result = service.saveRates(List.of(first, eur, second));
+
+        ArgumentCaptor<Collection<ExchangeRateEntity>> captor = ArgumentCaptor.captor();
+        verify(repository, times(1)).upsertAll(captor.capture());
+        assertThat(captor.getValue())
+                .extracting(ExchangeRateEntity::getCurrency, ExchangeRateEntity::getBuyRate)
+                .containsExactly(tuple("USD", BigDecimal.valueOf(92)), tuple("EUR", BigDecimal.valueOf(99)));
+        assertThat(result).hasSize(2);
+        verify(repository, never()).findByBaseCurrencyIgnoreCaseAndCurrencyIgnoreCase(any(), any());
     }
 
     @Test
@@ -52,8 +85,7 @@ class ExchangeServiceTest {
         entity.setSellRate(BigDecimal.valueOf(92));
         entity.setUpdatedAt(Instant.now());
 
-        when(repository.findByBaseCurrencyIgnoreCaseAndCurrencyIgnoreCase("RUB", "USD"))
-                .thenReturn(Optional.of(entity));
+        when(repository.findAll()).thenReturn(List.of(entity));
 
         var response = service.convert("USD", "RUB", BigDecimal.TEN);
 
@@ -62,10 +94,83 @@ class ExchangeServiceTest {
 
     @Test
     void convert_missingRate_throws() {
-        when(repository.findByBaseCurrencyIgnoreCaseAndCurrencyIgnoreCase("RUB", "EUR"))
-                .thenReturn(Optional.empty());
+        when(repository.findAll()).thenReturn(List.of());
 
         assertThatThrownBy(() -> service.convert("EUR", "RUB", BigDecimal.ONE))
                 .isInstanceOf(IllegalArgumentException.class);
     }
+
+    @Test
+    void convert_readsSnapshotInsteadOfDatabase() {
+        when(repository.findAll()).thenReturn(List.of());
+        service.getAll();
+        var req = new RateRequest("RUB", "USD", BigDecimal.valueOf(90), BigDecimal.valueOf(92), Instant.now());
+        service.saveRates(List.of(req));
+
+        service.convert("USD", "RUB", BigDecimal.TEN);
+        var response = service.convert("RUB", "USD", BigDecimal.valueOf(91));
+
+        assertThat(response.convertedAmount()).isEqualByComparingTo("1.0000");
+        verify(repository, times(1)).findAll();
+        assertThat(meterRegistry.get("exchange.rates.lookups").tag("result", "found").counter().count())
+                .isEqualTo(2.0);
+    }
+
+    @Test
+    void reloadDoesNotOverwriteRatesPublishedWhileReading() {
+        var now = new AtomicReference<>(Instant.parse("2025-01-01T00:00:00Z"));
+        var clock = new Clock() {
+            @Override
+            public ZoneOffset getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return now.get();
+            }
+        };
+        var cache = new ExchangeRateCache(repository, meterRegistry, Duration.ofMinutes(1), clock);
+        var stale = rate("USD", 90, Instant.parse("2025-01-01T00:00:00Z"));
+        when(repository.findAll()).thenReturn(List.of(stale));
+        cache.getAll();
+
+        now.set(now.get().plus(Duration.ofMinutes(2)));
+        var fresh = new RateResponse("RUB", "USD", BigDecimal.valueOf(95), BigDecimal.valueOf(96),
+                Instant.parse("2025-01-01T00:01:30Z"));
+        // The reload reads the old row, and a publish of a newer rate commits before the reload finishes
+        when(repository.findAll()).thenAnswer(inv -> {
+            cache.publish(List.of(fresh));
+            return List.of(stale);
+        });
+
+        assertThat(cache.find("RUB", "USD")).contains(fresh);
+        assertThat(cache.find("RUB", "USD")).contains(fresh);
+    }
+
+    @Test
+    void unknownPairIsCountedAsUnknownLookup() {
+        when(repository.findAll()).thenReturn(List.of());
+
+        service.getAll();
+        assertThatThrownBy(() -> service.convert("EUR", "RUB", BigDecimal.ONE));
+
+        assertThat(meterRegistry.get("exchange.rates.lookups").tag("result", "unknown").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    private static ExchangeRateEntity rate(String currency, long buy, Instant updatedAt) {
+        var entity = new ExchangeRateEntity();
+        entity.setBaseCurrency("RUB");
+        entity.setCurrency(currency);
+        entity.setBuyRate(BigDecimal.valueOf(buy));
+        entity.setSellRate(BigDecimal.valueOf(buy + 1));
+        entity.setUpdatedAt(updatedAt);
+        return entity;
+    }
 }
@@ -14,12 +14,12 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import ru.practicum.front.mapper.AccountMapper;
 import ru.practicum.front.service.Dto;
 import ru.practicum.front.service.GatewayApiClient;
-import ru.practicum.front.service.dto.AccountResponse;
-import ru.practicum.front.service.dto.AccountDetailsResponse;
+import ru.practicum.front.service.dto.DashboardData;
 import ru.practicum.front.service.dto.RateResponse;
 import ru.practicum.front.service.dto.BankAccountResponse;
 import ru.practicum.front.util.ValidationUtils;
@@ -30,6 +30,7 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.UUID;
 
 /**
  * MVC-контроллер пользовательских страниц.
@@ -38,6 +39,8 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class PagesController {
 
+    private static final int USER_SUGGESTIONS_LIMIT = 10;
+
     private final GatewayApiClient api;
     private final AccountMapper accountMapper;
 
@@ -79,24 +82,19 @@ public class PagesController {
         String login = Optional.ofNullable(oidcUser.getPreferredUsername())
                 .orElse(oidcUser.getName());
 
-        AccountResponse profileResponse = api.getUserProfile(login, bearer);
-        Dto.UserProfile profile = accountMapper.toUserProfile(profileResponse);
-
-        List<Dto.UserShort> users = api.getAllUsers(bearer).stream()
-                .map(accountMapper::toUserShort)
-                .toList();
-
-        AccountDetailsResponse accountDetails = api.getAccountDetails(login, bearer);
-        List<BankAccountResponse> bankAccounts = api.getUserAccounts(login, bearer);
+        DashboardData dashboard = api.getDashboard(login, bearer);
+        Dto.UserProfile profile = accountMapper.toUserProfile(dashboard.profile());
 
-        List<RateResponse> rates = api.getRates(bearer);
+        List<BankAccountResponse> bankAccounts = dashboard.bankAccounts();
+        List<RateResponse> rates = dashboard.rates();
 
-        model.addAttribute("users", users);
         model.addAttribute("accounts", bankAccounts);
         model.addAttribute("login", profile.login());
         model.addAttribute("name", profile.name());
         model.addAttribute("birthdate", profile.birthdate());
         model.addAttribute("rates", rates);
+        // Ключ идемпотентности форм этой отрисовки: повторная отправка формы не повторит операцию
+        model.addAttribute("operationKey", UUID.randomUUID().toString());
         model.addAttribute("passwordErrors", normalizeErrors(passwordErrors));
         model.addAttribute("userAccountErrors", normalizeErrors(userAccountErrors));
         model.addAttribute("cashErrors", normalizeErrors(cashErrors));
@@ -104,6 +102,22 @@ public class PagesController {
         return "main";
     }
 
+    /**
+     * Подсказки для поля «Кому»: вместо всего справочника отдаём первые совпадения по префиксу.
+     */
+    @GetMapping("/users/search")
+    @ResponseBody
+    public List<Dto.UserShort> searchUsers(@RequestParam(value = "q", defaultValue = "") String query,
+                                           @RegisteredOAuth2AuthorizedClient("keycloak") OAuth2AuthorizedClient client) {
+        if (query.isBlank()) {
+            return List.of();
+        }
+        String bearer = client.getAccessToken().getTokenValue();
+        return api.searchUsers(query.trim(), USER_SUGGESTIONS_LIMIT, bearer).stream()
+                .map(accountMapper::toUserShort)
+                .toList();
+    }
+
     @PostMapping("/user/{login}/editPassword")
     public String editPassword(@PathVariable("login") String pathLogin,
                                @RequestParam("password") String password,
@@ -160,6 +174,7 @@ public class PagesController {
     public String cash(@PathVariable("login") String pathLogin,
                        @RequestParam("value") String value,
                        @RequestParam("action") String action,
+                       @RequestParam(value = "idempotency_key", required = false) String idempotencyKey,
                        @RegisteredOAuth2AuthorizedClient("keycloak") OAuth2AuthorizedClient client,
                        RedirectAttributes ra,
                        @AuthenticationPrincipal OidcUser oidcUser) {
@@ -171,7 +186,7 @@ public class PagesController {
         }
 
         String bearer = client.getAccessToken().getTokenValue();
-        List<String> backendErrors = safeList(api.cash(login, action, value, bearer));
+        List<String> backendErrors = safeList(api.cash(login, action, value, idempotencyKey, bearer));
         ra.addFlashAttribute("cashErrors", normalizeErrors(backendErrors));
         return "redirect:/main";
     }
@@ -180,6 +195,7 @@ public class PagesController {
     public String transfer(@PathVariable("login") String fromLogin,
                            @RequestParam("value") String value,
                            @RequestParam("to_login") String toLogin,
+                           @RequestParam(value = "idempotency_key", required = false) String idempotencyKey,
                            @RegisteredOAuth2AuthorizedClient("keycloak") OAuth2AuthorizedClient client,
                            RedirectAttributes ra,
                            @AuthenticationPrincipal OidcUser oidcUser) {
@@ -198,7 +214,7 @@ public class PagesController {
 
         String bearer = client.getAccessToken().getTokenValue();
         String normalizedValue = new BigDecimal(value.trim()).setScale(2, RoundingMode.HALF_UP).toPlainString();
-        List<String> backendErrors = safeList(api.transfer(fromLogin, toLogin, normalizedValue, bearer));
+        List<String> backendErrors = safeList(api.transfer(fromLogin, toLogin, normalizedValue, idempotencyKey, bearer));
         ra.addFlashAttribute("transferOtherErrors", normalizeErrors(backendErrors));
         return "redirect:/main";
     }
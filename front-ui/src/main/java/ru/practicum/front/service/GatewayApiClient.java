@@ -1,21 +1,33 @@
 package ru.practicum.front.service;
 
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
 import ru.practicum.front.service.dto.AccountResponse;
 import ru.practicum.front.service.dto.AccountDetailsResponse;
+import ru.practicum.front.service.dto.AccountPageResponse;
 import ru.practicum.front.service.dto.BankAccountResponse;
+import ru.practicum.front.service.dto.DashboardData;
 import ru.practicum.front.service.dto.RateResponse;
+import ru.practicum.http.PooledHttpClientFactory;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Supplier;
 
 /**
@@ -25,10 +37,50 @@ import java.util.function.Supplier;
 @Slf4j
 public class GatewayApiClient {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final RestClient client;
+    private final boolean parallelDashboard;
+    private final Duration dashboardCallTimeout;
+    private final ExecutorService dashboardExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public GatewayApiClient(@Value("${app.gateway-base-url}") String gatewayBaseUrl,
+                            @Value("${app.dashboard.parallel:true}") boolean parallelDashboard,
+                            @Value("${app.dashboard.call-timeout:3s}") Duration dashboardCallTimeout,
+                            PooledHttpClientFactory httpClients) {
+        this.client = RestClient.builder()
+                .requestFactory(httpClients.requestFactory("gateway"))
+                .baseUrl(gatewayBaseUrl)
+                .build();
+        this.parallelDashboard = parallelDashboard;
+        this.dashboardCallTimeout = dashboardCallTimeout;
+    }
+
+    /**
+     * Собирает данные главной страницы. В параллельном режиме независимые вызовы
+     * идут одновременно на виртуальных потоках, и страница ждёт только самый медленный
+     * из них, но не дольше таймаута на вызов: после него подставляется fallback, а поток вызова
+     * прерывается, что закрывает его соединение и возвращает место в пуле.
+     */
+    public DashboardData getDashboard(String login, String bearer) {
+        if (!parallelDashboard) {
+            return new DashboardData(
+                    getUserProfile(login, bearer),
+                    getUserAccounts(login, bearer),
+                    getRates(bearer)
+            );
+        }
 
-    public GatewayApiClient(@Value("${app.gateway-base-url}") String gatewayBaseUrl) {
-        this.client = RestClient.builder().baseUrl(gatewayBaseUrl).build();
+        long deadline = System.nanoTime() + dashboardCallTimeout.toNanos();
+        Future<AccountResponse> profile = dashboardExecutor.submit(() -> getUserProfile(login, bearer));
+        Future<List<BankAccountResponse>> accounts = dashboardExecutor.submit(() -> getUserAccounts(login, bearer));
+        Future<List<RateResponse>> rates = dashboardExecutor.submit(() -> getRates(bearer));
+
+        return new DashboardData(
+                await(profile, deadline, profileFallback(login), "getUserProfile"),
+                await(accounts, deadline, List.of(), "getUserAccounts"),
+                await(rates, deadline, List.of(), "getRates")
+        );
     }
 
     public AccountResponse getUserProfile(String login, String bearer) {
@@ -38,23 +90,29 @@ public class GatewayApiClient {
                         .header("Authorization", "Bearer " + bearer)
                         .retrieve()
                         .body(AccountResponse.class),
-                new AccountResponse(login, login, LocalDate.now().minusYears(18)),
+                profileFallback(login),
                 "getUserProfile"
         );
     }
 
-    public List<AccountResponse> getAllUsers(String bearer) {
+    /**
+     * Поиск получателей перевода по началу логина или имени (первая страница справочника).
+     */
+    public List<AccountResponse> searchUsers(String query, int limit, String bearer) {
         return safeCall(
                 () -> {
-                    AccountResponse[] response = client.get()
-                            .uri("/api/accounts/users")
+                    AccountPageResponse page = client.get()
+                            .uri(uri -> uri.path("/api/accounts/directory")
+                                    .queryParam("q", query)
+                                    .queryParam("limit", limit)
+                                    .build())
                             .header("Authorization", "Bearer " + bearer)
                             .retrieve()
-                            .body(AccountResponse[].class);
-                    return response == null ? List.of() : List.of(response);
+                            .body(AccountPageResponse.class);
+                    return page == null || page.items() == null ? List.of() : page.items();
                 },
                 List.of(),
-                "getAllUsers"
+                "searchUsers"
         );
     }
 
@@ -114,13 +172,17 @@ public class GatewayApiClient {
         );
     }
 
-    public List<String> cash(String login, String action, String amount, String bearer) {
+    /**
+     * @param idempotencyKey ключ формы; повторная отправка той же формы не выполнит операцию второй раз
+     */
+    public List<String> cash(String login, String action, String amount, String idempotencyKey, String bearer) {
         var payload = Map.of("login", login, "action", action, "value", amount);
         return safeCall(
                 () -> client.post()
                         .uri("/api/cash/operations")
                         .contentType(MediaType.APPLICATION_JSON)
                         .header("Authorization", "Bearer " + bearer)
+                        .headers(headers -> setIdempotencyKey(headers, idempotencyKey))
                         .body(payload)
                         .retrieve()
                         .body(List.class),
@@ -129,13 +191,17 @@ public class GatewayApiClient {
         );
     }
 
-    public List<String> transfer(String fromLogin, String toLogin, String amount, String bearer) {
+    /**
+     * @param idempotencyKey ключ формы; повторная отправка той же формы не выполнит перевод второй раз
+     */
+    public List<String> transfer(String fromLogin, String toLogin, String amount, String idempotencyKey, String bearer) {
         var payload = Map.of("from_login", fromLogin, "to_login", toLogin, "value", amount);
         return safeCall(
                 () -> client.post()
                         .uri("/api/transfer/transactions")
                         .contentType(MediaType.APPLICATION_JSON)
                         .header("Authorization", "Bearer " + bearer)
+                        .headers(headers -> setIdempotencyKey(headers, idempotencyKey))
                         .body(payload)
                         .retrieve()
                         .body(List.class),
@@ -174,6 +240,21 @@ public class GatewayApiClient {
         );
     }
 
+    @PreDestroy
+    void shutdown() {
+        dashboardExecutor.shutdownNow();
+    }
+
+    private AccountResponse profileFallback(String login) {
+        return new AccountResponse(login, login, LocalDate.now().minusYears(18));
+    }
+
+    private static void setIdempotencyKey(HttpHeaders headers, String idempotencyKey) {
+        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+            headers.set(IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+        }
+    }
+
     private <T> T safeCall(Supplier<T> call, T fallback, String operation) {
         try {
             return call.get();
@@ -182,4 +263,23 @@ public class GatewayApiClient {
             return fallback;
         }
     }
+
+    private <T> T await(Future<T> future, long deadline, T fallback, String operation) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            log.warn("Gateway call '{}' timed out after {} ms", operation, dashboardCallTimeout.toMillis());
+            return fallback;
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading dashboard", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Gateway call '%s' failed".formatted(operation), ex.getCause());
+        }
+    }
 }
@@ -0,0 +1,12 @@
+package ru.practicum.front.service.dto;
+
+import java.util.List;
+
+/**
+ * Страница справочника пользователей из API аккаунтов.
+ */
+public record AccountPageResponse(
+        List<AccountResponse> items,
+        String nextCursor
+) {
+}
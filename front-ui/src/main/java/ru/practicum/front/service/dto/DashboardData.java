@@ -0,0 +1,12 @@
+package ru.practicum.front.service.dto;
+
+import java.util.List;
+
+/**
+ * Данные главной страницы, собранные из нескольких вызовов gateway.
+ */
+public record DashboardData(
+        AccountResponse profile,
+        List<BankAccountResponse> bankAccounts,
+        List<RateResponse> rates
+) { }
@@ -0,0 +1,117 @@
+package ru.practicum.front.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.front.service.dto.DashboardData;
+import ru.practicum.http.PooledHttpClientFactory;
+import ru.practicum.http.PooledHttpClientProperties;
+
+class GatewayApiClientTest {
+
+    private static final long CALL_DELAY_MS = 300;
+
+    private HttpServer server;
+    private String baseUrl;
+    private PooledHttpClientFactory httpClients;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        Map<String, String> responses = Map.of(
+                "/api/accounts/users/alice", "{\"login\":\"alice\",\"name\":\"Alice\",\"birthdate\":\"1990-01-01\"}",
+                "/api/accounts/directory", "{\"items\":[{\"login\":\"bob\",\"name\":\"Bob\",\"birthdate\":\"1991-01-01\"}],\"nextCursor\":null}",
+                "/api/accounts/internal/users/alice", "{\"login\":\"alice\",\"currency\":\"RUB\",\"balance\":10}",
+                "/api/accounts/internal/users/alice/accounts", "[{\"accountNumber\":\"4080\",\"currency\":\"RUB\",\"balance\":10}]"
+        );
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            if (path.equals("/api/exchange/rates")) {
+                sleep(CALL_DELAY_MS * 6);
+            } else {
+                sleep(CALL_DELAY_MS);
+            }
+            byte[] body = responses.getOrDefault(path, "[]").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+        meterRegistry = new SimpleMeterRegistry();
+        httpClients = new PooledHttpClientFactory(new PooledHttpClientProperties(), meterRegistry);
+    }
+
+    @AfterEach
+    void stopServer() {
+        httpClients.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    void parallelDashboardWaitsForSlowestCallOnly() {
+        var client = new GatewayApiClient(baseUrl, true, Duration.ofMillis(CALL_DELAY_MS * 4), httpClients);
+
+        long started = System.nanoTime();
+        DashboardData dashboard = client.getDashboard("alice", "token");
+        long elapsedMs = Duration.ofNanos(System.nanoTime() - started).toMillis();
+
+        assertThat(dashboard.profile().name()).isEqualTo("Alice");
+        assertThat(dashboard.bankAccounts()).hasSize(1);
+        assertThat(dashboard.rates()).as("rates call exceeded its deadline").isEmpty();
+        assertThat(elapsedMs).isLessThan(CALL_DELAY_MS * 8);
+    }
+
+    @Test
+    void timedOutCallReleasesItsConnection() throws InterruptedException {
+        var client = new GatewayApiClient(baseUrl, true, Duration.ofMillis(CALL_DELAY_MS * 2), httpClients);
+
+        DashboardData dashboard = client.getDashboard("alice", "token");
+        Thread.sleep(CALL_DELAY_MS);
+
+        assertThat(dashboard.rates()).isEmpty();
+        assertThat(meterRegistry.get("httpcomponents.httpclient.pool.total.connections")
+                .tag("httpclient", "gateway").tag("state", "leased").gauge().value())
+                .as("rates call still holds a pooled connection").isZero();
+    }
+
+    @Test
+    void sequentialDashboardReturnsSameData() {
+        var client = new GatewayApiClient(baseUrl, false, Duration.ofSeconds(5), httpClients);
+
+        DashboardData dashboard = client.getDashboard("alice", "token");
+
+        assertThat(dashboard.profile().login()).isEqualTo("alice");
+        assertThat(dashboard.bankAccounts()).hasSize(1);
+    }
+
+    @Test
+    void searchUsersReadsFirstDirectoryPage() {
+        var client = new GatewayApiClient(baseUrl, true, Duration.ofSeconds(5), httpClients);
+
+        var users = client.searchUsers("bo", 10, "token");
+
+        assertThat(users).extracting("login").containsExactly("bob");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package ru.practicum.http;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Регистрирует общую фабрику пулов HTTP-соединений в каждом сервисе, подключившем модуль.
+ */
+@AutoConfiguration
+@EnableConfigurationProperties(PooledHttpClientProperties.class)
+public class PooledHttpClientAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public PooledHttpClientFactory pooledHttpClientFactory(PooledHttpClientProperties properties,
+                                                           ObjectProvider<MeterRegistry> meterRegistry) {
+        return new PooledHttpClientFactory(properties, meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+}
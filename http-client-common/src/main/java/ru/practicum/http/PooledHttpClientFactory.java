@@ -0,0 +1,114 @@
+package ru.practicum.http;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Выдаёт {@link ClientHttpRequestFactory} на пуле keep-alive соединений (HTTP/1.1, Apache HttpClient 5).
+ * Для каждой цели создаётся свой пул со своим размером, фоновым вытеснением простаивающих
+ * соединений и метриками: занятые/свободные/ожидающие соединения
+ * ({@code httpcomponents.httpclient.pool.*}) и время ожидания соединения
+ * ({@code httpcomponents.httpclient.pool.lease}). Тег {@code httpclient} содержит имя цели.
+ * Повторный запрос той же цели возвращает уже созданный пул; запрос той же цели с другими
+ * таймаутами считается ошибкой конфигурации и завершается {@link IllegalStateException}.
+ */
+@Slf4j
+public class PooledHttpClientFactory implements DisposableBean {
+
+    private final PooledHttpClientProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, PooledTarget> targets = new ConcurrentHashMap<>();
+
+    public PooledHttpClientFactory(PooledHttpClientProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public ClientHttpRequestFactory requestFactory(String target) {
+        return requestFactory(target, properties.getConnectTimeout(), properties.getReadTimeout());
+    }
+
+    public ClientHttpRequestFactory requestFactory(String target, Duration connectTimeout, Duration readTimeout) {
+        PooledTarget pooled = targets.computeIfAbsent(target, name -> create(name, connectTimeout, readTimeout));
+        if (!pooled.connectTimeout().equals(connectTimeout) || !pooled.readTimeout().equals(readTimeout)) {
+            throw new IllegalStateException("HTTP client pool '%s' is already registered with connect timeout %s and read timeout %s, requested %s and %s"
+                    .formatted(target, pooled.connectTimeout(), pooled.readTimeout(), connectTimeout, readTimeout));
+        }
+        return pooled.requestFactory();
+    }
+
+    @Override
+    public void destroy() {
+        targets.forEach((name, pooled) -> {
+            try {
+                pooled.client().close();
+            } catch (IOException ex) {
+                log.warn("Failed to close HTTP client pool '{}': {}", name, ex.getMessage());
+            }
+        });
+        targets.clear();
+    }
+
+    private PooledTarget create(String name, Duration connectTimeout, Duration readTimeout) {
+        int maxConnections = properties.maxConnectionsFor(name);
+        Timer leaseTimer = Timer.builder("httpcomponents.httpclient.pool.lease")
+                .description("Time spent waiting for a pooled connection")
+                .tag("httpclient", name)
+                .register(meterRegistry);
+
+        var connectionManager = new TimedPoolingConnectionManager(leaseTimer);
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(timeout(connectTimeout))
+                .setSocketTimeout(timeout(readTimeout))
+                .setTimeToLive(timeValue(properties.getTimeToLive()))
+                .setValidateAfterInactivity(timeValue(properties.getValidateAfterInactivity()))
+                .build());
+
+        CloseableHttpClient client = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(timeout(properties.getLeaseTimeout()))
+                        .setResponseTimeout(timeout(readTimeout))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(timeValue(properties.getIdleTimeout()))
+                .build();
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, name, Tags.empty())
+                .bindTo(meterRegistry);
+        log.info("Created HTTP connection pool '{}' (max {} connections)", name, maxConnections);
+        return new PooledTarget(client, new HttpComponentsClientHttpRequestFactory(client), connectTimeout, readTimeout);
+    }
+
+    private static Timeout timeout(Duration duration) {
+        return Timeout.ofMilliseconds(duration.toMillis());
+    }
+
+    private static TimeValue timeValue(Duration duration) {
+        return TimeValue.ofMilliseconds(duration.toMillis());
+    }
+
+    private record PooledTarget(CloseableHttpClient client,
+                                ClientHttpRequestFactory requestFactory,
+                                Duration connectTimeout,
+                                Duration readTimeout) { }
+}
@@ -0,0 +1,67 @@
+package ru.practicum.http;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Настройки пула HTTP-соединений для межсервисных клиентов.
+ * Значения верхнего уровня действуют для всех целей, в {@code targets} можно
+ * переопределить размер пула для конкретного клиента (accounts, notifications, ...).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.http-client")
+public class PooledHttpClientProperties {
+
+    /**
+     * Максимум соединений в пуле одной цели.
+     */
+    private int maxConnections = 50;
+
+    /**
+     * Сколько ждать свободное соединение из пула.
+     */
+    private Duration leaseTimeout = Duration.ofSeconds(1);
+
+    /**
+     * Таймауты по умолчанию для клиентов, которые не задают свои.
+     */
+    private Duration connectTimeout = Duration.ofMillis(500);
+    private Duration readTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Простаивающие дольше соединения закрываются фоновым вытеснителем.
+     */
+    private Duration idleTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Максимальное время жизни keep-alive соединения.
+     */
+    private Duration timeToLive = Duration.ofMinutes(5);
+
+    /**
+     * Соединение, простоявшее дольше, проверяется перед повторным использованием.
+     */
+    private Duration validateAfterInactivity = Duration.ofSeconds(2);
+
+    private Map<String, Target> targets = new HashMap<>();
+
+    public int maxConnectionsFor(String target) {
+        Target settings = targets.get(target);
+        if (settings == null || settings.getMaxConnections() == null) {
+            return maxConnections;
+        }
+        return settings.getMaxConnections();
+    }
+
+    @Getter
+    @Setter
+    public static class Target {
+        private Integer maxConnections;
+    }
+}
@@ -0,0 +1,46 @@
+package ru.practicum.http;
+
+import io.micrometer.core.instrument.Timer;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.core5.util.Timeout;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Пул соединений, который замеряет время ожидания свободного соединения.
+ */
+class TimedPoolingConnectionManager extends PoolingHttpClientConnectionManager {
+
+    private final Timer leaseTimer;
+
+    TimedPoolingConnectionManager(Timer leaseTimer) {
+        this.leaseTimer = leaseTimer;
+    }
+
+    @Override
+    public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+        LeaseRequest delegate = super.lease(id, route, requestTimeout, state);
+        return new LeaseRequest() {
+            @Override
+            public ConnectionEndpoint get(Timeout timeout)
+                    throws InterruptedException, ExecutionException, TimeoutException {
+                long started = System.nanoTime();
+                try {
+                    return delegate.get(timeout);
+                } finally {
+                    leaseTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return delegate.cancel();
+            }
+        };
+    }
+}
@@ -0,0 +1,97 @@
+package ru.practicum.http;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PooledHttpClientFactoryTest {
+
+    private HttpServer server;
+    private String baseUrl;
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PooledHttpClientFactory factory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/ping", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            byte[] body = "pong".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+
+        var properties = new PooledHttpClientProperties();
+        var target = new PooledHttpClientProperties.Target();
+        target.setMaxConnections(7);
+        properties.getTargets().put("accounts", target);
+        factory = new PooledHttpClientFactory(properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        factory.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    void reusesKeepAliveConnectionAcrossCalls() {
+        var client = RestClient.builder()
+                .requestFactory(factory.requestFactory("accounts", Duration.ofMillis(500), Duration.ofSeconds(1)))
+                .baseUrl(baseUrl)
+                .build();
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(client.get().uri("/ping").retrieve().body(String.class)).isEqualTo("pong");
+        }
+
+        assertThat(clientPorts).hasSize(1);
+        assertThat(meterRegistry.get("httpcomponents.httpclient.pool.lease")
+                .tag("httpclient", "accounts").timer().count()).isEqualTo(5);
+    }
+
+    @Test
+    void appliesPerTargetPoolSizeAndExposesPoolMetrics() {
+        factory.requestFactory("accounts");
+        factory.requestFactory("notifications");
+
+        assertThat(meterRegistry.get("httpcomponents.httpclient.pool.total.max")
+                .tag("httpclient", "accounts").gauge().value()).isEqualTo(7);
+        assertThat(meterRegistry.get("httpcomponents.httpclient.pool.total.max")
+                .tag("httpclient", "notifications").gauge().value()).isEqualTo(50);
+        assertThat(meterRegistry.get("httpcomponents.httpclient.pool.total.pending")
+                .tag("httpclient", "accounts").gauge().value()).isZero();
+    }
+
+    @Test
+    void returnsSameFactoryForSameTarget() {
+        assertThat(factory.requestFactory("blocker")).isSameAs(factory.requestFactory("blocker"));
+    }
+
+    @Test
+    void rejectsSameTargetWithDifferentTimeouts() {
+        factory.requestFactory("blocker", Duration.ofMillis(500), Duration.ofSeconds(1));
+
+        assertThat(factory.requestFactory("blocker", Duration.ofMillis(500), Duration.ofSeconds(1))).isNotNull();
+        assertThatThrownBy(() -> factory.requestFactory("blocker", Duration.ofMillis(500), Duration.ofSeconds(5)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("blocker");
+    }
+}
@@ -0,0 +1,24 @@
+package ru.practicum.idempotency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+import java.time.Duration;
+
+/**
+ * Регистрирует {@link IdempotencyCache}; срок жизни и предел записей задаются в {@code app.idempotency}.
+ */
+@AutoConfiguration
+public class IdempotencyAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public IdempotencyCache idempotencyCache(MeterRegistry meterRegistry,
+                                             @Value("${app.idempotency.ttl:10m}") Duration ttl,
+                                             @Value("${app.idempotency.max-entries:10000}") int maxEntries) {
+        return new IdempotencyCache(meterRegistry, ttl, maxEntries);
+    }
+}
@@ -0,0 +1,134 @@
+package ru.practicum.idempotency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Ответы на недавние запросы с ключом идемпотентности, в памяти процесса.
+ * Повтор с тем же ключом получает сохранённый ответ без обращения к БД и другим сервисам,
+ * одновременный повтор дожидается ответа первого запроса. Вместе с ответом хранится отпечаток запроса:
+ * запрос с тем же ключом, но другими параметрами получает {@link KeyReusedException}.
+ * <p>
+ * Запрос, завершившийся исключением, не запоминается; ответ, итог которого ещё не известен,
+ * вызывающий убирает через {@link #evict}. Записи живут {@code ttl}; сверх {@code max-entries}
+ * ответы не запоминаются, повторы тогда отвечаются по уникальному индексу в БД.
+ */
+public class IdempotencyCache {
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Clock clock;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final AtomicLong nextSweepAt = new AtomicLong();
+    private final Counter replays;
+
+    public IdempotencyCache(MeterRegistry meterRegistry, Duration ttl, int maxEntries) {
+        this(meterRegistry, ttl, maxEntries, Clock.systemUTC());
+    }
+
+    // Package-private for tests
+    IdempotencyCache(MeterRegistry meterRegistry, Duration ttl, int maxEntries, Clock clock) {
+        this.clock = clock;
+        this.ttlMillis = ttl.toMillis();
+        this.maxEntries = maxEntries;
+        this.replays = Counter.builder("idempotency.replays").tag("source", "memory").register(meterRegistry);
+    }
+
+    /**
+     * Возвращает запомненный ответ для {@code key} или выполняет {@code action} и запоминает его ответ.
+     *
+     * @param fingerprint параметры запроса, которые должны совпасть у повтора
+     * @throws KeyReusedException если ключ уже использован запросом с другим отпечатком
+     */
+    public List<String> execute(String key, String fingerprint, Supplier<List<String>> action) {
+        long now = clock.millis();
+        sweep(now);
+        var mine = new Entry(fingerprint);
+        Entry existing = entries.putIfAbsent(key, mine);
+        if (existing != null && existing.isExpired(now) && entries.replace(key, existing, mine)) {
+            existing = null;
+        }
+        if (existing != null) {
+            if (!existing.fingerprint.equals(fingerprint)) {
+                throw new KeyReusedException(key);
+            }
+            replays.increment();
+            return await(existing);
+        }
+        if (entries.size() > maxEntries) {
+            entries.remove(key, mine);
+        }
+        try {
+            List<String> result = action.get();
+            mine.expiresAt = clock.millis() + ttlMillis;
+            mine.result.complete(result);
+            return result;
+        } catch (RuntimeException ex) {
+            entries.remove(key, mine);
+            mine.result.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Забывает ответ для {@code key}: следующий повтор снова выполнит запрос и прочитает итог из БД.
+     */
+    public void evict(String key) {
+        entries.computeIfPresent(key, (k, entry) -> entry.result.isDone() ? null : entry);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void sweep(long now) {
+        long due = nextSweepAt.get();
+        if (now >= due && nextSweepAt.compareAndSet(due, now + ttlMillis)) {
+            entries.values().removeIf(entry -> entry.isExpired(now));
+        }
+    }
+
+    private static List<String> await(Entry entry) {
+        try {
+            return entry.result.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private static final class Entry {
+        private final String fingerprint;
+        private final CompletableFuture<List<String>> result = new CompletableFuture<>();
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        private Entry(String fingerprint) {
+            this.fingerprint = Objects.requireNonNull(fingerprint);
+        }
+
+        private boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+    }
+
+    /**
+     * Ключ идемпотентности повторно использован для запроса с другими параметрами.
+     */
+    public static class KeyReusedException extends RuntimeException {
+        public KeyReusedException(String key) {
+            super("Idempotency-Key '%s' уже использован для другого запроса".formatted(key));
+        }
+    }
+}
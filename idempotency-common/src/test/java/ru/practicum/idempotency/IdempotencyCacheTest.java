@@ -0,0 +1,145 @@
+package ru.practicum.idempotency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyCacheTest {
+
+    private static final String FINGERPRINT = "bob|10.00";
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-05-01T10:00:00Z"));
+    private final IdempotencyCache cache = new IdempotencyCache(new SimpleMeterRegistry(), Duration.ofMinutes(10), 100, clock);
+
+    @Test
+    void returnsStoredResultForSameKey() {
+        var calls = new AtomicInteger();
+
+        var first = cache.execute("alice:1", FINGERPRINT, () -> List.of("error " + calls.incrementAndGet()));
+        var second = cache.execute("alice:1", FINGERPRINT, () -> List.of("error " + calls.incrementAndGet()));
+
+        assertThat(first).containsExactly("error 1");
+        assertThat(second).isEqualTo(first);
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void concurrentDuplicateWaitsForFirstRequest() throws Exception {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var calls = new AtomicInteger();
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var first = executor.submit(() -> cache.execute("alice:1", FINGERPRINT, () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                await(release);
+                return List.<String>of();
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            var duplicate = executor.submit(() -> cache.execute("alice:1", FINGERPRINT, () -> {
+                calls.incrementAndGet();
+                return List.of("duplicate executed");
+            }));
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEmpty();
+            assertThat(duplicate.get(5, TimeUnit.SECONDS)).isEmpty();
+        }
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void rejectsSameKeyWithDifferentRequest() {
+        var calls = new AtomicInteger();
+        cache.execute("alice:1", FINGERPRINT, () -> List.of("error " + calls.incrementAndGet()));
+
+        assertThatThrownBy(() -> cache.execute("alice:1", "bob|99.00", () -> List.of("error " + calls.incrementAndGet())))
+                .isInstanceOf(IdempotencyCache.KeyReusedException.class);
+        assertThat(cache.execute("alice:1", FINGERPRINT, List::of)).containsExactly("error 1");
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void evictedResultIsExecutedAgain() {
+        var calls = new AtomicInteger();
+        cache.execute("alice:1", FINGERPRINT, () -> List.of("accepted " + calls.incrementAndGet()));
+
+        cache.evict("alice:1");
+
+        assertThat(cache.execute("alice:1", FINGERPRINT, () -> List.of("done " + calls.incrementAndGet())))
+                .containsExactly("done 2");
+    }
+
+    @Test
+    void failedRequestIsNotRemembered() {
+        assertThatThrownBy(() -> cache.execute("alice:1", FINGERPRINT, () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(cache.execute("alice:1", FINGERPRINT, List::of)).isEmpty();
+    }
+
+    @Test
+    void expiredEntriesAreExecutedAgainAndSwept() {
+        var calls = new AtomicInteger();
+        cache.execute("alice:1", FINGERPRINT, () -> List.of(String.valueOf(calls.incrementAndGet())));
+
+        clock.advance(Duration.ofMinutes(11));
+        var result = cache.execute("alice:1", FINGERPRINT, () -> List.of(String.valueOf(calls.incrementAndGet())));
+        cache.execute("bob:1", FINGERPRINT, List::of);
+
+        assertThat(result).containsExactly("2");
+        clock.advance(Duration.ofMinutes(11));
+        cache.execute("carol:1", FINGERPRINT, List::of);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
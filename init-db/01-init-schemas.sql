@@ -35,6 +35,10 @@ CREATE TABLE accounts.users (
                                 birthdate  DATE         NOT NULL,
                                 kc_id      VARCHAR(255),                      -- sub/id в Keycloak (опц.)
                                 active     BOOLEAN      NOT NULL DEFAULT TRUE,
+                                kc_status  VARCHAR(20)  NOT NULL DEFAULT 'PROVISIONED', -- PENDING|PROVISIONED|FAILED
+                                kc_attempts INT         NOT NULL DEFAULT 0,
+                                kc_next_attempt_at TIMESTAMPTZ,                -- когда повторить создание в Keycloak
+                                kc_credential VARCHAR(512),                    -- хэш пароля до создания в Keycloak
                                 created_at TIMESTAMPTZ  NOT NULL DEFAULT now(),
                                 updated_at TIMESTAMPTZ  NOT NULL DEFAULT now()
 );
@@ -57,6 +61,17 @@ CREATE TABLE accounts.bank_accounts (
 );
 
 CREATE INDEX idx_bank_accounts_user_id ON accounts.bank_accounts(user_id);
+-- Справочник пользователей: keyset-пагинация по login (uq-индекс) и поиск по префиксу login/name
+CREATE INDEX idx_users_login_prefix ON accounts.users(login varchar_pattern_ops);
+CREATE INDEX idx_users_name_prefix  ON accounts.users(lower(name) varchar_pattern_ops);
+-- Очередь фонового создания пользователей в Keycloak
+CREATE INDEX idx_users_kc_status_next ON accounts.users(kc_status, kc_next_attempt_at);
+
+-- Применённые переводы: повтор перевода с тем же transfer_id не меняет балансы
+CREATE TABLE accounts.applied_transfers (
+                                            transfer_id UUID PRIMARY KEY,
+                                            created_at  TIMESTAMPTZ NOT NULL DEFAULT now()
+);
 
 -- ==========================================
 -- 3) EXCHANGE
@@ -73,6 +88,19 @@ CREATE TABLE exchange.currency_rates (
                                          CONSTRAINT chk_rate_positive     CHECK (rate > 0)
 );
 
+-- Актуальные курсы exchange-service (одна строка на валютную пару, upsert по uq_exchange_rates_pair;
+-- на уже существующих базах без индекса дубликаты чистит и индекс создаёт ExchangeRatePairMigration;
+-- более старый курс не перезаписывает более новый)
+CREATE TABLE exchange.exchange_rates (
+                                         id             BIGSERIAL PRIMARY KEY,
+                                         base_currency  VARCHAR(255)  NOT NULL,
+                                         currency       VARCHAR(255)  NOT NULL,
+                                         buy_rate       NUMERIC(20,4) NOT NULL,
+                                         sell_rate      NUMERIC(20,4) NOT NULL,
+                                         updated_at     TIMESTAMPTZ   NOT NULL,
+                                         CONSTRAINT uq_exchange_rates_pair UNIQUE (base_currency, currency)
+);
+
 -- ==========================================
 -- 4) TRANSFER
 -- ==========================================
@@ -82,8 +110,13 @@ CREATE TABLE transfer.transactions (
                                        to_account_id    UUID        NOT NULL,
                                        amount           NUMERIC(19,4) NOT NULL,
                                        currency         VARCHAR(3)  NOT NULL,
+                                       from_login       VARCHAR(50),           -- для уведомлений при довыполнении
+                                       to_login         VARCHAR(50),
                                        status           VARCHAR(20) NOT NULL DEFAULT 'PENDING',  -- PENDING|DONE|FAILED
-                                       idempotency_key  VARCHAR(100) NOT NULL,
+                                       idempotency_key  VARCHAR(128) NOT NULL,  -- <логин>:<Idempotency-Key> или случайный UUID
+                                       attempts         INT         NOT NULL DEFAULT 0,   -- попытки TransferRecoveryWorker
+                                       next_attempt_at  TIMESTAMPTZ,                      -- когда довыполнить PENDING
+                                       version          BIGINT      NOT NULL DEFAULT 0,   -- оптимистическая блокировка
                                        created_at       TIMESTAMPTZ NOT NULL DEFAULT now(),
                                        updated_at       TIMESTAMPTZ NOT NULL DEFAULT now(),
                                        CONSTRAINT chk_transfer_amount    CHECK (amount > 0),
@@ -93,6 +126,49 @@ CREATE TABLE transfer.transactions (
 
 CREATE INDEX idx_transactions_from_account ON transfer.transactions(from_account_id);
 CREATE INDEX idx_transactions_to_account   ON transfer.transactions(to_account_id);
+-- Очередь довыполнения застрявших переводов
+CREATE INDEX idx_transactions_status_next_attempt ON transfer.transactions(status, next_attempt_at);
+
+-- Пачки переводов (POST /api/transfer/batches), выполняет TransferBatchWorker
+CREATE TABLE transfer.transfer_batches (
+                                            id              UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+                                            from_login      VARCHAR(50) NOT NULL,
+                                            status          VARCHAR(20) NOT NULL DEFAULT 'QUEUED',  -- QUEUED|RUNNING|DONE
+                                            total           INT         NOT NULL,
+                                            next_attempt_at TIMESTAMPTZ,                           -- очередь и аренда обработки
+                                            version         BIGINT      NOT NULL DEFAULT 0,
+                                            created_at      TIMESTAMPTZ NOT NULL DEFAULT now(),
+                                            updated_at      TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE INDEX idx_transfer_batches_status_next_attempt ON transfer.transfer_batches(status, next_attempt_at);
+
+CREATE TABLE transfer.transfer_batch_items (
+                                                id        UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+                                                batch_id  UUID          NOT NULL REFERENCES transfer.transfer_batches(id) ON DELETE CASCADE,
+                                                position  INT           NOT NULL,
+                                                to_login  VARCHAR(50)   NOT NULL,
+                                                amount    NUMERIC(19,4) NOT NULL,
+                                                status    VARCHAR(20)   NOT NULL DEFAULT 'QUEUED',  -- QUEUED|DONE|FAILED|ACCEPTED
+                                                message   VARCHAR(255),
+                                                CONSTRAINT uq_transfer_batch_items_position UNIQUE (batch_id, position)
+);
+
+-- Outbox уведомлений: пишется в транзакции операции, отправляется фоновым диспетчером
+CREATE TABLE transfer.notification_outbox (
+                                               id          UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+                                               event_type  VARCHAR(50) NOT NULL,
+                                               recipient   VARCHAR(50) NOT NULL,
+                                               message     TEXT        NOT NULL,
+                                               status      VARCHAR(20) NOT NULL DEFAULT 'PENDING',  -- PENDING|SENT|FAILED
+                                               attempts    INT         NOT NULL DEFAULT 0,
+                                               created_at  TIMESTAMPTZ NOT NULL DEFAULT now(),
+                                               sent_at     TIMESTAMPTZ,
+                                               next_attempt_at TIMESTAMPTZ DEFAULT now(),  -- аренда диспетчера или срок следующей попытки
+                                               last_error  TEXT  -- причины отказа сервиса уведомлений
+);
+
+CREATE INDEX idx_notification_outbox_status_next_attempt ON transfer.notification_outbox(status, next_attempt_at);
 
 -- ==========================================
 -- 5) CASH
@@ -104,7 +180,7 @@ CREATE TABLE cash.operations (
                                  amount           NUMERIC(19,4) NOT NULL,
                                  currency         VARCHAR(3)  NOT NULL,
                                  status           VARCHAR(20) NOT NULL DEFAULT 'PENDING',  -- PENDING|DONE|FAILED
-                                 idempotency_key  VARCHAR(100) NOT NULL,
+                                 idempotency_key  VARCHAR(128) NOT NULL,  -- <логин>:<Idempotency-Key> или случайный UUID
                                  created_at       TIMESTAMPTZ NOT NULL DEFAULT now(),
                                  CONSTRAINT chk_cash_amount     CHECK (amount > 0),
                                  CONSTRAINT chk_cash_currency3  CHECK (char_length(currency) = 3),
@@ -113,6 +189,22 @@ CREATE TABLE cash.operations (
 
 CREATE INDEX idx_operations_account ON cash.operations(account_id);
 
+-- Outbox уведомлений: пишется в транзакции операции, отправляется фоновым диспетчером
+CREATE TABLE cash.notification_outbox (
+                                           id          UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+                                           event_type  VARCHAR(50) NOT NULL,
+                                           recipient   VARCHAR(50) NOT NULL,
+                                           message     TEXT        NOT NULL,
+                                           status      VARCHAR(20) NOT NULL DEFAULT 'PENDING',  -- PENDING|SENT|FAILED
+                                           attempts    INT         NOT NULL DEFAULT 0,
+                                           created_at  TIMESTAMPTZ NOT NULL DEFAULT now(),
+                                           sent_at     TIMESTAMPTZ,
+                                           next_attempt_at TIMESTAMPTZ DEFAULT now(),  -- аренда диспетчера или срок следующей попытки
+                                           last_error  TEXT  -- причины отказа сервиса уведомлений
+);
+
+CREATE INDEX idx_notification_outbox_status_next_attempt ON cash.notification_outbox(status, next_attempt_at);
+
 -- ==========================================
 -- 6) BLOCKER
 -- ==========================================
@@ -130,7 +222,7 @@ CREATE TABLE blocker.suspicious_operations (
 -- ==========================================
 CREATE TABLE notifications.messages (
                                         id          UUID PRIMARY KEY DEFAULT gen_random_uuid(),
-                                        user_id     UUID        NOT NULL,         -- без FK на accounts (граница микросервиса)
+                                        recipient   VARCHAR(50) NOT NULL,         -- логин получателя, без FK на accounts (граница микросервиса)
                                         type        VARCHAR(50) NOT NULL,         -- CASH_IN|CASH_OUT|TRANSFER_IN|TRANSFER_OUT|...
                                         title       VARCHAR(255) NOT NULL,
                                         content     TEXT        NOT NULL,
@@ -139,7 +231,8 @@ CREATE TABLE notifications.messages (
                                         sent_at     TIMESTAMPTZ
 );
 
-CREATE INDEX idx_messages_user ON notifications.messages(user_id);
+-- Keyset-пагинация сообщений пользователя: WHERE recipient = ? AND (created_at, id) < (?, ?) ORDER BY created_at DESC, id DESC
+CREATE INDEX idx_messages_user ON notifications.messages(recipient, created_at, id);
 
 -- ==========================================
 -- 8) Начальные курсы валют
@@ -0,0 +1,85 @@
+package ru.practicum.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Результаты одного сценария: гистограмма задержек и счётчики исходов.
+ * Задержка считается от запланированного момента отправки, а не от фактического,
+ * поэтому очередь перед перегруженной системой тоже попадает в замер (без coordinated omission).
+ */
+class EndpointStats {
+
+    private static final long MAX_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final String name;
+    private final Recorder recorder = new Recorder(MAX_TRACKABLE_NANOS, 3);
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    String name() {
+        return name;
+    }
+
+    /**
+     * 2xx с пустым списком ошибок — успех, 2xx с ошибками (блокировка, нехватка средств) — бизнес-отказ.
+     */
+    void recordResponse(long latencyNanos, int status, boolean businessErrors) {
+        recorder.recordValue(Math.min(latencyNanos, MAX_TRACKABLE_NANOS));
+        if (status / 100 != 2) {
+            failed.increment();
+        } else if (businessErrors) {
+            rejected.increment();
+        } else {
+            succeeded.increment();
+        }
+    }
+
+    void recordFailure(long latencyNanos) {
+        recorder.recordValue(Math.min(latencyNanos, MAX_TRACKABLE_NANOS));
+        failed.increment();
+    }
+
+    void recordDropped() {
+        dropped.increment();
+    }
+
+    Snapshot snapshot(double seconds) {
+        Histogram histogram = recorder.getIntervalHistogram();
+        return new Snapshot(name, succeeded.sum(), rejected.sum(), failed.sum(), dropped.sum(), seconds, histogram);
+    }
+
+    record Snapshot(String name, long succeeded, long rejected, long failed, long dropped,
+                    double seconds, Histogram histogram) {
+
+        long completed() {
+            return succeeded + rejected + failed;
+        }
+
+        double throughput() {
+            return completed() / seconds;
+        }
+
+        double errorRate() {
+            long total = completed() + dropped;
+            return total == 0 ? 0 : (double) (failed + dropped) / total;
+        }
+
+        double percentileMillis(double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1_000_000.0;
+        }
+
+        double maxMillis() {
+            return histogram.getMaxValue() / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package ru.practicum.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * POST с JSON-телом и токеном пользователя, от имени которого выполняется операция.
+ */
+class JsonScenario implements LoadScenario {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final String name;
+    private final URI uri;
+    private final TokenSource tokens;
+    private final Duration timeout;
+    private final Function<ThreadLocalRandom, Body> bodies;
+
+    JsonScenario(String name, URI uri, TokenSource tokens, Duration timeout, Function<ThreadLocalRandom, Body> bodies) {
+        this.name = name;
+        this.uri = uri;
+        this.tokens = tokens;
+        this.timeout = timeout;
+        this.bodies = bodies;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public HttpRequest nextRequest(ThreadLocalRandom random) {
+        Body body = bodies.apply(random);
+        try {
+            return HttpRequest.newBuilder(uri)
+                    .timeout(timeout)
+                    .header("Content-Type", "application/json")
+                    .header("Authorization", "Bearer " + tokens.tokenFor(body.login()))
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(JSON.writeValueAsBytes(body.json())))
+                    .build();
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unable to serialize request body", ex);
+        }
+    }
+}
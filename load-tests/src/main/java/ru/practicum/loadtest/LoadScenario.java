@@ -0,0 +1,58 @@
+package ru.practicum.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Сценарий нагрузки: строит очередной запрос к gateway от имени случайного пользователя.
+ */
+public interface LoadScenario {
+
+    String name();
+
+    HttpRequest nextRequest(ThreadLocalRandom random);
+
+    /**
+     * Известные сценарии: {@code transfer} — перевод между двумя случайными пользователями,
+     * {@code cash} — пополнение или снятие небольшой суммы.
+     */
+    static LoadScenario named(String name, String gatewayUrl, TokenSource tokens, int users, Duration timeout) {
+        return switch (name) {
+            case "transfer" -> new JsonScenario(name, URI.create(gatewayUrl + "/api/transfer/transactions"), tokens, timeout,
+                    random -> {
+                        int from = 1 + random.nextInt(users);
+                        int to = 1 + (from + random.nextInt(users - 1)) % users;
+                        return new Body(ServiceGraph.login(from), Map.of(
+                                "from_login", ServiceGraph.login(from),
+                                "to_login", ServiceGraph.login(to),
+                                "value", amount(random)));
+                    });
+            case "cash" -> new JsonScenario(name, URI.create(gatewayUrl + "/api/cash/operations"), tokens, timeout,
+                    random -> {
+                        String login = ServiceGraph.login(1 + random.nextInt(users));
+                        return new Body(login, Map.of(
+                                "login", login,
+                                "action", random.nextBoolean() ? "PUT" : "GET",
+                                "value", amount(random)));
+                    });
+            default -> throw new IllegalArgumentException("Unknown scenario '%s', expected transfer or cash".formatted(name));
+        };
+    }
+
+    private static String amount(ThreadLocalRandom random) {
+        return "%d.%02d".formatted(1 + random.nextInt(100), random.nextInt(100));
+    }
+
+    /**
+     * Bearer-токен пользователя; токены выпускаются заранее, чтобы подпись не попадала в замер.
+     */
+    interface TokenSource {
+        String tokenFor(String login);
+    }
+
+    record Body(String login, Map<String, Object> json) {
+    }
+}
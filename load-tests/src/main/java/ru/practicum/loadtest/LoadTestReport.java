@@ -0,0 +1,87 @@
+package ru.practicum.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Таблица в консоль, JSON-отчёт для сравнения прогонов и проверка порогов {@code load.gate.*}.
+ */
+class LoadTestReport {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final LoadTestSettings settings;
+    private final List<EndpointStats.Snapshot> snapshots;
+
+    LoadTestReport(LoadTestSettings settings, List<EndpointStats.Snapshot> snapshots) {
+        this.settings = settings;
+        this.snapshots = snapshots;
+    }
+
+    void print(PrintStream out) {
+        out.printf("%-10s %9s %9s %9s %9s %9s %10s %9s %9s %9s %9s %9s%n",
+                "scenario", "ok", "rejected", "failed", "dropped", "ops/s", "err%", "p50ms", "p90ms", "p99ms", "p99.9ms", "maxms");
+        for (var snapshot : snapshots) {
+            out.printf("%-10s %9d %9d %9d %9d %9.1f %10.2f %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    snapshot.name(), snapshot.succeeded(), snapshot.rejected(), snapshot.failed(), snapshot.dropped(),
+                    snapshot.throughput(), snapshot.errorRate() * 100,
+                    snapshot.percentileMillis(50), snapshot.percentileMillis(90), snapshot.percentileMillis(99),
+                    snapshot.percentileMillis(99.9), snapshot.maxMillis());
+        }
+    }
+
+    void write() throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("rate", settings.rate());
+        report.put("arrival", settings.poisson() ? "poisson" : "uniform");
+        report.put("durationSeconds", settings.duration().toSeconds());
+        report.put("users", settings.users());
+        List<Map<String, Object>> scenarios = new ArrayList<>();
+        for (var snapshot : snapshots) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("name", snapshot.name());
+            item.put("succeeded", snapshot.succeeded());
+            item.put("rejected", snapshot.rejected());
+            item.put("failed", snapshot.failed());
+            item.put("dropped", snapshot.dropped());
+            item.put("throughput", snapshot.throughput());
+            item.put("errorRate", snapshot.errorRate());
+            Map<String, Double> latency = new LinkedHashMap<>();
+            for (double percentile : PERCENTILES) {
+                latency.put("p" + (percentile % 1 == 0 ? Long.toString((long) percentile) : Double.toString(percentile)),
+                        snapshot.percentileMillis(percentile));
+            }
+            latency.put("max", snapshot.maxMillis());
+            item.put("latencyMillis", latency);
+            scenarios.add(item);
+        }
+        report.put("scenarios", scenarios);
+        Files.createDirectories(settings.result().toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(settings.result().toFile(), report);
+    }
+
+    /**
+     * Нарушенные пороги; пустой список — прогон прошёл.
+     */
+    List<String> gateViolations() {
+        List<String> violations = new ArrayList<>();
+        for (var snapshot : snapshots) {
+            double p99 = snapshot.percentileMillis(99);
+            if (!settings.gateP99().isZero() && p99 > settings.gateP99().toMillis()) {
+                violations.add("%s p99 %.1f ms > %d ms".formatted(snapshot.name(), p99, settings.gateP99().toMillis()));
+            }
+            if (snapshot.errorRate() > settings.gateErrorRate()) {
+                violations.add("%s error rate %.4f > %.4f".formatted(snapshot.name(), snapshot.errorRate(), settings.gateErrorRate()));
+            }
+        }
+        return violations;
+    }
+}
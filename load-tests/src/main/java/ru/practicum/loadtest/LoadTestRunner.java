@@ -0,0 +1,61 @@
+package ru.practicum.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+/**
+ * Нагрузочный прогон: поднимает {@link ServiceGraph}, прогревает его, измеряет
+ * и сравнивает результат с порогами. При нарушении порога завершается ошибкой,
+ * поэтому прогон можно ставить проверкой перед слиянием изменений производительности.
+ */
+@Slf4j
+public final class LoadTestRunner {
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        var settings = LoadTestSettings.fromSystemProperties();
+        log.info("Load test: {} req/s ({}), warmup {}, measure {}, mix {}",
+                settings.rate(), settings.poisson() ? "poisson" : "uniform",
+                settings.warmup(), settings.duration(), settings.mix());
+
+        try (var graph = ServiceGraph.start(settings);
+             var client = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .connectTimeout(Duration.ofSeconds(2))
+                     .executor(Executors.newVirtualThreadPerTaskExecutor())
+                     .build()) {
+            Map<String, String> tokens = new ConcurrentHashMap<>();
+            for (int i = 1; i <= settings.users(); i++) {
+                tokens.put(ServiceGraph.login(i), graph.issuer().issueToken(ServiceGraph.login(i)));
+            }
+            Map<LoadScenario, Integer> scenarios = new LinkedHashMap<>();
+            settings.mix().forEach((name, weight) -> scenarios.put(
+                    LoadScenario.named(name, graph.gatewayUrl(), tokens::get, settings.users(), settings.timeout()),
+                    weight));
+            var generator = new OpenModelLoadGenerator(settings, client, scenarios);
+
+            if (!settings.warmup().isZero()) {
+                log.info("Warming up for {}", settings.warmup());
+                generator.run(settings.warmup());
+            }
+            log.info("Measuring for {}", settings.duration());
+            var report = new LoadTestReport(settings, generator.run(settings.duration()));
+            report.print(System.out);
+            report.write();
+            log.info("Report written to {}", settings.result());
+
+            var violations = report.gateViolations();
+            if (!violations.isEmpty()) {
+                throw new IllegalStateException("Performance gate failed: " + String.join("; ", violations));
+            }
+        }
+    }
+}
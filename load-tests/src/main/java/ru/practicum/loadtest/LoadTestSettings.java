@@ -0,0 +1,94 @@
+package ru.practicum.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Параметры прогона, читаются из системных свойств {@code load.*}.
+ *
+ * @param projectDir   корень репозитория, из {@code <module>/target} берутся jar сервисов
+ * @param rate         целевая интенсивность, запросов в секунду на все сценарии вместе
+ * @param warmup       прогрев, его результаты отбрасываются
+ * @param duration     длительность измерения
+ * @param poisson      пуассоновский поток вместо равномерного
+ * @param users        число пользователей, заводимых в БД перед прогоном
+ * @param mix          веса сценариев ({@code transfer:3,cash:1})
+ * @param maxInFlight  предел одновременно выполняемых запросов; сверх него запрос считается отброшенным
+ * @param timeout      таймаут одного запроса
+ * @param serviceJvmArgs аргументы JVM для процессов сервисов
+ * @param result       файл JSON-отчёта
+ * @param gateP99      допустимый p99 для каждого сценария, {@link Duration#ZERO} — без проверки
+ * @param gateErrorRate допустимая доля ошибок (не-2xx, таймауты, отброшенные)
+ */
+public record LoadTestSettings(
+        Path projectDir,
+        double rate,
+        Duration warmup,
+        Duration duration,
+        boolean poisson,
+        int users,
+        Map<String, Integer> mix,
+        int maxInFlight,
+        Duration timeout,
+        String serviceJvmArgs,
+        Path result,
+        Duration gateP99,
+        double gateErrorRate
+) {
+
+    public static LoadTestSettings fromSystemProperties() {
+        Path projectDir = Path.of(property("load.project-dir",
+                System.getProperty("maven.multiModuleProjectDirectory", ".")));
+        int users = Integer.parseInt(property("load.users", "200"));
+        if (users < 2) {
+            throw new IllegalArgumentException("load.users must be at least 2");
+        }
+        return new LoadTestSettings(
+                projectDir.toAbsolutePath().normalize(),
+                Double.parseDouble(property("load.rate", "100")),
+                duration(property("load.warmup", "15s")),
+                duration(property("load.duration", "60s")),
+                property("load.arrival", "uniform").equalsIgnoreCase("poisson"),
+                users,
+                parseMix(property("load.mix", "transfer:3,cash:1")),
+                Integer.parseInt(property("load.max-in-flight", "5000")),
+                duration(property("load.timeout", "10s")),
+                property("load.service-jvm-args", "-Xmx384m -XX:+UseParallelGC"),
+                Path.of(property("load.result", projectDir.resolve("load-tests/target/load-test-result.json").toString())),
+                Duration.ofMillis(Long.parseLong(property("load.gate.p99-ms", "0"))),
+                Double.parseDouble(property("load.gate.max-error-rate", "1.0"))
+        );
+    }
+
+    static Map<String, Integer> parseMix(String value) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] nameAndWeight = part.trim().split(":");
+            int weight = nameAndWeight.length > 1 ? Integer.parseInt(nameAndWeight[1].trim()) : 1;
+            if (weight > 0) {
+                mix.put(nameAndWeight[0].trim(), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("load.mix must contain at least one scenario");
+        }
+        return mix;
+    }
+
+    /**
+     * {@code 500ms}, {@code 30s}, {@code 5m} и т.п.
+     */
+    static Duration duration(String value) {
+        String trimmed = value.trim();
+        if (trimmed.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(trimmed.substring(0, trimmed.length() - 2)));
+        }
+        return Duration.parse("PT" + trimmed);
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty(name, defaultValue);
+    }
+}
@@ -0,0 +1,112 @@
+package ru.practicum.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Открытая модель нагрузки: запросы отправляются с заданной интенсивностью независимо от того,
+ * успевает ли система отвечать. Каждый запрос выполняется в своём виртуальном потоке,
+ * сценарий выбирается случайно по весам из {@link LoadTestSettings#mix()}.
+ */
+@Slf4j
+class OpenModelLoadGenerator {
+
+    private final LoadTestSettings settings;
+    private final HttpClient client;
+    private final List<LoadScenario> weighted = new ArrayList<>();
+
+    OpenModelLoadGenerator(LoadTestSettings settings, HttpClient client, Map<LoadScenario, Integer> scenarios) {
+        this.settings = settings;
+        this.client = client;
+        scenarios.forEach((scenario, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                weighted.add(scenario);
+            }
+        });
+    }
+
+    /**
+     * Подаёт нагрузку в течение {@code duration} и возвращает статистику по сценариям.
+     * Ответы, не пришедшие к концу интервала, ждутся не дольше таймаута запроса.
+     * Каждый вызов считает статистику заново, так что прогрев — это просто отдельный вызов.
+     */
+    List<EndpointStats.Snapshot> run(Duration duration) throws InterruptedException {
+        Map<String, EndpointStats> stats = new LinkedHashMap<>();
+        weighted.forEach(scenario -> stats.computeIfAbsent(scenario.name(), EndpointStats::new));
+        var inFlight = new Semaphore(settings.maxInFlight());
+        double meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) / settings.rate();
+        var random = ThreadLocalRandom.current();
+
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            double offset = 0;
+            while (true) {
+                long intended = start + (long) offset;
+                if (intended >= end) {
+                    break;
+                }
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                LoadScenario scenario = weighted.get(random.nextInt(weighted.size()));
+                EndpointStats endpoint = stats.get(scenario.name());
+                if (inFlight.tryAcquire()) {
+                    executor.execute(() -> {
+                        try {
+                            send(scenario, endpoint, intended);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                } else {
+                    endpoint.recordDropped();
+                }
+                offset += settings.poisson()
+                        ? -Math.log(1 - random.nextDouble()) * meanIntervalNanos
+                        : meanIntervalNanos;
+            }
+            executor.shutdown();
+            if (!executor.awaitTermination(settings.timeout().toMillis() + 1000, TimeUnit.MILLISECONDS)) {
+                log.warn("Some requests were still running after the timeout");
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return stats.values().stream()
+                .map(endpoint -> endpoint.snapshot(seconds))
+                .toList();
+    }
+
+    private void send(LoadScenario scenario, EndpointStats endpoint, long intended) {
+        try {
+            var response = client.send(scenario.nextRequest(ThreadLocalRandom.current()), HttpResponse.BodyHandlers.ofString());
+            endpoint.recordResponse(System.nanoTime() - intended, response.statusCode(), hasBusinessErrors(response.body()));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            endpoint.recordFailure(System.nanoTime() - intended);
+        } catch (Exception ex) {
+            endpoint.recordFailure(System.nanoTime() - intended);
+        }
+    }
+
+    /**
+     * Сервисы отвечают списком ошибок: {@code []} — операция выполнена.
+     */
+    private static boolean hasBusinessErrors(String body) {
+        return body != null && !body.isBlank() && !body.strip().equals("[]");
+    }
+}
@@ -0,0 +1,244 @@
+package ru.practicum.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.MountableFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Поднимает граф сервисов gateway → transfer/cash → blocker/accounts/notifications:
+ * PostgreSQL в Testcontainers со схемой из {@code init-db}, {@link StubJwtIssuer} вместо Keycloak
+ * и каждый сервис отдельным процессом из собранного jar. Consul отключён, gateway находит
+ * сервисы через simple discovery. Логи сервисов пишутся в {@code load-tests/target/logs}.
+ */
+@Slf4j
+public class ServiceGraph implements AutoCloseable {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(3);
+    private static final String DB_USER = "bank";
+    private static final String DB_PASSWORD = "bank123";
+
+    private final LoadTestSettings settings;
+    private final PostgreSQLContainer<?> postgres;
+    private final StubJwtIssuer issuer;
+    private final Map<String, Integer> ports = new LinkedHashMap<>();
+    private final List<Process> processes = new ArrayList<>();
+
+    private ServiceGraph(LoadTestSettings settings, PostgreSQLContainer<?> postgres, StubJwtIssuer issuer) {
+        this.settings = settings;
+        this.postgres = postgres;
+        this.issuer = issuer;
+    }
+
+    public static ServiceGraph start(LoadTestSettings settings) throws IOException, InterruptedException {
+        var postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+                .withDatabaseName("bank")
+                .withUsername(DB_USER)
+                .withPassword(DB_PASSWORD)
+                .withCopyFileToContainer(
+                        MountableFile.forHostPath(settings.projectDir().resolve("init-db/01-init-schemas.sql")),
+                        "/docker-entrypoint-initdb.d/01-init-schemas.sql");
+        postgres.start();
+        var graph = new ServiceGraph(settings, postgres, new StubJwtIssuer());
+        try {
+            graph.seedUsers(settings.users());
+            graph.launchAll();
+        } catch (IOException | InterruptedException | RuntimeException ex) {
+            graph.close();
+            throw ex;
+        }
+        return graph;
+    }
+
+    public StubJwtIssuer issuer() {
+        return issuer;
+    }
+
+    public String gatewayUrl() {
+        return "http://localhost:" + ports.get("gateway");
+    }
+
+    public static String login(int index) {
+        return "load-%06d".formatted(index);
+    }
+
+    /**
+     * Пользователи {@code load-000001..} с одним рублёвым счётом и балансом, которого хватит на весь прогон.
+     */
+    private void seedUsers(int count) {
+        try (var connection = DriverManager.getConnection(postgres.getJdbcUrl(), DB_USER, DB_PASSWORD);
+             var users = connection.prepareStatement("""
+                     INSERT INTO accounts.users (id, login, name, birthdate, kc_id, kc_status)
+                     SELECT gen_random_uuid(), 'load-' || lpad(i::text, 6, '0'), 'Load User ' || i,
+                            DATE '1990-01-01', 'kc-load-' || i, 'PROVISIONED'
+                     FROM generate_series(1, ?) AS i
+                     """);
+             var accounts = connection.prepareStatement("""
+                     INSERT INTO accounts.bank_accounts (id, user_id, account_number, currency, balance)
+                     SELECT gen_random_uuid(), u.id, '40817' || lpad(substr(u.login, 6), 15, '0'), 'RUB', 1000000000
+                     FROM accounts.users u
+                     WHERE u.login LIKE 'load-%'
+                     """)) {
+            users.setInt(1, count);
+            users.executeUpdate();
+            accounts.executeUpdate();
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Unable to seed load-test users", ex);
+        }
+        log.info("Seeded {} users", count);
+    }
+
+    private void launchAll() throws IOException, InterruptedException {
+        for (String service : List.of("notifications-service", "accounts-service", "blocker-service",
+                "transfer-service", "cash-service", "gateway")) {
+            ports.put(service, freePort());
+        }
+        String jdbcUrl = postgres.getJdbcUrl();
+        String notifications = local("notifications-service");
+        String accounts = local("accounts-service");
+
+        launch("notifications-service", List.of(datasource(jdbcUrl)));
+        launch("accounts-service", List.of(
+                datasource(jdbcUrl),
+                "--spring.security.oauth2.resourceserver.jwt.jwk-set-uri=" + issuer.jwkSetUri(),
+                "--spring.security.oauth2.resourceserver.jwt.issuer-uri=" + issuer.issuer(),
+                "--keycloak.base-url=" + issuer.baseUrl(),
+                "--notifications.base-url=" + notifications));
+        launch("blocker-service", List.of());
+        launch("transfer-service", List.of(
+                datasource(jdbcUrl),
+                "--accounts.base-url=" + accounts,
+                "--notifications.base-url=" + notifications,
+                "--app.blocker-base-url=" + local("blocker-service")));
+        launch("cash-service", List.of(
+                datasource(jdbcUrl),
+                "--accounts.base-url=" + accounts,
+                "--notifications.base-url=" + notifications));
+        var gatewayArgs = new ArrayList<>(List.of(
+                "--spring.security.oauth2.resourceserver.jwt.jwk-set-uri=" + issuer.jwkSetUri(),
+                "--spring.security.oauth2.resourceserver.jwt.expected-issuer=" + issuer.issuer()));
+        for (String service : List.of("accounts-service", "transfer-service", "cash-service", "notifications-service")) {
+            gatewayArgs.add("--spring.cloud.discovery.client.simple.instances.%s[0].uri=%s".formatted(service, local(service)));
+        }
+        launch("gateway", gatewayArgs);
+
+        for (String service : ports.keySet()) {
+            awaitHealthy(service);
+        }
+    }
+
+    private void launch(String service, List<String> extraArgs) throws IOException {
+        Path jar = serviceJar(service);
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(Arrays.asList(settings.serviceJvmArgs().trim().split("\\s+")));
+        command.add("-jar");
+        command.add(jar.toString());
+        command.add("--server.port=" + ports.get(service));
+        command.add("--spring.cloud.consul.enabled=false");
+        command.add("--spring.cloud.consul.config.enabled=false");
+        command.add("--spring.cloud.consul.discovery.enabled=false");
+        command.addAll(extraArgs);
+
+        Path logs = settings.projectDir().resolve("load-tests/target/logs");
+        Files.createDirectories(logs);
+        var process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(logs.resolve(service + ".log").toFile())
+                .start();
+        processes.add(process);
+        log.info("Started {} on port {} (pid {})", service, ports.get(service), process.pid());
+    }
+
+    private Path serviceJar(String service) throws IOException {
+        Path target = settings.projectDir().resolve(service).resolve("target");
+        try (Stream<Path> files = Files.list(target)) {
+            return files
+                    .filter(path -> path.getFileName().toString().startsWith(service + "-"))
+                    .filter(path -> path.getFileName().toString().endsWith(".jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException(
+                            "No jar in %s, run ./mvnw package -DskipTests first".formatted(target)));
+        } catch (IOException ex) {
+            throw new IOException("No build output for %s, run ./mvnw package -DskipTests first".formatted(service), ex);
+        }
+    }
+
+    /**
+     * Сервис считается поднятым, как только actuator ответил UP.
+     */
+    private void awaitHealthy(String service) throws InterruptedException {
+        var client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        var request = HttpRequest.newBuilder(URI.create(local(service) + "/actuator/health"))
+                .timeout(Duration.ofSeconds(2))
+                .GET()
+                .build();
+        Instant deadline = Instant.now().plus(STARTUP_TIMEOUT);
+        while (Instant.now().isBefore(deadline)) {
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    log.info("{} is up", service);
+                    return;
+                }
+            } catch (IOException ex) {
+                // ещё не слушает порт
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("%s did not become healthy within %s, see load-tests/target/logs/%s.log"
+                .formatted(service, STARTUP_TIMEOUT, service));
+    }
+
+    private String local(String service) {
+        return "http://localhost:" + ports.get(service);
+    }
+
+    private static String datasource(String jdbcUrl) {
+        return "--spring.datasource.url=" + jdbcUrl;
+    }
+
+    private static int freePort() {
+        try (var socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void close() {
+        processes.forEach(Process::destroy);
+        for (Process process : processes) {
+            try {
+                if (!process.waitFor(20, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException ex) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+        issuer.close();
+        postgres.stop();
+    }
+}
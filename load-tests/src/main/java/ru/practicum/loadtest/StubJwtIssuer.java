@@ -0,0 +1,174 @@
+package ru.practicum.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+
+/**
+ * Подмена Keycloak для нагрузочного прогона: выпускает RS256-токены реалма {@code bank}
+ * и отдаёт JWKS, по которому их проверяют gateway и accounts-service.
+ * Дополнительно отвечает на те вызовы admin API, которые делает accounts-service.
+ */
+public class StubJwtIssuer implements AutoCloseable {
+
+    static final String REALM = "bank";
+    private static final String KEY_ID = "load-test";
+    private static final Duration TOKEN_TTL = Duration.ofHours(2);
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+    private final KeyPair keyPair;
+    private final HttpServer server;
+
+    public StubJwtIssuer() throws IOException {
+        try {
+            var generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            this.keyPair = generator.generateKeyPair();
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("RSA is not available", ex);
+        }
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public String issuer() {
+        return baseUrl() + "/realms/" + REALM;
+    }
+
+    public String jwkSetUri() {
+        return issuer() + "/protocol/openid-connect/certs";
+    }
+
+    /**
+     * Токен пользователя с ролью USER, как его выдал бы Keycloak после входа.
+     */
+    public String issueToken(String login) {
+        Instant now = Instant.now();
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("iss", issuer());
+        claims.put("sub", UUID.nameUUIDFromBytes(login.getBytes(StandardCharsets.UTF_8)).toString());
+        claims.put("preferred_username", login);
+        claims.put("azp", "front-ui");
+        claims.put("roles", List.of("USER"));
+        claims.put("iat", now.getEpochSecond());
+        claims.put("exp", now.plus(TOKEN_TTL).getEpochSecond());
+        return sign(claims);
+    }
+
+    private String sign(Map<String, Object> claims) {
+        try {
+            String header = BASE64_URL.encodeToString(JSON.writeValueAsBytes(
+                    Map.of("alg", "RS256", "typ", "JWT", "kid", KEY_ID)));
+            String payload = BASE64_URL.encodeToString(JSON.writeValueAsBytes(claims));
+            var signature = Signature.getInstance("SHA256withRSA");
+            signature.initSign(keyPair.getPrivate());
+            signature.update((header + "." + payload).getBytes(StandardCharsets.US_ASCII));
+            return header + "." + payload + "." + BASE64_URL.encodeToString(signature.sign());
+        } catch (JsonProcessingException | GeneralSecurityException ex) {
+            throw new IllegalStateException("Unable to sign token", ex);
+        }
+    }
+
+    private Map<String, Object> jwks() {
+        var publicKey = (RSAPublicKey) keyPair.getPublic();
+        return Map.of("keys", List.of(Map.of(
+                "kty", "RSA",
+                "kid", KEY_ID,
+                "use", "sig",
+                "alg", "RS256",
+                "n", BASE64_URL.encodeToString(unsigned(publicKey.getModulus())),
+                "e", BASE64_URL.encodeToString(unsigned(publicKey.getPublicExponent()))
+        )));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        String realmPath = "/realms/" + REALM;
+        if (path.equals(realmPath + "/protocol/openid-connect/certs")) {
+            respond(exchange, 200, jwks());
+        } else if (path.equals(realmPath + "/.well-known/openid-configuration")) {
+            respond(exchange, 200, Map.of(
+                    "issuer", issuer(),
+                    "jwks_uri", jwkSetUri(),
+                    "token_endpoint", issuer() + "/protocol/openid-connect/token"));
+        } else if (path.endsWith("/protocol/openid-connect/token")) {
+            String form = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            String subject = formValue(form, "username");
+            respond(exchange, 200, Map.of(
+                    "access_token", issueToken(subject == null ? "service-account" : subject),
+                    "token_type", "Bearer",
+                    "expires_in", TOKEN_TTL.toSeconds()));
+        } else if (method.equals("POST") && path.equals("/admin/realms/" + REALM + "/users")) {
+            exchange.getResponseHeaders().add("Location",
+                    baseUrl() + "/admin/realms/" + REALM + "/users/" + UUID.randomUUID());
+            exchange.sendResponseHeaders(201, -1);
+            exchange.close();
+        } else if (path.startsWith("/admin/realms/" + REALM + "/users")) {
+            if (method.equals("GET")) {
+                respond(exchange, 200, List.of());
+            } else {
+                exchange.sendResponseHeaders(204, -1);
+                exchange.close();
+            }
+        } else {
+            respond(exchange, 404, Map.of("error", "not found"));
+        }
+    }
+
+    private static String formValue(String form, String name) {
+        for (String pair : form.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0 && pair.substring(0, separator).equals(name)) {
+                return URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = JSON.writeValueAsBytes(body);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private static byte[] unsigned(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        return bytes[0] == 0 ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
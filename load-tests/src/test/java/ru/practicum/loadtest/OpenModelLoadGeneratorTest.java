@@ -0,0 +1,96 @@
+package ru.practicum.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sun.net.httpserver.HttpServer;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OpenModelLoadGeneratorTest {
+
+    private static final long RESPONSE_DELAY_MS = 50;
+
+    private HttpServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void start() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", exchange -> {
+            try {
+                Thread.sleep(RESPONSE_DELAY_MS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            boolean blocked = exchange.getRequestURI().getPath().equals("/blocked");
+            byte[] body = (blocked ? "[\"blocked\"]" : "[]").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+    }
+
+    @AfterEach
+    void stop() {
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    void keepsArrivalRateWhileResponsesAreSlow() throws Exception {
+        var generator = new OpenModelLoadGenerator(settings(200, 1000), client, Map.of(scenario("ok", "/"), 1));
+
+        var snapshot = generator.run(Duration.ofSeconds(1)).getFirst();
+
+        assertThat(snapshot.succeeded()).isBetween(190L, 201L);
+        assertThat(snapshot.percentileMillis(50)).isGreaterThanOrEqualTo(RESPONSE_DELAY_MS);
+        assertThat(snapshot.errorRate()).isZero();
+    }
+
+    @Test
+    void countsBusinessRejectionsAndDroppedRequestsSeparately() throws Exception {
+        var generator = new OpenModelLoadGenerator(settings(200, 2), client, Map.of(scenario("blocked", "/blocked"), 1));
+
+        var snapshot = generator.run(Duration.ofMillis(500)).getFirst();
+
+        assertThat(snapshot.rejected()).isPositive();
+        assertThat(snapshot.succeeded()).isZero();
+        assertThat(snapshot.dropped()).isPositive();
+        assertThat(snapshot.errorRate()).isPositive();
+    }
+
+    private LoadScenario scenario(String name, String path) {
+        URI uri = URI.create("http://localhost:" + server.getAddress().getPort() + path);
+        return new LoadScenario() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public HttpRequest nextRequest(ThreadLocalRandom random) {
+                return HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.ofString("{}")).build();
+            }
+        };
+    }
+
+    private static LoadTestSettings settings(double rate, int maxInFlight) {
+        return new LoadTestSettings(Path.of("."), rate, Duration.ZERO, Duration.ofSeconds(1), false, 2,
+                Map.of("ok", 1), maxInFlight, Duration.ofSeconds(5), "", Path.of("target/result.json"),
+                Duration.ZERO, 1.0);
+    }
+}
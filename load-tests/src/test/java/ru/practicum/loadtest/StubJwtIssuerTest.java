@@ -0,0 +1,52 @@
+package ru.practicum.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+class StubJwtIssuerTest {
+
+    private StubJwtIssuer issuer;
+
+    @BeforeEach
+    void start() throws Exception {
+        issuer = new StubJwtIssuer();
+    }
+
+    @AfterEach
+    void stop() {
+        issuer.close();
+    }
+
+    @Test
+    void tokenPassesResourceServerValidation() {
+        var decoder = NimbusJwtDecoder.withJwkSetUri(issuer.jwkSetUri()).build();
+        decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(issuer.issuer()));
+
+        var jwt = decoder.decode(issuer.issueToken("load-000001"));
+
+        assertThat(jwt.getClaimAsString("preferred_username")).isEqualTo("load-000001");
+        assertThat(jwt.getClaimAsStringList("roles")).containsExactly("USER");
+    }
+
+    @Test
+    void tokenEndpointAnswersPasswordGrant() throws Exception {
+        try (var client = HttpClient.newHttpClient()) {
+            var response = client.send(HttpRequest.newBuilder(URI.create(issuer.issuer() + "/protocol/openid-connect/token"))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString("grant_type=password&username=bob&password=x"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+
+            assertThat(response.statusCode()).isEqualTo(200);
+            assertThat(response.body()).contains("\"access_token\"").contains("\"expires_in\"");
+        }
+    }
+}
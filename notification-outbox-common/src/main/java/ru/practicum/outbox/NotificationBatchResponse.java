@@ -0,0 +1,26 @@
+package ru.practicum.outbox;
+
+import java.util.List;
+
+/**
+ * Ответ пакетного эндпоинта сервиса уведомлений: итоги и статус каждого события по его позиции в пачке.
+ * Пачка принимается с кодом 202, даже если часть событий отклонена.
+ */
+public record NotificationBatchResponse(
+        int accepted,
+        int rejected,
+        List<ItemStatus> items
+) {
+
+    public record ItemStatus(
+            int index,
+            Status status,
+            List<String> errors
+    ) {
+    }
+
+    public enum Status {
+        ACCEPTED,
+        REJECTED
+    }
+}
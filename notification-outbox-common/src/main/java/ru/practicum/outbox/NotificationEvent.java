@@ -0,0 +1,10 @@
+package ru.practicum.outbox;
+
+/**
+ * Событие для сервиса уведомлений.
+ */
+public record NotificationEvent(
+        String type,
+        String recipient,
+        String message
+) { }
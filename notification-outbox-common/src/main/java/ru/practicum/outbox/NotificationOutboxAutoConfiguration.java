@@ -0,0 +1,40 @@
+package ru.practicum.outbox;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.http.PooledHttpClientFactory;
+
+/**
+ * Подключает outbox уведомлений к сервису: сущность и репозиторий попадают в сканирование JPA
+ * наравне с пакетами самого сервиса, регистрируются клиент сервиса уведомлений и диспетчер.
+ * Таблица создаётся в схеме сервиса ({@code hibernate.default_schema}).
+ */
+@AutoConfiguration(before = {HibernateJpaAutoConfiguration.class, JpaRepositoriesAutoConfiguration.class})
+@AutoConfigurationPackage(basePackageClasses = NotificationOutboxEntity.class)
+@EnableConfigurationProperties(NotificationOutboxProperties.class)
+public class NotificationOutboxAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public NotificationsClient notificationsClient(
+            @Value("${notifications.base-url:http://notifications-service:8084}") String baseUrl,
+            PooledHttpClientFactory httpClients) {
+        return new NotificationsClient(baseUrl, httpClients);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public NotificationOutboxDispatcher notificationOutboxDispatcher(NotificationOutboxRepository repository,
+                                                                     NotificationsClient notificationsClient,
+                                                                     TransactionTemplate transactionTemplate,
+                                                                     NotificationOutboxProperties properties) {
+        return new NotificationOutboxDispatcher(repository, notificationsClient, transactionTemplate, properties);
+    }
+}
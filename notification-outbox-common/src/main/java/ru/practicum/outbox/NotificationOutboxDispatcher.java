@@ -0,0 +1,141 @@
+package ru.practicum.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Фоновая отправка уведомлений из outbox пачками.
+ * <p>
+ * Пачка забирается короткой транзакцией (SKIP LOCKED), и у каждой строки {@code nextAttemptAt} сдвигается
+ * на время аренды, чтобы другие экземпляры её не взяли. Вызов сервиса уведомлений идёт вне транзакции,
+ * результат записывается второй короткой транзакцией отдельно по каждому событию: при отправке по одному
+ * доставленные события помечаются SENT, даже если часть остальных не ушла. Событие, которое сервис
+ * уведомлений отклонил в ответе на пачку, сразу помечается FAILED с причинами в {@code lastError}:
+ * повтор его не исправит. Неудачная попытка откладывается с экспоненциально растущей задержкой,
+ * после {@code max-attempts} событие помечается FAILED.
+ */
+@Slf4j
+public class NotificationOutboxDispatcher {
+
+    private final NotificationOutboxRepository repository;
+    private final NotificationsClient notificationsClient;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationOutboxProperties properties;
+
+    public NotificationOutboxDispatcher(NotificationOutboxRepository repository,
+                                        NotificationsClient notificationsClient,
+                                        TransactionTemplate transactionTemplate,
+                                        NotificationOutboxProperties properties) {
+        this.repository = repository;
+        this.notificationsClient = notificationsClient;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.outbox.poll-interval-ms:500}")
+    public int dispatch() {
+        List<ClaimedEvent> claimed = transactionTemplate.execute(tx -> claim(OffsetDateTime.now()));
+        if (claimed == null || claimed.isEmpty()) {
+            return 0;
+        }
+        Outcome outcome = send(claimed);
+        transactionTemplate.executeWithoutResult(tx -> record(claimed, outcome, OffsetDateTime.now()));
+        return outcome.delivered().size();
+    }
+
+    private List<ClaimedEvent> claim(OffsetDateTime now) {
+        List<NotificationOutboxEntity> batch = repository.lockDue(
+                OutboxStatus.PENDING, now, PageRequest.of(0, properties.getBatchSize()));
+        var leaseUntil = now.plus(properties.getLease());
+        return batch.stream()
+                .map(item -> {
+                    item.setNextAttemptAt(leaseUntil);
+                    return new ClaimedEvent(item.getId(),
+                            new NotificationEvent(item.getEventType(), item.getRecipient(), item.getMessage()));
+                })
+                .toList();
+    }
+
+    private Outcome send(List<ClaimedEvent> claimed) {
+        NotificationBatchResponse response;
+        try {
+            response = notificationsClient.sendBatch(claimed.stream().map(ClaimedEvent::event).toList());
+        } catch (NotificationsClient.BatchNotSupportedException ex) {
+            return new Outcome(sendOneByOne(claimed), Map.of());
+        } catch (NotificationsClient.NotificationsClientException ex) {
+            log.warn("Failed to dispatch {} notifications: {}", claimed.size(), ex.getMessage());
+            return new Outcome(Set.of(), Map.of());
+        }
+        Map<UUID, String> rejected = new HashMap<>();
+        for (NotificationBatchResponse.ItemStatus status : response.items()) {
+            if (status.status() == NotificationBatchResponse.Status.REJECTED
+                    && status.index() >= 0 && status.index() < claimed.size()) {
+                UUID id = claimed.get(status.index()).id();
+                String errors = status.errors() == null ? "" : String.join("; ", status.errors());
+                log.warn("Notification {} rejected by notifications service: {}", id, errors);
+                rejected.put(id, errors);
+            }
+        }
+        Set<UUID> delivered = new HashSet<>();
+        for (ClaimedEvent item : claimed) {
+            if (!rejected.containsKey(item.id())) {
+                delivered.add(item.id());
+            }
+        }
+        return new Outcome(delivered, rejected);
+    }
+
+    private Set<UUID> sendOneByOne(List<ClaimedEvent> claimed) {
+        Set<UUID> delivered = new HashSet<>();
+        for (ClaimedEvent item : claimed) {
+            try {
+                notificationsClient.send(item.event());
+                delivered.add(item.id());
+            } catch (NotificationsClient.NotificationsClientException ex) {
+                log.warn("Failed to dispatch notification {}: {}", item.id(), ex.getMessage());
+            }
+        }
+        return delivered;
+    }
+
+    private void record(List<ClaimedEvent> claimed, Outcome outcome, OffsetDateTime now) {
+        List<UUID> ids = claimed.stream().map(ClaimedEvent::id).toList();
+        for (NotificationOutboxEntity item : repository.findAllById(ids)) {
+            item.setAttempts(item.getAttempts() + 1);
+            if (outcome.delivered().contains(item.getId())) {
+                item.setStatus(OutboxStatus.SENT);
+                item.setSentAt(now);
+            } else if (outcome.rejected().containsKey(item.getId())) {
+                item.setStatus(OutboxStatus.FAILED);
+                item.setLastError(outcome.rejected().get(item.getId()));
+            } else if (item.getAttempts() >= properties.getMaxAttempts()) {
+                item.setStatus(OutboxStatus.FAILED);
+            } else {
+                item.setNextAttemptAt(now.plus(backoff(item.getAttempts())));
+            }
+        }
+    }
+
+    /**
+     * {@code initial-backoff} после первой неудачи, дальше вдвое больше, но не дольше {@code max-backoff}.
+     */
+    Duration backoff(int attempts) {
+        var delay = properties.getInitialBackoff().multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(properties.getMaxBackoff()) > 0 ? properties.getMaxBackoff() : delay;
+    }
+
+    private record ClaimedEvent(UUID id, NotificationEvent event) { }
+
+    private record Outcome(Set<UUID> delivered, Map<UUID, String> rejected) { }
+}
@@ -0,0 +1,81 @@
+package ru.practicum.outbox;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Уведомление, записанное в той же транзакции, что и операция, и ожидающее отправки.
+ * Схема таблицы берётся из {@code hibernate.default_schema} подключившего модуль сервиса.
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(of = "id")
+@Entity
+@Table(
+        name = "notification_outbox",
+        indexes = @Index(name = "idx_notification_outbox_status_next_attempt", columnList = "status, next_attempt_at")
+)
+public class NotificationOutboxEntity {
+
+    @Id
+    @GeneratedValue(generator = "uuid2")
+    @GenericGenerator(name = "uuid2", strategy = "org.hibernate.id.UUIDGenerator")
+    private UUID id;
+
+    @Column(name = "event_type", nullable = false, length = 50)
+    private String eventType;
+
+    @Column(nullable = false, length = 50)
+    private String recipient;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String message;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private OffsetDateTime sentAt;
+
+    /**
+     * Раньше этого момента событие не берётся в отправку: пока идёт отправка, здесь аренда
+     * диспетчера, после неудачи — время следующей попытки.
+     */
+    @Column(name = "next_attempt_at")
+    private OffsetDateTime nextAttemptAt;
+
+    /**
+     * Причины, по которым сервис уведомлений отклонил событие.
+     */
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @PrePersist
+    void prePersist() {
+        this.createdAt = OffsetDateTime.now();
+        if (this.nextAttemptAt == null) {
+            this.nextAttemptAt = this.createdAt;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package ru.practicum.outbox;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки фоновой отправки outbox уведомлений. Интервал опроса задаётся отдельно,
+ * ключом {@code notifications.outbox.poll-interval-ms} в {@link NotificationOutboxDispatcher}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "notifications.outbox")
+public class NotificationOutboxProperties {
+
+    /**
+     * Сколько событий забирается за один проход.
+     */
+    private int batchSize = 100;
+
+    /**
+     * После стольких неудачных попыток событие помечается FAILED.
+     */
+    private int maxAttempts = 10;
+
+    /**
+     * На это время забранные события скрыты от других экземпляров, пока идёт отправка.
+     * Если экземпляр упал, не отметив результат, события снова станут доступны после аренды.
+     */
+    private Duration lease = Duration.ofMinutes(1);
+
+    /**
+     * Задержка перед второй попыткой; каждая следующая вдвое длиннее, но не больше {@code maxBackoff}.
+     */
+    private Duration initialBackoff = Duration.ofSeconds(1);
+    private Duration maxBackoff = Duration.ofMinutes(5);
+}
@@ -0,0 +1,36 @@
+package ru.practicum.outbox;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Репозиторий outbox уведомлений.
+ */
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutboxEntity, UUID> {
+
+    /**
+     * Блокирует очередную пачку событий, чья попытка уже наступила; строки, занятые другим
+     * экземпляром сервиса, пропускаются (SKIP LOCKED). Строки без {@code next_attempt_at}
+     * записаны до появления колонки и считаются готовыми к отправке.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+            select o from NotificationOutboxEntity o
+            where o.status = :status and (o.nextAttemptAt is null or o.nextAttemptAt <= :now)
+            order by o.createdAt
+            """)
+    List<NotificationOutboxEntity> lockDue(@Param("status") OutboxStatus status,
+                                           @Param("now") OffsetDateTime now,
+                                           Pageable pageable);
+}
@@ -0,0 +1,87 @@
+package ru.practicum.outbox;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+import ru.practicum.http.PooledHttpClientFactory;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * HTTP-клиент сервиса уведомлений.
+ */
+public class NotificationsClient {
+
+    private final RestClient restClient;
+
+    public NotificationsClient(String baseUrl, PooledHttpClientFactory httpClients) {
+        this.restClient = RestClient.builder()
+                .requestFactory(httpClients.requestFactory(
+                        "notifications", Duration.ofMillis(500), Duration.ofMillis(1500)))
+                .baseUrl(baseUrl)
+                .build();
+    }
+
+    /**
+     * Отправляет пачку событий одним запросом.
+     *
+     * @return статусы событий; отклонённые сервисом события помечены {@code REJECTED},
+     * событие без статуса считается принятым
+     * @throws BatchNotSupportedException если сервис уведомлений не знает пакетного эндпоинта
+     *                                    и события нужно отправить по одному через {@link #send}
+     */
+    public NotificationBatchResponse sendBatch(List<NotificationEvent> events) {
+        if (events.isEmpty()) {
+            return new NotificationBatchResponse(0, 0, List.of());
+        }
+        try {
+            NotificationBatchResponse response = restClient.post()
+                    .uri("/api/notifications/events:batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(events)
+                    .retrieve()
+                    .body(NotificationBatchResponse.class);
+            return response == null || response.items() == null
+                    ? new NotificationBatchResponse(events.size(), 0, List.of())
+                    : response;
+        } catch (HttpClientErrorException ex) {
+            if (ex.getStatusCode() == HttpStatus.NOT_FOUND || ex.getStatusCode() == HttpStatus.METHOD_NOT_ALLOWED) {
+                throw new BatchNotSupportedException(ex);
+            }
+            throw new NotificationsClientException("Сервис уведомлений отклонил пачку событий", ex);
+        } catch (RestClientException ex) {
+            throw new NotificationsClientException("Сервис уведомлений недоступен", ex);
+        }
+    }
+
+    public void send(NotificationEvent event) {
+        try {
+            restClient.post()
+                    .uri("/api/notifications/events")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(event)
+                    .retrieve()
+                    .toBodilessEntity();
+        } catch (RestClientException ex) {
+            throw new NotificationsClientException("Сервис уведомлений недоступен", ex);
+        }
+    }
+
+    public static class NotificationsClientException extends RuntimeException {
+        public NotificationsClientException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    /**
+     * Пакетный эндпоинт отсутствует (старая версия сервиса уведомлений).
+     */
+    public static class BatchNotSupportedException extends NotificationsClientException {
+        public BatchNotSupportedException(Throwable cause) {
+            super("Сервис уведомлений не поддерживает пакетную отправку", cause);
+        }
+    }
+}
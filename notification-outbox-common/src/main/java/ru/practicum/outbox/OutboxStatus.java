@@ -0,0 +1,10 @@
+package ru.practicum.outbox;
+
+/**
+ * Статус доставки уведомления из outbox.
+ */
+public enum OutboxStatus {
+    PENDING,
+    SENT,
+    FAILED
+}
@@ -0,0 +1,55 @@
+package ru.practicum.outbox;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.http.PooledHttpClientAutoConfiguration;
+
+import java.time.OffsetDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationOutboxAutoConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(
+                    DataSourceAutoConfiguration.class,
+                    HibernateJpaAutoConfiguration.class,
+                    JpaRepositoriesAutoConfiguration.class,
+                    TransactionAutoConfiguration.class,
+                    PooledHttpClientAutoConfiguration.class,
+                    NotificationOutboxAutoConfiguration.class))
+            .withPropertyValues(
+                    "spring.datasource.url=jdbc:h2:mem:outbox;DB_CLOSE_DELAY=-1",
+                    "spring.jpa.hibernate.ddl-auto=create-drop");
+
+    @Test
+    void registersOutboxEntityRepositoryAndDispatcher() {
+        contextRunner.run(context -> {
+            assertThat(context).hasSingleBean(NotificationOutboxDispatcher.class);
+            assertThat(context).hasSingleBean(NotificationsClient.class);
+
+            var repository = context.getBean(NotificationOutboxRepository.class);
+            var transactionTemplate = context.getBean(TransactionTemplate.class);
+            var item = new NotificationOutboxEntity();
+            item.setEventType("EVENT");
+            item.setRecipient("alice");
+            item.setMessage("hello");
+            repository.save(item);
+
+            var due = transactionTemplate.execute(tx -> repository.lockDue(
+                    OutboxStatus.PENDING, OffsetDateTime.now().plusSeconds(1), PageRequest.of(0, 10)));
+            var notYetDue = transactionTemplate.execute(tx -> repository.lockDue(
+                    OutboxStatus.PENDING, OffsetDateTime.now().minusMinutes(1), PageRequest.of(0, 10)));
+
+            assertThat(due).extracting(NotificationOutboxEntity::getRecipient).containsExactly("alice");
+            assertThat(notYetDue).isEmpty();
+        });
+    }
+}
@@ -0,0 +1,159 @@
+package ru.practicum.outbox;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class NotificationOutboxDispatcherTest {
+
+    private NotificationOutboxRepository repository;
+    private NotificationsClient notificationsClient;
+    private NotificationOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(NotificationOutboxRepository.class);
+        notificationsClient = mock(NotificationsClient.class);
+        var transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        var properties = new NotificationOutboxProperties();
+        properties.setMaxAttempts(2);
+        properties.setInitialBackoff(Duration.ofSeconds(1));
+        properties.setMaxBackoff(Duration.ofSeconds(5));
+        dispatcher = new NotificationOutboxDispatcher(
+                repository, notificationsClient, new TransactionTemplate(transactionManager), properties);
+    }
+
+    @Test
+    void sendsPendingEventsInOneBatchAndMarksThemSent() {
+        var first = outboxItem("alice", "first");
+        var second = outboxItem("bob", "second");
+        givenDue(first, second);
+
+        int sent = dispatcher.dispatch();
+
+        assertThat(sent).isEqualTo(2);
+        verify(notificationsClient, times(1)).sendBatch(List.of(
+                new NotificationEvent("EVENT", "alice", "first"),
+                new NotificationEvent("EVENT", "bob", "second")
+        ));
+        assertThat(List.of(first, second)).allSatisfy(item -> {
+            assertThat(item.getStatus()).isEqualTo(OutboxStatus.SENT);
+            assertThat(item.getSentAt()).isNotNull();
+            assertThat(item.getAttempts()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void postponesFailedEventsWithBackoffUntilMaxAttempts() {
+        var item = outboxItem("alice", "hello");
+        givenDue(item);
+        doThrow(new NotificationsClient.NotificationsClientException("down", new RuntimeException()))
+                .when(notificationsClient).sendBatch(anyList());
+
+        var before = OffsetDateTime.now();
+        dispatcher.dispatch();
+        assertThat(item.getStatus()).isEqualTo(OutboxStatus.PENDING);
+        assertThat(item.getNextAttemptAt()).isAfterOrEqualTo(before.plusSeconds(1))
+                .isBefore(before.plusSeconds(30));
+
+        dispatcher.dispatch();
+        assertThat(item.getStatus()).isEqualTo(OutboxStatus.FAILED);
+        assertThat(item.getAttempts()).isEqualTo(2);
+    }
+
+    @Test
+    void marksEachEventOnItsOwnWhenSendingOneByOne() {
+        var delivered = outboxItem("alice", "first");
+        var failed = outboxItem("bob", "second");
+        givenDue(delivered, failed);
+        doThrow(new NotificationsClient.BatchNotSupportedException(new RuntimeException()))
+                .when(notificationsClient).sendBatch(anyList());
+        doThrow(new NotificationsClient.NotificationsClientException("down", new RuntimeException()))
+                .when(notificationsClient).send(new NotificationEvent("EVENT", "bob", "second"));
+
+        assertThat(dispatcher.dispatch()).isEqualTo(1);
+
+        assertThat(delivered.getStatus()).isEqualTo(OutboxStatus.SENT);
+        assertThat(failed.getStatus()).isEqualTo(OutboxStatus.PENDING);
+        assertThat(failed.getNextAttemptAt()).isAfter(OffsetDateTime.now());
+    }
+
+    @Test
+    void marksEventsRejectedByBatchFailedWithErrors() {
+        var accepted = outboxItem("alice", "first");
+        var rejected = outboxItem("bob", "");
+        givenDue(accepted, rejected);
+        when(notificationsClient.sendBatch(anyList())).thenReturn(new NotificationBatchResponse(1, 1, List.of(
+                new NotificationBatchResponse.ItemStatus(0, NotificationBatchResponse.Status.ACCEPTED, List.of()),
+                new NotificationBatchResponse.ItemStatus(1, NotificationBatchResponse.Status.REJECTED,
+                        List.of("message is required", "message is too long"))
+        )));
+
+        assertThat(dispatcher.dispatch()).isEqualTo(1);
+
+        assertThat(accepted.getStatus()).isEqualTo(OutboxStatus.SENT);
+        assertThat(rejected.getStatus()).isEqualTo(OutboxStatus.FAILED);
+        assertThat(rejected.getAttempts()).isEqualTo(1);
+        assertThat(rejected.getLastError()).isEqualTo("message is required; message is too long");
+        assertThat(rejected.getSentAt()).isNull();
+    }
+
+    @Test
+    void leasesClaimedEventsBeforeSending() {
+        var item = outboxItem("alice", "hello");
+        givenDue(item);
+        doAnswer(invocation -> {
+            assertThat(item.getNextAttemptAt()).isAfter(OffsetDateTime.now().plusSeconds(30));
+            return new NotificationBatchResponse(1, 0, List.of());
+        }).when(notificationsClient).sendBatch(anyList());
+
+        dispatcher.dispatch();
+
+        verify(notificationsClient).sendBatch(anyList());
+    }
+
+    @Test
+    void doublesBackoffUpToTheCap() {
+        assertThat(dispatcher.backoff(1)).isEqualTo(Duration.ofSeconds(1));
+        assertThat(dispatcher.backoff(3)).isEqualTo(Duration.ofSeconds(4));
+        assertThat(dispatcher.backoff(4)).isEqualTo(Duration.ofSeconds(5));
+        assertThat(dispatcher.backoff(40)).isEqualTo(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void doesNothingWhenOutboxEmpty() {
+        when(repository.lockDue(eq(OutboxStatus.PENDING), any(), any())).thenReturn(List.of());
+
+        assertThat(dispatcher.dispatch()).isZero();
+        verifyNoInteractions(notificationsClient);
+    }
+
+    private void givenDue(NotificationOutboxEntity... items) {
+        when(repository.lockDue(eq(OutboxStatus.PENDING), any(), any())).thenReturn(List.of(items));
+        when(repository.findAllById(anyList())).thenReturn(List.of(items));
+        when(notificationsClient.sendBatch(anyList())).thenReturn(new NotificationBatchResponse(items.length, 0, List.of()));
+    }
+
+    private NotificationOutboxEntity outboxItem(String recipient, String message) {
+        var entity = new NotificationOutboxEntity();
+        entity.setId(UUID.randomUUID());
+        entity.setEventType("EVENT");
+        entity.setRecipient(recipient);
+        entity.setMessage(message);
+        return entity;
+    }
+}
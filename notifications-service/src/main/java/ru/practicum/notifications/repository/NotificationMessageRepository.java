@@ -0,0 +1,100 @@
+package ru.practicum.notifications.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import ru.practicum.notifications.model.NotificationMessage;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Хранилище уведомлений в notifications.messages на чистом JDBC.
+ */
+@Repository
+public class NotificationMessageRepository {
+
+    /**
+     * 7 параметров на строку: 1000 строк укладываются в лимит PostgreSQL на число параметров запроса.
+     */
+    static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    private static final String INSERT_PREFIX = """
+            INSERT INTO notifications.messages (id, recipient, type, title, content, status, created_at, sent_at)
+            VALUES\s""";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, 'SENT', ?, ?)";
+    private static final int PARAMS_PER_ROW = 7;
+
+    private static final String SELECT_COLUMNS = """
+            SELECT id, recipient, type, content, created_at
+            FROM notifications.messages
+            """;
+
+    private static final RowMapper<NotificationMessage> ROW_MAPPER = (rs, rowNum) -> NotificationMessage.builder()
+            .id(rs.getObject("id", UUID.class))
+            .recipient(rs.getString("recipient"))
+            .type(rs.getString("type"))
+            .message(rs.getString("content"))
+            .createdAt(rs.getObject("created_at", OffsetDateTime.class))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public NotificationMessageRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Сохраняет сообщения многострочными INSERT, не больше {@link #MAX_ROWS_PER_STATEMENT} строк за запрос.
+     */
+    public void insertAll(List<NotificationMessage> messages) {
+        var sentAt = OffsetDateTime.now();
+        for (int from = 0; from < messages.size(); from += MAX_ROWS_PER_STATEMENT) {
+            var chunk = messages.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, messages.size()));
+            var args = new ArrayList<>(chunk.size() * PARAMS_PER_ROW);
+            for (NotificationMessage message : chunk) {
+                args.add(message.getId());
+                args.add(message.getRecipient());
+                args.add(message.getType());
+                args.add(message.getType());
+                args.add(message.getMessage());
+                args.add(message.getCreatedAt());
+                args.add(sentAt);
+            }
+            jdbcTemplate.update(insertSql(chunk.size()), args.toArray());
+        }
+    }
+
+    /**
+     * Страница сообщений пользователя от новых к старым. Следующая страница начинается строго
+     * после пары (createdAt, id) последнего элемента предыдущей — keyset по idx_messages_user.
+     */
+    public List<NotificationMessage> findPage(String recipient, OffsetDateTime beforeCreatedAt, UUID beforeId, int limit) {
+        if (beforeCreatedAt == null) {
+            return jdbcTemplate.query(SELECT_COLUMNS + """
+                    WHERE recipient = ?
+                    ORDER BY created_at DESC, id DESC
+                    LIMIT ?
+                    """, ROW_MAPPER, recipient, limit);
+        }
+        return jdbcTemplate.query(SELECT_COLUMNS + """
+                WHERE recipient = ? AND (created_at, id) < (?, ?)
+                ORDER BY created_at DESC, id DESC
+                LIMIT ?
+                """, ROW_MAPPER, recipient, beforeCreatedAt, beforeId, limit);
+    }
+
+    private static String insertSql(int rows) {
+        var sql = new StringBuilder(INSERT_PREFIX.length() + rows * (ROW_PLACEHOLDERS.length() + 2));
+        sql.append(INSERT_PREFIX);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW_PLACEHOLDERS);
+        }
+        return sql.toString();
+    }
+}
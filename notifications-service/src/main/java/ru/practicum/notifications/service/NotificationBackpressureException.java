@@ -0,0 +1,11 @@
+package ru.practicum.notifications.service;
+
+/**
+ * Буфер записи переполнен: отправителю стоит повторить запрос позже.
+ */
+public class NotificationBackpressureException extends RuntimeException {
+
+    public NotificationBackpressureException(String message) {
+        super(message);
+    }
+}
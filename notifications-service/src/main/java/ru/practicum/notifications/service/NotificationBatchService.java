@@ -0,0 +1,123 @@
+package ru.practicum.notifications.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import ru.practicum.notifications.web.dto.NotificationBatchResponse;
+import ru.practicum.notifications.web.dto.NotificationBatchResponse.ItemStatus;
+import ru.practicum.notifications.web.dto.NotificationBatchResponse.Status;
+import ru.practicum.notifications.web.dto.NotificationEventRequest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Пакетный прием событий: каждый элемент валидируется за один проход, ошибка в одном элементе
+ * не мешает остальным, а все валидные события передаются в буфер записи одной операцией.
+ */
+@Service
+@Slf4j
+public class NotificationBatchService {
+
+    private final NotificationService notificationService;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final int maxBatchSize;
+
+    public NotificationBatchService(NotificationService notificationService,
+                                    Validator validator,
+                                    ObjectMapper objectMapper,
+                                    @Value("${app.notifications.batch-max-size:5000}") int maxBatchSize) {
+        this.notificationService = notificationService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public NotificationBatchResponse acceptAll(List<NotificationEventRequest> events) {
+        if (events.size() > maxBatchSize) {
+            throw tooLarge();
+        }
+        var batch = new Batch(events.size());
+        events.forEach(batch::accept);
+        return batch.toResponse();
+    }
+
+    /**
+     * Принимает NDJSON: одно событие на строку, пустые строки пропускаются.
+     */
+    public NotificationBatchResponse acceptNdjson(Reader body) throws IOException {
+        var batch = new Batch(64);
+        try (var reader = new BufferedReader(body)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (batch.size() >= maxBatchSize) {
+                    throw tooLarge();
+                }
+                try {
+                    batch.accept(objectMapper.readValue(line, NotificationEventRequest.class));
+                } catch (JsonProcessingException ex) {
+                    batch.reject(List.of("malformed event"));
+                }
+            }
+        }
+        return batch.toResponse();
+    }
+
+    private ResponseStatusException tooLarge() {
+        return new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                "batch must not contain more than " + maxBatchSize + " events");
+    }
+
+    private final class Batch {
+
+        private final List<ItemStatus> items;
+        private final List<NotificationEventRequest> valid;
+
+        private Batch(int expectedSize) {
+            this.items = new ArrayList<>(expectedSize);
+            this.valid = new ArrayList<>(expectedSize);
+        }
+
+        int size() {
+            return items.size();
+        }
+
+        void accept(NotificationEventRequest event) {
+            if (event == null) {
+                reject(List.of("event is required"));
+                return;
+            }
+            var violations = validator.validate(event);
+            if (!violations.isEmpty()) {
+                reject(violations.stream().map(ConstraintViolation::getMessage).sorted().toList());
+                return;
+            }
+            valid.add(event);
+            items.add(new ItemStatus(items.size(), Status.ACCEPTED, List.of()));
+        }
+
+        void reject(List<String> errors) {
+            items.add(new ItemStatus(items.size(), Status.REJECTED, errors));
+        }
+
+        NotificationBatchResponse toResponse() {
+            notificationService.acceptAll(valid);
+            int accepted = valid.size();
+            log.debug("Notification batch processed: {} accepted, {} rejected", accepted, items.size() - accepted);
+            return new NotificationBatchResponse(accepted, items.size() - accepted, items);
+        }
+    }
+}
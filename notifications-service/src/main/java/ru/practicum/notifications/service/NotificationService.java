@@ -5,7 +5,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.practicum.notifications.mapper.NotificationMapper;
 import ru.practicum.notifications.model.NotificationMessage;
+import ru.practicum.notifications.repository.NotificationMessageRepository;
 import ru.practicum.notifications.web.dto.NotificationEventRequest;
+import ru.practicum.notifications.web.dto.NotificationPageResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
 
 /**
  * Бизнес-логика обработки уведомлений.
@@ -15,15 +23,74 @@ import ru.practicum.notifications.web.dto.NotificationEventRequest;
 @Slf4j
 public class NotificationService {
 
+    static final int MAX_PAGE_SIZE = 100;
+
     private final NotificationMapper notificationMapper;
+    private final NotificationWriteBuffer writeBuffer;
+    private final NotificationMessageRepository repository;
 
     public void accept(NotificationEventRequest request) {
         NotificationMessage message = notificationMapper.toMessage(request);
-        log.info("Notification event id={} type={} recipient={} message={}",
+        log.debug("Notification event id={} type={} recipient={}",
                 message.getId(),
                 message.getType(),
-                message.getRecipient(),
-                message.getMessage());
-        log.debug("Notification processed at {}", message.getCreatedAt());
+                message.getRecipient());
+        writeBuffer.enqueue(message);
+    }
+
+    /**
+     * Принимает уже провалидированные события одной операцией: либо все попадают в буфер, либо ни одно.
+     */
+    public void acceptAll(List<NotificationEventRequest> requests) {
+        writeBuffer.enqueueAll(requests.stream().map(notificationMapper::toMessage).toList());
+    }
+
+    public NotificationPageResponse getMessages(String recipient, String cursor, int limit) {
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        List<NotificationMessage> page;
+        if (cursor == null || cursor.isBlank()) {
+            page = repository.findPage(recipient, null, null, pageSize);
+        } else {
+            Cursor position = Cursor.decode(cursor);
+            page = repository.findPage(recipient, position.createdAt(), position.id(), pageSize);
+        }
+        String nextCursor = page.size() < pageSize
+                ? null
+                : Cursor.of(page.getLast()).encode();
+        var items = page.stream()
+                .map(message -> new NotificationPageResponse.Item(
+                        message.getId(),
+                        message.getType(),
+                        message.getMessage(),
+                        message.getCreatedAt()))
+                .toList();
+        return new NotificationPageResponse(items, nextCursor);
+    }
+
+    /**
+     * Непрозрачный курсор страницы: позиция последнего отданного сообщения.
+     */
+    record Cursor(OffsetDateTime createdAt, UUID id) {
+
+        static Cursor of(NotificationMessage message) {
+            return new Cursor(message.getCreatedAt(), message.getId());
+        }
+
+        static Cursor decode(String value) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                return new Cursor(
+                        OffsetDateTime.parse(raw.substring(0, separator)),
+                        UUID.fromString(raw.substring(separator + 1)));
+            } catch (RuntimeException ex) {
+                throw new IllegalArgumentException("Invalid cursor", ex);
+            }
+        }
+
+        String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
     }
 }
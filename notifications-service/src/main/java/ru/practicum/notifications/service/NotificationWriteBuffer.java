@@ -0,0 +1,213 @@
+package ru.practicum.notifications.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import ru.practicum.notifications.model.NotificationMessage;
+import ru.practicum.notifications.repository.NotificationMessageRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограниченный буфер записи уведомлений.
+ * Принятые сообщения копятся в очереди, отдельный поток сбрасывает их в БД пачками,
+ * когда набралось batch-size сообщений или прошло flush-interval с первого из них.
+ * Ёмкость учитывает и сообщения, которые сейчас пишутся: если места нет дольше offer-timeout,
+ * приём отклоняется {@link NotificationBackpressureException}. При ошибке БД пачка повторяется
+ * с нарастающей паузой, поэтому при недоступной БД буфер заполняется и давит на отправителей.
+ * Если пачку отвергли ограничения таблицы, она делится пополам, пока не останутся отдельные
+ * плохие строки: они отбрасываются, остальные сохраняются.
+ */
+@Component
+@Slf4j
+public class NotificationWriteBuffer {
+
+    private static final long MAX_RETRY_BACKOFF_MS = 5_000;
+    private static final long IDLE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final NotificationMessageRepository repository;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Duration offerTimeout;
+    private final BlockingQueue<NotificationMessage> queue = new LinkedBlockingQueue<>();
+    private final Semaphore capacity;
+    private final CountDownLatch stopSignal = new CountDownLatch(1);
+    private final Counter persisted;
+    private final Counter rejected;
+    private final Counter dropped;
+    private final Timer flushTimer;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public NotificationWriteBuffer(NotificationMessageRepository repository,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.notifications.store.queue-capacity:20000}") int queueCapacity,
+                                   @Value("${app.notifications.store.batch-size:500}") int batchSize,
+                                   @Value("${app.notifications.store.flush-interval:200ms}") Duration flushInterval,
+                                   @Value("${app.notifications.store.offer-timeout:50ms}") Duration offerTimeout) {
+        this.repository = repository;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.offerTimeout = offerTimeout;
+        this.capacity = new Semaphore(queueCapacity);
+        this.persisted = meterRegistry.counter("notifications.store.persisted");
+        this.rejected = meterRegistry.counter("notifications.store.rejected");
+        this.dropped = meterRegistry.counter("notifications.store.dropped");
+        this.flushTimer = meterRegistry.timer("notifications.store.flush");
+        Gauge.builder("notifications.store.pending", this, NotificationWriteBuffer::pending)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher = Thread.ofPlatform().name("notifications-flusher").daemon().start(this::flushLoop);
+    }
+
+    /**
+     * Останавливает приём и дописывает всё, что уже в очереди.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        stopSignal.countDown();
+        if (flusher != null) {
+            flusher.join(flushInterval.multipliedBy(10).toMillis() + MAX_RETRY_BACKOFF_MS);
+        }
+    }
+
+    public void enqueue(NotificationMessage message) {
+        enqueueAll(List.of(message));
+    }
+
+    /**
+     * Ставит сообщения в очередь целиком или не ставит ни одного.
+     */
+    public void enqueueAll(List<NotificationMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        if (!running) {
+            throw new NotificationBackpressureException("Notification store is shutting down");
+        }
+        boolean acquired;
+        try {
+            acquired = capacity.tryAcquire(messages.size(), offerTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment(messages.size());
+            throw new NotificationBackpressureException("Notification store is overloaded, retry later");
+        }
+        queue.addAll(messages);
+    }
+
+    public int pending() {
+        return queueCapacity - capacity.availablePermits();
+    }
+
+    private void flushLoop() {
+        List<NotificationMessage> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                NotificationMessage first = queue.poll(IDLE_POLL_NANOS, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fillBatch(batch);
+                flush(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                log.error("Notification flusher failed, continuing", ex);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void fillBatch(List<NotificationMessage> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + flushInterval.toNanos();
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            NotificationMessage next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<NotificationMessage> batch) throws InterruptedException {
+        long backoffMs = 100;
+        while (true) {
+            try {
+                flushTimer.record(() -> repository.insertAll(batch));
+                persisted.increment(batch.size());
+                capacity.release(batch.size());
+                return;
+            } catch (DataIntegrityViolationException ex) {
+                splitAndFlush(batch, ex);
+                return;
+            } catch (DataAccessException ex) {
+                if (!running) {
+                    log.error("Dropping {} notifications on shutdown: {}", batch.size(), ex.getMessage());
+                    dropped.increment(batch.size());
+                    capacity.release(batch.size());
+                    return;
+                }
+                log.warn("Failed to persist {} notifications, retrying in {} ms: {}",
+                        batch.size(), backoffMs, ex.getMessage());
+                stopSignal.await(backoffMs, TimeUnit.MILLISECONDS);
+                backoffMs = Math.min(backoffMs * 2, MAX_RETRY_BACKOFF_MS);
+            } catch (RuntimeException ex) {
+                drop(batch, ex);
+                return;
+            }
+        }
+    }
+
+    private void splitAndFlush(List<NotificationMessage> batch, DataIntegrityViolationException ex)
+            throws InterruptedException {
+        if (batch.size() == 1) {
+            drop(batch, ex);
+            return;
+        }
+        int middle = batch.size() / 2;
+        flush(batch.subList(0, middle));
+        flush(batch.subList(middle, batch.size()));
+    }
+
+    private void drop(List<NotificationMessage> batch, RuntimeException ex) {
+        log.error("Dropping {} notifications that cannot be stored (first id {}): {}",
+                batch.size(), batch.getFirst().getId(), ex.getMessage());
+        dropped.increment(batch.size());
+        capacity.release(batch.size());
+    }
+}
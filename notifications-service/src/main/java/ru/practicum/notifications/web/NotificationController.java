@@ -1,14 +1,27 @@
 package ru.practicum.notifications.web;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.notifications.service.NotificationBatchService;
 import ru.practicum.notifications.service.NotificationService;
+import ru.practicum.notifications.web.dto.NotificationBatchResponse;
 import ru.practicum.notifications.web.dto.NotificationEventRequest;
+import ru.practicum.notifications.web.dto.NotificationPageResponse;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 /**
  * REST-ручки приема уведомлений.
@@ -19,10 +32,29 @@ import ru.practicum.notifications.web.dto.NotificationEventRequest;
 public class NotificationController {
 
     private final NotificationService notificationService;
+    private final NotificationBatchService notificationBatchService;
 
     @PostMapping("/events")
     public ResponseEntity<Void> publish(@RequestBody @Valid NotificationEventRequest request) {
         notificationService.accept(request);
         return ResponseEntity.accepted().build();
     }
+
+    @PostMapping(path = "/events:batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<NotificationBatchResponse> publishBatch(@RequestBody List<NotificationEventRequest> requests) {
+        return ResponseEntity.accepted().body(notificationBatchService.acceptAll(requests));
+    }
+
+    @PostMapping(path = "/events:batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<NotificationBatchResponse> publishNdjson(HttpServletRequest request) throws IOException {
+        var body = new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8);
+        return ResponseEntity.accepted().body(notificationBatchService.acceptNdjson(body));
+    }
+
+    @GetMapping("/users/{login}/messages")
+    public NotificationPageResponse messages(@PathVariable String login,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(defaultValue = "20") int limit) {
+        return notificationService.getMessages(login, cursor, limit);
+    }
 }
@@ -0,0 +1,29 @@
+package ru.practicum.notifications.web;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import ru.practicum.notifications.service.NotificationBackpressureException;
+
+import java.util.List;
+
+/**
+ * Обработчик ошибок REST-слоя.
+ */
+@RestControllerAdvice
+public class RestExceptionHandler {
+
+    @ExceptionHandler(NotificationBackpressureException.class)
+    public ResponseEntity<List<String>> handleBackpressure(NotificationBackpressureException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(List.of(ex.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<List<String>> handleIllegalArgument(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body(List.of(ex.getMessage()));
+    }
+}
@@ -0,0 +1,25 @@
+package ru.practicum.notifications.web.dto;
+
+import java.util.List;
+
+/**
+ * Результат пакетного приема событий: итоги и статус каждого элемента по его позиции в пакете.
+ */
+public record NotificationBatchResponse(
+        int accepted,
+        int rejected,
+        List<ItemStatus> items
+) {
+
+    public record ItemStatus(
+            int index,
+            Status status,
+            List<String> errors
+    ) {
+    }
+
+    public enum Status {
+        ACCEPTED,
+        REJECTED
+    }
+}
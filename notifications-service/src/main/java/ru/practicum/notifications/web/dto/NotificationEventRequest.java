@@ -1,14 +1,17 @@
 package ru.practicum.notifications.web.dto;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 
 /**
- * Входящее событие для уведомления.
+ * Входящее событие для уведомления. Ограничения длины совпадают с колонками notifications.messages.
  */
 public record NotificationEventRequest(
         @NotBlank(message = "type is required")
+        @Size(max = 50, message = "type must be at most 50 characters")
         String type,
         @NotBlank(message = "recipient is required")
+        @Size(max = 50, message = "recipient must be at most 50 characters")
         String recipient,
         @NotBlank(message = "message is required")
         String message
@@ -0,0 +1,22 @@
+package ru.practicum.notifications.web.dto;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Страница сообщений пользователя; nextCursor равен null, если страниц больше нет.
+ */
+public record NotificationPageResponse(
+        List<Item> items,
+        String nextCursor
+) {
+
+    public record Item(
+            UUID id,
+            String type,
+            String message,
+            OffsetDateTime createdAt
+    ) {
+    }
+}
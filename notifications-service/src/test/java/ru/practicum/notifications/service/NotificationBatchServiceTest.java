@@ -0,0 +1,65 @@
+package ru.practicum.notifications.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import ru.practicum.notifications.web.dto.NotificationBatchResponse.Status;
+import ru.practicum.notifications.web.dto.NotificationEventRequest;
+
+class NotificationBatchServiceTest {
+
+    private NotificationService notificationService;
+    private NotificationBatchService service;
+
+    @BeforeEach
+    void setUp() {
+        notificationService = mock(NotificationService.class);
+        service = new NotificationBatchService(
+                notificationService,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                new ObjectMapper(),
+                2
+        );
+    }
+
+    @Test
+    void rejectsNullItemsWithoutFailingBatch() {
+        var result = service.acceptAll(Arrays.asList(new NotificationEventRequest("T", "alice", "hi"), null));
+
+        assertThat(result.accepted()).isEqualTo(1);
+        assertThat(result.items()).extracting(item -> item.status()).containsExactly(Status.ACCEPTED, Status.REJECTED);
+        verify(notificationService).acceptAll(List.of(new NotificationEventRequest("T", "alice", "hi")));
+    }
+
+    @Test
+    void rejectsOversizedBatchBeforeProcessing() {
+        var event = new NotificationEventRequest("T", "alice", "hi");
+
+        assertThatThrownBy(() -> service.acceptAll(List.of(event, event, event)))
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting(ex -> ((ResponseStatusException) ex).getStatusCode())
+                .isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+        verify(notificationService, never()).acceptAll(any());
+    }
+
+    @Test
+    void limitsNdjsonStreamSize() {
+        String body = "{\"type\":\"T\",\"recipient\":\"a\",\"message\":\"m\"}\n".repeat(3);
+
+        assertThatThrownBy(() -> service.acceptNdjson(new StringReader(body)))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+}
@@ -1,10 +1,13 @@
 package ru.practicum.notifications.service;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,6 +15,7 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import ru.practicum.notifications.mapper.NotificationMapper;
 import ru.practicum.notifications.model.NotificationMessage;
+import ru.practicum.notifications.repository.NotificationMessageRepository;
 import ru.practicum.notifications.web.dto.NotificationEventRequest;
 
 class NotificationServiceTest {
@@ -19,12 +23,18 @@ class NotificationServiceTest {
     @Mock
     private NotificationMapper mapper;
 
+    @Mock
+    private NotificationWriteBuffer writeBuffer;
+
+    @Mock
+    private NotificationMessageRepository repository;
+
     private NotificationService service;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        service = new NotificationService(mapper);
+        service = new NotificationService(mapper, writeBuffer, repository);
     }
 
     @Test
@@ -41,5 +51,34 @@ class NotificationServiceTest {
 
         assertThatCode(() -> service.accept(request)).doesNotThrowAnyException();
         verify(mapper).toMessage(request);
+        verify(writeBuffer).enqueue(message);
+    }
+
+    @Test
+    void getMessagesReturnsCursorThatResumesAfterLastItem() {
+        var createdAt = OffsetDateTime.parse("2025-01-01T10:00:00.123456Z");
+        var last = NotificationMessage.builder()
+                .id(UUID.randomUUID())
+                .type("TYPE")
+                .recipient("alice")
+                .message("text")
+                .createdAt(createdAt)
+                .build();
+        when(repository.findPage("alice", null, null, 1)).thenReturn(List.of(last));
+        when(repository.findPage("alice", createdAt, last.getId(), 1)).thenReturn(List.of());
+
+        var first = service.getMessages("alice", null, 1);
+        var second = service.getMessages("alice", first.nextCursor(), 1);
+
+        assertThat(first.items()).hasSize(1);
+        assertThat(first.nextCursor()).isNotNull();
+        assertThat(second.items()).isEmpty();
+        assertThat(second.nextCursor()).isNull();
+    }
+
+    @Test
+    void getMessagesRejectsBrokenCursor() {
+        assertThatThrownBy(() -> service.getMessages("alice", "???", 10))
+                .isInstanceOf(IllegalArgumentException.class);
     }
 }
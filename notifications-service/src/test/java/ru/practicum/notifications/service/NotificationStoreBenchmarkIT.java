@@ -0,0 +1,87 @@
+package ru.practicum.notifications.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.practicum.notifications.model.NotificationMessage;
+import ru.practicum.notifications.repository.NotificationMessageRepository;
+
+/**
+ * Нагрузочный прогон буфера записи на настоящем PostgreSQL.
+ * Продюсер держит постоянный темп {@code benchmark.notifications.target-eps} событий в секунду
+ * в течение {@code benchmark.notifications.duration-seconds}; тест проверяет, что всё записано
+ * без отказов по backpressure и итоговая пропускная способность не ниже цели.
+ * Запуск: {@code mvn -pl notifications-service verify -Dit.test=NotificationStoreBenchmarkIT}
+ * (или из IDE).
+ */
+@Testcontainers
+class NotificationStoreBenchmarkIT {
+
+    private static final int TARGET_EPS = Integer.getInteger("benchmark.notifications.target-eps", 5_000);
+    private static final int DURATION_SECONDS = Integer.getInteger("benchmark.notifications.duration-seconds", 10);
+    private static final int TICK_MS = 10;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES =
+            new PostgreSQLContainer<>("postgres:16-alpine")
+                    .withDatabaseName("bank")
+                    .withUsername("bank")
+                    .withPassword("bank");
+
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void createSchema() {
+        var dataSource = new DriverManagerDataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void sustainsTargetRate() throws InterruptedException {
+        var meterRegistry = new SimpleMeterRegistry();
+        var buffer = new NotificationWriteBuffer(new NotificationMessageRepository(jdbcTemplate), meterRegistry,
+                20_000, 500, Duration.ofMillis(200), Duration.ofMillis(50));
+        buffer.start();
+
+        int perTick = Math.max(1, TARGET_EPS * TICK_MS / 1000);
+        int ticks = DURATION_SECONDS * 1000 / TICK_MS;
+        long started = System.nanoTime();
+        for (int tick = 0; tick < ticks; tick++) {
+            List<NotificationMessage> events = NotificationWriteBufferTest.messages(perTick);
+            buffer.enqueueAll(events);
+            long nextTick = started + Duration.ofMillis((long) (tick + 1) * TICK_MS).toNanos();
+            long sleepNanos = nextTick - System.nanoTime();
+            if (sleepNanos > 0) {
+                Thread.sleep(Duration.ofNanos(sleepNanos));
+            }
+        }
+        buffer.stop();
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+        long expected = (long) perTick * ticks;
+        Long stored = jdbcTemplate.queryForObject("SELECT count(*) FROM notifications.messages", Long.class);
+        double eps = stored / elapsedSeconds;
+        var flush = meterRegistry.timer("notifications.store.flush");
+        System.out.printf("notifications store: %d events in %.1fs = %.0f events/s, %d flushes, mean flush %.1f ms, max %.1f ms%n",
+                stored, elapsedSeconds, eps, flush.count(),
+                flush.mean(TimeUnit.MILLISECONDS),
+                flush.max(TimeUnit.MILLISECONDS));
+
+        assertThat(stored).isEqualTo(expected);
+        assertThat(meterRegistry.counter("notifications.store.rejected").count()).isZero();
+        assertThat(eps).isGreaterThanOrEqualTo(TARGET_EPS * 0.9);
+    }
+}
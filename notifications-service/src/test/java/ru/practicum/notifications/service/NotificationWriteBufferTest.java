@@ -0,0 +1,166 @@
+package ru.practicum.notifications.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import ru.practicum.notifications.model.NotificationMessage;
+import ru.practicum.notifications.repository.NotificationMessageRepository;
+
+class NotificationWriteBufferTest {
+
+    private final NotificationMessageRepository repository = mock(NotificationMessageRepository.class);
+    private final List<Integer> flushedBatchSizes = new CopyOnWriteArrayList<>();
+    private NotificationWriteBuffer buffer;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (buffer != null) {
+            buffer.stop();
+        }
+    }
+
+    @Test
+    void flushesFullBatchesBySize() throws InterruptedException {
+        var flushed = recordFlushes(2);
+        buffer = start(100, 5, Duration.ofSeconds(10));
+
+        buffer.enqueueAll(messages(10));
+
+        assertThat(flushed.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(flushedBatchSizes).containsExactly(5, 5);
+    }
+
+    @Test
+    void flushesPartialBatchAfterInterval() throws InterruptedException {
+        var flushed = recordFlushes(1);
+        buffer = start(100, 50, Duration.ofMillis(100));
+
+        buffer.enqueue(messages(1).getFirst());
+
+        assertThat(flushed.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(flushedBatchSizes).containsExactly(1);
+    }
+
+    @Test
+    void rejectsWhenFullAndKeepsMessagesWhileStoreIsDown() {
+        doAnswer(inv -> {
+            throw new TransientDataAccessResourceException("db down");
+        }).when(repository).insertAll(anyList());
+        buffer = start(3, 10, Duration.ofMillis(20));
+
+        buffer.enqueueAll(messages(3));
+
+        assertThatThrownBy(() -> buffer.enqueue(messages(1).getFirst()))
+                .isInstanceOf(NotificationBackpressureException.class);
+        assertThat(buffer.pending()).isEqualTo(3);
+    }
+
+    @Test
+    void enqueueAllIsAllOrNothing() {
+        doAnswer(inv -> {
+            throw new TransientDataAccessResourceException("db down");
+        }).when(repository).insertAll(anyList());
+        buffer = start(4, 10, Duration.ofMillis(20));
+        buffer.enqueueAll(messages(3));
+
+        assertThatThrownBy(() -> buffer.enqueueAll(messages(2)))
+                .isInstanceOf(NotificationBackpressureException.class);
+        assertThat(buffer.pending()).isEqualTo(3);
+    }
+
+    @Test
+    void dropsOnlyRowsRejectedByTableConstraints() throws InterruptedException {
+        List<NotificationMessage> stored = new CopyOnWriteArrayList<>();
+        doAnswer(inv -> {
+            List<NotificationMessage> batch = inv.getArgument(0);
+            if (batch.stream().anyMatch(message -> message.getRecipient().length() > 50)) {
+                throw new DataIntegrityViolationException("value too long for type character varying(50)");
+            }
+            stored.addAll(batch);
+            return null;
+        }).when(repository).insertAll(anyList());
+        var tooLong = NotificationMessage.builder()
+                .id(UUID.randomUUID())
+                .type("CASH_DEPOSIT")
+                .recipient("x".repeat(51))
+                .message("bad")
+                .createdAt(OffsetDateTime.now())
+                .build();
+        var good = messages(5);
+        buffer = start(100, 10, Duration.ofMillis(50));
+
+        buffer.enqueueAll(List.of(good.get(0), good.get(1), tooLong, good.get(2), good.get(3), good.get(4)));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (buffer.pending() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(buffer.pending()).isZero();
+        assertThat(stored).containsExactlyInAnyOrderElementsOf(good);
+    }
+
+    @Test
+    void keepsFlushingAfterUnexpectedError() throws InterruptedException {
+        var flushed = new CountDownLatch(1);
+        doAnswer(inv -> {
+            throw new IllegalStateException("boom");
+        }).doAnswer(inv -> {
+            flushed.countDown();
+            return null;
+        }).when(repository).insertAll(anyList());
+        buffer = start(100, 10, Duration.ofMillis(20));
+
+        buffer.enqueue(messages(1).getFirst());
+        Thread.sleep(100);
+        buffer.enqueue(messages(1).getFirst());
+
+        assertThat(flushed.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(buffer.pending()).isZero();
+    }
+
+    private CountDownLatch recordFlushes(int expected) {
+        var latch = new CountDownLatch(expected);
+        doAnswer(inv -> {
+            List<NotificationMessage> batch = inv.getArgument(0);
+            flushedBatchSizes.add(batch.size());
+            latch.countDown();
+            return null;
+        }).when(repository).insertAll(anyList());
+        return latch;
+    }
+
+    private NotificationWriteBuffer start(int capacity, int batchSize, Duration flushInterval) {
+        var writeBuffer = new NotificationWriteBuffer(repository, new SimpleMeterRegistry(),
+                capacity, batchSize, flushInterval, Duration.ofMillis(20));
+        writeBuffer.start();
+        return writeBuffer;
+    }
+
+    static List<NotificationMessage> messages(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> NotificationMessage.builder()
+                        .id(UUID.randomUUID())
+                        .type("CASH_DEPOSIT")
+                        .recipient("user-" + (i % 50))
+                        .message("message " + i)
+                        .createdAt(OffsetDateTime.now())
+                        .build())
+                .toList();
+    }
+}
@@ -5,19 +5,35 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.notifications.service.NotificationBackpressureException;
+import ru.practicum.notifications.service.NotificationBatchService;
 import ru.practicum.notifications.service.NotificationService;
+import ru.practicum.notifications.web.dto.NotificationPageResponse;
 
+import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 
 @WebMvcTest(NotificationController.class)
 @AutoConfigureMockMvc(addFilters = false)
+@Import(NotificationBatchService.class)
 class NotificationControllerTest {
 
     @Autowired
@@ -52,4 +68,80 @@ class NotificationControllerTest {
                         .content(objectMapper.writeValueAsBytes(Map.of("type", "", "recipient", "", "message", ""))))
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    void rejectsRecipientLongerThanColumn() throws Exception {
+        mockMvc.perform(post("/api/notifications/events")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsBytes(
+                                Map.of("type", "CASH_DEPOSIT", "recipient", "x".repeat(51), "message", "m"))))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    void acceptsJsonBatchWithPerItemStatus() throws Exception {
+        var payload = List.of(
+                Map.of("type", "CASH_DEPOSIT", "recipient", "alice", "message", "ok"),
+                Map.of("type", "", "recipient", "bob", "message", "bad"),
+                Map.of("type", "TRANSFER_IN", "recipient", "bob", "message", "ok")
+        );
+
+        mockMvc.perform(post("/api/notifications/events:batch")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsBytes(payload)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.items[1].status").value("REJECTED"))
+                .andExpect(jsonPath("$.items[1].errors[0]").value("type is required"))
+                .andExpect(jsonPath("$.items[2].status").value("ACCEPTED"));
+
+        verify(notificationService).acceptAll(argThat(events -> events.size() == 2));
+    }
+
+    @Test
+    void acceptsNdjsonBatch() throws Exception {
+        String body = """
+                {"type":"CASH_DEPOSIT","recipient":"alice","message":"ok"}
+                not-json
+
+                {"type":"CASH_WITHDRAW","recipient":"alice","message":"ok"}
+                """;
+
+        mockMvc.perform(post("/api/notifications/events:batch")
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.items[1].status").value("REJECTED"))
+                .andExpect(jsonPath("$.items[1].errors[0]").value("malformed event"));
+
+        verify(notificationService).acceptAll(argThat(events -> events.size() == 2));
+    }
+
+    @Test
+    void rejectsWithServiceUnavailableWhenStoreIsFull() throws Exception {
+        doThrow(new NotificationBackpressureException("overloaded")).when(notificationService).accept(any());
+
+        mockMvc.perform(post("/api/notifications/events")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsBytes(Map.of("type", "T", "recipient", "alice", "message", "m"))))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
+    @Test
+    void returnsUserMessagesPage() throws Exception {
+        when(notificationService.getMessages("alice", null, 20)).thenReturn(new NotificationPageResponse(
+                List.of(new NotificationPageResponse.Item(UUID.randomUUID(), "CASH_DEPOSIT", "hi", OffsetDateTime.now())),
+                "next"
+        ));
+
+        mockMvc.perform(get("/api/notifications/users/alice/messages"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].type").value("CASH_DEPOSIT"))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
 }
@@ -0,0 +1,14 @@
+CREATE SCHEMA IF NOT EXISTS notifications;
+
+CREATE TABLE IF NOT EXISTS notifications.messages (
+    id          UUID PRIMARY KEY,
+    recipient   VARCHAR(50) NOT NULL,
+    type        VARCHAR(50) NOT NULL,
+    title       VARCHAR(255) NOT NULL,
+    content     TEXT        NOT NULL,
+    status      VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    created_at  TIMESTAMPTZ NOT NULL DEFAULT now(),
+    sent_at     TIMESTAMPTZ
+);
+
+CREATE INDEX IF NOT EXISTS idx_messages_user ON notifications.messages(recipient, created_at, id);
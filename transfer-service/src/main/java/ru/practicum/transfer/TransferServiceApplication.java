@@ -2,11 +2,13 @@ package ru.practicum.transfer;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Точка входа transfer-service.
  */
 @SpringBootApplication
+@EnableScheduling
 public class TransferServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(TransferServiceApplication.class, args);
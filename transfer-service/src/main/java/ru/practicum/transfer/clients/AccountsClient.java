@@ -5,16 +5,20 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
+import ru.practicum.http.PooledHttpClientFactory;
 import ru.practicum.transfer.clients.dto.AccountDetails;
-import ru.practicum.transfer.clients.dto.BalanceAdjustmentCommand;
+import ru.practicum.transfer.clients.dto.AccountTransferCommand;
+import ru.practicum.transfer.clients.dto.AccountTransferResult;
 
 import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * HTTP-клиент сервиса аккаунтов.
@@ -28,24 +32,34 @@ public class AccountsClient {
 
     public AccountsClient(@Value("${accounts.base-url:http://accounts-service:8082}") String baseUrl,
                           @Value("${accounts.connect-timeout:500}") long connectTimeoutMs,
-                          @Value("${accounts.read-timeout:2000}") long readTimeoutMs) {
-        var factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(Duration.ofMillis(connectTimeoutMs));
-        factory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+                          @Value("${accounts.read-timeout:2000}") long readTimeoutMs,
+                          PooledHttpClientFactory httpClients) {
         this.restClient = RestClient.builder()
-                .requestFactory(factory)
+                .requestFactory(httpClients.requestFactory(
+                        "accounts", Duration.ofMillis(connectTimeoutMs), Duration.ofMillis(readTimeoutMs)))
                 .baseUrl(baseUrl)
                 .build();
     }
 
-    public AccountDetails getAccountDetails(String login) {
+    /**
+     * Загружает реквизиты нескольких пользователей одним запросом; ключ — логин.
+     * Отсутствующие пользователи в результат не попадают.
+     */
+    public Map<String, AccountDetails> getAccountDetails(Collection<String> logins) {
         try {
-            return restClient.get()
-                    .uri("/api/accounts/internal/users/{login}", login)
+            AccountDetails[] details = restClient.get()
+                    .uri(uri -> uri.path("/api/accounts/internal/users")
+                            .queryParam("login", logins.toArray())
+                            .build())
                     .retrieve()
-                    .body(AccountDetails.class);
-        } catch (HttpClientErrorException.NotFound ex) {
-            throw new AccountsClientException("Пользователь '%s' не найден".formatted(login), ex);
+                    .body(AccountDetails[].class);
+            Map<String, AccountDetails> byLogin = new HashMap<>();
+            if (details != null) {
+                for (AccountDetails account : details) {
+                    byLogin.put(account.login(), account);
+                }
+            }
+            return byLogin;
         } catch (HttpClientErrorException ex) {
             throw new AccountsClientException(extractErrorMessage(ex), ex);
         } catch (RestClientException ex) {
@@ -54,19 +68,25 @@ public class AccountsClient {
         }
     }
 
-    public AccountDetails adjustBalance(String login, BalanceAdjustmentCommand command) {
+    /**
+     * Списывает и зачисляет средства одной локальной транзакцией на стороне сервиса аккаунтов.
+     *
+     * @throws AccountsClientException      сервис аккаунтов отклонил перевод, балансы не менялись
+     * @throws AccountsUnavailableException ответа нет, перевод мог как примениться, так и нет
+     */
+    public AccountTransferResult transfer(AccountTransferCommand command) {
         try {
             return restClient.post()
-                    .uri("/api/accounts/internal/users/{login}/balance", login)
+                    .uri("/api/accounts/internal/transfers")
                     .contentType(MediaType.APPLICATION_JSON)
                     .body(command)
                     .retrieve()
-                    .body(AccountDetails.class);
+                    .body(AccountTransferResult.class);
         } catch (HttpClientErrorException ex) {
             throw new AccountsClientException(extractErrorMessage(ex), ex);
         } catch (RestClientException ex) {
             log.error("Accounts service unavailable: {}", ex.getMessage());
-            throw new AccountsClientException("Сервис аккаунтов недоступен", ex);
+            throw new AccountsUnavailableException("Сервис аккаунтов недоступен", ex);
         }
     }
 
@@ -94,4 +114,13 @@ public class AccountsClient {
             super(message, cause);
         }
     }
+
+    /**
+     * Сервис аккаунтов не ответил: итог операции неизвестен, её можно повторить.
+     */
+    public static class AccountsUnavailableException extends AccountsClientException {
+        public AccountsUnavailableException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
 }
@@ -4,19 +4,34 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
+import ru.practicum.http.PooledHttpClientFactory;
 import ru.practicum.transfer.clients.dto.BlockCheckRequest;
 import ru.practicum.transfer.clients.dto.BlockCheckResponse;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Клиент blocker-service. Недоступный blocker (сетевая ошибка, 5xx) не останавливает переводы:
+ * они разрешаются по умолчанию. Ответ 4xx означает, что blocker отверг сам запрос проверки,
+ * и такой перевод отклоняется.
+ */
 @Component
 @Slf4j
 public class BlockerClient {
 
+    static final String INVALID_CHECK_MESSAGE = "Перевод не прошёл проверку";
+
     private final RestClient client;
 
-    public BlockerClient(@Value("${app.blocker-base-url:http://blocker-service:8088}") String baseUrl) {
+    public BlockerClient(@Value("${app.blocker-base-url:http://blocker-service:8088}") String baseUrl,
+                         PooledHttpClientFactory httpClients) {
         this.client = RestClient.builder()
+                .requestFactory(httpClients.requestFactory("blocker"))
                 .baseUrl(baseUrl)
                 .build();
     }
@@ -29,9 +44,37 @@ public class BlockerClient {
                     .body(request)
                     .retrieve()
                     .body(BlockCheckResponse.class);
+        } catch (HttpClientErrorException ex) {
+            log.error("Blocker rejected check request, deny: {}", ex.getMessage());
+            return new BlockCheckResponse(false, INVALID_CHECK_MESSAGE);
         } catch (RestClientException ex) {
             log.warn("Blocker unavailable, allow by default: {}", ex.getMessage());
             return new BlockCheckResponse(true, null);
         }
     }
+
+    /**
+     * Проверяет пачку переводов одним запросом; решения возвращаются в порядке запросов.
+     */
+    public List<BlockCheckResponse> checkAll(List<BlockCheckRequest> requests) {
+        try {
+            BlockCheckResponse[] responses = client.post()
+                    .uri("/api/blocker/checks")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of("checks", requests))
+                    .retrieve()
+                    .body(BlockCheckResponse[].class);
+            if (responses != null && responses.length == requests.size()) {
+                return List.of(responses);
+            }
+            log.warn("Blocker returned {} decisions for {} checks, allow by default",
+                    responses == null ? 0 : responses.length, requests.size());
+        } catch (HttpClientErrorException ex) {
+            log.error("Blocker rejected check request, deny: {}", ex.getMessage());
+            return Collections.nCopies(requests.size(), new BlockCheckResponse(false, INVALID_CHECK_MESSAGE));
+        } catch (RestClientException ex) {
+            log.warn("Blocker unavailable, allow by default: {}", ex.getMessage());
+        }
+        return Collections.nCopies(requests.size(), new BlockCheckResponse(true, null));
+    }
 }
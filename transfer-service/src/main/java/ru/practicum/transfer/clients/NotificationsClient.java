@@ -1,66 +0,0 @@
-package ru.practicum.transfer.clients;
-
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.MediaType;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
-import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestClient;
-import org.springframework.web.client.RestClientException;
-
-import java.math.BigDecimal;
-import java.time.Duration;
-import java.util.Map;
-
-/**
- * HTTP-клиент сервиса уведомлений.
- */
-@Component
-@Slf4j
-public class NotificationsClient {
-
-    private final RestClient restClient;
-    private final boolean enabled;
-
-    public NotificationsClient(@Value("${notifications.base-url:http://notifications-service:8084}") String baseUrl,
-                               @Value("${notifications.enabled:true}") boolean enabled) {
-        var factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(Duration.ofMillis(500));
-        factory.setReadTimeout(Duration.ofMillis(1500));
-        this.restClient = RestClient.builder()
-                .requestFactory(factory)
-                .baseUrl(baseUrl)
-                .build();
-        this.enabled = enabled;
-    }
-
-    public void sendTransferOut(String login, String receiver, BigDecimal amount, String currency) {
-        send(login, "TRANSFER_OUT",
-                "Вы перевели %s %s пользователю %s".formatted(amount, currency, receiver));
-    }
-
-    public void sendTransferIn(String login, String sender, BigDecimal amount, String currency) {
-        send(login, "TRANSFER_IN",
-                "На ваш счёт поступило %s %s от %s".formatted(amount, currency, sender));
-    }
-
-    private void send(String login, String type, String message) {
-        if (!enabled) {
-            return;
-        }
-        try {
-            restClient.post()
-                    .uri("/api/notifications/events")
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body(Map.of(
-                            "type", type,
-                            "recipient", login,
-                            "message", message
-                    ))
-                    .retrieve()
-                    .toBodilessEntity();
-        } catch (RestClientException ex) {
-            log.warn("Notifications service unavailable: {}", ex.getMessage());
-        }
-    }
-}
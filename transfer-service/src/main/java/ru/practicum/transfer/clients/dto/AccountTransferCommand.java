@@ -0,0 +1,15 @@
+package ru.practicum.transfer.clients.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * @param transferId id перевода; сервис аккаунтов применяет команду с одним id не более одного раза
+ */
+public record AccountTransferCommand(
+        UUID fromBankAccountId,
+        UUID toBankAccountId,
+        BigDecimal amount,
+        UUID transferId
+) {
+}
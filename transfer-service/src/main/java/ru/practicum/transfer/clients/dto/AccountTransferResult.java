@@ -0,0 +1,7 @@
+package ru.practicum.transfer.clients.dto;
+
+public record AccountTransferResult(
+        AccountDetails from,
+        AccountDetails to
+) {
+}
@@ -19,6 +19,8 @@ public class TransferMapperImpl implements TransferMapper {
         var entity = new TransferEntity();
         entity.setFromAccountId(plan.fromAccountId());
         entity.setToAccountId(plan.toAccountId());
+        entity.setFromLogin(plan.fromLogin());
+        entity.setToLogin(plan.toLogin());
         entity.setAmount(plan.amount());
         entity.setCurrency(plan.currency());
         entity.setIdempotencyKey(plan.idempotencyKey());
@@ -1,9 +0,0 @@
-package ru.practicum.transfer.model;
-
-/**
- * Тип операций над балансом.
- */
-public enum OperationType {
-    DEPOSIT,
-    WITHDRAW
-}
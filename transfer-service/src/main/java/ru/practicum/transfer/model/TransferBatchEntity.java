@@ -0,0 +1,79 @@
+package ru.practicum.transfer.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Пачка переводов одного отправителя. {@code nextAttemptAt} — когда пачку можно забрать в обработку:
+ * для QUEUED это момент создания, для RUNNING — конец аренды, после которого пачку дообработает другой экземпляр,
+ * или срок следующей проверки принятых переводов.
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(of = "id")
+@Entity
+@Table(
+        name = "transfer_batches",
+        schema = "transfer",
+        indexes = @Index(name = "idx_transfer_batches_status_next_attempt", columnList = "status, next_attempt_at")
+)
+public class TransferBatchEntity {
+
+    @Id
+    @GeneratedValue(generator = "uuid2")
+    @GenericGenerator(name = "uuid2", strategy = "org.hibernate.id.UUIDGenerator")
+    private UUID id;
+
+    @Column(name = "from_login", nullable = false, length = 50)
+    private String fromLogin;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TransferBatchStatus status = TransferBatchStatus.QUEUED;
+
+    @Column(nullable = false)
+    private int total;
+
+    @Column(name = "next_attempt_at")
+    private OffsetDateTime nextAttemptAt;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+
+    @Version
+    private long version;
+
+    @PrePersist
+    void prePersist() {
+        var now = OffsetDateTime.now();
+        this.createdAt = now;
+        this.updatedAt = now;
+        if (this.nextAttemptAt == null) {
+            this.nextAttemptAt = now;
+        }
+    }
+
+    @PreUpdate
+    void preUpdate() {
+        this.updatedAt = OffsetDateTime.now();
+    }
+}
@@ -0,0 +1,56 @@
+package ru.practicum.transfer.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Перевод из пачки и его итог.
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(of = "id")
+@Entity
+@Table(
+        name = "transfer_batch_items",
+        schema = "transfer",
+        uniqueConstraints = @UniqueConstraint(name = "uq_transfer_batch_items_position", columnNames = {"batch_id", "position"})
+)
+public class TransferBatchItemEntity {
+
+    @Id
+    @GeneratedValue(generator = "uuid2")
+    @GenericGenerator(name = "uuid2", strategy = "org.hibernate.id.UUIDGenerator")
+    private UUID id;
+
+    @Column(name = "batch_id", nullable = false)
+    private UUID batchId;
+
+    @Column(nullable = false)
+    private int position;
+
+    @Column(name = "to_login", nullable = false, length = 50)
+    private String toLogin;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TransferBatchItemStatus status = TransferBatchItemStatus.QUEUED;
+
+    @Column(length = 255)
+    private String message;
+}
@@ -0,0 +1,12 @@
+package ru.practicum.transfer.model;
+
+/**
+ * Итог перевода из пачки. ACCEPTED — перевод записан, но сервис аккаунтов не ответил,
+ * его доведёт {@code TransferRecoveryWorker}; итог перевода пачка получит при следующей проверке.
+ */
+public enum TransferBatchItemStatus {
+    QUEUED,
+    DONE,
+    FAILED,
+    ACCEPTED
+}
@@ -0,0 +1,11 @@
+package ru.practicum.transfer.model;
+
+/**
+ * Статус пачки переводов: QUEUED — ждёт обработки, RUNNING — обрабатывается или ждёт итога принятых переводов,
+ * DONE — у каждого перевода есть итог.
+ */
+public enum TransferBatchStatus {
+    QUEUED,
+    RUNNING,
+    DONE
+}
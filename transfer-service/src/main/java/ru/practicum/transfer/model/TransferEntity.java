@@ -6,6 +6,7 @@ import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
@@ -21,12 +22,17 @@ import java.util.UUID;
 
 /**
  * Трансфер средств между счетами.
+ * Строка в статусе PENDING с наступившим {@code nextAttemptAt} доводится до итога {@code TransferRecoveryWorker}.
  */
 @Data
 @NoArgsConstructor
 @EqualsAndHashCode(of = "id")
 @Entity
-@Table(name = "transactions", schema = "transfer")
+@Table(
+        name = "transactions",
+        schema = "transfer",
+        indexes = @Index(name = "idx_transactions_status_next_attempt", columnList = "status, next_attempt_at")
+)
 public class TransferEntity {
 
     @Id
@@ -46,13 +52,25 @@ public class TransferEntity {
     @Column(nullable = false, length = 3)
     private String currency;
 
+    @Column(name = "from_login", length = 50)
+    private String fromLogin;
+
+    @Column(name = "to_login", length = 50)
+    private String toLogin;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 20)
     private TransferStatus status = TransferStatus.PENDING;
 
-    @Column(name = "idempotency_key", nullable = false, unique = true, length = 100)
+    @Column(name = "idempotency_key", nullable = false, unique = true, length = 128)
     private String idempotencyKey;
 
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at")
+    private OffsetDateTime nextAttemptAt;
+
     @Column(name = "created_at", nullable = false)
     private OffsetDateTime createdAt;
 
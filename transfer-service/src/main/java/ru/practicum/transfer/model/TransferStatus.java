@@ -2,6 +2,13 @@ package ru.practicum.transfer.model;
 
 /**
  * Статус перевода.
+ * <ul>
+ *     <li>PENDING — перевод прошёл проверки и записан, итог списания ещё не известен.
+ *     Деньги при этом не «висят»: сервис аккаунтов списывает и зачисляет одной транзакцией
+ *     и применяет перевод с одним id не более одного раза, поэтому такой перевод можно безопасно отправить повторно.</li>
+ *     <li>DONE — сервис аккаунтов подтвердил перевод.</li>
+ *     <li>FAILED — сервис аккаунтов отклонил перевод или попытки исчерпаны; балансы не менялись.</li>
+ * </ul>
  */
 public enum TransferStatus {
     PENDING,
@@ -0,0 +1,20 @@
+package ru.practicum.transfer.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import ru.practicum.transfer.model.TransferBatchItemEntity;
+import ru.practicum.transfer.model.TransferBatchItemStatus;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Репозиторий переводов из пачек.
+ */
+public interface TransferBatchItemRepository extends JpaRepository<TransferBatchItemEntity, UUID> {
+
+    List<TransferBatchItemEntity> findByBatchIdOrderByPosition(UUID batchId);
+
+    List<TransferBatchItemEntity> findByBatchIdAndStatusInOrderByPosition(UUID batchId,
+                                                                    Collection<TransferBatchItemStatus> statuses);
+}
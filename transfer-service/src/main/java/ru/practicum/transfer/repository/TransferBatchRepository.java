@@ -0,0 +1,37 @@
+package ru.practicum.transfer.repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.transfer.model.TransferBatchEntity;
+import ru.practicum.transfer.model.TransferBatchStatus;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Репозиторий пачек переводов.
+ */
+public interface TransferBatchRepository extends JpaRepository<TransferBatchEntity, UUID> {
+
+    /**
+     * Блокирует пачки, которые пора обработать; строки, занятые другим экземпляром сервиса, пропускаются (SKIP LOCKED).
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+            select b from TransferBatchEntity b
+            where b.status in :statuses and b.nextAttemptAt <= :now
+            order by b.nextAttemptAt
+            """)
+    List<TransferBatchEntity> lockDue(@Param("statuses") Collection<TransferBatchStatus> statuses,
+                                      @Param("now") OffsetDateTime now,
+                                      Pageable pageable);
+}
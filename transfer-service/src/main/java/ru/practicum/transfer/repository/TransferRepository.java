@@ -1,12 +1,43 @@
 package ru.practicum.transfer.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.transfer.model.TransferEntity;
+import ru.practicum.transfer.model.TransferStatus;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
  * Репозиторий переводов.
  */
 public interface TransferRepository extends JpaRepository<TransferEntity, UUID> {
+
+    Optional<TransferEntity> findByIdempotencyKey(String idempotencyKey);
+
+    List<TransferEntity> findByIdempotencyKeyIn(Collection<String> idempotencyKeys);
+
+    /**
+     * Блокирует переводы, которым пора повторить попытку (индекс по status, next_attempt_at);
+     * строки, занятые другим экземпляром сервиса, пропускаются (SKIP LOCKED).
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+            select t from TransferEntity t
+            where t.status = :status and t.nextAttemptAt <= :now
+            order by t.nextAttemptAt
+            """)
+    List<TransferEntity> lockDue(@Param("status") TransferStatus status,
+                                 @Param("now") OffsetDateTime now,
+                                 Pageable pageable);
 }
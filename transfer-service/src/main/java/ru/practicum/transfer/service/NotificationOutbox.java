@@ -0,0 +1,45 @@
+package ru.practicum.transfer.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.outbox.NotificationOutboxEntity;
+import ru.practicum.outbox.NotificationOutboxRepository;
+
+import java.math.BigDecimal;
+
+/**
+ * Записывает уведомления в outbox в текущей транзакции; отправляет их {@link ru.practicum.outbox.NotificationOutboxDispatcher}.
+ */
+@Component
+public class NotificationOutbox {
+
+    private final NotificationOutboxRepository repository;
+    private final boolean enabled;
+
+    public NotificationOutbox(NotificationOutboxRepository repository,
+                              @Value("${notifications.enabled:true}") boolean enabled) {
+        this.repository = repository;
+        this.enabled = enabled;
+    }
+
+    public void enqueueTransferOut(String login, String receiver, BigDecimal amount, String currency) {
+        enqueue("TRANSFER_OUT", login,
+                "Вы перевели %s %s пользователю %s".formatted(amount, currency, receiver));
+    }
+
+    public void enqueueTransferIn(String login, String sender, BigDecimal amount, String currency) {
+        enqueue("TRANSFER_IN", login,
+                "На ваш счёт поступило %s %s от %s".formatted(amount, currency, sender));
+    }
+
+    private void enqueue(String eventType, String recipient, String message) {
+        if (!enabled) {
+            return;
+        }
+        var entity = new NotificationOutboxEntity();
+        entity.setEventType(eventType);
+        entity.setRecipient(recipient);
+        entity.setMessage(message);
+        repository.save(entity);
+    }
+}
@@ -0,0 +1,74 @@
+package ru.practicum.transfer.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.transfer.model.TransferBatchEntity;
+import ru.practicum.transfer.model.TransferBatchItemEntity;
+import ru.practicum.transfer.repository.TransferBatchItemRepository;
+import ru.practicum.transfer.repository.TransferBatchRepository;
+import ru.practicum.transfer.web.dto.TransferBatchItemRequest;
+import ru.practicum.transfer.web.dto.TransferBatchRequest;
+import ru.practicum.transfer.web.dto.TransferBatchResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Приём пачек переводов и ответ о их состоянии.
+ * Пачка только записывается в БД, выполняет её {@link TransferBatchWorker}.
+ */
+@Service
+@RequiredArgsConstructor
+public class TransferBatchService {
+
+    private final TransferBatchRepository batchRepository;
+    private final TransferBatchItemRepository itemRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public TransferBatchResponse submit(TransferBatchRequest request) {
+        var batch = new TransferBatchEntity();
+        batch.setFromLogin(request.fromLogin());
+        batch.setTotal(request.transfers().size());
+        List<TransferBatchItemEntity> items = new ArrayList<>(request.transfers().size());
+        return transactionTemplate.execute(status -> {
+            batchRepository.save(batch);
+            for (int i = 0; i < request.transfers().size(); i++) {
+                TransferBatchItemRequest transfer = request.transfers().get(i);
+                var item = new TransferBatchItemEntity();
+                item.setBatchId(batch.getId());
+                item.setPosition(i);
+                item.setToLogin(transfer.toLogin());
+                item.setAmount(TransferService.normalize(transfer.value()));
+                items.add(item);
+            }
+            itemRepository.saveAll(items);
+            return toResponse(batch, items);
+        });
+    }
+
+    public Optional<TransferBatchResponse> find(UUID id) {
+        return batchRepository.findById(id)
+                .map(batch -> toResponse(batch, itemRepository.findByBatchIdOrderByPosition(id)));
+    }
+
+    private TransferBatchResponse toResponse(TransferBatchEntity batch, List<TransferBatchItemEntity> items) {
+        long done = 0;
+        long failed = 0;
+        long accepted = 0;
+        List<TransferBatchResponse.Item> views = new ArrayList<>(items.size());
+        for (TransferBatchItemEntity item : items) {
+            switch (item.getStatus()) {
+                case DONE -> done++;
+                case FAILED -> failed++;
+                case ACCEPTED -> accepted++;
+                case QUEUED -> { }
+            }
+            views.add(new TransferBatchResponse.Item(
+                    item.getPosition(), item.getToLogin(), item.getAmount(), item.getStatus(), item.getMessage()));
+        }
+        return new TransferBatchResponse(batch.getId(), batch.getStatus(), batch.getTotal(), done, failed, accepted, views);
+    }
+}
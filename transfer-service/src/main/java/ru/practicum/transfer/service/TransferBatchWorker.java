@@ -0,0 +1,350 @@
+package ru.practicum.transfer.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.transfer.clients.AccountsClient;
+import ru.practicum.transfer.clients.BlockerClient;
+import ru.practicum.transfer.clients.dto.AccountDetails;
+import ru.practicum.transfer.clients.dto.BlockCheckRequest;
+import ru.practicum.transfer.clients.dto.BlockCheckResponse;
+import ru.practicum.transfer.model.TransferBatchEntity;
+import ru.practicum.transfer.model.TransferBatchItemEntity;
+import ru.practicum.transfer.model.TransferBatchItemStatus;
+import ru.practicum.transfer.model.TransferBatchStatus;
+import ru.practicum.transfer.model.TransferEntity;
+import ru.practicum.transfer.repository.TransferBatchItemRepository;
+import ru.practicum.transfer.repository.TransferBatchRepository;
+import ru.practicum.transfer.repository.TransferRepository;
+import ru.practicum.transfer.service.dto.TransferPlan;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Выполняет пачки переводов. Проверки делаются сразу для всей пачки: счета получателей загружаются
+ * несколькими запросами по {@value #LOOKUP_CHUNK} логинов, blocker вызывается один раз, остаток отправителя
+ * резервируется по порядку переводов. Прошедшие проверки переводы выполняются параллельно, не больше
+ * {@code parallelism} одновременно, тем же путём, что и одиночный перевод ({@link TransferService#applyOnce}).
+ * <p>
+ * Пачка забирается короткой транзакцией (SKIP LOCKED) с арендой на {@link #LEASE}. Если экземпляр упал,
+ * после аренды пачку дообработает другой: перевод из пачки имеет свой ключ идемпотентности, и перед проверками
+ * итог уже записанных переводов берётся из их строк — они не проверяются и не выполняются второй раз.
+ * Если сервис аккаунтов не ответил на загрузку счетов, пачка повторяется через {@link #LOOKUP_RETRY_DELAY}.
+ * Пока у пачки есть принятые переводы (ACCEPTED), она остаётся RUNNING и раз в {@link #ACCEPTED_RECHECK_DELAY}
+ * сверяет их с переводами, которые доводит {@link TransferRecoveryWorker}.
+ * <p>
+ * Пачки обрабатываются в собственном потоке, а не в общем потоке {@code @Scheduled}:
+ * долгая пачка не задерживает восстановление переводов и отправку уведомлений.
+ */
+@Component
+@Slf4j
+public class TransferBatchWorker {
+
+    static final Duration LEASE = Duration.ofMinutes(5);
+    static final Duration LOOKUP_RETRY_DELAY = Duration.ofSeconds(15);
+    static final Duration ACCEPTED_RECHECK_DELAY = TransferService.RECOVERY_DELAY;
+    static final int LOOKUP_CHUNK = 100;
+
+    private final TransferBatchRepository batchRepository;
+    private final TransferBatchItemRepository itemRepository;
+    private final TransferRepository transferRepository;
+    private final AccountsClient accountsClient;
+    private final BlockerClient blockerClient;
+    private final TransferService transferService;
+    private final TransactionTemplate transactionTemplate;
+    private final int parallelism;
+    private final long pollIntervalMs;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("transfer-batch-worker").daemon().factory());
+
+    public TransferBatchWorker(TransferBatchRepository batchRepository,
+                               TransferBatchItemRepository itemRepository,
+                               TransferRepository transferRepository,
+                               AccountsClient accountsClient,
+                               BlockerClient blockerClient,
+                               TransferService transferService,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${transfer.batch.parallelism:8}") int parallelism,
+                               @Value("${transfer.batch.poll-interval-ms:1000}") long pollIntervalMs) {
+        this.batchRepository = batchRepository;
+        this.itemRepository = itemRepository;
+        this.transferRepository = transferRepository;
+        this.accountsClient = accountsClient;
+        this.blockerClient = blockerClient;
+        this.transferService = transferService;
+        this.transactionTemplate = transactionTemplate;
+        this.parallelism = parallelism;
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    @PostConstruct
+    void start() {
+        poller.scheduleWithFixedDelay(this::poll, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void poll() {
+        try {
+            processDue();
+        } catch (RuntimeException ex) {
+            // Исключение из задачи остановило бы расписание
+            log.error("Batch processing failed", ex);
+        }
+    }
+
+    public int processDue() {
+        var now = OffsetDateTime.now();
+        List<TransferBatchEntity> claimed = transactionTemplate.execute(tx -> claim(now));
+        if (claimed == null || claimed.isEmpty()) {
+            return 0;
+        }
+        claimed.forEach(this::process);
+        return claimed.size();
+    }
+
+    private List<TransferBatchEntity> claim(OffsetDateTime now) {
+        List<TransferBatchEntity> batches = batchRepository.lockDue(
+                List.of(TransferBatchStatus.QUEUED, TransferBatchStatus.RUNNING), now, PageRequest.of(0, 1));
+        for (TransferBatchEntity batch : batches) {
+            batch.setStatus(TransferBatchStatus.RUNNING);
+            batch.setNextAttemptAt(now.plus(LEASE));
+        }
+        return batches;
+    }
+
+    void process(TransferBatchEntity batch) {
+        List<TransferBatchItemEntity> items = itemRepository.findByBatchIdAndStatusInOrderByPosition(
+                batch.getId(), List.of(TransferBatchItemStatus.QUEUED, TransferBatchItemStatus.ACCEPTED));
+        List<TransferBatchItemEntity> queued = settleRecorded(batch, items);
+        try {
+            if (!queued.isEmpty() && !run(batch, queued)) {
+                return;
+            }
+        } catch (AccountsClient.AccountsClientException ex) {
+            log.warn("Batch {} postponed for {}: {}", batch.getId(), LOOKUP_RETRY_DELAY, ex.getMessage());
+            reschedule(batch, LOOKUP_RETRY_DELAY);
+            return;
+        }
+        if (items.stream().anyMatch(item -> item.getStatus() == TransferBatchItemStatus.ACCEPTED)) {
+            reschedule(batch, ACCEPTED_RECHECK_DELAY);
+            return;
+        }
+        transactionTemplate.executeWithoutResult(tx -> {
+            batch.setStatus(TransferBatchStatus.DONE);
+            batch.setNextAttemptAt(null);
+            batchRepository.save(batch);
+        });
+        log.info("Batch {} of {} transfers from '{}' processed", batch.getId(), batch.getTotal(), batch.getFromLogin());
+    }
+
+    /**
+     * Переносит в переводы пачки итог уже записанных переводов: после сбоя посреди пачки и для принятых переводов,
+     * которые тем временем довёл {@link TransferRecoveryWorker}.
+     *
+     * @return переводы, которые ещё не записаны и должны пройти проверки
+     */
+    private List<TransferBatchItemEntity> settleRecorded(TransferBatchEntity batch, List<TransferBatchItemEntity> items) {
+        if (items.isEmpty()) {
+            return items;
+        }
+        Map<String, TransferEntity> recorded = transferRepository.findByIdempotencyKeyIn(
+                        items.stream().map(item -> idempotencyKey(batch, item)).toList()).stream()
+                .collect(Collectors.toMap(TransferEntity::getIdempotencyKey, Function.identity()));
+        List<TransferBatchItemEntity> queued = new ArrayList<>(items.size());
+        List<TransferBatchItemEntity> settled = new ArrayList<>();
+        for (TransferBatchItemEntity item : items) {
+            TransferEntity transfer = recorded.get(idempotencyKey(batch, item));
+            if (transfer == null) {
+                if (item.getStatus() == TransferBatchItemStatus.QUEUED) {
+                    queued.add(item);
+                }
+                continue;
+            }
+            TransferBatchItemStatus before = item.getStatus();
+            switch (transfer.getStatus()) {
+                case DONE -> {
+                    item.setStatus(TransferBatchItemStatus.DONE);
+                    item.setMessage(null);
+                }
+                case FAILED -> reject(item, TransferService.FAILED_MESSAGE);
+                case PENDING -> {
+                    item.setStatus(TransferBatchItemStatus.ACCEPTED);
+                    item.setMessage(TransferService.ACCEPTED_MESSAGE);
+                }
+            }
+            if (item.getStatus() != before) {
+                settled.add(item);
+            }
+        }
+        saveAll(settled);
+        return queued;
+    }
+
+    private void reschedule(TransferBatchEntity batch, Duration delay) {
+        transactionTemplate.executeWithoutResult(tx -> {
+            batch.setNextAttemptAt(OffsetDateTime.now().plus(delay));
+            batchRepository.save(batch);
+        });
+    }
+
+    /**
+     * @return false, если у части переводов итога нет и пачку нужно дообработать после аренды
+     */
+    private boolean run(TransferBatchEntity batch, List<TransferBatchItemEntity> items) {
+        Map<String, AccountDetails> accounts = lookup(batch.getFromLogin(), items);
+        AccountDetails fromAccount = accounts.get(batch.getFromLogin());
+        if (fromAccount == null) {
+            String message = "Пользователь '%s' не найден".formatted(batch.getFromLogin());
+            items.forEach(item -> reject(item, message));
+            saveAll(items);
+            return true;
+        }
+
+        List<TransferBatchItemEntity> known = new ArrayList<>(items.size());
+        List<TransferBatchItemEntity> rejected = new ArrayList<>();
+        for (TransferBatchItemEntity item : items) {
+            if (accounts.containsKey(item.getToLogin())) {
+                known.add(item);
+            } else {
+                rejected.add(reject(item, "Пользователь '%s' не найден".formatted(item.getToLogin())));
+            }
+        }
+
+        List<BlockCheckResponse> decisions = known.isEmpty() ? List.of() : blockerClient.checkAll(known.stream()
+                .map(item -> new BlockCheckRequest(
+                        batch.getFromLogin(), item.getToLogin(), fromAccount.currency(), item.getAmount()))
+                .toList());
+        BigDecimal available = fromAccount.balance() == null ? BigDecimal.ZERO : fromAccount.balance();
+        List<TransferBatchItemEntity> approved = new ArrayList<>(known.size());
+        for (int i = 0; i < known.size(); i++) {
+            TransferBatchItemEntity item = known.get(i);
+            BlockCheckResponse decision = decisions.get(i);
+            if (decision != null && !decision.allowed()) {
+                rejected.add(reject(item, decision.reason() == null ? "Ваш перевод заблокирован" : decision.reason()));
+            } else if (available.compareTo(item.getAmount()) < 0) {
+                rejected.add(reject(item, "Недостаточно средств на счёте"));
+            } else {
+                available = available.subtract(item.getAmount());
+                approved.add(item);
+            }
+        }
+        saveAll(rejected);
+        return applyAll(batch, fromAccount, accounts, approved);
+    }
+
+    private Map<String, AccountDetails> lookup(String fromLogin, List<TransferBatchItemEntity> items) {
+        Set<String> logins = new LinkedHashSet<>();
+        logins.add(fromLogin);
+        items.forEach(item -> logins.add(item.getToLogin()));
+        List<String> all = List.copyOf(logins);
+        Map<String, AccountDetails> accounts = new HashMap<>();
+        for (int from = 0; from < all.size(); from += LOOKUP_CHUNK) {
+            accounts.putAll(accountsClient.getAccountDetails(all.subList(from, Math.min(from + LOOKUP_CHUNK, all.size()))));
+        }
+        return accounts;
+    }
+
+    private boolean applyAll(TransferBatchEntity batch, AccountDetails fromAccount,
+                             Map<String, AccountDetails> accounts, List<TransferBatchItemEntity> approved) {
+        var permits = new Semaphore(parallelism);
+        List<Future<Boolean>> results = new ArrayList<>(approved.size());
+        for (TransferBatchItemEntity item : approved) {
+            permits.acquireUninterruptibly();
+            results.add(executor.submit(() -> {
+                try {
+                    return apply(batch, fromAccount, accounts.get(item.getToLogin()), item);
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+        boolean complete = true;
+        for (Future<Boolean> result : results) {
+            try {
+                complete &= result.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (ExecutionException ex) {
+                complete = false;
+            }
+        }
+        return complete;
+    }
+
+    private boolean apply(TransferBatchEntity batch, AccountDetails fromAccount, AccountDetails toAccount,
+                          TransferBatchItemEntity item) {
+        var plan = new TransferPlan(
+                fromAccount.bankAccountId(),
+                toAccount.bankAccountId(),
+                batch.getFromLogin(),
+                item.getToLogin(),
+                TransferService.normalize(item.getAmount()),
+                fromAccount.currency(),
+                idempotencyKey(batch, item)
+        );
+        List<String> result;
+        try {
+            result = transferService.applyOnce(plan);
+        } catch (RuntimeException ex) {
+            log.error("Transfer {} of batch {} failed unexpectedly", item.getPosition(), batch.getId(), ex);
+            return false;
+        }
+        if (result.isEmpty()) {
+            item.setStatus(TransferBatchItemStatus.DONE);
+        } else if (result.contains(TransferService.ACCEPTED_MESSAGE) || result.contains(TransferService.IN_PROGRESS_MESSAGE)) {
+            item.setStatus(TransferBatchItemStatus.ACCEPTED);
+            item.setMessage(TransferService.ACCEPTED_MESSAGE);
+        } else {
+            reject(item, result.getFirst());
+        }
+        transactionTemplate.executeWithoutResult(tx -> itemRepository.save(item));
+        return true;
+    }
+
+    /**
+     * Свой ключ у каждого перевода: дообработка пачки после сбоя не повторит уже записанные.
+     */
+    static String idempotencyKey(TransferBatchEntity batch, TransferBatchItemEntity item) {
+        return batch.getFromLogin() + ":batch:" + batch.getId() + ':' + item.getPosition();
+    }
+
+    private static TransferBatchItemEntity reject(TransferBatchItemEntity item, String message) {
+        item.setStatus(TransferBatchItemStatus.FAILED);
+        item.setMessage(message);
+        return item;
+    }
+
+    private void saveAll(List<TransferBatchItemEntity> items) {
+        if (!items.isEmpty()) {
+            transactionTemplate.executeWithoutResult(tx -> itemRepository.saveAll(items));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        poller.shutdownNow();
+        executor.shutdownNow();
+    }
+}
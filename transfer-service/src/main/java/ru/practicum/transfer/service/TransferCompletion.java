@@ -0,0 +1,47 @@
+package ru.practicum.transfer.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.transfer.model.TransferEntity;
+import ru.practicum.transfer.model.TransferStatus;
+import ru.practicum.transfer.repository.TransferRepository;
+
+/**
+ * Записывает итог перевода короткой транзакцией: статус, а для выполненного — ещё и уведомления в outbox.
+ * Итог пишут и обработка запроса, и {@link TransferRecoveryWorker}; кто опоздал, упирается в версию строки.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TransferCompletion {
+
+    private final TransferRepository repository;
+    private final NotificationOutbox notificationOutbox;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * @return false, если итог уже записал другой участник
+     */
+    public boolean finish(TransferEntity transfer, TransferStatus status) {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                transfer.setStatus(status);
+                transfer.setNextAttemptAt(null);
+                repository.save(transfer);
+                if (status == TransferStatus.DONE && transfer.getFromLogin() != null) {
+                    notificationOutbox.enqueueTransferOut(transfer.getFromLogin(), transfer.getToLogin(),
+                            transfer.getAmount(), transfer.getCurrency());
+                    notificationOutbox.enqueueTransferIn(transfer.getToLogin(), transfer.getFromLogin(),
+                            transfer.getAmount(), transfer.getCurrency());
+                }
+            });
+            return true;
+        } catch (OptimisticLockingFailureException ex) {
+            log.info("Transfer {} was updated concurrently, outcome {} skipped", transfer.getId(), status);
+            return false;
+        }
+    }
+}
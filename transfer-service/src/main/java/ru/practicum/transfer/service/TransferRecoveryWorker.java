@@ -0,0 +1,113 @@
+package ru.practicum.transfer.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.transfer.clients.AccountsClient;
+import ru.practicum.transfer.clients.dto.AccountTransferCommand;
+import ru.practicum.transfer.model.TransferEntity;
+import ru.practicum.transfer.model.TransferStatus;
+import ru.practicum.transfer.repository.TransferRepository;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Доводит до итога переводы, застрявшие в PENDING: сервис аккаунтов не ответил или экземпляр упал после записи перевода.
+ * Перевод повторно отправляется с тем же id, поэтому уже применённый перевод второй раз деньги не двигает.
+ * <p>
+ * Пачка забирается короткой транзакцией (SKIP LOCKED), и у каждой строки сразу сдвигается {@code nextAttemptAt} —
+ * это и аренда на время вызова, и следующий срок попытки, если ответа снова не будет. Вызов accounts идёт вне транзакции.
+ * Отказ сервиса аккаунтов переводит перевод в FAILED; пока итог неизвестен, попытки продолжаются,
+ * а после {@code alert-attempts} каждая неудача пишется в лог как ошибка для разбора вручную.
+ */
+@Component
+@Slf4j
+public class TransferRecoveryWorker {
+
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(5);
+
+    private final TransferRepository repository;
+    private final AccountsClient accountsClient;
+    private final TransferCompletion transferCompletion;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int alertAttempts;
+
+    public TransferRecoveryWorker(TransferRepository repository,
+                                  AccountsClient accountsClient,
+                                  TransferCompletion transferCompletion,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${transfer.recovery.batch-size:20}") int batchSize,
+                                  @Value("${transfer.recovery.alert-attempts:10}") int alertAttempts) {
+        this.repository = repository;
+        this.accountsClient = accountsClient;
+        this.transferCompletion = transferCompletion;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.alertAttempts = alertAttempts;
+    }
+
+    @Scheduled(fixedDelayString = "${transfer.recovery.poll-interval-ms:5000}")
+    public int recoverPending() {
+        var now = OffsetDateTime.now();
+        List<TransferEntity> batch = transactionTemplate.execute(tx -> claim(now));
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+        int finished = 0;
+        for (TransferEntity transfer : batch) {
+            if (recover(transfer)) {
+                finished++;
+            }
+        }
+        return finished;
+    }
+
+    private List<TransferEntity> claim(OffsetDateTime now) {
+        List<TransferEntity> batch = repository.lockDue(TransferStatus.PENDING, now, PageRequest.of(0, batchSize));
+        for (TransferEntity transfer : batch) {
+            transfer.setAttempts(transfer.getAttempts() + 1);
+            transfer.setNextAttemptAt(now.plus(backoff(transfer.getAttempts())));
+        }
+        return batch;
+    }
+
+    private boolean recover(TransferEntity transfer) {
+        try {
+            accountsClient.transfer(new AccountTransferCommand(
+                    transfer.getFromAccountId(), transfer.getToAccountId(), transfer.getAmount(), transfer.getId()));
+        } catch (AccountsClient.AccountsUnavailableException ex) {
+            retryLater(transfer, ex);
+            return false;
+        } catch (AccountsClient.AccountsClientException ex) {
+            log.warn("Transfer {} rejected by accounts on recovery: {}", transfer.getId(), ex.getMessage());
+            return transferCompletion.finish(transfer, TransferStatus.FAILED);
+        } catch (RuntimeException ex) {
+            retryLater(transfer, ex);
+            return false;
+        }
+        return transferCompletion.finish(transfer, TransferStatus.DONE);
+    }
+
+    private void retryLater(TransferEntity transfer, RuntimeException ex) {
+        if (transfer.getAttempts() >= alertAttempts) {
+            log.error("Transfer {} is still unresolved after {} attempts, next at {}: {}",
+                    transfer.getId(), transfer.getAttempts(), transfer.getNextAttemptAt(), ex.getMessage());
+            return;
+        }
+        log.warn("Recovery of transfer {} failed (attempt {}): {}", transfer.getId(), transfer.getAttempts(), ex.getMessage());
+    }
+
+    /**
+     * Не меньше 30 секунд, чтобы аренда пережила вызов accounts с его таймаутами.
+     */
+    static Duration backoff(int attempts) {
+        var delay = Duration.ofSeconds(15L << Math.min(attempts, 10));
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+}
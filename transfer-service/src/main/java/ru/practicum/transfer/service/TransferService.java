@@ -2,16 +2,14 @@ package ru.practicum.transfer.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.idempotency.IdempotencyCache;
 import ru.practicum.transfer.clients.AccountsClient;
-import ru.practicum.transfer.clients.NotificationsClient;
-import ru.practicum.transfer.clients.BlockerClient;
-import ru.practicum.transfer.clients.dto.BlockCheckRequest;
 import ru.practicum.transfer.clients.dto.AccountDetails;
-import ru.practicum.transfer.clients.dto.BalanceAdjustmentCommand;
+import ru.practicum.transfer.clients.dto.AccountTransferCommand;
 import ru.practicum.transfer.mapper.TransferMapper;
-import ru.practicum.transfer.model.OperationType;
 import ru.practicum.transfer.model.TransferEntity;
 import ru.practicum.transfer.model.TransferStatus;
 import ru.practicum.transfer.repository.TransferRepository;
@@ -20,110 +18,188 @@ import ru.practicum.transfer.web.dto.TransferRequest;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
 
 /**
  * Бизнес-логика переводов между счетами.
+ * Перевод с ключом идемпотентности выполняется один раз: повтор отвечается из {@link IdempotencyCache},
+ * а если там ответа нет — по строке перевода с тем же ключом, без повторных вызовов blocker и accounts.
+ * Повтор должен совпадать с первым запросом по получателю и сумме, иначе он отклоняется.
+ * Ответ «принят» или «выполняется» в памяти не остаётся: следующий повтор узнает итог из строки перевода.
+ * <p>
+ * Удалённые вызовы идут вне транзакций, соединение с БД берётся только на короткие локальные
+ * транзакции: запись перевода в статусе PENDING перед списанием и запись итога
+ * (статус вместе с уведомлениями в outbox) после него.
+ * <p>
+ * Если сервис аккаунтов не ответил, пользователь не ждёт и не получает ошибку: перевод остаётся в PENDING
+ * и через {@link #RECOVERY_DELAY} его доводит {@link TransferRecoveryWorker}.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class TransferService {
 
+    static final int MAX_IDEMPOTENCY_KEY_LENGTH = 64;
+    static final String ACCEPTED_MESSAGE = "Перевод принят и будет завершён автоматически";
+    static final String IN_PROGRESS_MESSAGE = "Перевод с этим ключом ещё выполняется";
+    static final String FAILED_MESSAGE = "Перевод не выполнен";
+    static final String KEY_REUSED_MESSAGE = "Idempotency-Key уже использован для другого перевода";
+    /**
+     * Через сколько за перевод возьмётся {@link TransferRecoveryWorker}; с запасом покрывает
+     * проверку и вызов accounts в рамках запроса.
+     */
+    static final Duration RECOVERY_DELAY = Duration.ofSeconds(30);
+
     private final TransferRepository repository;
     private final AccountsClient accountsClient;
-    private final NotificationsClient notificationsClient;
-    private final BlockerClient blockerClient;
+    private final TransferCompletion transferCompletion;
+    private final TransferValidator transferValidator;
     private final TransferMapper transferMapper;
+    private final IdempotencyCache idempotencyCache;
+    private final TransactionTemplate transactionTemplate;
 
-    @Transactional
     public List<String> process(TransferRequest request) {
+        return process(request, null);
+    }
+
+    /**
+     * @param idempotencyKey значение заголовка {@code Idempotency-Key}; без него каждый запрос — новый перевод
+     */
+    public List<String> process(TransferRequest request, String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return execute(request, UUID.randomUUID().toString());
+        }
+        if (idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            return List.of("Idempotency-Key не должен быть длиннее %d символов".formatted(MAX_IDEMPOTENCY_KEY_LENGTH));
+        }
+        // Ключ уникален в таблице, поэтому ключи разных отправителей не должны пересекаться
+        String key = request.fromLogin() + ':' + idempotencyKey;
+        String fingerprint = fingerprint(request.toLogin(), request.value());
+        List<String> result;
+        try {
+            result = idempotencyCache.execute(key, fingerprint, () -> repository.findByIdempotencyKey(key)
+                    .map(entity -> replay(entity, fingerprint))
+                    .orElseGet(() -> executeOnce(request, key, fingerprint)));
+        } catch (IdempotencyCache.KeyReusedException ex) {
+            log.warn("Rejected transfer from '{}': {}", request.fromLogin(), ex.getMessage());
+            return List.of(KEY_REUSED_MESSAGE);
+        }
+        if (result.contains(ACCEPTED_MESSAGE) || result.contains(IN_PROGRESS_MESSAGE)) {
+            idempotencyCache.evict(key);
+        }
+        return result;
+    }
+
+    private List<String> executeOnce(TransferRequest request, String key, String fingerprint) {
+        try {
+            return execute(request, key);
+        } catch (DataIntegrityViolationException ex) {
+            // Тот же ключ одновременно пришёл на другой экземпляр сервиса и был сохранён раньше
+            return repository.findByIdempotencyKey(key).map(entity -> replay(entity, fingerprint)).orElseThrow(() -> ex);
+        }
+    }
+
+    private List<String> replay(TransferEntity entity, String fingerprint) {
+        if (!fingerprint.equals(fingerprint(entity.getToLogin(), entity.getAmount()))) {
+            throw new IdempotencyCache.KeyReusedException(entity.getIdempotencyKey());
+        }
+        return replay(entity);
+    }
+
+    private List<String> replay(TransferEntity entity) {
+        return switch (entity.getStatus()) {
+            case DONE -> List.of();
+            case FAILED -> List.of(FAILED_MESSAGE);
+            case PENDING -> List.of(IN_PROGRESS_MESSAGE);
+        };
+    }
+
+    private List<String> execute(TransferRequest request, String idempotencyKey) {
         if (false && request.fromLogin().equalsIgnoreCase(request.toLogin())) {
             return List.of("Нельзя переводить деньги самому себе");
         }
 
-        TransferEntity entity = null;
+        BigDecimal amount = normalize(request.value());
+        TransferValidator.Result validation;
         try {
-            var block = blockerClient.check(new BlockCheckRequest(
-                    request.fromLogin(),
-                    request.toLogin(),
-                    request.value() == null ? null : request.value().toPlainString(),
-                    request.value()
-            ));
-            if (block != null && !block.allowed()) {
-                return List.of(block.reason() == null ? "Ваш перевод заблокирован" : block.reason());
-            }
-
-            AccountDetails fromAccount = accountsClient.getAccountDetails(request.fromLogin());
-            AccountDetails toAccount = accountsClient.getAccountDetails(request.toLogin());
-            if (fromAccount == null || toAccount == null) {
-                return List.of("Сервис аккаунтов вернул пустой ответ");
-            }
-            if (false && !equalsIgnoreCase(fromAccount.currency(), toAccount.currency())) {
-                return List.of("Доступны только переводы в одной валюте");
-            }
-
-            BigDecimal amount = normalize(request.value());
-            BigDecimal balance = fromAccount.balance() == null ? BigDecimal.ZERO : fromAccount.balance();
-            if (balance.compareTo(amount) < 0) {
-                return List.of("Недостаточно средств на счёте");
-            }
-
-            var plan = new TransferPlan(
-                    fromAccount.bankAccountId(),
-                    toAccount.bankAccountId(),
-                    amount,
-                    fromAccount.currency(),
-                    UUID.randomUUID().toString()
-            );
-            entity = transferMapper.toEntity(plan);
-            repository.save(entity);
-
-            accountsClient.adjustBalance(request.fromLogin(),
-                    new BalanceAdjustmentCommand(amount, OperationType.WITHDRAW, fromAccount.bankAccountId()));
-            try {
-                accountsClient.adjustBalance(request.toLogin(),
-                        new BalanceAdjustmentCommand(amount, OperationType.DEPOSIT, toAccount.bankAccountId()));
-            } catch (AccountsClient.AccountsClientException ex) {
-                log.error("Deposit to receiver failed, attempting rollback: {}", ex.getMessage());
-                rollbackSender(request.fromLogin(), amount);
-                throw ex;
-            }
-
-            entity.setStatus(TransferStatus.DONE);
-            repository.save(entity);
-
-            notificationsClient.sendTransferOut(request.fromLogin(), request.toLogin(), amount, fromAccount.currency());
-            notificationsClient.sendTransferIn(request.toLogin(), request.fromLogin(), amount, fromAccount.currency());
-            return List.of();
+            validation = transferValidator.validate(request, amount);
         } catch (AccountsClient.AccountsClientException ex) {
             log.warn("Accounts client error: {}", ex.getMessage());
-            markFailed(entity);
             return List.of(ex.getMessage());
-        } catch (RuntimeException ex) {
-            log.error("Unexpected error during transfer", ex);
-            markFailed(entity);
-            throw ex;
         }
+        if (validation.isRejected()) {
+            return validation.errors();
+        }
+        AccountDetails fromAccount = validation.fromAccount();
+        AccountDetails toAccount = validation.toAccount();
+        if (false && !equalsIgnoreCase(fromAccount.currency(), toAccount.currency())) {
+            return List.of("Доступны только переводы в одной валюте");
+        }
+
+        var plan = new TransferPlan(
+                fromAccount.bankAccountId(),
+                toAccount.bankAccountId(),
+                request.fromLogin(),
+                request.toLogin(),
+                amount,
+                fromAccount.currency(),
+                idempotencyKey
+        );
+        return apply(plan);
     }
 
-    private void rollbackSender(String login, BigDecimal amount) {
+    /**
+     * Выполняет уже проверенный перевод; повтор того же ключа отвечается по сохранённой строке.
+     * Используется пакетной обработкой, где проверки сделаны сразу для всей пачки.
+     */
+    List<String> applyOnce(TransferPlan plan) {
         try {
-            accountsClient.adjustBalance(login, new BalanceAdjustmentCommand(amount, OperationType.DEPOSIT, null));
-        } catch (AccountsClient.AccountsClientException rollbackEx) {
-            log.error("Failed to rollback funds to sender: {}", rollbackEx.getMessage());
+            return apply(plan);
+        } catch (DataIntegrityViolationException ex) {
+            return repository.findByIdempotencyKey(plan.idempotencyKey()).map(this::replay).orElseThrow(() -> ex);
         }
     }
 
-    private void markFailed(TransferEntity entity) {
-        if (entity != null) {
-            entity.setStatus(TransferStatus.FAILED);
-            repository.save(entity);
+    private List<String> apply(TransferPlan plan) {
+        TransferEntity entity = transferMapper.toEntity(plan);
+        entity.setNextAttemptAt(OffsetDateTime.now().plus(RECOVERY_DELAY));
+        // Сразу в БД: повтор с тем же ключом упрётся в уникальный индекс до списания денег
+        transactionTemplate.executeWithoutResult(status -> repository.saveAndFlush(entity));
+
+        try {
+            accountsClient.transfer(new AccountTransferCommand(
+                    plan.fromAccountId(), plan.toAccountId(), plan.amount(), entity.getId()));
+        } catch (AccountsClient.AccountsUnavailableException ex) {
+            log.warn("Transfer {} left for recovery: {}", entity.getId(), ex.getMessage());
+            return List.of(ACCEPTED_MESSAGE);
+        } catch (AccountsClient.AccountsClientException ex) {
+            log.warn("Accounts client error: {}", ex.getMessage());
+            transferCompletion.finish(entity, TransferStatus.FAILED);
+            return List.of(ex.getMessage());
+        } catch (RuntimeException ex) {
+            log.error("Unexpected error during transfer {}, left for recovery", entity.getId(), ex);
+            return List.of(ACCEPTED_MESSAGE);
+        }
+
+        if (!transferCompletion.finish(entity, TransferStatus.DONE)) {
+            // Запрос шёл дольше RECOVERY_DELAY, перевод уже забрал TransferRecoveryWorker
+            return List.of(ACCEPTED_MESSAGE);
         }
+        return List.of();
+    }
+
+    /**
+     * Параметры запроса, по которым повтор сверяется с первым запросом. Валюты в запросе нет —
+     * она берётся со счёта отправителя.
+     */
+    static String fingerprint(String toLogin, BigDecimal amount) {
+        return toLogin + '|' + normalize(amount).toPlainString();
     }
 
-    private BigDecimal normalize(BigDecimal value) {
+    static BigDecimal normalize(BigDecimal value) {
         return value.setScale(2, RoundingMode.HALF_UP);
     }
 
@@ -0,0 +1,82 @@
+package ru.practicum.transfer.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.transfer.clients.AccountsClient;
+import ru.practicum.transfer.clients.BlockerClient;
+import ru.practicum.transfer.clients.dto.AccountDetails;
+import ru.practicum.transfer.clients.dto.BlockCheckRequest;
+import ru.practicum.transfer.clients.dto.BlockCheckResponse;
+import ru.practicum.transfer.web.dto.TransferRequest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Проверки перед переводом: загрузка счетов отправителя и получателя, затем blocker
+ * с валютой счёта отправителя. Вызовы идут последовательно: лимиты blocker ведутся в валюте счёта,
+ * которую знает только accounts, а попытка, дошедшая до blocker, попадает в его окна, поэтому
+ * вызывать его до проверки счетов нельзя. Время каждого вызова ограничено таймаутами
+ * {@code app.http-client.connect-timeout} и {@code app.http-client.read-timeout}.
+ */
+@Component
+@RequiredArgsConstructor
+public class TransferValidator {
+
+    private final AccountsClient accountsClient;
+    private final BlockerClient blockerClient;
+
+    /**
+     * @param amount сумма перевода, уже округлённая до копеек
+     * @throws AccountsClient.AccountsClientException если accounts ответил ошибкой
+     */
+    public Result validate(TransferRequest request, BigDecimal amount) {
+        Result accounts = checkAccounts(request, amount);
+        return accounts.isRejected() ? accounts : checkBlocker(accounts, request, amount);
+    }
+
+    private Result checkBlocker(Result accounts, TransferRequest request, BigDecimal amount) {
+        BlockCheckResponse block = blockerClient.check(new BlockCheckRequest(
+                request.fromLogin(),
+                request.toLogin(),
+                accounts.fromAccount().currency(),
+                amount
+        ));
+        if (block != null && !block.allowed()) {
+            return Result.rejected(block.reason() == null ? "Ваш перевод заблокирован" : block.reason());
+        }
+        return accounts;
+    }
+
+    private Result checkAccounts(TransferRequest request, BigDecimal amount) {
+        Map<String, AccountDetails> accounts = accountsClient.getAccountDetails(List.of(request.fromLogin(), request.toLogin()));
+        AccountDetails fromAccount = accounts.get(request.fromLogin());
+        AccountDetails toAccount = accounts.get(request.toLogin());
+        if (fromAccount == null) {
+            return Result.rejected("Пользователь '%s' не найден".formatted(request.fromLogin()));
+        }
+        if (toAccount == null) {
+            return Result.rejected("Пользователь '%s' не найден".formatted(request.toLogin()));
+        }
+        BigDecimal balance = fromAccount.balance() == null ? BigDecimal.ZERO : fromAccount.balance();
+        if (balance.compareTo(amount) < 0) {
+            return Result.rejected("Недостаточно средств на счёте");
+        }
+        return new Result(List.of(), fromAccount, toAccount);
+    }
+
+    /**
+     * Итог проверки: причины отказа либо счета отправителя и получателя.
+     */
+    public record Result(List<String> errors, AccountDetails fromAccount, AccountDetails toAccount) {
+
+        static Result rejected(String error) {
+            return new Result(List.of(error), null, null);
+        }
+
+        public boolean isRejected() {
+            return !errors.isEmpty();
+        }
+    }
+}
@@ -9,6 +9,8 @@ import java.util.UUID;
 public record TransferPlan(
         UUID fromAccountId,
         UUID toAccountId,
+        String fromLogin,
+        String toLogin,
         BigDecimal amount,
         String currency,
         String idempotencyKey
@@ -0,0 +1,87 @@
+package ru.practicum.transfer.web;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.transfer.service.TransferBatchService;
+import ru.practicum.transfer.web.dto.TransferBatchItemRequest;
+import ru.practicum.transfer.web.dto.TransferBatchRequest;
+import ru.practicum.transfer.web.dto.TransferBatchResponse;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * REST-ручки пакетных переводов: пачка принимается сразу (202), итоги получают по её id.
+ */
+@RestController
+@RequestMapping("/api/transfer/batches")
+@RequiredArgsConstructor
+public class TransferBatchController {
+
+    static final String CSV_MEDIA_TYPE = "text/csv";
+
+    private final TransferBatchService transferBatchService;
+    private final Validator validator;
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<TransferBatchResponse> submit(@RequestBody @Valid TransferBatchRequest request) {
+        return ResponseEntity.accepted().body(transferBatchService.submit(request));
+    }
+
+    /**
+     * Пачка файлом: строка {@code <логин получателя>,<сумма>}, пустые строки и строки с {@code #} пропускаются.
+     */
+    @PostMapping(consumes = CSV_MEDIA_TYPE)
+    public ResponseEntity<?> submitCsv(@RequestParam("from_login") String fromLogin, @RequestBody String body) {
+        List<String> errors = new ArrayList<>();
+        List<TransferBatchItemRequest> transfers = parseCsv(body, errors);
+        var request = new TransferBatchRequest(fromLogin, transfers);
+        for (ConstraintViolation<TransferBatchRequest> violation : validator.validate(request)) {
+            errors.add(violation.getMessage());
+        }
+        if (!errors.isEmpty()) {
+            return ResponseEntity.ok(errors);
+        }
+        return ResponseEntity.accepted().body(transferBatchService.submit(request));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<TransferBatchResponse> get(@PathVariable UUID id) {
+        return ResponseEntity.of(transferBatchService.find(id));
+    }
+
+    static List<TransferBatchItemRequest> parseCsv(String body, List<String> errors) {
+        List<TransferBatchItemRequest> transfers = new ArrayList<>();
+        String[] lines = body == null ? new String[0] : body.split("\\R");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("[,;]");
+            if (fields.length != 2) {
+                errors.add("Строка %d: ожидается <логин>,<сумма>".formatted(i + 1));
+                continue;
+            }
+            try {
+                transfers.add(new TransferBatchItemRequest(fields[0].strip(), new BigDecimal(fields[1].strip())));
+            } catch (NumberFormatException ex) {
+                errors.add("Строка %d: некорректная сумма '%s'".formatted(i + 1, fields[1].strip()));
+            }
+        }
+        return transfers;
+    }
+}
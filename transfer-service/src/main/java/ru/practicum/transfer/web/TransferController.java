@@ -5,6 +5,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import ru.practicum.transfer.service.TransferService;
@@ -20,10 +21,13 @@ import java.util.List;
 @RequiredArgsConstructor
 public class TransferController {
 
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final TransferService transferService;
 
     @PostMapping("/transactions")
-    public ResponseEntity<List<String>> transfer(@RequestBody @Valid TransferRequest request) {
-        return ResponseEntity.ok(transferService.process(request));
+    public ResponseEntity<List<String>> transfer(@RequestBody @Valid TransferRequest request,
+                                                 @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return ResponseEntity.ok(transferService.process(request, idempotencyKey));
     }
 }
@@ -0,0 +1,25 @@
+package ru.practicum.transfer.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Пачка переводов одного отправителя (например, зарплатная ведомость).
+ */
+public record TransferBatchRequest(
+        @JsonProperty("from_login")
+        @JsonAlias("fromLogin")
+        @NotBlank(message = "from_login is required")
+        String fromLogin,
+        @NotEmpty(message = "transfers must not be empty")
+        @Size(max = TransferBatchRequest.MAX_SIZE, message = "transfers must contain at most 1000 items")
+        List<@Valid TransferBatchItemRequest> transfers
+) {
+    public static final int MAX_SIZE = 1000;
+}
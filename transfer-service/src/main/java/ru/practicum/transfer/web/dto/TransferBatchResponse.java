@@ -0,0 +1,31 @@
+package ru.practicum.transfer.web.dto;
+
+import ru.practicum.transfer.model.TransferBatchItemStatus;
+import ru.practicum.transfer.model.TransferBatchStatus;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Состояние пачки переводов: сводка по итогам и сами переводы в порядке подачи.
+ */
+public record TransferBatchResponse(
+        UUID id,
+        TransferBatchStatus status,
+        int total,
+        long done,
+        long failed,
+        long accepted,
+        List<Item> items
+) {
+
+    public record Item(
+            int position,
+            String toLogin,
+            BigDecimal value,
+            TransferBatchItemStatus status,
+            String message
+    ) {
+    }
+}
@@ -21,12 +21,15 @@ class TransferMapperTest {
 
     @Test
     void toEntityPopulatesDefaults() {
-        TransferPlan plan = new TransferPlan(UUID.randomUUID(), UUID.randomUUID(), new BigDecimal("123.45"), "RUB", "key");
+        TransferPlan plan = new TransferPlan(UUID.randomUUID(), UUID.randomUUID(), "alice", "bob",
+                new BigDecimal("123.45"), "RUB", "key");
 
         TransferEntity entity = mapper.toEntity(plan);
 
         assertThat(entity.getFromAccountId()).isEqualTo(plan.fromAccountId());
         assertThat(entity.getToAccountId()).isEqualTo(plan.toAccountId());
+        assertThat(entity.getFromLogin()).isEqualTo("alice");
+        assertThat(entity.getToLogin()).isEqualTo("bob");
         assertThat(entity.getAmount()).isEqualByComparingTo(plan.amount());
         assertThat(entity.getCurrency()).isEqualTo(plan.currency());
         assertThat(entity.getIdempotencyKey()).isEqualTo(plan.idempotencyKey());
@@ -0,0 +1,272 @@
+package ru.practicum.transfer.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.transfer.clients.AccountsClient;
+import ru.practicum.transfer.clients.BlockerClient;
+import ru.practicum.transfer.clients.dto.AccountDetails;
+import ru.practicum.transfer.clients.dto.BlockCheckRequest;
+import ru.practicum.transfer.clients.dto.BlockCheckResponse;
+import ru.practicum.transfer.model.TransferBatchEntity;
+import ru.practicum.transfer.model.TransferBatchItemEntity;
+import ru.practicum.transfer.model.TransferBatchItemStatus;
+import ru.practicum.transfer.model.TransferBatchStatus;
+import ru.practicum.transfer.model.TransferEntity;
+import ru.practicum.transfer.model.TransferStatus;
+import ru.practicum.transfer.repository.TransferBatchItemRepository;
+import ru.practicum.transfer.repository.TransferBatchRepository;
+import ru.practicum.transfer.repository.TransferRepository;
+import ru.practicum.transfer.service.dto.TransferPlan;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TransferBatchWorkerTest {
+
+    private TransferBatchRepository batchRepository;
+    private TransferBatchItemRepository itemRepository;
+    private TransferRepository transferRepository;
+    private AccountsClient accountsClient;
+    private BlockerClient blockerClient;
+    private TransferService transferService;
+    private TransferBatchWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        batchRepository = mock(TransferBatchRepository.class);
+        itemRepository = mock(TransferBatchItemRepository.class);
+        transferRepository = mock(TransferRepository.class);
+        accountsClient = mock(AccountsClient.class);
+        blockerClient = mock(BlockerClient.class);
+        transferService = mock(TransferService.class);
+        var transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        worker = new TransferBatchWorker(batchRepository, itemRepository, transferRepository, accountsClient,
+                blockerClient, transferService, new TransactionTemplate(transactionManager), 4, 1000);
+        when(blockerClient.checkAll(anyList())).thenAnswer(inv -> ((List<?>) inv.getArgument(0)).stream()
+                .map(check -> new BlockCheckResponse(true, null))
+                .toList());
+        when(transferService.applyOnce(any())).thenReturn(List.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        worker.shutdown();
+    }
+
+    @Test
+    void checksWholeBatchWithOneBlockerCallAndAppliesEachTransfer() {
+        var batch = claimedBatch(items("bob", "carol", "dave"));
+        stubAccounts(BigDecimal.valueOf(1000), "alice", "bob", "carol", "dave");
+
+        worker.processDue();
+
+        verify(blockerClient, times(1)).checkAll(anyList());
+        verify(accountsClient, times(1)).getAccountDetails(anyList());
+        ArgumentCaptor<TransferPlan> plans = ArgumentCaptor.forClass(TransferPlan.class);
+        verify(transferService, times(3)).applyOnce(plans.capture());
+        assertThat(plans.getAllValues()).extracting(TransferPlan::idempotencyKey).containsExactlyInAnyOrder(
+                "alice:batch:" + batch.getId() + ":0",
+                "alice:batch:" + batch.getId() + ":1",
+                "alice:batch:" + batch.getId() + ":2");
+        assertThat(batch.getStatus()).isEqualTo(TransferBatchStatus.DONE);
+    }
+
+    @Test
+    void rejectsUnknownRecipientsBlockedTransfersAndOverdraftWithoutCallingAccounts() {
+        var items = items("bob", "ghost", "carol", "dave");
+        claimedBatch(items);
+        stubAccounts(BigDecimal.valueOf(15), "alice", "bob", "carol", "dave");
+        when(blockerClient.checkAll(anyList())).thenReturn(List.of(
+                new BlockCheckResponse(true, null),
+                new BlockCheckResponse(false, "Лимит"),
+                new BlockCheckResponse(true, null)));
+
+        worker.processDue();
+
+        assertThat(items).extracting(TransferBatchItemEntity::getStatus).containsExactly(
+                TransferBatchItemStatus.DONE, TransferBatchItemStatus.FAILED,
+                TransferBatchItemStatus.FAILED, TransferBatchItemStatus.FAILED);
+        assertThat(items).extracting(TransferBatchItemEntity::getMessage).containsExactly(
+                null, "Пользователь 'ghost' не найден", "Лимит", "Недостаточно средств на счёте");
+        verify(transferService, times(1)).applyOnce(any());
+    }
+
+    @Test
+    void transfersWithoutAnswerFromAccountsAreAccepted() {
+        var items = items("bob");
+        claimedBatch(items);
+        stubAccounts(BigDecimal.valueOf(100), "alice", "bob");
+        when(transferService.applyOnce(any())).thenReturn(List.of(TransferService.ACCEPTED_MESSAGE));
+
+        worker.processDue();
+
+        assertThat(items.getFirst().getStatus()).isEqualTo(TransferBatchItemStatus.ACCEPTED);
+    }
+
+    @Test
+    void appliesAtMostParallelismTransfersAtOnce() {
+        var recipients = new ArrayList<String>();
+        for (int i = 0; i < 20; i++) {
+            recipients.add("user" + i);
+        }
+        claimedBatch(items(recipients.toArray(String[]::new)));
+        recipients.add("alice");
+        stubAccounts(BigDecimal.valueOf(1000), recipients.toArray(String[]::new));
+        var running = new AtomicInteger();
+        var maxRunning = new AtomicInteger();
+        when(transferService.applyOnce(any())).thenAnswer(inv -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            running.decrementAndGet();
+            return List.of();
+        });
+
+        worker.processDue();
+
+        verify(transferService, times(20)).applyOnce(any());
+        assertThat(maxRunning.get()).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void unexpectedFailureLeavesBatchForNextLease() {
+        var batch = claimedBatch(items("bob"));
+        stubAccounts(BigDecimal.valueOf(100), "alice", "bob");
+        when(transferService.applyOnce(any())).thenThrow(new IllegalStateException("boom"));
+
+        worker.processDue();
+
+        assertThat(batch.getStatus()).isEqualTo(TransferBatchStatus.RUNNING);
+        assertThat(batch.getNextAttemptAt()).isNotNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void resumedBatchTakesRecordedTransfersWithoutCheckingThemAgain() {
+        var items = items("bob", "carol", "dave");
+        var batch = claimedBatch(items);
+        stubAccounts(BigDecimal.valueOf(1000), "alice", "bob", "carol", "dave");
+        recorded(transfer(batch, items.get(0), TransferStatus.DONE), transfer(batch, items.get(1), TransferStatus.FAILED));
+
+        worker.processDue();
+
+        assertThat(items).extracting(TransferBatchItemEntity::getStatus).containsExactly(
+                TransferBatchItemStatus.DONE, TransferBatchItemStatus.FAILED, TransferBatchItemStatus.DONE);
+        ArgumentCaptor<List<BlockCheckRequest>> checks = ArgumentCaptor.forClass(List.class);
+        verify(blockerClient).checkAll(checks.capture());
+        assertThat(checks.getValue()).extracting(BlockCheckRequest::toLogin).containsExactly("dave");
+        verify(transferService, times(1)).applyOnce(any());
+        assertThat(batch.getStatus()).isEqualTo(TransferBatchStatus.DONE);
+    }
+
+    @Test
+    void acceptedTransfersKeepBatchRunningUntilRecoveryFinishesThem() {
+        var items = items("bob");
+        var batch = claimedBatch(items);
+        stubAccounts(BigDecimal.valueOf(100), "alice", "bob");
+        when(transferService.applyOnce(any())).thenReturn(List.of(TransferService.ACCEPTED_MESSAGE));
+
+        var before = OffsetDateTime.now();
+        worker.processDue();
+
+        assertThat(items.getFirst().getStatus()).isEqualTo(TransferBatchItemStatus.ACCEPTED);
+        assertThat(batch.getStatus()).isEqualTo(TransferBatchStatus.RUNNING);
+        assertThat(batch.getNextAttemptAt()).isAfterOrEqualTo(before.plus(TransferBatchWorker.ACCEPTED_RECHECK_DELAY))
+                .isBefore(before.plus(TransferBatchWorker.LEASE));
+
+        recorded(transfer(batch, items.getFirst(), TransferStatus.DONE));
+        worker.processDue();
+
+        assertThat(items.getFirst().getStatus()).isEqualTo(TransferBatchItemStatus.DONE);
+        assertThat(batch.getStatus()).isEqualTo(TransferBatchStatus.DONE);
+        verify(accountsClient, times(1)).getAccountDetails(anyList());
+        verify(transferService, times(1)).applyOnce(any());
+    }
+
+    @Test
+    void accountsErrorRetriesBatchBeforeLeaseExpires() {
+        var batch = claimedBatch(items("bob"));
+        when(accountsClient.getAccountDetails(anyList()))
+                .thenThrow(new AccountsClient.AccountsClientException("down", new RuntimeException()));
+
+        var before = OffsetDateTime.now();
+        worker.processDue();
+
+        assertThat(batch.getStatus()).isEqualTo(TransferBatchStatus.RUNNING);
+        assertThat(batch.getNextAttemptAt()).isAfterOrEqualTo(before.plus(TransferBatchWorker.LOOKUP_RETRY_DELAY))
+                .isBefore(before.plus(TransferBatchWorker.LEASE));
+        verifyNoInteractions(transferService);
+    }
+
+    private TransferBatchEntity claimedBatch(List<TransferBatchItemEntity> items) {
+        var batch = new TransferBatchEntity();
+        batch.setId(UUID.randomUUID());
+        batch.setFromLogin("alice");
+        batch.setTotal(items.size());
+        items.forEach(item -> item.setBatchId(batch.getId()));
+        when(batchRepository.lockDue(any(), any(), any())).thenReturn(List.of(batch));
+        when(itemRepository.findByBatchIdAndStatusInOrderByPosition(eq(batch.getId()), any()))
+                .thenReturn(items);
+        return batch;
+    }
+
+    private void recorded(TransferEntity... transfers) {
+        when(transferRepository.findByIdempotencyKeyIn(anyList())).thenReturn(List.of(transfers));
+    }
+
+    private static TransferEntity transfer(TransferBatchEntity batch, TransferBatchItemEntity item, TransferStatus status) {
+        var transfer = new TransferEntity();
+        transfer.setId(UUID.randomUUID());
+        transfer.setIdempotencyKey(TransferBatchWorker.idempotencyKey(batch, item));
+        transfer.setStatus(status);
+        return transfer;
+    }
+
+    private List<TransferBatchItemEntity> items(String... recipients) {
+        List<TransferBatchItemEntity> items = new ArrayList<>();
+        for (int i = 0; i < recipients.length; i++) {
+            var item = new TransferBatchItemEntity();
+            item.setPosition(i);
+            item.setToLogin(recipients[i]);
+            item.setAmount(BigDecimal.TEN);
+            items.add(item);
+        }
+        return items;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubAccounts(BigDecimal senderBalance, String... logins) {
+        Map<String, AccountDetails> byLogin = new HashMap<>();
+        for (String login : logins) {
+            BigDecimal balance = login.equals("alice") ? senderBalance : BigDecimal.ZERO;
+            byLogin.put(login, new AccountDetails(UUID.randomUUID(), UUID.randomUUID(), login, "ACC-" + login, "RUB", balance));
+        }
+        when(accountsClient.getAccountDetails(anyList())).thenAnswer(inv -> {
+            Map<String, AccountDetails> found = new HashMap<>();
+            for (String login : (Collection<String>) inv.getArgument(0)) {
+                if (byLogin.containsKey(login)) {
+                    found.put(login, byLogin.get(login));
+                }
+            }
+            return found;
+        });
+    }
+}
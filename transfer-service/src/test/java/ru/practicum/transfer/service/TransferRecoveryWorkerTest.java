@@ -0,0 +1,126 @@
+package ru.practicum.transfer.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.transfer.clients.AccountsClient;
+import ru.practicum.transfer.clients.dto.AccountTransferCommand;
+import ru.practicum.transfer.model.TransferEntity;
+import ru.practicum.transfer.model.TransferStatus;
+import ru.practicum.transfer.repository.TransferRepository;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TransferRecoveryWorkerTest {
+
+    private TransferRepository repository;
+    private AccountsClient accountsClient;
+    private NotificationOutbox notificationOutbox;
+    private TransferRecoveryWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(TransferRepository.class);
+        accountsClient = mock(AccountsClient.class);
+        notificationOutbox = mock(NotificationOutbox.class);
+        var transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        var transactionTemplate = new TransactionTemplate(transactionManager);
+        var completion = new TransferCompletion(repository, notificationOutbox, transactionTemplate);
+        worker = new TransferRecoveryWorker(repository, accountsClient, completion, transactionTemplate, 20, 3);
+        when(repository.save(any(TransferEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    void resendsStuckTransferWithSameIdAndMarksItDone() {
+        var transfer = pending();
+        when(repository.lockDue(eq(TransferStatus.PENDING), any(), any())).thenReturn(List.of(transfer));
+
+        int finished = worker.recoverPending();
+
+        assertThat(finished).isEqualTo(1);
+        ArgumentCaptor<AccountTransferCommand> command = ArgumentCaptor.forClass(AccountTransferCommand.class);
+        verify(accountsClient).transfer(command.capture());
+        assertThat(command.getValue().transferId()).isEqualTo(transfer.getId());
+        assertThat(transfer.getStatus()).isEqualTo(TransferStatus.DONE);
+        assertThat(transfer.getAttempts()).isEqualTo(1);
+        assertThat(transfer.getNextAttemptAt()).isNull();
+        verify(notificationOutbox).enqueueTransferOut("alice", "bob", transfer.getAmount(), "RUB");
+        verify(notificationOutbox).enqueueTransferIn("bob", "alice", transfer.getAmount(), "RUB");
+    }
+
+    @Test
+    void keepsTransferPendingWithBackoffWhileAccountsAreUnavailable() {
+        var transfer = pending();
+        when(repository.lockDue(eq(TransferStatus.PENDING), any(), any())).thenReturn(List.of(transfer));
+        doThrow(new AccountsClient.AccountsUnavailableException("down", new RuntimeException()))
+                .when(accountsClient).transfer(any());
+        var before = OffsetDateTime.now();
+
+        int finished = worker.recoverPending();
+
+        assertThat(finished).isZero();
+        assertThat(transfer.getStatus()).isEqualTo(TransferStatus.PENDING);
+        assertThat(transfer.getAttempts()).isEqualTo(1);
+        assertThat(transfer.getNextAttemptAt()).isAfterOrEqualTo(before.plus(TransferRecoveryWorker.backoff(1)));
+        verify(repository, never()).save(any());
+        verifyNoInteractions(notificationOutbox);
+    }
+
+    @Test
+    void marksFailedWhenAccountsRejectTransfer() {
+        var transfer = pending();
+        when(repository.lockDue(eq(TransferStatus.PENDING), any(), any())).thenReturn(List.of(transfer));
+        doThrow(new AccountsClient.AccountsClientException("Insufficient funds", new RuntimeException()))
+                .when(accountsClient).transfer(any());
+
+        worker.recoverPending();
+
+        assertThat(transfer.getStatus()).isEqualTo(TransferStatus.FAILED);
+        verifyNoInteractions(notificationOutbox);
+    }
+
+    @Test
+    void skipsTransferFinishedConcurrently() {
+        var transfer = pending();
+        when(repository.lockDue(eq(TransferStatus.PENDING), any(), any())).thenReturn(List.of(transfer));
+        when(repository.save(any(TransferEntity.class))).thenThrow(new OptimisticLockingFailureException("stale"));
+
+        int finished = worker.recoverPending();
+
+        assertThat(finished).isZero();
+    }
+
+    @Test
+    void backoffGrowsUpToFiveMinutes() {
+        assertThat(TransferRecoveryWorker.backoff(1)).isEqualTo(Duration.ofSeconds(30));
+        assertThat(TransferRecoveryWorker.backoff(2)).isEqualTo(Duration.ofSeconds(60));
+        assertThat(TransferRecoveryWorker.backoff(20)).isEqualTo(Duration.ofMinutes(5));
+    }
+
+    private TransferEntity pending() {
+        var transfer = new TransferEntity();
+        transfer.setId(UUID.randomUUID());
+        transfer.setFromAccountId(UUID.randomUUID());
+        transfer.setToAccountId(UUID.randomUUID());
+        transfer.setFromLogin("alice");
+        transfer.setToLogin("bob");
+        transfer.setAmount(new BigDecimal("150.00"));
+        transfer.setCurrency("RUB");
+        transfer.setNextAttemptAt(OffsetDateTime.now().minusSeconds(1));
+        return transfer;
+    }
+}
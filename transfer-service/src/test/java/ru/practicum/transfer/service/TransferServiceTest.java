@@ -1,106 +1,313 @@
 package ru.practicum.transfer.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.idempotency.IdempotencyCache;
 import ru.practicum.transfer.clients.AccountsClient;
-import ru.practicum.transfer.clients.NotificationsClient;
 import ru.practicum.transfer.clients.BlockerClient;
 import ru.practicum.transfer.clients.dto.AccountDetails;
-import ru.practicum.transfer.clients.dto.BalanceAdjustmentCommand;
+import ru.practicum.transfer.clients.dto.AccountTransferCommand;
+import ru.practicum.transfer.clients.dto.AccountTransferResult;
 import ru.practicum.transfer.clients.dto.BlockCheckResponse;
 import ru.practicum.transfer.mapper.TransferMapper;
 import ru.practicum.transfer.mapper.TransferMapperImpl;
-import ru.practicum.transfer.model.OperationType;
 import ru.practicum.transfer.model.TransferEntity;
 import ru.practicum.transfer.model.TransferStatus;
 import ru.practicum.transfer.repository.TransferRepository;
 import ru.practicum.transfer.web.dto.TransferRequest;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 class TransferServiceTest {
 
     private TransferRepository repository;
     private AccountsClient accountsClient;
-    private NotificationsClient notificationsClient;
+    private NotificationOutbox notificationOutbox;
     private BlockerClient blockerClient;
     private TransferService service;
+    private final AtomicBoolean inTransaction = new AtomicBoolean();
 
     @BeforeEach
     void setUp() {
         repository = mock(TransferRepository.class);
         accountsClient = mock(AccountsClient.class);
-        notificationsClient = mock(NotificationsClient.class);
+        notificationOutbox = mock(NotificationOutbox.class);
         blockerClient = mock(BlockerClient.class);
         TransferMapper mapper = new TransferMapperImpl();
-        service = new TransferService(repository, accountsClient, notificationsClient, blockerClient, mapper);
+        var idempotencyCache = new IdempotencyCache(new SimpleMeterRegistry(), Duration.ofMinutes(10), 100);
+        var transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> {
+            inTransaction.set(true);
+            return new SimpleTransactionStatus();
+        });
+        doAnswer(inv -> {
+            inTransaction.set(false);
+            return null;
+        }).when(transactionManager).commit(any());
+        var transactionTemplate = new TransactionTemplate(transactionManager);
+        var validator = new TransferValidator(accountsClient, blockerClient);
+        var completion = new TransferCompletion(repository, notificationOutbox, transactionTemplate);
+        service = new TransferService(repository, accountsClient, completion, validator, mapper,
+                idempotencyCache, transactionTemplate);
 
         when(repository.save(any(TransferEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(repository.saveAndFlush(any(TransferEntity.class))).thenAnswer(inv -> withId(inv.getArgument(0)));
+        when(repository.findByIdempotencyKey(any())).thenReturn(Optional.empty());
         when(blockerClient.check(any())).thenReturn(new BlockCheckResponse(true, null));
     }
 
     @Test
     void transfersMoneySuccessfully() {
-        when(accountsClient.getAccountDetails("alice")).thenReturn(details("alice", BigDecimal.valueOf(500)));
-        when(accountsClient.getAccountDetails("bob")).thenReturn(details("bob", BigDecimal.valueOf(100)));
-        when(accountsClient.adjustBalance(eq("alice"), any(BalanceAdjustmentCommand.class))).thenReturn(details("alice", BigDecimal.valueOf(350)));
-        when(accountsClient.adjustBalance(eq("bob"), any(BalanceAdjustmentCommand.class))).thenReturn(details("bob", BigDecimal.valueOf(250)));
+        AccountDetails alice = details("alice", BigDecimal.valueOf(500));
+        AccountDetails bob = details("bob", BigDecimal.valueOf(100));
+        when(accountsClient.getAccountDetails(List.of("alice", "bob"))).thenReturn(Map.of("alice", alice, "bob", bob));
+        when(accountsClient.transfer(any(AccountTransferCommand.class))).thenReturn(new AccountTransferResult(
+                details("alice", BigDecimal.valueOf(350)), details("bob", BigDecimal.valueOf(250))));
 
         var result = service.process(new TransferRequest("alice", "bob", BigDecimal.valueOf(150)));
 
         assertThat(result).isEmpty();
-        verify(accountsClient).adjustBalance(eq("alice"), any(BalanceAdjustmentCommand.class));
-        verify(accountsClient).adjustBalance(eq("bob"), any(BalanceAdjustmentCommand.class));
-        verify(notificationsClient).sendTransferOut("alice", "bob", new BigDecimal("150.00"), "RUB");
-        verify(notificationsClient).sendTransferIn("bob", "alice", new BigDecimal("150.00"), "RUB");
+        ArgumentCaptor<AccountTransferCommand> command = ArgumentCaptor.forClass(AccountTransferCommand.class);
+        verify(accountsClient).transfer(command.capture());
+        assertThat(command.getValue().fromBankAccountId()).isEqualTo(alice.bankAccountId());
+        assertThat(command.getValue().toBankAccountId()).isEqualTo(bob.bankAccountId());
+        assertThat(command.getValue().amount()).isEqualByComparingTo("150.00");
+        assertThat(command.getValue().transferId()).isNotNull();
+        verify(notificationOutbox).enqueueTransferOut("alice", "bob", new BigDecimal("150.00"), "RUB");
+        verify(notificationOutbox).enqueueTransferIn("bob", "alice", new BigDecimal("150.00"), "RUB");
 
         ArgumentCaptor<TransferEntity> captor = ArgumentCaptor.forClass(TransferEntity.class);
         verify(repository, atLeastOnce()).save(captor.capture());
         assertThat(captor.getValue().getStatus()).isEqualTo(TransferStatus.DONE);
     }
 
+    @Test
+    void remoteCallsRunOutsideTransactions() {
+        AccountDetails alice = details("alice", BigDecimal.valueOf(500));
+        AccountDetails bob = details("bob", BigDecimal.valueOf(100));
+        List<String> trace = Collections.synchronizedList(new ArrayList<>());
+        when(blockerClient.check(any())).thenAnswer(inv -> {
+            trace.add("blocker tx=" + inTransaction.get());
+            return new BlockCheckResponse(true, null);
+        });
+        when(accountsClient.getAccountDetails(anyList())).thenAnswer(inv -> {
+            trace.add("lookup tx=" + inTransaction.get());
+            return Map.of("alice", alice, "bob", bob);
+        });
+        when(repository.saveAndFlush(any(TransferEntity.class))).thenAnswer(inv -> {
+            trace.add("pending tx=" + inTransaction.get());
+            return withId(inv.getArgument(0));
+        });
+        when(accountsClient.transfer(any(AccountTransferCommand.class))).thenAnswer(inv -> {
+            trace.add("transfer tx=" + inTransaction.get());
+            return null;
+        });
+        when(repository.save(any(TransferEntity.class))).thenAnswer(inv -> {
+            trace.add("outcome tx=" + inTransaction.get());
+            return inv.getArgument(0);
+        });
+
+        var result = service.process(new TransferRequest("alice", "bob", BigDecimal.valueOf(150)));
+
+        assertThat(result).isEmpty();
+        assertThat(trace).containsExactlyInAnyOrder(
+                "blocker tx=false", "lookup tx=false", "pending tx=true", "transfer tx=false", "outcome tx=true");
+        assertThat(trace.subList(2, 5)).containsExactly("pending tx=true", "transfer tx=false", "outcome tx=true");
+    }
+
     @Test
     void failsWhenInsufficientFunds() {
-        when(accountsClient.getAccountDetails("alice")).thenReturn(details("alice", BigDecimal.valueOf(50)));
-        when(accountsClient.getAccountDetails("bob")).thenReturn(details("bob", BigDecimal.valueOf(10)));
+        stubAccounts(details("alice", BigDecimal.valueOf(50)), details("bob", BigDecimal.valueOf(10)));
 
         var result = service.process(new TransferRequest("alice", "bob", BigDecimal.valueOf(100)));
 
         assertThat(result).anyMatch(err -> err.contains("Недостаточно средств"));
-        verify(accountsClient, never()).adjustBalance(any(), any());
-        verify(repository, never()).save(any(TransferEntity.class));
+        verify(accountsClient, never()).transfer(any());
+        verify(repository, never()).saveAndFlush(any(TransferEntity.class));
     }
 
     @Test
-    void rollsBackWhenDepositFails() {
-        when(accountsClient.getAccountDetails("alice")).thenReturn(details("alice", BigDecimal.valueOf(500)));
-        when(accountsClient.getAccountDetails("bob")).thenReturn(details("bob", BigDecimal.valueOf(100)));
-        when(accountsClient.adjustBalance(eq("alice"), any(BalanceAdjustmentCommand.class)))
-                .thenReturn(details("alice", BigDecimal.valueOf(350)));
+    void marksFailedWithoutCompensationWhenAccountsRejectTransfer() {
+        stubAccounts(details("alice", BigDecimal.valueOf(500)), details("bob", BigDecimal.valueOf(100)));
         doThrow(new AccountsClient.AccountsClientException("boom", new RuntimeException()))
-                .when(accountsClient).adjustBalance(eq("bob"), any(BalanceAdjustmentCommand.class));
+                .when(accountsClient).transfer(any(AccountTransferCommand.class));
+
+        var result = service.process(new TransferRequest("alice", "bob", BigDecimal.valueOf(150)));
+
+        assertThat(result).containsExactly("boom");
+        ArgumentCaptor<TransferEntity> captor = ArgumentCaptor.forClass(TransferEntity.class);
+        verify(repository, atLeastOnce()).save(captor.capture());
+        assertThat(captor.getValue().getStatus()).isEqualTo(TransferStatus.FAILED);
+        verifyNoInteractions(notificationOutbox);
+    }
+
+    @Test
+    void leavesTransferForRecoveryWhenAccountsDoNotAnswer() {
+        stubAccounts(details("alice", BigDecimal.valueOf(500)), details("bob", BigDecimal.valueOf(100)));
+        doThrow(new AccountsClient.AccountsUnavailableException("Сервис аккаунтов недоступен", new RuntimeException()))
+                .when(accountsClient).transfer(any(AccountTransferCommand.class));
 
         var result = service.process(new TransferRequest("alice", "bob", BigDecimal.valueOf(150)));
 
-        assertThat(result).isNotEmpty();
-        verify(accountsClient, times(2)).adjustBalance(eq("alice"), any(BalanceAdjustmentCommand.class)); // withdraw + rollback
-        verify(repository, atLeastOnce()).save(any(TransferEntity.class));
+        assertThat(result).containsExactly(TransferService.ACCEPTED_MESSAGE);
+        ArgumentCaptor<TransferEntity> captor = ArgumentCaptor.forClass(TransferEntity.class);
+        verify(repository).saveAndFlush(captor.capture());
+        assertThat(captor.getValue().getStatus()).isEqualTo(TransferStatus.PENDING);
+        assertThat(captor.getValue().getNextAttemptAt()).isNotNull();
+        assertThat(captor.getValue().getFromLogin()).isEqualTo("alice");
+        verify(repository, never()).save(any());
+        verifyNoInteractions(notificationOutbox);
+    }
+
+    @Test
+    void failsWhenReceiverIsUnknown() {
+        stubAccounts(details("alice", BigDecimal.valueOf(500)));
+
+        var result = service.process(new TransferRequest("alice", "ghost", BigDecimal.valueOf(10)));
+
+        assertThat(result).containsExactly("Пользователь 'ghost' не найден");
+        verify(accountsClient, never()).transfer(any());
     }
 
     @Test
     void blocksWhenBlockerDenies() {
+        stubAccounts(details("alice", BigDecimal.valueOf(500)), details("bob", BigDecimal.valueOf(100)));
         when(blockerClient.check(any())).thenReturn(new BlockCheckResponse(false, "blocked"));
 
         var result = service.process(new TransferRequest("alice", "bob", BigDecimal.valueOf(10)));
 
         assertThat(result).contains("blocked");
-        verifyNoInteractions(accountsClient);
+        verify(accountsClient, never()).transfer(any());
+        verify(repository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void replayWithSameKeyDoesNotRepeatTransfer() {
+        stubAccounts(details("alice", BigDecimal.valueOf(500)), details("bob", BigDecimal.valueOf(100)));
+        var request = new TransferRequest("alice", "bob", BigDecimal.valueOf(150));
+
+        var first = service.process(request, "key-1");
+        var replay = service.process(request, "key-1");
+
+        assertThat(first).isEmpty();
+        assertThat(replay).isEqualTo(first);
+        verify(blockerClient, times(1)).check(any());
+        verify(accountsClient, times(1)).transfer(any());
+        verify(notificationOutbox, times(1)).enqueueTransferOut(any(), any(), any(), any());
+
+        ArgumentCaptor<TransferEntity> captor = ArgumentCaptor.forClass(TransferEntity.class);
+        verify(repository).saveAndFlush(captor.capture());
+        assertThat(captor.getValue().getIdempotencyKey()).isEqualTo("alice:key-1");
+    }
+
+    @Test
+    void replayIsAnsweredFromStoredTransfer() {
+        stored("alice:key-1", "bob", "150.0000", TransferStatus.DONE);
+
+        var result = service.process(new TransferRequest("alice", "bob", BigDecimal.valueOf(150)), "key-1");
+
+        assertThat(result).isEmpty();
+        verifyNoInteractions(blockerClient, accountsClient, notificationOutbox);
+    }
+
+    @Test
+    void rejectsSameKeyForDifferentTransfer() {
+        stubAccounts(details("alice", BigDecimal.valueOf(500)), details("bob", BigDecimal.valueOf(100)));
+        service.process(new TransferRequest("alice", "bob", BigDecimal.valueOf(150)), "key-1");
+
+        var result = service.process(new TransferRequest("alice", "bob", BigDecimal.valueOf(200)), "key-1");
+
+        assertThat(result).containsExactly(TransferService.KEY_REUSED_MESSAGE);
+        verify(accountsClient, times(1)).transfer(any());
+    }
+
+    @Test
+    void rejectsSameKeyForDifferentStoredTransfer() {
+        stored("alice:key-1", "carol", "150.0000", TransferStatus.DONE);
+
+        var result = service.process(new TransferRequest("alice", "bob", BigDecimal.valueOf(150)), "key-1");
+
+        assertThat(result).containsExactly(TransferService.KEY_REUSED_MESSAGE);
+        verifyNoInteractions(blockerClient, accountsClient, notificationOutbox);
+    }
+
+    @Test
+    void acceptedTransferIsNotAnsweredFromMemoryOnceFinished() {
+        stubAccounts(details("alice", BigDecimal.valueOf(500)), details("bob", BigDecimal.valueOf(100)));
+        when(accountsClient.transfer(any()))
+                .thenThrow(new AccountsClient.AccountsUnavailableException("timeout", new RuntimeException()));
+        var request = new TransferRequest("alice", "bob", BigDecimal.valueOf(150));
+
+        var first = service.process(request, "key-1");
+        stored("alice:key-1", "bob", "150.0000", TransferStatus.DONE);
+        var replay = service.process(request, "key-1");
+
+        assertThat(first).containsExactly(TransferService.ACCEPTED_MESSAGE);
+        assertThat(replay).isEmpty();
+        verify(accountsClient, times(1)).transfer(any());
+    }
+
+    private void stored(String key, String toLogin, String amount, TransferStatus status) {
+        var stored = new TransferEntity();
+        stored.setIdempotencyKey(key);
+        stored.setToLogin(toLogin);
+        stored.setAmount(new BigDecimal(amount));
+        stored.setStatus(status);
+        when(repository.findByIdempotencyKey(key)).thenReturn(Optional.of(stored));
+    }
+
+    @Test
+    void requestsWithoutKeyAreNotDeduplicated() {
+        stubAccounts(details("alice", BigDecimal.valueOf(500)), details("bob", BigDecimal.valueOf(100)));
+        var request = new TransferRequest("alice", "bob", BigDecimal.valueOf(150));
+
+        service.process(request);
+        service.process(request);
+
+        verify(accountsClient, times(2)).transfer(any());
+        verify(repository, never()).findByIdempotencyKey(any());
+    }
+
+    @Test
+    void rejectsTooLongKey() {
+        var result = service.process(new TransferRequest("alice", "bob", BigDecimal.TEN), "k".repeat(65));
+
+        assertThat(result).containsExactly("Idempotency-Key не должен быть длиннее 64 символов");
+        verifyNoInteractions(blockerClient, accountsClient);
+    }
+
+    private static TransferEntity withId(TransferEntity entity) {
+        if (entity.getId() == null) {
+            entity.setId(UUID.randomUUID());
+        }
+        return entity;
+    }
+
+    private void stubAccounts(AccountDetails... accounts) {
+        Map<String, AccountDetails> byLogin = new HashMap<>();
+        for (AccountDetails account : accounts) {
+            byLogin.put(account.login(), account);
+        }
+        when(accountsClient.getAccountDetails(anyList())).thenReturn(byLogin);
     }
 
     private AccountDetails details(String login, BigDecimal balance) {
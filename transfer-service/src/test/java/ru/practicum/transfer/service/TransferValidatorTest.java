@@ -0,0 +1,116 @@
+package ru.practicum.transfer.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import ru.practicum.transfer.clients.AccountsClient;
+import ru.practicum.transfer.clients.BlockerClient;
+import ru.practicum.transfer.clients.dto.AccountDetails;
+import ru.practicum.transfer.clients.dto.BlockCheckRequest;
+import ru.practicum.transfer.clients.dto.BlockCheckResponse;
+import ru.practicum.transfer.web.dto.TransferRequest;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class TransferValidatorTest {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("100.00");
+
+    private AccountsClient accountsClient;
+    private BlockerClient blockerClient;
+    private TransferValidator validator;
+
+    @BeforeEach
+    void setUp() {
+        accountsClient = mock(AccountsClient.class);
+        blockerClient = mock(BlockerClient.class);
+        validator = new TransferValidator(accountsClient, blockerClient);
+    }
+
+    @Test
+    void checksBlockerWithSenderAccountCurrency() {
+        when(blockerClient.check(any())).thenReturn(new BlockCheckResponse(true, null));
+        when(accountsClient.getAccountDetails(anyList()))
+                .thenReturn(Map.of("alice", details("alice", 500, "USD"), "bob", details("bob", 0, "RUB")));
+
+        var result = validator.validate(request(), AMOUNT);
+
+        assertThat(result.isRejected()).isFalse();
+        assertThat(result.fromAccount().login()).isEqualTo("alice");
+        assertThat(result.toAccount().login()).isEqualTo("bob");
+        ArgumentCaptor<BlockCheckRequest> check = ArgumentCaptor.forClass(BlockCheckRequest.class);
+        verify(blockerClient).check(check.capture());
+        assertThat(check.getValue().currency()).isEqualTo("USD");
+        assertThat(check.getValue().amount()).isEqualByComparingTo(AMOUNT);
+    }
+
+    @Test
+    void checksBlockerWithRoundedAmount() {
+        when(blockerClient.check(any())).thenReturn(new BlockCheckResponse(true, null));
+        when(accountsClient.getAccountDetails(anyList()))
+                .thenReturn(Map.of("alice", details("alice", 500), "bob", details("bob", 0)));
+
+        var result = validator.validate(new TransferRequest("alice", "bob", new BigDecimal("100.005")), new BigDecimal("100.01"));
+
+        assertThat(result.isRejected()).isFalse();
+        ArgumentCaptor<BlockCheckRequest> check = ArgumentCaptor.forClass(BlockCheckRequest.class);
+        verify(blockerClient).check(check.capture());
+        assertThat(check.getValue().amount()).isEqualTo(new BigDecimal("100.01"));
+    }
+
+    @Test
+    void returnsBlockerRejection() {
+        when(blockerClient.check(any())).thenReturn(new BlockCheckResponse(false, "blocked"));
+        when(accountsClient.getAccountDetails(anyList()))
+                .thenReturn(Map.of("alice", details("alice", 500), "bob", details("bob", 0)));
+
+        var result = validator.validate(request(), AMOUNT);
+
+        assertThat(result.errors()).containsExactly("blocked");
+    }
+
+    @Test
+    void insufficientFundsSkipsBlocker() {
+        when(accountsClient.getAccountDetails(anyList()))
+                .thenReturn(Map.of("alice", details("alice", 10), "bob", details("bob", 0)));
+
+        var result = validator.validate(request(), AMOUNT);
+
+        assertThat(result.errors()).containsExactly("Недостаточно средств на счёте");
+        verifyNoInteractions(blockerClient);
+    }
+
+    @Test
+    void propagatesAccountsError() {
+        when(blockerClient.check(any())).thenReturn(new BlockCheckResponse(true, null));
+        when(accountsClient.getAccountDetails(anyList()))
+                .thenThrow(new AccountsClient.AccountsClientException("Сервис аккаунтов недоступен", new RuntimeException()));
+
+        assertThatThrownBy(() -> validator.validate(request(), AMOUNT))
+                .isInstanceOf(AccountsClient.AccountsClientException.class)
+                .hasMessage("Сервис аккаунтов недоступен");
+    }
+
+    private static TransferRequest request() {
+        return new TransferRequest("alice", "bob", AMOUNT);
+    }
+
+    private static AccountDetails details(String login, long balance) {
+        return details(login, balance, "RUB");
+    }
+
+    private static AccountDetails details(String login, long balance, String currency) {
+        return new AccountDetails(UUID.randomUUID(), UUID.randomUUID(), login, "ACC-" + login, currency, BigDecimal.valueOf(balance));
+    }
+}
@@ -0,0 +1,103 @@
+package ru.practicum.transfer.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.transfer.model.TransferBatchStatus;
+import ru.practicum.transfer.service.TransferBatchService;
+import ru.practicum.transfer.web.dto.TransferBatchRequest;
+import ru.practicum.transfer.web.dto.TransferBatchResponse;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(TransferBatchController.class)
+@AutoConfigureMockMvc(addFilters = false)
+class TransferBatchControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @MockBean
+    TransferBatchService transferBatchService;
+
+    @Test
+    void acceptsJsonBatch() throws Exception {
+        UUID id = UUID.randomUUID();
+        when(transferBatchService.submit(any())).thenReturn(
+                new TransferBatchResponse(id, TransferBatchStatus.QUEUED, 2, 0, 0, 0, List.of()));
+
+        Map<String, Object> payload = Map.of(
+                "from_login", "alice",
+                "transfers", List.of(
+                        Map.of("to_login", "bob", "value", new BigDecimal("100.00")),
+                        Map.of("to_login", "carol", "value", new BigDecimal("50.00"))));
+
+        mockMvc.perform(post("/api/transfer/batches")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsBytes(payload)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").value(id.toString()))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+    }
+
+    @Test
+    void acceptsCsvBatch() throws Exception {
+        when(transferBatchService.submit(any())).thenReturn(
+                new TransferBatchResponse(UUID.randomUUID(), TransferBatchStatus.QUEUED, 2, 0, 0, 0, List.of()));
+
+        mockMvc.perform(post("/api/transfer/batches")
+                        .param("from_login", "alice")
+                        .contentType("text/csv")
+                        .content("# получатель,сумма\nbob,100.00\n\ncarol;50\n"))
+                .andExpect(status().isAccepted());
+
+        ArgumentCaptor<TransferBatchRequest> captor = ArgumentCaptor.forClass(TransferBatchRequest.class);
+        verify(transferBatchService).submit(captor.capture());
+        assertThat(captor.getValue().fromLogin()).isEqualTo("alice");
+        assertThat(captor.getValue().transfers()).extracting("toLogin").containsExactly("bob", "carol");
+    }
+
+    @Test
+    void reportsMalformedCsvLines() throws Exception {
+        mockMvc.perform(post("/api/transfer/batches")
+                        .param("from_login", "alice")
+                        .contentType("text/csv")
+                        .content("bob,100\ncarol\ndave,abc\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[\"Строка 2: ожидается <логин>,<сумма>\",\"Строка 3: некорректная сумма 'abc'\"]"));
+
+        verify(transferBatchService, never()).submit(any());
+    }
+
+    @Test
+    void returnsNotFoundForUnknownBatch() throws Exception {
+        when(transferBatchService.find(any())).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/transfer/batches/{id}", UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -15,6 +15,7 @@ import java.util.List;
 import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
@@ -35,7 +36,7 @@ class TransferControllerTest {
 
     @Test
     void returnsServiceResponse() throws Exception {
-        when(transferService.process(org.mockito.ArgumentMatchers.any())).thenReturn(List.of());
+        when(transferService.process(any(), eq("key-1"))).thenReturn(List.of());
 
         Map<String, Object> payload = Map.of(
                 "fromLogin", "alice",
@@ -44,6 +45,7 @@ class TransferControllerTest {
         );
 
         mockMvc.perform(post("/api/transfer/transactions")
+                        .header("Idempotency-Key", "key-1")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsBytes(payload)))
                 .andExpect(status().isOk())